@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.index;
+
+import static org.apache.solr.bench.Docs.docs;
+import static org.apache.solr.bench.generators.SourceDSL.integers;
+import static org.apache.solr.bench.generators.SourceDSL.longs;
+import static org.apache.solr.bench.generators.SourceDSL.strings;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.solr.bench.MiniClusterState;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.handler.loader.JavabinLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Timeout;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Bulk javabin indexing with and without {@link JavabinLoader#ZERO_COPY}. The mini cluster runs in
+ * the benchmark JVM, so run with {@code -prof gc} to compare the server side allocation rate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(2)
+@Warmup(time = 10, iterations = 3)
+@Measurement(time = 20, iterations = 4)
+@Fork(value = 1)
+@Timeout(time = 60)
+public class JavabinBulkIndexing {
+
+  @State(Scope.Benchmark)
+  public static class BenchState {
+
+    static final String COLLECTION = "testCollection";
+
+    @Param({"true", "false"})
+    boolean zeroCopy;
+
+    @Param({"100", "1000"})
+    int batchSize;
+
+    private final org.apache.solr.bench.Docs docs;
+    private Iterator<SolrInputDocument> docIterator;
+
+    public BenchState() {
+      docs =
+          docs()
+              .field("id", integers().incrementing())
+              .field(strings().basicLatinAlphabet().ofLengthBetween(8, 16))
+              .field(strings().basicLatinAlphabet().ofLengthBetween(16, 64))
+              .field(strings().basicLatinAlphabet().multi(20).ofLengthBetween(4, 12))
+              .field(integers().all())
+              .field(longs().all());
+      try {
+        docIterator = docs.preGenerate(50000);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(e);
+      }
+    }
+
+    public synchronized List<SolrInputDocument> getBatch() {
+      List<SolrInputDocument> batch = new ArrayList<>(batchSize);
+      for (int i = 0; i < batchSize; i++) {
+        if (!docIterator.hasNext()) {
+          docIterator = docs.generatedDocsIterator();
+        }
+        batch.add(docIterator.next());
+      }
+      return batch;
+    }
+
+    @Setup(Level.Trial)
+    public void doSetup(MiniClusterState.MiniClusterBenchState miniClusterState) throws Exception {
+      System.setProperty("mergePolicyFactory", "org.apache.solr.index.NoMergePolicyFactory");
+      miniClusterState.startMiniCluster(1);
+      miniClusterState.createCollection(COLLECTION, 1, 1);
+    }
+  }
+
+  @Benchmark
+  @Timeout(time = 300)
+  public Object indexBatch(MiniClusterState.MiniClusterBenchState miniClusterState, BenchState state)
+      throws Exception {
+    UpdateRequest updateRequest = new UpdateRequest();
+    updateRequest.setBasePath(miniClusterState.nodes.get(0));
+    updateRequest.setParam(JavabinLoader.ZERO_COPY, Boolean.toString(state.zeroCopy));
+    updateRequest.add(state.getBatch());
+
+    return miniClusterState.client.request(updateRequest, BenchState.COLLECTION);
+  }
+}
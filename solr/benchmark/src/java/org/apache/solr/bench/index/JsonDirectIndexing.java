@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.index;
+
+import static org.apache.solr.bench.Docs.docs;
+import static org.apache.solr.bench.generators.SourceDSL.integers;
+import static org.apache.solr.bench.generators.SourceDSL.longs;
+import static org.apache.solr.bench.generators.SourceDSL.strings;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.apache.solr.bench.Docs;
+import org.apache.solr.bench.MiniClusterState;
+import org.apache.solr.client.solrj.embedded.EmbeddedSolrServer;
+import org.apache.solr.client.solrj.request.ContentStreamUpdateRequest;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.SolrInputField;
+import org.apache.solr.common.util.ContentStreamBase;
+import org.apache.solr.common.util.Utils;
+import org.apache.solr.handler.loader.JsonLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JSON indexing into a standalone core without an update log, comparing the regular {@link
+ * JsonLoader} path with {@link JsonLoader#DIRECT_DOCS}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+@Warmup(time = 10, iterations = 3)
+@Measurement(time = 20, iterations = 4)
+@Fork(value = 1)
+public class JsonDirectIndexing {
+
+  static final String CORE = "core1";
+
+  @State(Scope.Benchmark)
+  public static class BenchState {
+
+    @Param({"true", "false"})
+    boolean directDocs;
+
+    @Param({"100"})
+    int batchSize;
+
+    private final List<byte[]> batches = new ArrayList<>();
+    private int next;
+
+    private Path solrHome;
+    EmbeddedSolrServer server;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+      Docs docs =
+          docs()
+              .field("id", integers().incrementing())
+              .field(strings().basicLatinAlphabet().ofLengthBetween(8, 16))
+              .field(strings().basicLatinAlphabet().multi(20).ofLengthBetween(4, 12))
+              .field(integers().all())
+              .field(longs().all());
+      List<Map<String, Object>> batch = new ArrayList<>(batchSize);
+      for (int i = 0; i < 100 * batchSize; i++) {
+        SolrInputDocument doc = docs.inputDocument();
+        Map<String, Object> json = new LinkedHashMap<>();
+        for (SolrInputField field : doc) {
+          json.put(field.getName(), field.getValue().toString());
+        }
+        batch.add(json);
+        if (batch.size() == batchSize) {
+          batches.add(Utils.toJSONString(batch).getBytes(StandardCharsets.UTF_8));
+          batch.clear();
+        }
+      }
+
+      // the direct path is only used by cores without an update log
+      System.setProperty("enable.update.log", "false");
+      System.setProperty("mergePolicyFactory", "org.apache.solr.index.NoMergePolicyFactory");
+      solrHome = Files.createTempDirectory("JsonDirectIndexing");
+      Files.writeString(solrHome.resolve("solr.xml"), "<solr></solr>");
+      Path coreDir = solrHome.resolve(CORE);
+      FileUtils.copyDirectory(
+          MiniClusterState.getFile("src/resources/configs/cloud-minimal/conf"),
+          coreDir.resolve("conf").toFile());
+      Files.writeString(coreDir.resolve("core.properties"), "name=" + CORE);
+      server = new EmbeddedSolrServer(solrHome, CORE);
+    }
+
+    synchronized byte[] nextBatch() {
+      if (next == batches.size()) {
+        next = 0;
+      }
+      return batches.get(next++);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+      server.close();
+      FileUtils.deleteDirectory(solrHome.toFile());
+    }
+  }
+
+  @Benchmark
+  public Object indexJson(BenchState state) throws Exception {
+    ContentStreamUpdateRequest request = new ContentStreamUpdateRequest("/update");
+    request.addContentStream(
+        new ContentStreamBase.ByteArrayStream(state.nextBatch(), "json", "application/json"));
+    request.setParam(JsonLoader.DIRECT_DOCS, Boolean.toString(state.directDocs));
+    return state.server.request(request, CORE);
+  }
+}
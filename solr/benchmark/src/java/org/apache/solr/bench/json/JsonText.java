@@ -0,0 +1,162 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.json;
+
+import static org.apache.solr.bench.Docs.docs;
+import static org.apache.solr.bench.generators.SourceDSL.integers;
+import static org.apache.solr.bench.generators.SourceDSL.longs;
+import static org.apache.solr.bench.generators.SourceDSL.strings;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.solr.bench.Docs;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.util.SolrJSONWriter;
+import org.apache.solr.common.util.Utf8Reader;
+import org.noggit.CharArr;
+import org.noggit.JSONParser;
+import org.noggit.JSONUtil;
+import org.noggit.JSONWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writing a page of search results with the response {@link SolrJSONWriter} and noggit's {@link
+ * JSONWriter}, and tokenizing the same text with {@link JSONParser} as an update request would,
+ * from chars or from UTF-8 bytes.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(1)
+@Warmup(time = 5, iterations = 3)
+@Measurement(time = 10, iterations = 4)
+@Fork(value = 1)
+public class JsonText {
+
+  @State(Scope.Benchmark)
+  public static class BenchState {
+
+    /** plain ascii text, text with characters that need escaping, or non-latin text */
+    @Param({"alpha", "escapes", "unicode"})
+    String text;
+
+    @Param({"100"})
+    int numDocs;
+
+    List<SolrDocument> docs;
+    char[] json;
+    byte[] utf8;
+    // reused by the parsers of the UTF-8 bytes, as the JsonLoader does across requests
+    final char[] parserBuffer = new char[8192];
+    final byte[] readerBuffer = new byte[8192];
+
+    @Setup(Level.Trial)
+    public void setup() {
+      Docs docGen = docs().field("id", integers().incrementing());
+      switch (text) {
+        case "alpha":
+          docGen.field(strings().alpha().ofLengthBetween(8, 16));
+          docGen.field(strings().alpha().multi(10).ofLengthBetween(64, 256));
+          break;
+        case "escapes":
+          // alphaNumeric covers ' ' to 'z', including '"' and '\'
+          docGen.field(strings().alphaNumeric().ofLengthBetween(8, 16));
+          docGen.field(strings().alphaNumeric().multi(10).ofLengthBetween(64, 256));
+          break;
+        case "unicode":
+          docGen.field(strings().realisticUnicode(8, 16).ofOne());
+          docGen.field(strings().realisticUnicode(64, 256).multi(10));
+          break;
+        default:
+          throw new IllegalArgumentException(text);
+      }
+      docGen.field(integers().all()).field(longs().all());
+
+      docs = new ArrayList<>(numDocs);
+      for (int i = 0; i < numDocs; i++) {
+        docs.add(docGen.document());
+      }
+      json = JSONUtil.toJSON(docs, -1).toCharArray();
+      utf8 = new String(json).getBytes(StandardCharsets.UTF_8);
+    }
+  }
+
+  @Benchmark
+  public Object writeResponse(BenchState state) throws IOException {
+    SolrJSONWriter writer = new SolrJSONWriter(Writer.nullWriter());
+    writer.writeObj(state.docs);
+    writer.close();
+    return writer;
+  }
+
+  @Benchmark
+  public Object writeNoggit(BenchState state) {
+    CharArr out = new CharArr();
+    new JSONWriter(out, -1).write(state.docs);
+    return out;
+  }
+
+  @Benchmark
+  public long parse(BenchState state) throws IOException {
+    return parse(new JSONParser(state.json, 0, state.json.length));
+  }
+
+  /** Parses the UTF-8 bytes of an update request decoded by an InputStreamReader. */
+  @Benchmark
+  public long parseInputStreamReader(BenchState state) throws IOException {
+    Reader reader =
+        new InputStreamReader(new ByteArrayInputStream(state.utf8), StandardCharsets.UTF_8);
+    return parse(new JSONParser(reader));
+  }
+
+  /** Parses the UTF-8 bytes of an update request decoded by a Utf8Reader, with reused buffers. */
+  @Benchmark
+  public long parseUtf8Reader(BenchState state) throws IOException {
+    Reader reader = new Utf8Reader(new ByteArrayInputStream(state.utf8), state.readerBuffer);
+    return parse(new JSONParser(reader, state.parserBuffer));
+  }
+
+  private static long parse(JSONParser parser) throws IOException {
+    long count = 0;
+    for (int ev = parser.nextEvent(); ev != JSONParser.EOF; ev = parser.nextEvent()) {
+      if (ev == JSONParser.STRING) {
+        count += parser.getStringChars().length();
+      } else if (ev == JSONParser.LONG) {
+        count += parser.getLong();
+      }
+    }
+    return count;
+  }
+}
@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.ltr;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.solr.core.SolrResourceLoader;
+import org.apache.solr.ltr.LTRRescorer;
+import org.apache.solr.ltr.LTRScoringQuery;
+import org.apache.solr.ltr.feature.Feature;
+import org.apache.solr.ltr.feature.FeatureException;
+import org.apache.solr.ltr.model.LTRScoringModel;
+import org.apache.solr.ltr.model.MultipleAdditiveTreesModel;
+import org.apache.solr.ltr.norm.IdentityNormalizer;
+import org.apache.solr.ltr.norm.Normalizer;
+import org.apache.solr.request.SolrQueryRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reranking the top documents of a query with a {@link MultipleAdditiveTreesModel}, either through the
+ * batch path of the {@link LTRRescorer}, which extracts the features of the documents of a segment one
+ * feature at a time and scores them in one call, or one document at a time with the {@link
+ * LTRScoringQuery.ModelWeight.ModelScorer}. Results are in reranked queries per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(time = 5, iterations = 3)
+@Measurement(time = 10, iterations = 4)
+@Fork(value = 1)
+public class LTRRescoring {
+
+  /** A feature reading the numeric doc values of the field of the same name. */
+  public static class DocValuesFeature extends Feature {
+
+    public DocValuesFeature(String name, Map<String, Object> params) {
+      super(name, params);
+    }
+
+    @Override
+    public LinkedHashMap<String, Object> paramsToMap() {
+      return defaultParamsToMap();
+    }
+
+    @Override
+    protected void validate() throws FeatureException {}
+
+    @Override
+    public FeatureWeight createWeight(
+        IndexSearcher searcher,
+        boolean needsScores,
+        SolrQueryRequest request,
+        Query originalQuery,
+        Map<String, String[]> efi) {
+      return new FeatureWeight(this, searcher, request, originalQuery, efi) {
+        @Override
+        public FeatureScorer scorer(LeafReaderContext context) throws IOException {
+          final NumericDocValues values = DocValues.getNumeric(context.reader(), name);
+          return new FeatureScorer(this, DocIdSetIterator.all(context.reader().maxDoc())) {
+            @Override
+            public float score() throws IOException {
+              return values.advanceExact(itr.docID()) ? values.longValue() : getDefaultValue();
+            }
+
+            @Override
+            public float getMaxScore(int upTo) {
+              return Float.POSITIVE_INFINITY;
+            }
+          };
+        }
+      };
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class BenchState {
+
+    @Param({"1000"})
+    int reRankDocs;
+
+    @Param({"50", "300"})
+    int features;
+
+    @Param({"500"})
+    int trees;
+
+    @Param({"5"})
+    int depth;
+
+    @Param({"4"})
+    int segments;
+
+    static final int docsPerSegment = 10000;
+
+    Directory directory;
+    DirectoryReader reader;
+    IndexSearcher searcher;
+    LTRScoringQuery scoringQuery;
+    ScoreDoc[] hits;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+      SplittableRandom random = new SplittableRandom(42);
+
+      directory = new ByteBuffersDirectory();
+      try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig())) {
+        for (int s = 0; s < segments; s++) {
+          for (int d = 0; d < docsPerSegment; d++) {
+            Document doc = new Document();
+            for (int f = 0; f < features; f++) {
+              // sparse features, like the ones matching a field of the query
+              if (random.nextInt(4) != 0) {
+                doc.add(new NumericDocValuesField("f" + f, random.nextInt(100)));
+              }
+            }
+            writer.addDocument(doc);
+          }
+          writer.commit();
+        }
+      }
+      reader = DirectoryReader.open(directory);
+      searcher = new IndexSearcher(reader);
+
+      List<Feature> modelFeatures = new ArrayList<>(features);
+      for (int f = 0; f < features; f++) {
+        Feature feature = new DocValuesFeature("f" + f, Collections.emptyMap());
+        feature.setIndex(f);
+        modelFeatures.add(feature);
+      }
+      List<Normalizer> norms =
+          new ArrayList<>(Collections.nCopies(features, IdentityNormalizer.INSTANCE));
+      List<Object> treeParams = new ArrayList<>(trees);
+      for (int t = 0; t < trees; t++) {
+        Map<String, Object> tree = new HashMap<>();
+        tree.put("weight", "0.1");
+        tree.put("root", node(random, depth));
+        treeParams.add(tree);
+      }
+      Map<String, Object> params = new HashMap<>();
+      params.put("trees", treeParams);
+      LTRScoringModel model =
+          LTRScoringModel.getInstance(
+              new SolrResourceLoader(Paths.get("").toAbsolutePath()),
+              MultipleAdditiveTreesModel.class.getName(),
+              "bench",
+              modelFeatures,
+              norms,
+              "bench",
+              modelFeatures,
+              params);
+      scoringQuery = new LTRScoringQuery(model);
+
+      // the first pass hits, spread over the segments
+      hits = new ScoreDoc[reRankDocs];
+      int maxDoc = reader.maxDoc();
+      for (int i = 0; i < reRankDocs; i++) {
+        hits[i] = new ScoreDoc((int) ((long) i * maxDoc / reRankDocs), reRankDocs - i);
+      }
+    }
+
+    private Map<String, Object> node(SplittableRandom random, int depth) {
+      Map<String, Object> node = new HashMap<>();
+      if (depth == 0) {
+        node.put("value", Float.toString((float) random.nextDouble(-1, 1)));
+      } else {
+        node.put("feature", "f" + random.nextInt(features));
+        node.put("threshold", Integer.toString(random.nextInt(100)));
+        node.put("left", node(random, depth - 1));
+        node.put("right", node(random, depth - 1));
+      }
+      return node;
+    }
+
+    TopDocs firstPassTopDocs() {
+      ScoreDoc[] scoreDocs = new ScoreDoc[hits.length];
+      for (int i = 0; i < hits.length; i++) {
+        scoreDocs[i] = new ScoreDoc(hits[i].doc, hits[i].score);
+      }
+      return new TopDocs(new TotalHits(scoreDocs.length, TotalHits.Relation.EQUAL_TO), scoreDocs);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws IOException {
+      reader.close();
+      directory.close();
+    }
+  }
+
+  @Benchmark
+  public TopDocs batch(BenchState state) throws IOException {
+    return new LTRRescorer(state.scoringQuery)
+        .rescore(state.searcher, state.firstPassTopDocs(), state.reRankDocs);
+  }
+
+  @Benchmark
+  public float[] perDocument(BenchState state) throws IOException {
+    ScoreDoc[] hits = state.firstPassTopDocs().scoreDocs;
+    Arrays.sort(hits, (a, b) -> Integer.compare(a.doc, b.doc));
+    List<LeafReaderContext> leaves = state.reader.leaves();
+    LTRScoringQuery.ModelWeight modelWeight =
+        state.scoringQuery.createWeight(state.searcher, ScoreMode.COMPLETE, 1);
+
+    float[] scores = new float[hits.length];
+    LeafReaderContext context = null;
+    LTRScoringQuery.ModelWeight.ModelScorer scorer = null;
+    for (int i = 0; i < hits.length; i++) {
+      int leaf = ReaderUtil.subIndex(hits[i].doc, leaves);
+      if (context == null || leaves.get(leaf) != context) {
+        context = leaves.get(leaf);
+        scorer = modelWeight.scorer(context);
+      }
+      scorer.iterator().advance(hits[i].doc - context.docBase);
+      scorer.getDocInfo().setOriginalDocScore(hits[i].score);
+      scores[i] = scorer.score();
+    }
+    return scores;
+  }
+}
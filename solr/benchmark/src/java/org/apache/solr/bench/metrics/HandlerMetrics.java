@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.metrics;
+
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.core.MetricsConfig;
+import org.apache.solr.core.PluginInfo;
+import org.apache.solr.handler.RequestHandlerBase;
+import org.apache.solr.metrics.FixedBucketReservoir;
+import org.apache.solr.metrics.MetricSuppliers;
+import org.apache.solr.metrics.SolrMetricManager;
+import org.apache.solr.metrics.SolrMetricsContext;
+import org.apache.solr.request.LocalSolrQueryRequest;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.response.SolrQueryResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The overhead of the metrics updated by {@link RequestHandlerBase#handleRequest} on every request, with a
+ * handler doing nothing, when many threads hit the same handler. The timers of the handler use the default
+ * {@link ExponentiallyDecayingReservoir} or the {@link FixedBucketReservoir}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(time = 5, iterations = 3)
+@Measurement(time = 10, iterations = 4)
+@Fork(value = 1)
+@Threads(8)
+public class HandlerMetrics {
+
+  static class NoOpHandler extends RequestHandlerBase {
+    @Override
+    public void handleRequestBody(SolrQueryRequest req, SolrQueryResponse rsp) {}
+
+    @Override
+    public String getDescription() {
+      return "no-op";
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class BenchState {
+
+    @Param({"ExponentiallyDecayingReservoir", "FixedBucketReservoir"})
+    String reservoir;
+
+    SolrMetricManager metricManager;
+    NoOpHandler handler;
+
+    @Setup(Level.Trial)
+    public void setup() {
+      String clazz =
+          reservoir.equals("FixedBucketReservoir")
+              ? FixedBucketReservoir.class.getName()
+              : ExponentiallyDecayingReservoir.class.getName();
+      NamedList<Object> args = new NamedList<>();
+      args.add(MetricSuppliers.RESERVOIR, clazz);
+      PluginInfo info = new PluginInfo("timer", Collections.emptyMap(), args, null);
+      metricManager =
+          new SolrMetricManager(
+              null, new MetricsConfig.MetricsConfigBuilder().setTimerSupplier(info).build());
+
+      handler = new NoOpHandler();
+      handler.init(new NamedList<>());
+      handler.initializeMetrics(
+          new SolrMetricsContext(metricManager, "solr.bench", "bench"), "/select");
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+      metricManager.removeRegistry("solr.bench");
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class ThreadState {
+    SolrQueryRequest req;
+
+    @Setup(Level.Trial)
+    public void setup() {
+      req = new LocalSolrQueryRequest(null, new ModifiableSolrParams());
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+      req.close();
+    }
+  }
+
+  @Benchmark
+  public SolrQueryResponse handleRequest(BenchState state, ThreadState threadState) {
+    SolrQueryResponse rsp = new SolrQueryResponse();
+    state.handler.handleRequest(threadState.req, rsp);
+    return rsp;
+  }
+}
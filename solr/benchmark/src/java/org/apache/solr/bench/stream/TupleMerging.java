@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.bench.stream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.comp.ComparatorOrder;
+import org.apache.solr.client.solrj.io.comp.FieldComparator;
+import org.apache.solr.client.solrj.io.comp.MultipleFieldComparator;
+import org.apache.solr.client.solrj.io.comp.StreamComparator;
+import org.apache.solr.client.solrj.io.stream.CloudSolrStream;
+import org.apache.solr.client.solrj.io.stream.TupleMerger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Merging sorted shard streams the way {@link CloudSolrStream} does, with the {@link TupleMerger} loser
+ * tree, against the TreeSet of stream wrappers it used before. Results are in merged tuples per second
+ * when multiplied by {@code shards * tuplesPerShard}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(time = 5, iterations = 3)
+@Measurement(time = 10, iterations = 4)
+@Fork(value = 1)
+public class TupleMerging {
+
+  @State(Scope.Benchmark)
+  public static class BenchState {
+
+    @Param({"16", "32", "64"})
+    int shards;
+
+    @Param({"10000"})
+    int tuplesPerShard;
+
+    @Param({"long", "long,string"})
+    String sort;
+
+    StreamComparator comp;
+    List<List<Tuple>> shardTuples;
+
+    @Setup(Level.Trial)
+    public void setup() {
+      FieldComparator byLong = new FieldComparator("a_l", ComparatorOrder.ASCENDING);
+      comp =
+          sort.equals("long")
+              ? byLong
+              : new MultipleFieldComparator(
+                  byLong, new FieldComparator("b_s", ComparatorOrder.DESCENDING));
+      SplittableRandom random = new SplittableRandom(42);
+      shardTuples = new ArrayList<>(shards);
+      for (int s = 0; s < shards; s++) {
+        List<Tuple> tuples = new ArrayList<>(tuplesPerShard);
+        for (int i = 0; i < tuplesPerShard; i++) {
+          Tuple tuple = new Tuple();
+          tuple.put("id", s + "-" + i);
+          tuple.put("a_l", random.nextLong(tuplesPerShard * 10L));
+          tuple.put("b_s", "value" + random.nextInt(1000));
+          tuples.add(tuple);
+        }
+        tuples.sort(comp::compare);
+        shardTuples.add(tuples);
+      }
+    }
+  }
+
+  /** A shard stream over pre-sorted tuples. */
+  static class ShardSource implements TupleMerger.Source, Comparable<ShardSource> {
+    private final List<Tuple> tuples;
+    private final StreamComparator comp;
+    private int pos;
+
+    ShardSource(List<Tuple> tuples, StreamComparator comp) {
+      this.tuples = tuples;
+      this.comp = comp;
+    }
+
+    @Override
+    public Tuple getTuple() {
+      return tuples.get(pos);
+    }
+
+    @Override
+    public boolean next() {
+      return ++pos < tuples.size();
+    }
+
+    // what CloudSolrStream.TupleWrapper does to be kept in a TreeSet
+    @Override
+    public int compareTo(ShardSource o) {
+      if (this == o) {
+        return 0;
+      }
+      int i = comp.compare(getTuple(), o.getTuple());
+      return i == 0 ? 1 : i;
+    }
+  }
+
+  private static List<ShardSource> sources(BenchState state) {
+    List<ShardSource> sources = new ArrayList<>(state.shards);
+    for (List<Tuple> tuples : state.shardTuples) {
+      sources.add(new ShardSource(tuples, state.comp));
+    }
+    return sources;
+  }
+
+  @Benchmark
+  public void loserTree(BenchState state, Blackhole bh) throws Exception {
+    TupleMerger merger = new TupleMerger(state.comp, sources(state));
+    Tuple tuple;
+    while ((tuple = merger.next()) != null) {
+      bh.consume(tuple);
+    }
+  }
+
+  @Benchmark
+  public void treeSet(BenchState state, Blackhole bh) {
+    TreeSet<ShardSource> sources = new TreeSet<>(sources(state));
+    ShardSource source;
+    while ((source = sources.pollFirst()) != null) {
+      bh.consume(source.getTuple());
+      if (source.next()) {
+        sources.add(source);
+      }
+    }
+  }
+}
@@ -16,8 +16,16 @@
  */
 package org.apache.solr.analytics;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.DocIdSet;
@@ -26,12 +34,73 @@ import org.apache.solr.analytics.AnalyticsRequestManager.StreamingInfo;
 import org.apache.solr.analytics.facet.AbstractSolrQueryFacet.FacetValueQueryExecuter;
 import org.apache.solr.analytics.facet.StreamingFacet;
 import org.apache.solr.analytics.function.ReductionCollectionManager;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrException.ErrorCode;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
+import org.apache.solr.core.CloseHook;
+import org.apache.solr.core.SolrCore;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.search.Filter;
 import org.apache.solr.search.SolrIndexSearcher;
+import org.apache.solr.search.SolrQueryTimeoutImpl;
 
+/**
+ * Drives the collection of the reduction data of an {@link AnalyticsRequestManager}.
+ * <p>
+ * The documents can be collected in slices of the index by multiple threads, each slice being collected by its
+ * own manager. The reduction data of the slices is then merged into the manager of the request in index order,
+ * through the same bit-stream used to merge the data of the shards of a distributed request.
+ */
 public class AnalyticsDriver {
 
+  /**
+   * Name of the init arg of the {@link org.apache.solr.handler.component.AnalyticsComponent} and the
+   * {@link org.apache.solr.handler.AnalyticsHandler} giving the number of threads collecting a request.
+   */
+  public static final String NUM_THREADS = "numThreads";
+
+  /**
+   * Read the number of threads collecting a request from the init args of a plugin.
+   *
+   * @param args the init args of the plugin
+   * @return the number of threads, 1 if not configured
+   * @throws SolrException if the number of threads is not positive
+   */
+  public static int getNumThreads(NamedList<?> args) throws SolrException {
+    int numThreads = args == null ? 1 : args.toSolrParams().getInt(NUM_THREADS, 1);
+    if (numThreads < 1) {
+      throw new SolrException(ErrorCode.SERVER_ERROR, NUM_THREADS + " must be at least 1, but was " + numThreads);
+    }
+    return numThreads;
+  }
+
+  /**
+   * Create the executor collecting the slices of the analytics requests of a core, which is shut down when
+   * the core is closed. The calling thread of a request collects one of the slices itself.
+   *
+   * @param core the core the requests are run against
+   * @param numThreads the number of threads collecting a request, including the calling thread
+   * @return the executor, or null if the requests are collected by the calling thread only
+   */
+  public static ExecutorService newExecutor(SolrCore core, int numThreads) {
+    if (numThreads < 2) {
+      return null;
+    }
+    ExecutorService executor = ExecutorUtil.newMDCAwareFixedThreadPool(numThreads - 1, new SolrNamedThreadFactory("analytics"));
+    core.addCloseHook(new CloseHook() {
+      @Override
+      public void preClose(SolrCore core) {
+        ExecutorUtil.shutdownAndAwaitTermination(executor);
+      }
+
+      @Override
+      public void postClose(SolrCore core) {}
+    });
+    return executor;
+  }
+
   /**
    * Drive the collection of reduction data. This includes overall data as well as faceted data.
    *
@@ -42,34 +111,38 @@ public class AnalyticsDriver {
    * @throws IOException if an error occurs while reading from Solr
    */
   public static void drive(AnalyticsRequestManager manager, SolrIndexSearcher searcher, Filter filter, SolrQueryRequest queryRequest) throws IOException {
+    drive(manager, searcher, filter, queryRequest, null, 1);
+  }
+
+  /**
+   * Drive the collection of reduction data. This includes overall data as well as faceted data.
+   * <p>
+   * The streaming phase is split into at most {@code numThreads} slices of the index, the first collected by
+   * the calling thread and the others by the given executor.
+   *
+   * @param manager of the request to drive
+   * @param searcher the results of the query
+   * @param filter that represents the overall query
+   * @param queryRequest used for the search request
+   * @param executor to collect the slices of the index with, may be null to collect the request in the calling thread
+   * @param numThreads the maximum number of threads collecting the request, including the calling thread
+   * @throws IOException if an error occurs while reading from Solr
+   */
+  public static void drive(AnalyticsRequestManager manager, SolrIndexSearcher searcher, Filter filter, SolrQueryRequest queryRequest,
+                           ExecutorService executor, int numThreads) throws IOException {
     StreamingInfo streamingInfo = manager.getStreamingFacetInfo();
-    Iterable<StreamingFacet> streamingFacets = streamingInfo.streamingFacets;
-    ReductionCollectionManager collectionManager = streamingInfo.streamingCollectionManager;
 
     Iterable<FacetValueQueryExecuter> facetExecuters = manager.getFacetExecuters(filter, queryRequest);
 
     // Streaming phase (Overall results & Value/Pivot Facets)
     // Loop through all documents and collect reduction data for streaming facets and overall results
-    if (collectionManager.needsCollection()) {
+    if (streamingInfo.streamingCollectionManager.needsCollection()) {
       List<LeafReaderContext> contexts = searcher.getTopReaderContext().leaves();
-      for (int leafNum = 0; leafNum < contexts.size(); leafNum++) {
-        LeafReaderContext context = contexts.get(leafNum);
-        DocIdSet dis = filter.getDocIdSet(context, null); // solr docsets already exclude any deleted docs
-        if (dis == null) {
-          continue;
-        }
-        DocIdSetIterator disi = dis.iterator();
-        if (disi != null) {
-          collectionManager.doSetNextReader(context);
-          int doc = disi.nextDoc();
-          while( doc != DocIdSetIterator.NO_MORE_DOCS){
-            // Add a document to the statistics being generated
-            collectionManager.collect(doc);
-            streamingFacets.forEach( facet -> facet.addFacetValueCollectionTargets() );
-            collectionManager.apply();
-            doc = disi.nextDoc();
-          }
-        }
+      List<List<LeafReaderContext>> slices = executor == null ? null : slices(contexts, numThreads);
+      if (slices == null || slices.size() < 2) {
+        collect(streamingInfo, filter, contexts);
+      } else {
+        collectSlices(manager, streamingInfo, searcher, filter, queryRequest, executor, slices);
       }
     }
 
@@ -79,4 +152,129 @@ public class AnalyticsDriver {
       executer.execute(searcher);
     }
   }
+
+  /**
+   * Collect the reduction data of the documents of the given segments that match the filter.
+   */
+  private static void collect(StreamingInfo streamingInfo, Filter filter, List<LeafReaderContext> contexts) throws IOException {
+    Iterable<StreamingFacet> streamingFacets = streamingInfo.streamingFacets;
+    ReductionCollectionManager collectionManager = streamingInfo.streamingCollectionManager;
+
+    for (int leafNum = 0; leafNum < contexts.size(); leafNum++) {
+      LeafReaderContext context = contexts.get(leafNum);
+      DocIdSet dis = filter.getDocIdSet(context, null); // solr docsets already exclude any deleted docs
+      if (dis == null) {
+        continue;
+      }
+      DocIdSetIterator disi = dis.iterator();
+      if (disi != null) {
+        collectionManager.doSetNextReader(context);
+        int doc = disi.nextDoc();
+        while( doc != DocIdSetIterator.NO_MORE_DOCS){
+          // Add a document to the statistics being generated
+          collectionManager.collect(doc);
+          streamingFacets.forEach( facet -> facet.addFacetValueCollectionTargets() );
+          collectionManager.apply();
+          doc = disi.nextDoc();
+        }
+      }
+    }
+  }
+
+  /**
+   * Collect the first slice in the calling thread, and each other slice with its own manager in the executor.
+   * The data of the other slices is then imported in order, so that the facet values are in the same order
+   * as if the slices had been collected one after the other.
+   */
+  private static void collectSlices(AnalyticsRequestManager manager, StreamingInfo streamingInfo, SolrIndexSearcher searcher,
+                                    Filter filter, SolrQueryRequest queryRequest, ExecutorService executor,
+                                    List<List<LeafReaderContext>> slices) throws IOException {
+    // The managers are created in the request thread, since parsing the request may depend on it (e.g. NOW)
+    List<AnalyticsRequestManager> sliceManagers = new ArrayList<>(slices.size() - 1);
+    for (int i = 1; i < slices.size(); i++) {
+      AnalyticsRequestManager sliceManager = manager.newSliceManager(searcher.getSchema());
+      if (sliceManager == null) {
+        // the request can't be parsed again, collect everything in this thread
+        collect(streamingInfo, filter, searcher.getTopReaderContext().leaves());
+        return;
+      }
+      sliceManagers.add(sliceManager);
+    }
+
+    List<Future<byte[]>> sliceData = new ArrayList<>(sliceManagers.size());
+    try {
+      for (int i = 0; i < sliceManagers.size(); i++) {
+        AnalyticsRequestManager sliceManager = sliceManagers.get(i);
+        List<LeafReaderContext> slice = slices.get(i + 1);
+        sliceData.add(executor.submit(() -> {
+          // the time allowed for the request is tracked per thread
+          SolrQueryTimeoutImpl.set(queryRequest);
+          try {
+            collect(sliceManager.getStreamingFacetInfo(), filter, slice);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream output = new DataOutputStream(bytes)) {
+              sliceManager.exportShardData(output);
+            }
+            return bytes.toByteArray();
+          } finally {
+            SolrQueryTimeoutImpl.reset();
+          }
+        }));
+      }
+
+      collect(streamingInfo, filter, slices.get(0));
+
+      for (Future<byte[]> data : sliceData) {
+        byte[] bytes;
+        try {
+          bytes = data.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new SolrException(ErrorCode.SERVER_ERROR, "Interrupted while collecting the analytics request", e);
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof IOException) {
+            throw (IOException) cause;
+          } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+          } else if (cause instanceof Error) {
+            throw (Error) cause;
+          }
+          throw new SolrException(ErrorCode.SERVER_ERROR, cause);
+        }
+        manager.importShardData(new DataInputStream(new ByteArrayInputStream(bytes)));
+      }
+    } finally {
+      // stop the slices left if a slice failed
+      sliceData.forEach(data -> data.cancel(true));
+    }
+  }
+
+  /**
+   * Split the segments into at most {@code numSlices} contiguous slices with about the same number of documents.
+   */
+  static List<List<LeafReaderContext>> slices(List<LeafReaderContext> contexts, int numSlices) {
+    long maxDoc = 0;
+    for (LeafReaderContext context : contexts) {
+      maxDoc += context.reader().maxDoc();
+    }
+    long docsPerSlice = Math.max(1, (maxDoc + numSlices - 1) / numSlices);
+
+    List<List<LeafReaderContext>> slices = new ArrayList<>();
+    List<LeafReaderContext> slice = new ArrayList<>();
+    long sliceDocs = 0;
+    for (LeafReaderContext context : contexts) {
+      slice.add(context);
+      sliceDocs += context.reader().maxDoc();
+      if (sliceDocs >= docsPerSlice && slices.size() < numSlices - 1) {
+        slices.add(slice);
+        slice = new ArrayList<>();
+        sliceDocs = 0;
+      }
+    }
+    if (!slice.isEmpty()) {
+      slices.add(slice);
+    }
+    return slices;
+  }
 }
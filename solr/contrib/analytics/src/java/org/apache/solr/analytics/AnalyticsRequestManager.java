@@ -34,6 +34,7 @@ import org.apache.solr.analytics.stream.AnalyticsShardRequestManager;
 import org.apache.solr.analytics.util.AnalyticsResponseHeadings;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.schema.IndexSchema;
 import org.apache.solr.search.Filter;
 
 /**
@@ -56,6 +57,11 @@ public class AnalyticsRequestManager {
   public boolean sendShards;
   private boolean partialResults = false;
 
+  /**
+   * The request this manager was parsed from, to create managers for slices of the index.
+   */
+  AnalyticsRequestParser.AnalyticsRequest request;
+
   /**
    * Create an manager with the given ungrouped expressions. This is straightforward in the new
    * style of request, however in the old olap-style requests all groupings' expressions are expected
@@ -186,6 +192,21 @@ public class AnalyticsRequestManager {
     }
   }
 
+  /**
+   * Create a new manager for the same request, which collects its own reduction data.
+   * This is used to collect slices of the index concurrently, the data of each slice is then
+   * merged into this manager through {@link #exportShardData} and {@link #importShardData}.
+   *
+   * @param schema the schema of the core the request is run against
+   * @return a manager for the same request, or null if the request this manager was parsed from is unknown
+   */
+  public AnalyticsRequestManager newSliceManager(IndexSchema schema) {
+    if (request == null) {
+      return null;
+    }
+    return AnalyticsRequestParser.parse(request, new ExpressionFactory(schema), false);
+  }
+
   /**
    * Consolidate the information of all {@link StreamingFacet}s contained within the request, since
    * they need to be collected along with the overall results during the streaming phase of the
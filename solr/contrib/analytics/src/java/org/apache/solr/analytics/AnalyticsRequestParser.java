@@ -231,6 +231,7 @@ public class AnalyticsRequestParser {
       topLevelExpressions = new HashMap<>();
     }
     AnalyticsRequestManager manager = new AnalyticsRequestManager(expressionFactory.createReductionManager(isDistribRequest), topLevelExpressions.values());
+    manager.request = request;
 
     // Groupings
     if (request.groupings != null) {
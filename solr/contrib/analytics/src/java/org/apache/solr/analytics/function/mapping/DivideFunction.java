@@ -17,6 +17,7 @@
 package org.apache.solr.analytics.function.mapping;
 
 import org.apache.solr.analytics.ExpressionFactory.CreatorFunction;
+import org.apache.solr.analytics.function.mapping.DoubleArithmeticFunction.Operation;
 import org.apache.solr.analytics.value.AnalyticsValueStream;
 import org.apache.solr.analytics.value.DoubleValue;
 import org.apache.solr.analytics.value.DoubleValueStream;
@@ -43,7 +44,7 @@ public class DivideFunction {
     AnalyticsValueStream param1 = params[0];
     AnalyticsValueStream param2 = params[1];
     if (param1 instanceof DoubleValueStream && param2 instanceof DoubleValueStream) {
-      return LambdaFunction.createDoubleLambdaFunction(name, (a,b) -> a/b, (DoubleValueStream)param1, (DoubleValueStream)param2);
+      return DoubleArithmeticFunction.createDoubleFunction(name, Operation.DIVIDE, (DoubleValueStream)param1, (DoubleValueStream)param2);
     } else {
       throw new SolrException(ErrorCode.BAD_REQUEST,"The "+name+" function requires numeric parameters.");
     }
@@ -0,0 +1,342 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.analytics.function.mapping;
+
+import java.util.function.DoubleConsumer;
+
+import org.apache.solr.analytics.value.AnalyticsValueStream;
+import org.apache.solr.analytics.value.DoubleValue;
+import org.apache.solr.analytics.value.DoubleValueStream;
+import org.apache.solr.analytics.value.DoubleValue.AbstractDoubleValue;
+import org.apache.solr.analytics.value.DoubleValueStream.AbstractDoubleValueStream;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrException.ErrorCode;
+
+/**
+ * Primitive specialized versions of the {@link LambdaFunction} double functions, for the arithmetic
+ * mapping functions ({@link AddFunction}, {@link SubtractFunction}, {@link MultFunction} and {@link DivideFunction}).
+ * <p>
+ * These functions are evaluated for every document, and the lambda functions share one call site for all of
+ * the lambdas, which the JVM can't inline. Here the operation is a switch over a constant, and mapping a
+ * multi-valued expression doesn't create a consumer for every document. The results are the same as the
+ * ones of the equivalent {@link LambdaFunction}.
+ */
+public class DoubleArithmeticFunction {
+
+  /**
+   * The arithmetic operations with a primitive implementation.
+   */
+  public enum Operation {
+    ADD, SUBTRACT, MULTIPLY, DIVIDE;
+
+    double apply(double a, double b) {
+      switch (this) {
+        case ADD:
+          return a + b;
+        case SUBTRACT:
+          return a - b;
+        case MULTIPLY:
+          return a * b;
+        default:
+          return a / b;
+      }
+    }
+  }
+
+  /**
+   * Creates a function that reduces all the values of a multi-valued double expression for a document
+   * with the given operation, like {@link LambdaFunction#createDoubleLambdaFunction(String, LambdaFunction.TwoDoubleInDoubleOutLambda, DoubleValueStream)}.
+   *
+   * @param name name for the function
+   * @param operation the associative operation used to reduce the values
+   * @param param the expression to be reduced per-document
+   * @return a single-valued expression which has been reduced for every document
+   */
+  public static DoubleValue createDoubleFunction(String name, Operation operation, DoubleValueStream param) {
+    return new DoubleStreamInDoubleValueOutFunction(name, operation, param);
+  }
+
+  /**
+   * Creates a function that combines two double expressions with the given operation, like
+   * {@link LambdaFunction#createDoubleLambdaFunction(String, LambdaFunction.TwoDoubleInDoubleOutLambda, DoubleValueStream, DoubleValueStream)}.
+   *
+   * @param name name for the function
+   * @param operation the operation applied to the values
+   * @param param1 the first operand
+   * @param param2 the second operand
+   * @return a single or multi valued expression combining the two parameters with the given operation
+   * @throws SolrException if neither parameter is single-valued
+   */
+  public static DoubleValueStream createDoubleFunction(String name, Operation operation, DoubleValueStream param1, DoubleValueStream param2) throws SolrException {
+    if (param1 instanceof DoubleValue && param2 instanceof DoubleValue) {
+      return new TwoDoubleValueInDoubleValueOutFunction(name, operation, (DoubleValue)param1, (DoubleValue)param2);
+    } else if (param1 instanceof DoubleValue) {
+      return new DoubleValueDoubleStreamInDoubleStreamOutFunction(name, operation, (DoubleValue)param1, param2);
+    } else if (param2 instanceof DoubleValue) {
+      return new DoubleStreamDoubleValueInDoubleStreamOutFunction(name, operation, param1, (DoubleValue)param2);
+    } else {
+      throw new SolrException(ErrorCode.BAD_REQUEST,"The "+name+" function requires at least 1 single-valued parameter.");
+    }
+  }
+
+  /**
+   * Creates a function that reduces multiple single-valued double expressions with the given operation,
+   * requiring all of them to exist, like
+   * {@link LambdaFunction#createDoubleLambdaFunction(String, LambdaFunction.TwoDoubleInDoubleOutLambda, DoubleValue[])}.
+   *
+   * @param name name for the function
+   * @param operation the associative operation used to reduce the values
+   * @param params the expressions to reduce
+   * @return a single-value expression that reduces the parameters with the given operation
+   */
+  public static DoubleValue createDoubleFunction(String name, Operation operation, DoubleValue[] params) {
+    return new MultiDoubleValueInDoubleValueOutFunction(name, operation, params);
+  }
+
+  static class DoubleStreamInDoubleValueOutFunction extends AbstractDoubleValue implements DoubleConsumer {
+    private final DoubleValueStream param;
+    private final Operation operation;
+    private final String name;
+    private final String exprStr;
+    private final ExpressionType funcType;
+
+    public DoubleStreamInDoubleValueOutFunction(String name, Operation operation, DoubleValueStream param) {
+      this.name = name;
+      this.operation = operation;
+      this.param = param;
+      this.exprStr = AnalyticsValueStream.createExpressionString(name,param);
+      this.funcType = AnalyticsValueStream.determineMappingPhase(exprStr,param);
+    }
+
+    private boolean exists = false;
+    private double value;
+
+    @Override
+    public double getDouble() {
+      exists = false;
+      param.streamDoubles(this);
+      return value;
+    }
+    @Override
+    public boolean exists() {
+      return exists;
+    }
+    @Override
+    public void accept(double paramValue) {
+      if (!exists) {
+        exists = true;
+        value = paramValue;
+      } else {
+        value = operation.apply(value, paramValue);
+      }
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+    @Override
+    public String getExpressionStr() {
+      return exprStr;
+    }
+    @Override
+    public ExpressionType getExpressionType() {
+      return funcType;
+    }
+  }
+
+  static class TwoDoubleValueInDoubleValueOutFunction extends AbstractDoubleValue {
+    private final DoubleValue param1;
+    private final DoubleValue param2;
+    private final Operation operation;
+    private final String name;
+    private final String exprStr;
+    private final ExpressionType funcType;
+
+    public TwoDoubleValueInDoubleValueOutFunction(String name, Operation operation, DoubleValue param1, DoubleValue param2) {
+      this.name = name;
+      this.operation = operation;
+      this.param1 = param1;
+      this.param2 = param2;
+      this.exprStr = AnalyticsValueStream.createExpressionString(name,param1,param2);
+      this.funcType = AnalyticsValueStream.determineMappingPhase(exprStr,param1,param2);
+    }
+
+    private boolean exists = false;
+
+    @Override
+    public double getDouble() {
+      double value = operation.apply(param1.getDouble(), param2.getDouble());
+      exists = param1.exists() && param2.exists();
+      return value;
+    }
+    @Override
+    public boolean exists() {
+      return exists;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+    @Override
+    public String getExpressionStr() {
+      return exprStr;
+    }
+    @Override
+    public ExpressionType getExpressionType() {
+      return funcType;
+    }
+  }
+
+  /**
+   * Maps every value of a multi-valued operand with a single-valued one. The function is its own consumer
+   * of the values of the multi-valued operand, the consumer and the single value of the document are kept
+   * in fields while streaming.
+   */
+  abstract static class DoubleStreamMappingFunction extends AbstractDoubleValueStream implements DoubleConsumer {
+    protected final Operation operation;
+    private final String name;
+    private final String exprStr;
+    private final ExpressionType funcType;
+
+    protected DoubleConsumer cons;
+    protected double singleValue;
+
+    protected DoubleStreamMappingFunction(String name, Operation operation, DoubleValueStream param1, DoubleValueStream param2) {
+      this.name = name;
+      this.operation = operation;
+      this.exprStr = AnalyticsValueStream.createExpressionString(name,param1,param2);
+      this.funcType = AnalyticsValueStream.determineMappingPhase(exprStr,param1,param2);
+    }
+
+    protected void stream(DoubleValue single, DoubleValueStream multi, DoubleConsumer cons) {
+      double value = single.getDouble();
+      if (single.exists()) {
+        DoubleConsumer previousCons = this.cons;
+        double previousValue = this.singleValue;
+        this.cons = cons;
+        this.singleValue = value;
+        try {
+          multi.streamDoubles(this);
+        } finally {
+          this.cons = previousCons;
+          this.singleValue = previousValue;
+        }
+      }
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+    @Override
+    public String getExpressionStr() {
+      return exprStr;
+    }
+    @Override
+    public ExpressionType getExpressionType() {
+      return funcType;
+    }
+  }
+
+  static class DoubleValueDoubleStreamInDoubleStreamOutFunction extends DoubleStreamMappingFunction {
+    private final DoubleValue param1;
+    private final DoubleValueStream param2;
+
+    public DoubleValueDoubleStreamInDoubleStreamOutFunction(String name, Operation operation, DoubleValue param1, DoubleValueStream param2) {
+      super(name, operation, param1, param2);
+      this.param1 = param1;
+      this.param2 = param2;
+    }
+
+    @Override
+    public void streamDoubles(DoubleConsumer cons) {
+      stream(param1, param2, cons);
+    }
+    @Override
+    public void accept(double value2) {
+      cons.accept(operation.apply(singleValue, value2));
+    }
+  }
+
+  static class DoubleStreamDoubleValueInDoubleStreamOutFunction extends DoubleStreamMappingFunction {
+    private final DoubleValueStream param1;
+    private final DoubleValue param2;
+
+    public DoubleStreamDoubleValueInDoubleStreamOutFunction(String name, Operation operation, DoubleValueStream param1, DoubleValue param2) {
+      super(name, operation, param1, param2);
+      this.param1 = param1;
+      this.param2 = param2;
+    }
+
+    @Override
+    public void streamDoubles(DoubleConsumer cons) {
+      stream(param2, param1, cons);
+    }
+    @Override
+    public void accept(double value1) {
+      cons.accept(operation.apply(value1, singleValue));
+    }
+  }
+
+  static class MultiDoubleValueInDoubleValueOutFunction extends AbstractDoubleValue {
+    private final DoubleValue[] params;
+    private final Operation operation;
+    private final String name;
+    private final String exprStr;
+    private final ExpressionType funcType;
+
+    public MultiDoubleValueInDoubleValueOutFunction(String name, Operation operation, DoubleValue[] params) {
+      this.name = name;
+      this.operation = operation;
+      this.params = params;
+      this.exprStr = AnalyticsValueStream.createExpressionString(name,params);
+      this.funcType = AnalyticsValueStream.determineMappingPhase(exprStr,params);
+    }
+
+    private boolean exists = false;
+
+    @Override
+    public double getDouble() {
+      double value = params[0].getDouble();
+      exists = params[0].exists();
+      for (int i = 1; i < params.length && exists; ++i) {
+        value = operation.apply(value, params[i].getDouble());
+        exists = params[i].exists();
+      }
+      return value;
+    }
+    @Override
+    public boolean exists() {
+      return exists;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+    @Override
+    public String getExpressionStr() {
+      return exprStr;
+    }
+    @Override
+    public ExpressionType getExpressionType() {
+      return funcType;
+    }
+  }
+}
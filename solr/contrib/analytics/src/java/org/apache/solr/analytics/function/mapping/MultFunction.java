@@ -19,6 +19,7 @@ package org.apache.solr.analytics.function.mapping;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrException.ErrorCode;
 import org.apache.solr.analytics.ExpressionFactory.CreatorFunction;
+import org.apache.solr.analytics.function.mapping.DoubleArithmeticFunction.Operation;
 import org.apache.solr.analytics.value.AnalyticsValueStream;
 import org.apache.solr.analytics.value.DoubleValue;
 import org.apache.solr.analytics.value.DoubleValueStream;
@@ -43,7 +44,7 @@ public class MultFunction {
     }
     else if (params.length == 1) {
       if (params[0] instanceof DoubleValueStream) {
-        return LambdaFunction.createDoubleLambdaFunction(name, (a,b) -> a*b, (DoubleValueStream)params[0]);
+        return DoubleArithmeticFunction.createDoubleFunction(name, Operation.MULTIPLY, (DoubleValueStream)params[0]);
       }
       throw new SolrException(ErrorCode.BAD_REQUEST,"The "+name+" function requires numeric parameters. Incorrect param: "+params[0].getExpressionStr());
     }
@@ -51,7 +52,7 @@ public class MultFunction {
       AnalyticsValueStream param1 = params[0];
       AnalyticsValueStream param2 = params[1];
       if (param1 instanceof DoubleValueStream && param2 instanceof DoubleValueStream) {
-        return LambdaFunction.createDoubleLambdaFunction(name, (a,b) -> a*b, (DoubleValueStream)param1, (DoubleValueStream)param2);
+        return DoubleArithmeticFunction.createDoubleFunction(name, Operation.MULTIPLY, (DoubleValueStream)param1, (DoubleValueStream)param2);
       }
       throw new SolrException(ErrorCode.BAD_REQUEST,"The "+name+" function requires numeric parameters.");
     }
@@ -63,6 +64,6 @@ public class MultFunction {
         throw new SolrException(ErrorCode.BAD_REQUEST,"The "+name+" function requires that all parameters be single-valued if more than 2 are given.");
       }
     }
-    return LambdaFunction.createDoubleLambdaFunction(name, (a,b) -> a*b, castedParams);
+    return DoubleArithmeticFunction.createDoubleFunction(name, Operation.MULTIPLY, castedParams);
   });
 }
\ No newline at end of file
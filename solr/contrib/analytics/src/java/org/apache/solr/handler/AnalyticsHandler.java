@@ -18,6 +18,7 @@ package org.apache.solr.handler;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.lucene.index.ExitableDirectoryReader;
 import org.apache.lucene.search.MatchNoDocsQuery;
@@ -31,6 +32,7 @@ import org.apache.solr.analytics.stream.AnalyticsShardResponseParser;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.NamedList;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.handler.component.AnalyticsComponent;
 import org.apache.solr.request.SolrQueryRequest;
@@ -58,6 +60,14 @@ import org.apache.solr.util.plugin.SolrCoreAware;
 public class AnalyticsHandler extends RequestHandlerBase implements SolrCoreAware, PermissionNameProvider {
   public static final String NAME = "/analytics";
   private IndexSchema indexSchema;
+  private int numThreads = 1;
+  private ExecutorService executor;
+
+  @Override
+  public void init(NamedList<?> args) {
+    super.init(args);
+    numThreads = AnalyticsDriver.getNumThreads(args);
+  }
 
   @Override
   public PermissionNameProvider.Name getPermissionName(AuthorizationContext request) {
@@ -69,6 +79,7 @@ public class AnalyticsHandler extends RequestHandlerBase implements SolrCoreAwar
     core.registerResponseWriter(AnalyticsShardResponseWriter.NAME, new AnalyticsShardResponseWriter());
     indexSchema = core.getLatestSchema();
     AnalyticsRequestParser.init();
+    executor = AnalyticsDriver.newExecutor(core, numThreads);
   }
 
   public void handleRequestBody(SolrQueryRequest req, SolrQueryResponse rsp) throws Exception {
@@ -89,7 +100,7 @@ public class AnalyticsHandler extends RequestHandlerBase implements SolrCoreAwar
       // Collect the reduction data for the request
       SolrIndexSearcher searcher = req.getSearcher();
       Filter filter = docs.getTopFilter();
-      AnalyticsDriver.drive(manager, searcher, filter, req);
+      AnalyticsDriver.drive(manager, searcher, filter, req, executor, numThreads);
 
       // Do not calculate results, instead export the reduction data for this shard.
       rsp.addResponse(new AnalyticsResponse(manager));
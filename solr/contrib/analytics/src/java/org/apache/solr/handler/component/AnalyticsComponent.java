@@ -17,6 +17,7 @@
 package org.apache.solr.handler.component;
 
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.solr.analytics.AnalyticsDriver;
 import org.apache.solr.analytics.AnalyticsRequestManager;
@@ -27,17 +28,28 @@ import org.apache.solr.analytics.util.AnalyticsResponseHeadings;
 import org.apache.solr.analytics.util.OldAnalyticsParams;
 import org.apache.solr.analytics.util.OldAnalyticsRequestConverter;
 import org.apache.solr.common.util.NamedList;
+import org.apache.solr.core.SolrCore;
 import org.apache.solr.response.SolrQueryResponse;
+import org.apache.solr.util.plugin.SolrCoreAware;
 
 /**
  * Computes analytics requests.
  */
-public class AnalyticsComponent extends SearchComponent {
+public class AnalyticsComponent extends SearchComponent implements SolrCoreAware {
   public static final String COMPONENT_NAME = "analytics";
 
+  private int numThreads = 1;
+  private ExecutorService executor;
+
   @Override
   public void init(NamedList<?> args) {
     AnalyticsRequestParser.init();
+    numThreads = AnalyticsDriver.getNumThreads(args);
+  }
+
+  @Override
+  public void inform(SolrCore core) {
+    executor = AnalyticsDriver.newExecutor(core, numThreads);
   }
 
   @Override
@@ -85,7 +97,7 @@ public class AnalyticsComponent extends SearchComponent {
     }
     AnalyticsRequestManager reqManager = getAnalyticsRequestManager(rb);
     // Collect the data and generate a response
-    AnalyticsDriver.drive(reqManager, rb.req.getSearcher(), rb.getResults().docSet.getTopFilter(), rb.req);
+    AnalyticsDriver.drive(reqManager, rb.req.getSearcher(), rb.getResults().docSet.getTopFilter(), rb.req, executor, numThreads);
 
     if (rb.isOlapAnalytics()) {
       rb.rsp.add(AnalyticsResponseHeadings.COMPLETED_OLD_HEADER, reqManager.createOldResponse());
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.analytics;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.util.Utils;
+import org.apache.solr.index.NoMergePolicyFactory;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Compares the results of analytics requests collected by the calling thread only
+ * with the ones collected in slices of the index by multiple threads.
+ */
+public class ParallelAnalyticsTest extends SolrTestCaseJ4 {
+
+  private static final String REQUEST = "{"
+      + "'functions' : { 'shifted' : 'add(int_i,10)' },"
+      + "'expressions' : {"
+      + "  'count' : 'count(int_i)',"
+      + "  'sum' : 'sum(mult(int_i,long_l))',"
+      + "  'sum_multi' : 'sum(sub(int_im,1))',"
+      + "  'mean' : 'mean(shifted)',"
+      + "  'min' : 'min(long_l)',"
+      + "  'max' : 'max(div(double_dm,2))',"
+      + "  'unique' : 'unique(string_s)',"
+      + "  'missing' : 'missing(long_l)'"
+      + "},"
+      + "'groupings' : {"
+      + "  'grouped' : {"
+      + "    'expressions' : {"
+      + "      'count' : 'count(int_i)',"
+      + "      'sum' : 'sum(add(int_i,long_l,10))'"
+      + "    },"
+      + "    'facets' : {"
+      + "      'strings' : { 'type' : 'value', 'expression' : 'string_s' },"
+      + "      'multi' : { 'type' : 'value', 'expression' : 'int_im', 'sort' : { 'criteria' : [{ 'type' : 'expression', 'expression' : 'count', 'direction' : 'descending' }]}},"
+      + "      'pivot' : { 'type' : 'pivot', 'pivots' : [{ 'name' : 'string', 'expression' : 'string_s' }, { 'name' : 'int', 'expression' : 'int_i' }]},"
+      + "      'query' : { 'type' : 'query', 'queries' : { 'small' : 'int_i:[0 TO 3]', 'large' : 'int_i:[4 TO *]' }}"
+      + "    }"
+      + "  }"
+      + "}"
+      + "}";
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    // one segment per commit
+    systemSetPropertySolrTestsMergePolicyFactory(NoMergePolicyFactory.class.getName());
+    initCore("solrconfig-analytics.xml", "schema-analytics.xml");
+
+    // several commits, so that the index has segments to collect concurrently
+    int id = 0;
+    for (int commit = 0; commit < 6; commit++) {
+      for (int i = 0; i < 50; i++, id++) {
+        if (id % 7 == 0) {
+          assertU(adoc("id", "" + id, "string_s", "str" + (id % 5)));
+          continue;
+        }
+        assertU(adoc("id", "" + id,
+            "int_i", "" + (id % 9),
+            "int_im", "" + (id % 4), "int_im", "" + (id % 11),
+            "long_l", "" + (id % 13),
+            "double_dm", "" + (id % 6), "double_dm", "" + (id % 8 + 10),
+            "string_s", "str" + (id % 5)));
+      }
+      assertU(commit());
+    }
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    systemClearPropertySolrTestsMergePolicyFactory();
+  }
+
+  /** Checks that the requests of the /parallel handler are collected in more than one slice. */
+  private static void assertSeveralSlices() throws Exception {
+    h.getCore().withSearcher(searcher -> {
+      List<LeafReaderContext> leaves = searcher.getTopReaderContext().leaves();
+      assertTrue(leaves.size() > 1);
+      assertTrue(AnalyticsDriver.slices(leaves, 4).size() > 1);
+      return null;
+    });
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String,Object> analytics(String handler, String request) throws Exception {
+    String response = JQ(req("qt", handler, "q", "*:*", "rows", "0", "analytics", request));
+    return (Map<String,Object>) ((Map<String,Object>) Utils.fromJSONString(response)).get("analytics_response");
+  }
+
+  @Test
+  public void testSameResultsAsSequential() throws Exception {
+    assertSeveralSlices();
+    Map<String,Object> sequential = analytics("/select", REQUEST);
+    assertNotNull(sequential);
+    assertEquals(sequential, analytics("/parallel", REQUEST));
+  }
+
+  @Test
+  public void testFilteredResults() throws Exception {
+    assertSeveralSlices();
+    String request = REQUEST.replace("'count' : 'count(int_i)',", "'count' : 'count(filter(int_i,equal(long_l,3)))',");
+    assertEquals(analytics("/select", request), analytics("/parallel", request));
+  }
+
+  @Test
+  public void testSlices() throws Exception {
+    assertSeveralSlices();
+    h.getCore().withSearcher(searcher -> {
+      List<LeafReaderContext> leaves = searcher.getTopReaderContext().leaves();
+      for (int numSlices : Arrays.asList(1, 2, 3, 4, 100)) {
+        List<List<LeafReaderContext>> slices = AnalyticsDriver.slices(leaves, numSlices);
+        assertTrue(slices.size() <= numSlices);
+        assertFalse(slices.isEmpty());
+        // the slices cover all the segments, in order
+        List<LeafReaderContext> covered = slices.stream().flatMap(List::stream).collect(Collectors.toList());
+        assertEquals(leaves, covered);
+      }
+      return null;
+    });
+  }
+}
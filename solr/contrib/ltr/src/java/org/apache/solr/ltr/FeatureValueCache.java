@@ -0,0 +1,266 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.ltr;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.solr.ltr.feature.Feature;
+import org.apache.solr.search.SolrCache;
+
+/**
+ * Caches the values of the features that only depend on the documents, such as
+ * the value of a field, one column per feature and segment, so that they are
+ * computed once per document instead of once per request reranking it.
+ * <p>
+ * The values are kept in a Solr user cache, configured in the
+ * <code>&lt;query&gt;</code> section of <code>solrconfig.xml</code> and
+ * named by the <code>featureValueCacheName</code> of the
+ * {@link org.apache.solr.ltr.search.LTRQParserPlugin}:
+ * <pre>
+ * &lt;cache name="LTR_FEATURE_VALUES" class="solr.CaffeineCache" maxRamMB="256"
+ *   autowarmCount="100%" regenerator="org.apache.solr.ltr.FeatureValueCacheRegenerator"/&gt;
+ * </pre>
+ * Only the features whose weight is
+ * {@link Feature.FeatureWeight#isQueryIndependent(LeafReaderContext) query independent}
+ * are cached. The columns are off-heap and filled as the documents of
+ * the segment are reranked; the {@link FeatureValueCacheRegenerator} carries
+ * them over to the next searcher for the segments it still has.
+ */
+public final class FeatureValueCache {
+
+  private FeatureValueCache() {}
+
+  /**
+   * Returns a scorer for the feature of a weight that takes the values of the
+   * documents from the cache, and only computes the ones not cached yet, or the
+   * scorer of the weight if the feature can't be cached for the segment.
+   */
+  public static Feature.FeatureWeight.FeatureScorer scorer(SolrCache<Key,Values> cache,
+      Feature.FeatureWeight weight, LeafReaderContext context) throws IOException {
+    final Feature feature = (Feature) weight.getQuery();
+    final IndexReader.CacheHelper cacheHelper = context.reader().getCoreCacheHelper();
+    final int maxDoc = context.reader().maxDoc();
+    if (cache == null || cacheHelper == null || maxDoc > Values.MAX_DOCS
+        || !weight.isQueryIndependent(context)) {
+      return weight.scorer(context);
+    }
+    final Values values = cache.computeIfAbsent(new Key(feature, cacheHelper.getKey()),
+        key -> new Values(maxDoc));
+    return new CachedFeatureScorer(weight, new CachedIterator(weight, context, values));
+  }
+
+  /** The key of the values of a feature for a segment. */
+  public static final class Key {
+    private final Feature feature;
+    private final IndexReader.CacheKey segmentKey;
+
+    public Key(Feature feature, IndexReader.CacheKey segmentKey) {
+      this.feature = feature;
+      this.segmentKey = segmentKey;
+    }
+
+    public IndexReader.CacheKey getSegmentKey() {
+      return segmentKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      final Key other = (Key) o;
+      return segmentKey == other.segmentKey && feature.equals(other.feature);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * feature.hashCode() + System.identityHashCode(segmentKey);
+    }
+
+    @Override
+    public String toString() {
+      return feature + "@" + segmentKey;
+    }
+  }
+
+  /**
+   * The values of a feature for the documents of a segment, in a direct buffer
+   * holding one int per document: 0 until the value of the document is known,
+   * {@link #NO_MATCH} if the feature doesn't match it, and the bits of the value
+   * plus one otherwise. Canonical floats never have the bits of these two codes.
+   * Concurrent requests may compute the same value twice, but always store the
+   * same code.
+   */
+  public static final class Values implements Accountable {
+    private static final long BASE_RAM_BYTES = RamUsageEstimator.shallowSizeOfInstance(Values.class);
+    static final int MAX_DOCS = Integer.MAX_VALUE / Integer.BYTES;
+    static final int UNKNOWN = 0;
+    static final int NO_MATCH = -1;
+
+    private final IntBuffer codes;
+
+    Values(int maxDoc) {
+      codes = ByteBuffer.allocateDirect(maxDoc * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    int code(int doc) {
+      return codes.get(doc);
+    }
+
+    void setValue(int doc, float value) {
+      codes.put(doc, Float.floatToIntBits(value) + 1);
+    }
+
+    void setNoMatch(int from, int to) {
+      for (int doc = from; doc < to; doc++) {
+        codes.put(doc, NO_MATCH);
+      }
+    }
+
+    static float value(int code) {
+      return Float.intBitsToFloat(code - 1);
+    }
+
+    /** The number of documents of the segment. */
+    public int size() {
+      return codes.capacity();
+    }
+
+    @Override
+    public long ramBytesUsed() {
+      return BASE_RAM_BYTES + (long) codes.capacity() * Integer.BYTES;
+    }
+  }
+
+  /**
+   * Iterates over the documents matched by a feature, reading them from the
+   * cached values when known, and from the scorer of the feature, created on
+   * the first document that isn't, otherwise.
+   */
+  private static final class CachedIterator extends DocIdSetIterator {
+    private final Feature.FeatureWeight weight;
+    private final LeafReaderContext context;
+    private final Values values;
+    private final int maxDoc;
+    private Feature.FeatureWeight.FeatureScorer in;
+    private boolean exhausted;
+    private DocInfo docInfo;
+    private int doc = -1;
+    private int code = Values.UNKNOWN;
+
+    CachedIterator(Feature.FeatureWeight weight, LeafReaderContext context, Values values) {
+      this.weight = weight;
+      this.context = context;
+      this.values = values;
+      this.maxDoc = values.size();
+    }
+
+    @Override
+    public int docID() {
+      return doc;
+    }
+
+    @Override
+    public int nextDoc() throws IOException {
+      return advance(doc + 1);
+    }
+
+    @Override
+    public int advance(int target) throws IOException {
+      int current = target;
+      // skip the documents known not to match
+      while (current < maxDoc && (code = values.code(current)) == Values.NO_MATCH) {
+        current++;
+      }
+      if (current >= maxDoc) {
+        return doc = NO_MORE_DOCS;
+      }
+      if (code != Values.UNKNOWN) {
+        return doc = current;
+      }
+
+      if (in == null && !exhausted) {
+        in = weight.scorer(context);
+        exhausted = in == null;
+      }
+      final int next;
+      if (exhausted) {
+        next = NO_MORE_DOCS;
+      } else if (in.docID() < current) {
+        next = in.iterator().advance(current);
+      } else {
+        next = in.docID();
+      }
+      values.setNoMatch(current, Math.min(next, maxDoc));
+      if (next == NO_MORE_DOCS) {
+        exhausted = true;
+        return doc = NO_MORE_DOCS;
+      }
+      code = values.code(next);
+      return doc = next;
+    }
+
+    float score() throws IOException {
+      if (code == Values.UNKNOWN) {
+        in.setDocInfo(docInfo);
+        final float value = in.score();
+        values.setValue(doc, value);
+        code = values.code(doc);
+        return value;
+      }
+      return Values.value(code);
+    }
+
+    @Override
+    public long cost() {
+      return maxDoc;
+    }
+  }
+
+  private static final class CachedFeatureScorer extends Feature.FeatureWeight.FeatureScorer {
+    private final CachedIterator cachedIterator;
+
+    CachedFeatureScorer(Feature.FeatureWeight weight, CachedIterator iterator) {
+      weight.super(weight, iterator);
+      this.cachedIterator = iterator;
+    }
+
+    @Override
+    public void setDocInfo(DocInfo docInfo) {
+      super.setDocInfo(docInfo);
+      cachedIterator.docInfo = docInfo;
+    }
+
+    @Override
+    public float score() throws IOException {
+      return cachedIterator.score();
+    }
+
+    @Override
+    public float getMaxScore(int upTo) throws IOException {
+      return Float.POSITIVE_INFINITY;
+    }
+  }
+}
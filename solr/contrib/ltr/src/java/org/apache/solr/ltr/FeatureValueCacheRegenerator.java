@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.ltr;
+
+import java.io.IOException;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.solr.search.CacheRegenerator;
+import org.apache.solr.search.SolrCache;
+import org.apache.solr.search.SolrIndexSearcher;
+
+/**
+ * Autowarms a {@link FeatureValueCache} by carrying the feature values of the
+ * segments that are still part of the new searcher over to its cache. The
+ * values of the segments that were merged away are dropped.
+ */
+public class FeatureValueCacheRegenerator implements CacheRegenerator {
+
+  @Override
+  public <K,V> boolean regenerateItem(SolrIndexSearcher newSearcher,
+      SolrCache<K,V> newCache, SolrCache<K,V> oldCache, K oldKey, V oldVal) throws IOException {
+    if (oldKey instanceof FeatureValueCache.Key) {
+      final IndexReader.CacheKey segmentKey = ((FeatureValueCache.Key) oldKey).getSegmentKey();
+      for (final LeafReaderContext context : newSearcher.getTopReaderContext().leaves()) {
+        final IndexReader.CacheHelper cacheHelper = context.reader().getCoreCacheHelper();
+        if (cacheHelper != null && cacheHelper.getKey() == segmentKey) {
+          newCache.put(oldKey, oldVal);
+          break;
+        }
+      }
+    }
+    return true;
+  }
+}
@@ -153,35 +153,37 @@ public class LTRRescorer extends Rescorer {
     return hits;
   }
 
+  /**
+   * Scores the documents one segment at a time: the features of all the documents
+   * of a segment are extracted one feature at a time, and the model scores them in
+   * one batch.
+   */
   public void scoreFeatures(IndexSearcher indexSearcher,
                             int topN, LTRScoringQuery.ModelWeight modelWeight, ScoreDoc[] hits, List<LeafReaderContext> leaves,
                             ScoreDoc[] reranked) throws IOException {
 
-    int readerUpto = -1;
-    int endDoc = 0;
-    int docBase = 0;
-
-    LTRScoringQuery.ModelWeight.ModelScorer scorer = null;
+    final LTRScoringQuery.FeatureBatch batch = modelWeight.newFeatureBatch(hits.length);
     int hitUpto = 0;
 
     while (hitUpto < hits.length) {
-      final ScoreDoc hit = hits[hitUpto];
-      final int docID = hit.doc;
-      LeafReaderContext readerContext = null;
-      while (docID >= endDoc) {
-        readerUpto++;
-        readerContext = leaves.get(readerUpto);
-        endDoc = readerContext.docBase + readerContext.reader().maxDoc();
-      }
-      // We advanced to another segment
-      if (readerContext != null) {
-        docBase = readerContext.docBase;
-        scorer = modelWeight.scorer(readerContext);
+      final LeafReaderContext readerContext = leaves.get(ReaderUtil.subIndex(hits[hitUpto].doc, leaves));
+      final int docBase = readerContext.docBase;
+      final int endDoc = docBase + readerContext.reader().maxDoc();
+      batch.clear();
+      for (int i = hitUpto; i < hits.length && hits[i].doc < endDoc; i++) {
+        batch.add(hits[i].doc - docBase, hits[i].score);
       }
-      if (scoreSingleHit(topN, docBase, hitUpto, hit, docID, scorer, reranked)) {
-        logSingleHit(indexSearcher, modelWeight, hit.doc, scoringQuery);
+      modelWeight.scoreBatch(readerContext, batch);
+
+      for (int i = 0; i < batch.size(); i++) {
+        final ScoreDoc hit = hits[hitUpto];
+        hit.score = batch.getScore(i);
+        if (collectHit(topN, hitUpto, hit, reranked) && scoringQuery.getFeatureLogger() != null) {
+          modelWeight.setFeaturesInfo(batch, i);
+          logSingleHit(indexSearcher, modelWeight, hit.doc, scoringQuery);
+        }
+        hitUpto++;
       }
-      hitUpto++;
     }
   }
 
@@ -215,10 +217,19 @@ public class LTRRescorer extends Rescorer {
     scorer.docID();
     scorer.iterator().advance(targetDoc);
 
-    boolean logHit = false;
-
     scorer.getDocInfo().setOriginalDocScore(hit.score);
     hit.score = scorer.score();
+    return collectHit(topN, hitUpto, hit, reranked);
+  }
+
+  /**
+   * Adds a scored document to the reranked documents, and returns true if the
+   * document's feature info should be logged. Feature info logging is only
+   * necessary for the topN documents.
+   */
+  protected static boolean collectHit(int topN, int hitUpto, ScoreDoc hit, ScoreDoc[] reranked) {
+    boolean logHit = false;
+
     if (hitUpto < topN) {
       reranked[hitUpto] = hit;
       // if the heap is not full, maybe I want to log the features for this
@@ -43,10 +43,13 @@ import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.FixedBitSet;
 import org.apache.lucene.util.RamUsageEstimator;
 import org.apache.solr.ltr.feature.Feature;
 import org.apache.solr.ltr.model.LTRScoringModel;
 import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.search.SolrCache;
+import org.apache.solr.search.SolrIndexSearcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -75,6 +78,8 @@ public class LTRScoringQuery extends Query implements Accountable {
   private Query originalQuery;
   // Original solr request
   private SolrQueryRequest request;
+  // Name of the user cache of the query independent feature values, if any
+  private String featureValueCacheName;
 
   public LTRScoringQuery(LTRScoringModel ltrScoringModel) {
     this(ltrScoringModel, Collections.<String,String[]>emptyMap(), false, null);
@@ -134,6 +139,18 @@ public class LTRScoringQuery extends Query implements Accountable {
     return request;
   }
 
+  /**
+   * Sets the name of the user cache of the searcher in which the values of the
+   * query independent features are cached, see {@link FeatureValueCache}.
+   */
+  public void setFeatureValueCacheName(String featureValueCacheName) {
+    this.featureValueCacheName = featureValueCacheName;
+  }
+
+  public String getFeatureValueCacheName() {
+    return featureValueCacheName;
+  }
+
   @Override
   public int hashCode() {
     final int prime = 31;
@@ -238,7 +255,14 @@ public class LTRScoringQuery extends Query implements Accountable {
         modelFeaturesWeights[j++] = fw;
       }
     }
-    return new ModelWeight(modelFeaturesWeights, extractedFeatureWeights, allFeatures.size());
+    final ModelWeight modelWeight = new ModelWeight(modelFeaturesWeights, extractedFeatureWeights, allFeatures.size());
+    if (featureValueCacheName != null && searcher instanceof SolrIndexSearcher) {
+      @SuppressWarnings({"unchecked"})
+      final SolrCache<FeatureValueCache.Key,FeatureValueCache.Values> featureValueCache =
+          ((SolrIndexSearcher) searcher).getCache(featureValueCacheName);
+      modelWeight.featureValueCache = featureValueCache;
+    }
+    return modelWeight;
   }
 
   private void createWeights(IndexSearcher searcher, boolean needsScores,
@@ -351,6 +375,62 @@ public class LTRScoringQuery extends Query implements Accountable {
     }
   }
 
+  /**
+   * The features of a batch of documents of a segment, sorted by id, extracted one
+   * feature at a time by {@link ModelWeight#scoreBatch(LeafReaderContext, FeatureBatch)},
+   * and their scores.
+   */
+  public static class FeatureBatch {
+    final private int[] docs;
+    final private DocInfo[] docInfos;
+    final private float[] scores;
+    // the values of each extracted feature, indexed by feature id then by position in the batch
+    final private float[][] featureValues;
+    final private FixedBitSet[] featureMatches;
+    final private float[][] modelFeatureColumns;
+    private int size;
+
+    FeatureBatch(int capacity, Feature.FeatureWeight[] extractedFeatureWeights, int allFeaturesSize, int modelFeaturesSize) {
+      docs = new int[capacity];
+      docInfos = new DocInfo[capacity];
+      scores = new float[capacity];
+      featureValues = new float[allFeaturesSize][];
+      featureMatches = new FixedBitSet[allFeaturesSize];
+      for (final Feature.FeatureWeight featureWeight : extractedFeatureWeights) {
+        featureValues[featureWeight.getIndex()] = new float[capacity];
+        featureMatches[featureWeight.getIndex()] = new FixedBitSet(capacity);
+      }
+      modelFeatureColumns = new float[modelFeaturesSize][capacity];
+    }
+
+    /**
+     * Adds a document to the batch.
+     * @param doc the id of the document in its segment, greater than the id of the previous document
+     * @param originalDocScore the score of the document before reranking
+     */
+    public void add(int doc, float originalDocScore) {
+      assert size == 0 || doc > docs[size - 1];
+      docs[size] = doc;
+      final DocInfo docInfo = new DocInfo();
+      docInfo.setOriginalDocScore(originalDocScore);
+      docInfos[size] = docInfo;
+      size++;
+    }
+
+    public void clear() {
+      size = 0;
+    }
+
+    public int size() {
+      return size;
+    }
+
+    /** The score of the document at the given position in the batch, once scored. */
+    public float getScore(int index) {
+      return scores[index];
+    }
+  }
+
   public class ModelWeight extends Weight {
 
     // List of the model's features used for scoring. This is a subset of the
@@ -371,6 +451,8 @@ public class LTRScoringQuery extends Query implements Accountable {
      *
      */
     final private FeatureInfo[] featuresInfo;
+    // The cache of the query independent feature values of the searcher, if configured
+    private SolrCache<FeatureValueCache.Key,FeatureValueCache.Values> featureValueCache;
     /*
      * @param modelFeatureWeights
      *     - should be the same size as the number of features used by the model
@@ -404,6 +486,73 @@ public class LTRScoringQuery extends Query implements Accountable {
       return featuresInfo;
     }
 
+    /** Creates a batch of documents to score with {@link #scoreBatch(LeafReaderContext, FeatureBatch)}. */
+    public FeatureBatch newFeatureBatch(int capacity) {
+      return new FeatureBatch(capacity, extractedFeatureWeights, featuresInfo.length, modelFeatureWeights.length);
+    }
+
+    /**
+     * Scores a batch of documents of a segment. Each feature is computed for all
+     * the documents of the batch before the next one, advancing its scorer over
+     * the documents in order, and the model then scores the whole batch in one call.
+     * The scores are the same as the ones of the {@link ModelScorer}.
+     */
+    public void scoreBatch(LeafReaderContext context, FeatureBatch batch) throws IOException {
+      final int size = batch.size;
+      for (final Feature.FeatureWeight featureWeight : extractedFeatureWeights) {
+        final int featureId = featureWeight.getIndex();
+        final float[] values = batch.featureValues[featureId];
+        final FixedBitSet matches = batch.featureMatches[featureId];
+        Arrays.fill(values, 0, size, featureWeight.getDefaultValue());
+        matches.clear(0, matches.length());
+
+        final Feature.FeatureWeight.FeatureScorer scorer = featureScorer(featureWeight, context);
+        if (scorer == null) {
+          continue;
+        }
+        final DocIdSetIterator iterator = scorer.iterator();
+        for (int i = 0; i < size; i++) {
+          final int doc = batch.docs[i];
+          if (iterator.docID() < doc && iterator.advance(doc) == DocIdSetIterator.NO_MORE_DOCS) {
+            break;
+          }
+          if (iterator.docID() == doc) {
+            scorer.setDocInfo(batch.docInfos[i]);
+            values[i] = scorer.score();
+            matches.set(i);
+          }
+        }
+      }
+
+      for (int pos = 0; pos < modelFeatureWeights.length; pos++) {
+        System.arraycopy(batch.featureValues[modelFeatureWeights[pos].getIndex()], 0,
+            batch.modelFeatureColumns[pos], 0, size);
+      }
+      ltrScoringModel.normalizeFeatureColumnsInPlace(batch.modelFeatureColumns, size);
+      ltrScoringModel.scoreBatch(batch.modelFeatureColumns, size, batch.scores);
+    }
+
+    /**
+     * Sets the values returned by {@link #getFeaturesInfo()} to the features of
+     * the document at the given position in a batch scored by
+     * {@link #scoreBatch(LeafReaderContext, FeatureBatch)}, to log them.
+     */
+    public void setFeaturesInfo(FeatureBatch batch, int index) {
+      for (final Feature.FeatureWeight featureWeight : extractedFeatureWeights) {
+        final int featureId = featureWeight.getIndex();
+        featuresInfo[featureId].setValue(batch.featureValues[featureId][index]);
+        featuresInfo[featureId].setUsed(batch.featureMatches[featureId].get(index));
+      }
+    }
+
+    private Feature.FeatureWeight.FeatureScorer featureScorer(Feature.FeatureWeight featureWeight,
+        LeafReaderContext context) throws IOException {
+      if (featureValueCache == null) {
+        return featureWeight.scorer(context);
+      }
+      return FeatureValueCache.scorer(featureValueCache, featureWeight, context);
+    }
+
     // for test use
     Feature.FeatureWeight[] getModelFeatureWeights() {
       return modelFeatureWeights;
@@ -478,7 +627,7 @@ public class LTRScoringQuery extends Query implements Accountable {
       final List<Feature.FeatureWeight.FeatureScorer> featureScorers = new ArrayList<Feature.FeatureWeight.FeatureScorer>(
           extractedFeatureWeights.length);
       for (final Feature.FeatureWeight featureWeight : extractedFeatureWeights) {
-        final Feature.FeatureWeight.FeatureScorer scorer = featureWeight.scorer(context);
+        final Feature.FeatureWeight.FeatureScorer scorer = featureScorer(featureWeight, context);
         if (scorer != null) {
           featureScorers.add(scorer);
         }
@@ -113,6 +113,16 @@ public abstract class Feature extends Query implements Accountable {
   public abstract FeatureWeight createWeight(IndexSearcher searcher,
       boolean needsScores, SolrQueryRequest request, Query originalQuery, Map<String,String[]> efi) throws IOException;
 
+  /**
+   * Returns true if the value of this feature for the documents of a segment
+   * only depends on the documents, and not on the request, the other segments
+   * or the time, so that it can be cached with the segment in the
+   * {@link org.apache.solr.ltr.FeatureValueCache}. The default is false.
+   */
+  public boolean isQueryIndependent(LeafReaderContext context) {
+    return false;
+  }
+
   public float getDefaultValue() {
     return defaultValue;
   }
@@ -270,6 +280,16 @@ public abstract class Feature extends Query implements Accountable {
       return false;
     }
 
+    /**
+     * Returns true if the values of this weight for the documents of a segment
+     * can be cached in the {@link org.apache.solr.ltr.FeatureValueCache}. The
+     * default is {@link Feature#isQueryIndependent(LeafReaderContext)}, weights
+     * knowing more about their queries can be stricter.
+     */
+    public boolean isQueryIndependent(LeafReaderContext context) {
+      return Feature.this.isQueryIndependent(context);
+    }
+
     @Override
     public Explanation explain(LeafReaderContext context, int doc)
         throws IOException {
@@ -94,6 +94,11 @@ public class FieldLengthFeature extends Feature {
     super(name, params);
   }
 
+  @Override
+  public boolean isQueryIndependent(LeafReaderContext context) {
+    return true;
+  }
+
   @Override
   public FeatureWeight createWeight(IndexSearcher searcher, boolean needsScores,
       SolrQueryRequest request, Query originalQuery, Map<String,String[]> efi)
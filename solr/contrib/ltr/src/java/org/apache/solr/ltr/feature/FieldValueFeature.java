@@ -96,6 +96,12 @@ public class FieldValueFeature extends Feature {
     super(name, params);
   }
 
+  /** The values of the field are cacheable unless the doc values of the segment were updated. */
+  @Override
+  public boolean isQueryIndependent(LeafReaderContext context) {
+    return DocValues.isCacheable(context, field);
+  }
+
   @Override
   public FeatureWeight createWeight(IndexSearcher searcher, boolean needsScores,
       SolrQueryRequest request, Query originalQuery, Map<String,String[]> efi)
@@ -23,11 +23,25 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.DisjunctionMaxQuery;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.MultiTermQuery;
+import org.apache.lucene.search.NormsFieldExistsQuery;
+import org.apache.lucene.search.PointInSetQuery;
+import org.apache.lucene.search.PointRangeQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.Weight;
 import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.util.NamedList;
@@ -115,6 +129,25 @@ public class SolrFeature extends Feature {
     return new SolrFeatureWeight((SolrIndexSearcher) searcher, request, originalQuery, efi);
   }
 
+  /**
+   * Only features made of filter queries without parameters nor date math may
+   * be cacheable: their value is 1 for the matching documents. The score of a
+   * query depends on the statistics of the whole index. The weight also checks
+   * that the filter queries only depend on the documents of each segment.
+   */
+  @Override
+  public boolean isQueryIndependent(LeafReaderContext context) {
+    if ((q != null && !q.isEmpty()) || fq == null || fq.isEmpty()) {
+      return false;
+    }
+    for (final String fqStr : fq) {
+      if (fqStr != null && (fqStr.indexOf('$') >= 0 || fqStr.contains("NOW"))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   @Override
   protected void validate() throws FeatureException {
     if ((q == null || q.isEmpty()) &&
@@ -129,6 +162,8 @@ public class SolrFeature extends Feature {
    **/
   public class SolrFeatureWeight extends FeatureWeight {
     private final Weight solrQueryWeight;
+    // true if the filter queries only depend on the documents of each segment
+    private final boolean perSegmentFilters;
 
     public SolrFeatureWeight(SolrIndexSearcher searcher,
                              SolrQueryRequest request, Query originalQuery, Map<String, String[]> efi) throws IOException {
@@ -158,6 +193,7 @@ public class SolrFeature extends Feature {
 
         // Build the filter queries
         Query filterDocSetQuery = null;
+        final PerSegmentQueryVisitor perSegmentVisitor = new PerSegmentQueryVisitor();
         if (fq != null) {
           List<Query> filterQueries = new ArrayList<>(); // If there are no fqs we just want an empty list
           for (String fqStr : fq) {
@@ -169,6 +205,7 @@ public class SolrFeature extends Feature {
               final Query filterQuery = QParser.getParser(fqStr, req).getQuery();
               if (filterQuery != null) {
                 filterQueries.add(filterQuery);
+                filterQuery.visit(perSegmentVisitor);
               }
             }
           }
@@ -182,6 +219,7 @@ public class SolrFeature extends Feature {
         Query query = QueryUtils.combineQueryAndFilter(scoreQuery, filterDocSetQuery);
 
         solrQueryWeight = searcher.createWeight(searcher.rewrite(query), ScoreMode.COMPLETE, 1);
+        perSegmentFilters = perSegmentVisitor.perSegment;
 
       } catch (final SyntaxError e) {
         throw new FeatureException("Failed to parse feature query.", e);
@@ -209,6 +247,15 @@ public class SolrFeature extends Feature {
       }
     }
 
+    /**
+     * Joins, function ranges and other queries looking at the other segments
+     * or at updatable doc values would go stale in the cache.
+     */
+    @Override
+    public boolean isQueryIndependent(LeafReaderContext context) {
+      return perSegmentFilters && super.isQueryIndependent(context);
+    }
+
     @Override
     public FeatureScorer scorer(LeafReaderContext context) throws IOException {
       Scorer solrScorer = solrQueryWeight.scorer(context);
@@ -241,4 +288,39 @@ public class SolrFeature extends Feature {
 
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Checks that a query is only made of term, multi-term, point and field
+   * existence queries, combined by the usual compound queries, whose matches
+   * only depend on the documents of the segment searched.
+   */
+  private static class PerSegmentQueryVisitor extends QueryVisitor {
+    boolean perSegment = true;
+
+    @Override
+    public void consumeTerms(Query query, Term... terms) {
+      if (!(query instanceof TermQuery || query instanceof TermInSetQuery)) {
+        perSegment = false;
+      }
+    }
+
+    @Override
+    public void visitLeaf(Query query) {
+      if (!(query instanceof MultiTermQuery || query instanceof TermInSetQuery
+          || query instanceof PointRangeQuery || query instanceof PointInSetQuery
+          || query instanceof NormsFieldExistsQuery
+          || query instanceof MatchAllDocsQuery || query instanceof MatchNoDocsQuery)) {
+        perSegment = false;
+      }
+    }
+
+    @Override
+    public QueryVisitor getSubVisitor(BooleanClause.Occur occur, Query parent) {
+      if (!(parent instanceof BooleanQuery || parent instanceof ConstantScoreQuery
+          || parent instanceof BoostQuery || parent instanceof DisjunctionMaxQuery)) {
+        perSegment = false;
+      }
+      return this;
+    }
+  }
+}
@@ -273,6 +273,31 @@ public abstract class LTRScoringModel implements Accountable {
    */
   public abstract float score(float[] modelFeatureValuesNormalized);
 
+  /**
+   * Scores a batch of documents, given the normalized values of the features the
+   * scoring algorithm cares about, one column per feature. Models that can score
+   * a batch faster than one document at a time override this method, which calls
+   * {@link #score(float[])} for each document.
+   *
+   * @param modelFeatureColumnsNormalized
+   *          Normalized feature values, the value of the feature of index
+   *          <code>f</code> for the document <code>d</code> of the batch being
+   *          <code>modelFeatureColumnsNormalized[f][d]</code>
+   * @param numDocs
+   *          Number of documents in the batch
+   * @param scores
+   *          Receives the final score of each document of the batch
+   */
+  public void scoreBatch(float[][] modelFeatureColumnsNormalized, int numDocs, float[] scores) {
+    final float[] modelFeatureValuesNormalized = new float[modelFeatureColumnsNormalized.length];
+    for (int doc = 0; doc < numDocs; ++doc) {
+      for (int idx = 0; idx < modelFeatureValuesNormalized.length; ++idx) {
+        modelFeatureValuesNormalized[idx] = modelFeatureColumnsNormalized[idx][doc];
+      }
+      scores[doc] = score(modelFeatureValuesNormalized);
+    }
+  }
+
   /**
    * Similar to the score() function, except it returns an explanation of how
    * the features were used to calculate the score.
@@ -310,6 +335,26 @@ public abstract class LTRScoringModel implements Accountable {
     }
   }
 
+  /**
+   * Same as {@link #normalizeFeaturesInPlace(float[])} for a batch of documents,
+   * whose feature values are in one column per feature, as in
+   * {@link #scoreBatch(float[][], int, float[])}.
+   */
+  public void normalizeFeatureColumnsInPlace(float[][] modelFeatureColumns, int numDocs) {
+    if (modelFeatureColumns.length != norms.size()) {
+      throw new FeatureException("Must have normalizer for every feature");
+    }
+    for(int idx = 0; idx < modelFeatureColumns.length; ++idx) {
+      final Normalizer norm = norms.get(idx);
+      if (norm != IdentityNormalizer.INSTANCE) {
+        final float[] column = modelFeatureColumns[idx];
+        for (int doc = 0; doc < numDocs; ++doc) {
+          column[doc] = norm.normalize(column[doc]);
+        }
+      }
+    }
+  }
+
   public Explanation getNormalizerExplanation(Explanation e, int idx) {
     Normalizer n = norms.get(idx);
     if (n != IdentityNormalizer.INSTANCE) {
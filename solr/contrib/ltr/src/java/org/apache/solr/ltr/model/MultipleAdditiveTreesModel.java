@@ -17,6 +17,7 @@
 package org.apache.solr.ltr.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,6 +25,7 @@ import java.util.Stack;
 
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.Explanation;
+import org.apache.lucene.util.RamUsageEstimator;
 import org.apache.solr.ltr.feature.Feature;
 import org.apache.solr.ltr.norm.Normalizer;
 import org.apache.solr.util.SolrPluginUtils;
@@ -105,6 +107,22 @@ public class MultipleAdditiveTreesModel extends LTRScoringModel {
    */
   private List<RegressionTree> trees;
 
+  /*
+   * The trees compiled by validate() into flat arrays, which are faster to
+   * traverse than the RegressionTreeNode objects. The nodes of each tree are in
+   * depth first order, so that the left child of a split node follows it.
+   */
+  private static final int LEAF = -1;
+  private static final int BATCH_BLOCK_SIZE = 8;
+  // the index of the root node of each tree
+  private int[] treeRoots;
+  // the index of the feature of each split node, LEAF for the leaves
+  private int[] nodeFeatures;
+  // the threshold of each split node, the weighted value of each leaf
+  private float[] nodeValues;
+  // the index of the right child of each split node
+  private int[] rightChildren;
+
   private RegressionTree createRegressionTree(Map<String,Object> map) {
     final RegressionTree rt = new RegressionTree();
     if (map != null) {
@@ -271,17 +289,110 @@ public class MultipleAdditiveTreesModel extends LTRScoringModel {
     for (RegressionTree tree : trees) {
       tree.validate();
     }
+    compile();
+  }
+
+  private void compile() {
+    int numNodes = 0;
+    final Stack<RegressionTreeNode> stack = new Stack<RegressionTreeNode>();
+    for (final RegressionTree t : trees) {
+      stack.push(t.root);
+      while (!stack.empty()) {
+        final RegressionTreeNode node = stack.pop();
+        numNodes++;
+        if (!node.isLeaf()) {
+          stack.push(node.right);
+          stack.push(node.left);
+        }
+      }
+    }
+
+    treeRoots = new int[trees.size()];
+    nodeFeatures = new int[numNodes];
+    nodeValues = new float[numNodes];
+    rightChildren = new int[numNodes];
+
+    int next = 0;
+    // the nodes to compile, and the split node they are the right child of, or -1
+    final Stack<RegressionTreeNode> nodes = new Stack<RegressionTreeNode>();
+    final Stack<Integer> parents = new Stack<Integer>();
+    for (int t = 0; t < trees.size(); ++t) {
+      final RegressionTree tree = trees.get(t);
+      final float weight = tree.weight.floatValue();
+      treeRoots[t] = next;
+      nodes.push(tree.root);
+      parents.push(-1);
+      while (!nodes.empty()) {
+        final RegressionTreeNode node = nodes.pop();
+        final int parent = parents.pop();
+        final int idx = next++;
+        if (parent >= 0) {
+          rightChildren[parent] = idx;
+        }
+        if (node.isLeaf()) {
+          nodeFeatures[idx] = LEAF;
+          nodeValues[idx] = weight * node.value;
+        } else if ((node.featureIndex < 0) || (node.featureIndex >= features.size())) {
+          // unsupported feature (tree is looking for a feature that does not exist)
+          nodeFeatures[idx] = LEAF;
+          nodeValues[idx] = weight * 0f;
+        } else {
+          nodeFeatures[idx] = node.featureIndex;
+          nodeValues[idx] = node.threshold;
+          nodes.push(node.right);
+          parents.push(idx);
+          nodes.push(node.left);
+          parents.push(-1);
+        }
+      }
+    }
   }
 
   @Override
   public float score(float[] modelFeatureValuesNormalized) {
     float score = 0;
-    for (final RegressionTree t : trees) {
-      score += t.score(modelFeatureValuesNormalized);
+    for (final int root : treeRoots) {
+      int node = root;
+      while (nodeFeatures[node] != LEAF) {
+        node = (modelFeatureValuesNormalized[nodeFeatures[node]] <= nodeValues[node]) ? node + 1 : rightChildren[node];
+      }
+      score += nodeValues[node];
     }
     return score;
   }
 
+  /**
+   * Scores blocks of documents, moving all the documents of a block down each
+   * tree together, so that the memory accesses of the traversals overlap and the
+   * nodes of the tree are only fetched once per block.
+   */
+  @Override
+  public void scoreBatch(float[][] modelFeatureColumnsNormalized, int numDocs, float[] scores) {
+    final int[] blockNodes = new int[BATCH_BLOCK_SIZE];
+    for (int start = 0; start < numDocs; start += BATCH_BLOCK_SIZE) {
+      final int blockSize = Math.min(BATCH_BLOCK_SIZE, numDocs - start);
+      Arrays.fill(scores, start, start + blockSize, 0f);
+      for (final int root : treeRoots) {
+        Arrays.fill(blockNodes, 0, blockSize, root);
+        boolean moved = nodeFeatures[root] != LEAF;
+        while (moved) {
+          moved = false;
+          for (int i = 0; i < blockSize; ++i) {
+            final int node = blockNodes[i];
+            final int feature = nodeFeatures[node];
+            if (feature != LEAF) {
+              blockNodes[i] = (modelFeatureColumnsNormalized[feature][start + i] <= nodeValues[node]) ? node + 1 : rightChildren[node];
+              moved = true;
+            }
+          }
+        }
+        for (int i = 0; i < blockSize; ++i) {
+          scores[start + i] += nodeValues[blockNodes[i]];
+        }
+      }
+    }
+  }
+
   private static float scoreNode(float[] featureVector, RegressionTreeNode regressionTreeNode) {
     while (true) {
       if (regressionTreeNode.isLeaf()) {
@@ -412,4 +523,13 @@ public class MultipleAdditiveTreesModel extends LTRScoringModel {
     return sb.toString();
   }
 
+  @Override
+  public long ramBytesUsed() {
+    return super.ramBytesUsed() +
+        RamUsageEstimator.sizeOf(treeRoots) +
+        RamUsageEstimator.sizeOf(nodeFeatures) +
+        RamUsageEstimator.sizeOf(nodeValues) +
+        RamUsageEstimator.sizeOf(rightChildren);
+  }
+
 }
@@ -140,6 +140,11 @@ public abstract class WrapperModel extends AdapterModel {
     return model.score(modelFeatureValuesNormalized);
   }
 
+  @Override
+  public void scoreBatch(float[][] modelFeatureColumnsNormalized, int numDocs, float[] scores) {
+    model.scoreBatch(modelFeatureColumnsNormalized, numDocs, scores);
+  }
+
   @Override
   public Explanation explain(LeafReaderContext context, int doc, float finalScore,
                              List<Explanation> featureExplanations) {
@@ -151,6 +156,11 @@ public abstract class WrapperModel extends AdapterModel {
     model.normalizeFeaturesInPlace(modelFeatureValues);
   }
 
+  @Override
+  public void normalizeFeatureColumnsInPlace(float[][] modelFeatureColumns, int numDocs) {
+    model.normalizeFeatureColumnsInPlace(modelFeatureColumns, numDocs);
+  }
+
   @Override
   public Explanation getNormalizerExplanation(Explanation e, int idx) {
     return model.getNormalizerExplanation(e, idx);
@@ -66,6 +66,9 @@ public class LTRQParserPlugin extends QParserPlugin implements ResourceLoaderAwa
 
   private LTRThreadModule threadManager = null;
 
+  // name of the user cache of the query independent feature values, see FeatureValueCache
+  private String featureValueCacheName = null;
+
   /** query parser plugin: the name of the attribute for setting the model **/
   public static final String MODEL = "model";
 
@@ -92,6 +95,15 @@ public class LTRQParserPlugin extends QParserPlugin implements ResourceLoaderAwa
     SolrPluginUtils.invokeSetters(this, args);
   }
 
+  /**
+   * Sets the name of the user cache in which the values of the query
+   * independent features are cached across requests, see
+   * {@link org.apache.solr.ltr.FeatureValueCache}.
+   */
+  public void setFeatureValueCacheName(String featureValueCacheName) {
+    this.featureValueCacheName = featureValueCacheName;
+  }
+
   @Override
   public QParser createParser(String qstr, SolrParams localParams,
       SolrParams params, SolrQueryRequest req) {
@@ -204,6 +216,7 @@ public class LTRQParserPlugin extends QParserPlugin implements ResourceLoaderAwa
 
         // External features
         rerankingQuery.setRequest(req);
+        rerankingQuery.setFeatureValueCacheName(featureValueCacheName);
       }
 
       int reRankDocs = localParams.getInt(RERANK_DOCS, DEFAULT_RERANK_DOCS);
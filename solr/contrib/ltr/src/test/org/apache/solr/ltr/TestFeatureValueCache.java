@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.ltr;
+
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.ltr.feature.FieldValueFeature;
+import org.apache.solr.ltr.feature.SolrFeature;
+import org.apache.solr.ltr.model.LinearModel;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestFeatureValueCache extends TestRerankBase {
+
+  private static final String CACHE_NAME = "LTR_FEATURE_VALUES";
+
+  @Before
+  public void before() throws Exception {
+    setuptest("solrconfig-ltr-feature-value-cache.xml", "schema.xml");
+
+    assertU(adoc("id", "1", "title", "w1", "popularity", "1"));
+    assertU(adoc("id", "2", "title", "w2", "popularity", "2"));
+    assertU(adoc("id", "3", "title", "w1 w2", "popularity", "3"));
+    assertU(adoc("id", "4", "title", "w4", "popularity", "4"));
+    assertU(commit());
+
+    loadFeature("popularity", FieldValueFeature.class.getName(),
+        "{\"field\":\"dvIntPopularity\"}");
+    loadFeature("isW1", SolrFeature.class.getName(),
+        "{\"fq\":[\"{!terms f=title}w1\"]}");
+    loadFeature("matchesEfi", SolrFeature.class.getName(),
+        "{\"fq\":[\"{!terms f=title}${user_query}\"]}");
+    loadModel("cached-model", LinearModel.class.getName(),
+        new String[] {"popularity", "isW1", "matchesEfi"},
+        "{\"weights\":{\"popularity\":1.0, \"isW1\":10.0, \"matchesEfi\":100.0}}");
+  }
+
+  @After
+  public void after() throws Exception {
+    aftertest();
+  }
+
+  private static int cacheSize() throws Exception {
+    try (SolrCore core = jetty.getCoreContainer().getCore(DEFAULT_TEST_CORENAME)) {
+      return core.withSearcher(searcher -> searcher.getCache(CACHE_NAME).size());
+    }
+  }
+
+  private static void assertRanking(String userQuery, String... scores) throws Exception {
+    final SolrQuery query = new SolrQuery();
+    query.setQuery("*:*");
+    query.add("fl", "id,score");
+    query.add("rows", "4");
+    query.add("rq", "{!ltr model=cached-model reRankDocs=4 efi.user_query=" + userQuery + "}");
+    for (int i = 0; i < scores.length; i++) {
+      assertJQ("/query" + query.toQueryString(), "/response/docs/[" + i + "]/score==" + scores[i]);
+    }
+  }
+
+  @Test
+  public void testQueryIndependentFeaturesAreCached() throws Exception {
+    assertEquals(0, cacheSize());
+    assertRanking("w2", "113.0", "102.0", "11.0", "4.0");
+    // one entry per segment for the field value and the fq without parameter,
+    // the fq depending on the efi isn't cached
+    assertEquals(2, cacheSize());
+
+    // the cached values give the same scores, and the efi is still applied
+    assertRanking("w2", "113.0", "102.0", "11.0", "4.0");
+    assertRanking("w4", "104.0", "13.0", "11.0", "2.0");
+    assertEquals(2, cacheSize());
+  }
+
+  @Test
+  public void testValuesAreKeptForUnchangedSegments() throws Exception {
+    assertRanking("w2", "113.0", "102.0", "11.0", "4.0");
+    assertEquals(2, cacheSize());
+
+    // the values of the first segment are carried over to the new searcher
+    assertU(adoc("id", "5", "title", "w1", "popularity", "50"));
+    assertU(commit());
+    assertEquals(2, cacheSize());
+    assertRanking("w2", "113.0", "102.0", "60.0", "11.0");
+    assertEquals(4, cacheSize());
+
+    // and dropped once the segments are merged
+    assertU(optimize());
+    assertEquals(0, cacheSize());
+    assertRanking("w2", "113.0", "102.0", "60.0", "11.0");
+    assertEquals(2, cacheSize());
+  }
+
+  @Test
+  public void testFeaturesDependingOnOtherSegmentsAreNotCached() throws Exception {
+    // a join looks at the documents of all the segments, and maxdoc() at the whole index
+    loadFeature("joinsW1", SolrFeature.class.getName(),
+        "{\"fq\":[\"{!join from=id to=id}title:w1\"]}");
+    loadFeature("maxDoc", SolrFeature.class.getName(),
+        "{\"fq\":[\"{!frange l=1}maxdoc()\"]}");
+    loadModel("uncached-model", LinearModel.class.getName(),
+        new String[] {"joinsW1", "maxDoc"},
+        "{\"weights\":{\"joinsW1\":10.0, \"maxDoc\":1.0}}");
+
+    final SolrQuery query = new SolrQuery();
+    query.setQuery("*:*");
+    query.add("fl", "id,score");
+    query.add("rows", "4");
+    query.add("rq", "{!ltr model=uncached-model reRankDocs=4}");
+    assertJQ("/query" + query.toQueryString(), "/response/docs/[0]/score==11.0",
+        "/response/docs/[1]/score==11.0", "/response/docs/[2]/score==1.0");
+    assertEquals(0, cacheSize());
+  }
+}
@@ -26,6 +26,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
@@ -214,6 +215,60 @@ public class TestLTRReRankingPipeline extends SolrTestCaseJ4 {
     }
   }
 
+  @Test
+  public void testBatchScoresAcrossSegments() throws Exception {
+    assertU(delQ("*:*"));
+    final int numDocs = 20;
+    for (int i = 0; i < numDocs; i++) {
+      if (i % 3 == 0) {
+        // no value, the features have their default value
+        assertU(adoc("id", Integer.toString(i), "field", "wizard oz"));
+      } else {
+        assertU(adoc("id", Integer.toString(i), "field", "wizard oz", "finalScoreFloat", Integer.toString(i)));
+      }
+      if (i % 7 == 0) {
+        assertU(commit());
+      }
+    }
+    assertU(commit());
+
+    try (SolrQueryRequest solrQueryRequest = new LocalSolrQueryRequest(h.getCore(), new ModifiableSolrParams())) {
+      final SolrIndexSearcher searcher = solrQueryRequest.getSearcher();
+      assertTrue(searcher.getIndexReader().leaves().size() > 1);
+
+      final List<Feature> features = makeFieldValueFeatures(new int[] {0, 1, 2}, "finalScoreFloat");
+      final List<Normalizer> norms =
+          new ArrayList<Normalizer>(Collections.nCopies(features.size(), IdentityNormalizer.INSTANCE));
+      final List<Feature> allFeatures = makeFieldValueFeatures(new int[] {0, 1, 2, 3}, "finalScoreFloat");
+      final LTRScoringModel ltrScoringModel = TestLinearModel.createLinearModel("test",
+          features, norms, "test", allFeatures, TestLinearModel.makeFeatureWeights(features));
+      final LTRScoringQuery scoringQuery = new LTRScoringQuery(ltrScoringModel);
+      scoringQuery.setRequest(solrQueryRequest);
+
+      final TopDocs hits = searcher.search(new TermQuery(new Term("field", "wizard")), numDocs);
+      assertEquals(numDocs, hits.scoreDocs.length);
+      // the scores of the model scoring one document at a time
+      final LTRScoringQuery.ModelWeight modelWeight = scoringQuery.createWeight(searcher, ScoreMode.COMPLETE, 1);
+      final Map<Integer,Float> expectedScores = new HashMap<>();
+      for (final ScoreDoc hit : hits.scoreDocs) {
+        final List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        final LeafReaderContext context = leaves.get(ReaderUtil.subIndex(hit.doc, leaves));
+        final LTRScoringQuery.ModelWeight.ModelScorer scorer = modelWeight.scorer(context);
+        scorer.iterator().advance(hit.doc - context.docBase);
+        scorer.getDocInfo().setOriginalDocScore(hit.score);
+        expectedScores.put(hit.doc, scorer.score());
+      }
+
+      final TopDocs reranked = new LTRRescorer(scoringQuery).rescore(searcher, hits, numDocs);
+      assertEquals(numDocs, reranked.scoreDocs.length);
+      for (final ScoreDoc hit : reranked.scoreDocs) {
+        assertEquals(expectedScores.get(hit.doc), hit.score, 0f);
+      }
+      final int topId = Integer.parseInt(searcher.doc(reranked.scoreDocs[0].doc).get("id"));
+      assertEquals(numDocs - 1, topId);
+    }
+  }
+
   @Test
   public void testDocParam() throws Exception {
     try (SolrQueryRequest solrQueryRequest = new LocalSolrQueryRequest(h.getCore(), new ModifiableSolrParams())) {
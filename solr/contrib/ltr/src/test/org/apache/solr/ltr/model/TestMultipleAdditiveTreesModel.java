@@ -118,6 +118,42 @@ public class TestMultipleAdditiveTreesModel extends TestRerankBase {
     assertThat(qryResult, containsString(" Go Left "));
   }
 
+  @Test
+  public void testCompiledTrees() throws Exception {
+    final LTRScoringModel model = createModelFromFiles("multipleadditivetreesmodel.json",
+        "multipleadditivetreesmodel_features.json");
+    // the second tree always scores -20
+    assertEquals(-120f, model.score(new float[] {0f, 1f}), 0f);
+    assertEquals(-120f, model.score(new float[] {0.5f, 1f}), 0f);
+    assertEquals(30f, model.score(new float[] {1f, 1f}), 0f);
+    assertEquals(30f, model.score(new float[] {1f, 10f}), 0f);
+    assertEquals(55f, model.score(new float[] {1f, 11f}), 0f);
+  }
+
+  @Test
+  public void testScoreBatch() throws Exception {
+    final LTRScoringModel model = createModelFromFiles("multipleadditivetreesmodel.json",
+        "multipleadditivetreesmodel_features.json");
+    final int numFeatures = model.getFeatures().size();
+    final int numDocs = atLeast(10);
+    final float[][] columns = new float[numFeatures][numDocs];
+    for (int f = 0; f < numFeatures; f++) {
+      for (int d = 0; d < numDocs; d++) {
+        columns[f][d] = random().nextInt(3) * 0.5f + (f == 1 ? random().nextInt(20) : 0);
+      }
+    }
+
+    final float[] scores = new float[numDocs];
+    model.scoreBatch(columns, numDocs, scores);
+    final float[] row = new float[numFeatures];
+    for (int d = 0; d < numDocs; d++) {
+      for (int f = 0; f < numFeatures; f++) {
+        row[f] = columns[f][d];
+      }
+      assertEquals(model.score(row), scores[d], 0f);
+    }
+  }
+
   @Test
   public void multipleAdditiveTreesTestNoParams() throws Exception {
     final ModelException expectedException =
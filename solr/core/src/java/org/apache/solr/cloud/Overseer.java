@@ -141,6 +141,8 @@ public class Overseer implements SolrCloseable {
   // System properties are used in tests to make them run fast
   public static final int STATE_UPDATE_DELAY = ZkStateReader.STATE_UPDATE_DELAY;
   public static final int STATE_UPDATE_BATCH_SIZE = Integer.getInteger("solr.OverseerStateUpdateBatchSize", 10000);
+  // how long (ms) a state update may be held back so that more updates of the same collections are written with it
+  public static final int STATE_UPDATE_MAX_BATCH_LATENCY = Integer.getInteger("solr.OverseerStateUpdateMaxBatchLatency", STATE_UPDATE_DELAY);
   public static final int STATE_UPDATE_MAX_QUEUE = 20000;
 
   public static final int NUM_RESPONSES_TO_STORE = 10000;
@@ -243,7 +245,7 @@ public class Overseer implements SolrCloseable {
             try {
               reader.forciblyRefreshAllClusterStateSlow();
               clusterState = reader.getClusterState();
-              zkStateWriter = new ZkStateWriter(reader, stats);
+              zkStateWriter = new ZkStateWriter(reader, stats, clusterStateUpdaterMetricContext);
               refreshClusterState = false;
 
               // if there were any errors while processing
@@ -463,6 +463,7 @@ public class ZkController implements Closeable {
     zkStateReader = new ZkStateReader(zkClient, () -> {
       if (cc != null) cc.securityNodeChanged();
     });
+    zkStateReader.setMinStateByteLenForCompression(cloudConfig.getMinStateByteLenForCompression());
 
     init();
 
@@ -155,7 +155,7 @@ public class CreateCollectionCmd implements CollApiCmds.CollectionApiCommand {
         // This code directly updates Zookeeper by creating the collection state.json. It is compatible with both distributed
         // cluster state updates and Overseer based cluster state updates.
         ZkWriteCommand command = new ClusterStateMutator(ccc.getSolrCloudManager()).createCollection(clusterState, message);
-        byte[] data = Utils.toJSON(Collections.singletonMap(collectionName, command.collection));
+        byte[] data = ccc.getZkStateReader().encodeCollectionState(command.collection);
         ccc.getZkStateReader().getZkClient().create(collectionPath, data, CreateMode.PERSISTENT, true);
         clusterState = clusterState.copyWith(collectionName, command.collection);
         newColl = command.collection;
@@ -259,7 +259,7 @@ public class CreateCollectionCmd implements CollApiCmds.CollectionApiCommand {
           // TODO: consider doing this once after the loop for all replicas rather than writing state.json repeatedly
           // This PRS specific code is compatible with both Overseer and distributed cluster state update strategies
           ZkWriteCommand command = new SliceMutator(ccc.getSolrCloudManager()).addReplica(clusterState, props);
-          byte[] data = Utils.toJSON(Collections.singletonMap(collectionName, command.collection));
+          byte[] data = ccc.getZkStateReader().encodeCollectionState(command.collection);
 //        log.info("collection updated : {}", new String(data, StandardCharsets.UTF_8));
           ccc.getZkStateReader().getZkClient().setData(collectionPath, data, true);
           clusterState = clusterState.copyWith(collectionName, command.collection);
@@ -22,7 +22,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.Timer;
+import com.codahale.metrics.UniformReservoir;
 import org.apache.solr.cloud.Overseer;
 import org.apache.solr.cloud.Stats;
 import org.apache.solr.common.cloud.ClusterState;
@@ -30,15 +33,13 @@ import org.apache.solr.common.cloud.DocCollection;
 import org.apache.solr.common.cloud.PerReplicaStates;
 import org.apache.solr.common.cloud.PerReplicaStatesOps;
 import org.apache.solr.common.cloud.ZkStateReader;
-import org.apache.solr.common.util.Utils;
+import org.apache.solr.metrics.SolrMetricsContext;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.data.Stat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import static java.util.Collections.singletonMap;
-
 /**
  * ZkStateWriter is responsible for writing updates to the cluster state stored in ZooKeeper for collections
  * each of which gets their own individual state.json in ZK.
@@ -46,7 +47,10 @@ import static java.util.Collections.singletonMap;
  * Updates to the cluster state are specified using the
  * {@link #enqueueUpdate(ClusterState, List, ZkWriteCallback)} method. The class buffers updates
  * to reduce the number of writes to ZK. The buffered updates are flushed during <code>enqueueUpdate</code>
- * automatically if necessary. The {@link #writePendingUpdates()} can be used to force flush any pending updates.
+ * automatically once the oldest buffered update has waited for {@link Overseer#STATE_UPDATE_MAX_BATCH_LATENCY}
+ * milliseconds or {@link Overseer#STATE_UPDATE_BATCH_SIZE} updates are buffered, so that many updates to the same
+ * collection result in a single write of its state.json. The {@link #writePendingUpdates()} can be used to force
+ * flush any pending updates.
  *
  * If either {@link #enqueueUpdate(ClusterState, List, ZkWriteCallback)} or {@link #writePendingUpdates()}
  * throws a {@link org.apache.zookeeper.KeeperException.BadVersionException} then the internal buffered state of the
@@ -54,7 +58,7 @@ import static java.util.Collections.singletonMap;
  * and used for any future updates.
  */
 public class ZkStateWriter {
-  private static final long MAX_FLUSH_INTERVAL = TimeUnit.NANOSECONDS.convert(Overseer.STATE_UPDATE_DELAY, TimeUnit.MILLISECONDS);
+  private static final long MAX_FLUSH_INTERVAL = TimeUnit.NANOSECONDS.convert(Overseer.STATE_UPDATE_MAX_BATCH_LATENCY, TimeUnit.MILLISECONDS);
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
   /**
@@ -68,7 +72,12 @@ public class ZkStateWriter {
   protected Map<String, ZkWriteCommand> updates = new HashMap<>();
   private int numUpdates = 0;
   protected ClusterState clusterState = null;
-  protected long lastUpdatedTime = 0;
+  // when the oldest of the buffered updates was enqueued, only meaningful if numUpdates > 0
+  private long firstPendingUpdateTime = 0;
+
+  // number of updates written together, and number of state.json and per-replica state writes
+  private final Histogram batchSizes;
+  private final Meter stateWrites;
 
   /**
    * Set to true if we ever get a BadVersionException so that we can disallow future operations
@@ -77,11 +86,21 @@ public class ZkStateWriter {
   protected boolean invalidState = false;
 
   public ZkStateWriter(ZkStateReader zkStateReader, Stats stats) {
+    this(zkStateReader, stats, null);
+  }
+
+  /**
+   * @param metricsContext if not null, the batch size histogram and write rate meter are registered there. Metrics
+   *                       are shared by all the writers created with the same context.
+   */
+  public ZkStateWriter(ZkStateReader zkStateReader, Stats stats, SolrMetricsContext metricsContext) {
     assert zkStateReader != null;
 
     this.reader = zkStateReader;
     this.stats = stats;
     this.clusterState = zkStateReader.getClusterState();
+    this.batchSizes = metricsContext == null ? new Histogram(new UniformReservoir()) : metricsContext.histogram("batchSize", "stateWriter");
+    this.stateWrites = metricsContext == null ? new Meter() : metricsContext.meter("writes", "stateWriter");
   }
 
   /**
@@ -149,7 +168,9 @@ public class ZkStateWriter {
       if (cmd == NO_OP) continue;
       prevState = prevState.copyWith(cmd.name, cmd.collection);
       updates.put(cmd.name, cmd);
-      numUpdates++;
+      if (numUpdates++ == 0) {
+        firstPendingUpdateTime = System.nanoTime();
+      }
     }
     clusterState = prevState;
 
@@ -177,7 +198,7 @@ public class ZkStateWriter {
    * @return true if a flush to ZK is required, false otherwise
    */
   private boolean maybeFlushAfter() {
-    return System.nanoTime() - lastUpdatedTime > MAX_FLUSH_INTERVAL || numUpdates > Overseer.STATE_UPDATE_BATCH_SIZE;
+    return System.nanoTime() - firstPendingUpdateTime >= MAX_FLUSH_INTERVAL || numUpdates > Overseer.STATE_UPDATE_BATCH_SIZE;
   }
 
   public boolean hasPendingUpdates() {
@@ -212,6 +233,7 @@ public class ZkStateWriter {
     boolean success = false;
     try {
       if (!updates.isEmpty()) {
+        batchSizes.update(updates == this.updates ? numUpdates : updates.size());
         for (Map.Entry<String, ZkWriteCommand> entry : updates.entrySet()) {
           String name = entry.getKey();
           String path = ZkStateReader.getCollectionPath(name);
@@ -221,6 +243,7 @@ public class ZkStateWriter {
           // Update the Per Replica State znodes if needed
           if (cmd.ops != null) {
             cmd.ops.persist(path, reader.getZkClient());
+            stateWrites.mark();
             clusterState = clusterState.copyWith(name,
                   cmd.collection.copyWith(PerReplicaStates.fetch(cmd.collection.getZNode(), reader.getZkClient(), null)));
           }
@@ -232,7 +255,8 @@ public class ZkStateWriter {
             log.debug("going to delete state.json {}", path);
             reader.getZkClient().clean(path);
           } else {
-            byte[] data = Utils.toJSON(singletonMap(c.getName(), c));
+            byte[] data = reader.encodeCollectionState(c);
+            stateWrites.mark();
             if (reader.getZkClient().exists(path, true)) {
               if (log.isDebugEnabled()) {
                 log.debug("going to update_collection {} version: {}", path, c.getZNodeVersion());
@@ -266,7 +290,6 @@ public class ZkStateWriter {
         numUpdates = 0;
       }
 
-      lastUpdatedTime = System.nanoTime();
       success = true;
     } catch (KeeperException.BadVersionException bve) {
       // this is a tragic error, we must disallow usage of this instance
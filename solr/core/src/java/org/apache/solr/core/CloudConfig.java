@@ -52,10 +52,13 @@ public class CloudConfig {
 
   private final boolean useDistributedCollectionConfigSetExecution;
 
+  private final int minStateByteLenForCompression;
+
   CloudConfig(String zkHost, int zkClientTimeout, int hostPort, String hostName, String hostContext, boolean useGenericCoreNames,
               int leaderVoteWait, int leaderConflictResolveWait, String zkCredentialsProviderClass, String zkACLProviderClass,
               int createCollectionWaitTimeTillActive, boolean createCollectionCheckLeaderActive, String pkiHandlerPrivateKeyPath,
-              String pkiHandlerPublicKeyPath, boolean useDistributedClusterStateUpdates, boolean useDistributedCollectionConfigSetExecution) {
+              String pkiHandlerPublicKeyPath, boolean useDistributedClusterStateUpdates, boolean useDistributedCollectionConfigSetExecution,
+              int minStateByteLenForCompression) {
     this.zkHost = zkHost;
     this.zkClientTimeout = zkClientTimeout;
     this.hostPort = hostPort;
@@ -72,6 +75,7 @@ public class CloudConfig {
     this.pkiHandlerPublicKeyPath = pkiHandlerPublicKeyPath;
     this.useDistributedClusterStateUpdates = useDistributedClusterStateUpdates;
     this.useDistributedCollectionConfigSetExecution = useDistributedCollectionConfigSetExecution;
+    this.minStateByteLenForCompression = minStateByteLenForCompression;
 
     if (useDistributedCollectionConfigSetExecution && !useDistributedClusterStateUpdates) {
       throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, "'useDistributedCollectionConfigSetExecution' can't be true if useDistributedClusterStateUpdates is false");
@@ -147,6 +151,10 @@ public class CloudConfig {
     return useDistributedCollectionConfigSetExecution;
   }
 
+  public int getMinStateByteLenForCompression() {
+    return minStateByteLenForCompression;
+  }
+
   public static class CloudConfigBuilder {
 
     private static final int DEFAULT_ZK_CLIENT_TIMEOUT = 45000;
@@ -154,6 +162,7 @@ public class CloudConfig {
     private static final int DEFAULT_LEADER_CONFLICT_RESOLVE_WAIT = 180000;
     private static final int DEFAULT_CREATE_COLLECTION_ACTIVE_WAIT = 45;  // 45 seconds
     private static final boolean DEFAULT_CREATE_COLLECTION_CHECK_LEADER_ACTIVE = false;
+    private static final int DEFAULT_MIN_STATE_BYTE_LEN_FOR_COMPRESSION = -1;  // disabled
 
     private String zkHost;
     private int zkClientTimeout = Integer.getInteger("zkClientTimeout", DEFAULT_ZK_CLIENT_TIMEOUT);
@@ -170,6 +179,7 @@ public class CloudConfig {
     private String pkiHandlerPrivateKeyPath;
     private String pkiHandlerPublicKeyPath;
     private boolean useDistributedClusterStateUpdates = false;
+    private int minStateByteLenForCompression = DEFAULT_MIN_STATE_BYTE_LEN_FOR_COMPRESSION;
     private boolean useDistributedCollectionConfigSetExecution = false;
 
     public CloudConfigBuilder(String hostName, int hostPort) {
@@ -247,11 +257,16 @@ public class CloudConfig {
       return this;
     }
 
+    public CloudConfigBuilder setMinStateByteLenForCompression(int minStateByteLenForCompression) {
+      this.minStateByteLenForCompression = minStateByteLenForCompression;
+      return this;
+    }
+
     public CloudConfig build() {
       return new CloudConfig(zkHost, zkClientTimeout, hostPort, hostName, hostContext, useGenericCoreNames, leaderVoteWait,
           leaderConflictResolveWait, zkCredentialsProviderClass, zkACLProviderClass, createCollectionWaitTimeTillActive,
           createCollectionCheckLeaderActive, pkiHandlerPrivateKeyPath, pkiHandlerPublicKeyPath,
-          useDistributedClusterStateUpdates, useDistributedCollectionConfigSetExecution);
+          useDistributedClusterStateUpdates, useDistributedCollectionConfigSetExecution, minStateByteLenForCompression);
     }
   }
 }
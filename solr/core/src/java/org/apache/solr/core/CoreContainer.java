@@ -16,6 +16,7 @@
  */
 package org.apache.solr.core;
 
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
@@ -78,6 +79,7 @@ import org.apache.solr.handler.admin.CoreAdminHandler;
 import org.apache.solr.handler.admin.HealthCheckHandler;
 import org.apache.solr.handler.admin.InfoHandler;
 import org.apache.solr.handler.admin.MetricsHandler;
+import org.apache.solr.handler.admin.PrometheusMetricsHandler;
 import org.apache.solr.handler.admin.SecurityConfHandler;
 import org.apache.solr.handler.admin.SecurityConfHandlerLocal;
 import org.apache.solr.handler.admin.SecurityConfHandlerZk;
@@ -138,7 +140,10 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
 import static java.util.Objects.requireNonNull;
@@ -206,6 +211,8 @@ public class CoreContainer {
 
   private final OrderedExecutor replayUpdatesExecutor;
 
+  private final ExecutorService indexSearcherExecutor;
+
   protected volatile LogWatcher<?> logging = null;
 
   private volatile CloserThread backgroundCloser = null;
@@ -238,6 +245,9 @@ public class CoreContainer {
 
   protected volatile SolrMetricsContext solrMetricsContext;
 
+  // time it took to create and register all the cores loaded on startup, -1 until they are
+  private volatile long startupCoresLoadTime = -1;
+
   protected volatile Tracer tracer = NoopTracerFactory.create();
 
   protected MetricsHandler metricsHandler;
@@ -373,6 +383,11 @@ public class CoreContainer {
         ExecutorUtil.newMDCAwareCachedThreadPool(
             cfg.getReplayUpdatesThreads(),
             new SolrNamedThreadFactory("replayUpdatesExecutor")));
+    this.indexSearcherExecutor = cfg.getIndexSearcherExecutorThreads() > 0
+        ? ExecutorUtil.newMDCAwareFixedThreadPool(
+            cfg.getIndexSearcherExecutorThreads(),
+            new SolrNamedThreadFactory("indexSearcherExecutor"))
+        : null;
 
     SolrPaths.AllowPathBuilder allowPathBuilder = new SolrPaths.AllowPathBuilder();
     allowPathBuilder.addPath(cfg.getSolrHome());
@@ -586,6 +601,7 @@ public class CoreContainer {
     cfg = null;
     containerProperties = null;
     replayUpdatesExecutor = null;
+    indexSearcherExecutor = null;
     distributedCollectionCommandRunner = Optional.empty();
     allowPaths = null;
     allowListUrlChecker = null;
@@ -638,6 +654,14 @@ public class CoreContainer {
     return replayUpdatesExecutor;
   }
 
+  /**
+   * The executor shared by the cores to search the slices of the segments of a query concurrently,
+   * or null if the node is configured to search the queries in the calling thread only.
+   */
+  public ExecutorService getIndexSearcherExecutor() {
+    return indexSearcherExecutor;
+  }
+
   public PackageLoader getPackageLoader() {
     return packageLoader;
   }
@@ -795,6 +819,9 @@ public class CoreContainer {
     metricsHandler = new MetricsHandler(this);
     containerHandlers.put(METRICS_PATH, metricsHandler);
     metricsHandler.initializeMetrics(solrMetricsContext, METRICS_PATH);
+    PrometheusMetricsHandler prometheusMetricsHandler = new PrometheusMetricsHandler(metricsHandler);
+    containerHandlers.put(PROMETHEUS_METRICS_PATH, prometheusMetricsHandler);
+    prometheusMetricsHandler.initializeMetrics(solrMetricsContext, PROMETHEUS_METRICS_PATH);
 
     containerHandlers.put(AUTHZ_PATH, securityConfHandler);
     securityConfHandler.initializeMetrics(solrMetricsContext, AUTHZ_PATH);
@@ -854,6 +881,20 @@ public class CoreContainer {
         metricManager.registry(SolrMetricManager.getRegistryName(SolrInfoBean.Group.node)),
         SolrMetricManager.mkName("coreLoadExecutor", SolrInfoBean.Category.CONTAINER.toString(), "threadPool"));
     final List<Future<SolrCore>> futures = new ArrayList<>();
+
+    // per phase timings of loading the cores on startup: creating the core (opening its index and
+    // first searcher), then registering it in ZooKeeper (including tlog replay and leader election)
+    final Timer coreCreateTimer = solrMetricsContext.timer("create", SolrInfoBean.Category.CONTAINER.toString(), "coreLoad");
+    final Timer coreRegisterTimer = solrMetricsContext.timer("register", SolrInfoBean.Category.CONTAINER.toString(), "coreLoad");
+    solrMetricsContext.gauge(() -> startupCoresLoadTime, true, "startupTime", SolrInfoBean.Category.CONTAINER.toString(), "coreLoad");
+    final long loadStartNanos = System.nanoTime();
+    final AtomicInteger startupCoresPending = new AtomicInteger(1); // released once all cores are submitted
+    final Runnable startupCoreDone = () -> {
+      if (startupCoresPending.decrementAndGet() == 0) {
+        startupCoresLoadTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadStartNanos);
+        log.info("Loaded the cores of this node on startup in {} ms", startupCoresLoadTime);
+      }
+    };
     try {
       List<CoreDescriptor> cds = coresLocator.discover(this);
       cds = CoreSorter.sortCores(this, cds);
@@ -867,24 +908,45 @@ public class CoreContainer {
           solrCores.markCoreAsLoading(cd);
         }
         if (cd.isLoadOnStartup()) {
+          startupCoresPending.incrementAndGet();
           futures.add(coreLoadExecutor.submit(() -> {
-            SolrCore core;
+            SolrCore core = null;
             try {
               if (zkSys.getZkController() != null) {
                 zkSys.getZkController().throwErrorIfReplicaReplaced(cd);
               }
               solrCores.waitAddPendingCoreOps(cd.getName());
+              final Timer.Context createTime = coreCreateTimer.time();
               core = createFromDescriptor(cd, false, false);
+              createTime.stop();
             } finally {
               solrCores.removeFromPendingOps(cd.getName());
               if (asyncSolrCoreLoad) {
                 solrCores.markCoreAsNotLoading(cd);
               }
+              if (core == null) {
+                startupCoreDone.run();
+              }
             }
+            final long registerStartNanos = System.nanoTime();
+            final AtomicBoolean registerDone = new AtomicBoolean();
+            final Runnable afterRegister = () -> {
+              if (registerDone.compareAndSet(false, true)) {
+                coreRegisterTimer.update(System.nanoTime() - registerStartNanos, TimeUnit.NANOSECONDS);
+                startupCoreDone.run();
+              }
+            };
+            boolean registering = false;
             try {
-              zkSys.registerInZk(core, true, false);
+              zkSys.registerInZk(core, true, false, afterRegister);
+              registering = true;
             } catch (RuntimeException e) {
               SolrException.log(log, "Error registering SolrCore", e);
+            } finally {
+              // the registration failed before running in the background, it's over
+              if (!registering) {
+                afterRegister.run();
+              }
             }
             return core;
           }));
@@ -897,6 +959,9 @@ public class CoreContainer {
       backgroundCloser.start();
 
     } finally {
+      // all the cores are submitted, or discovering them failed
+      startupCoreDone.run();
+
       if (asyncSolrCoreLoad && futures != null) {
 
         coreContainerWorkExecutor.submit(() -> {
@@ -1084,6 +1149,12 @@ public class CoreContainer {
         replayUpdatesExecutor.shutdownAndAwaitTermination();
       });
 
+      if (indexSearcherExecutor != null) {
+        customThreadPool.submit(() -> {
+          ExecutorUtil.shutdownAndAwaitTermination(indexSearcherExecutor);
+        });
+      }
+
       if (metricManager != null) {
         metricManager.closeReporters(SolrMetricManager.getRegistryName(SolrInfoBean.Group.node));
         metricManager.closeReporters(SolrMetricManager.getRegistryName(SolrInfoBean.Group.jvm));
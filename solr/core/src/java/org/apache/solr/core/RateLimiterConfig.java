@@ -20,6 +20,9 @@ package org.apache.solr.core;
 import org.apache.solr.client.solrj.SolrRequest;
 
 import static org.apache.solr.servlet.RateLimitManager.DEFAULT_CONCURRENT_REQUESTS;
+import static org.apache.solr.servlet.RateLimitManager.DEFAULT_LATENCY_TOLERANCE;
+import static org.apache.solr.servlet.RateLimitManager.DEFAULT_LOW_PRIORITY_RATIO;
+import static org.apache.solr.servlet.RateLimitManager.DEFAULT_MIN_CONCURRENT_REQUESTS;
 import static org.apache.solr.servlet.RateLimitManager.DEFAULT_SLOT_ACQUISITION_TIMEOUT_MS;
 
 public class RateLimiterConfig {
@@ -31,6 +34,11 @@ public class RateLimiterConfig {
   public int allowedRequests;
   public boolean isSlotBorrowingEnabled;
   public int guaranteedSlotsThreshold;
+  // adaptive limiting: the number of allowed requests moves between minAllowedRequests and allowedRequests
+  public boolean isAdaptive;
+  public int minAllowedRequests;
+  public double latencyTolerance;
+  public double lowPriorityRatio;
 
   public RateLimiterConfig(SolrRequest.SolrRequestType requestType) {
     this.requestType = requestType;
@@ -39,6 +47,7 @@ public class RateLimiterConfig {
     this.isSlotBorrowingEnabled = false;
     this.guaranteedSlotsThreshold = this.allowedRequests / 2;
     this.waitForSlotAcquisition = DEFAULT_SLOT_ACQUISITION_TIMEOUT_MS;
+    setAdaptiveDefaults();
   }
 
   public RateLimiterConfig(SolrRequest.SolrRequestType requestType, boolean isEnabled, int guaranteedSlotsThreshold,
@@ -49,5 +58,13 @@ public class RateLimiterConfig {
     this.waitForSlotAcquisition = waitForSlotAcquisition;
     this.allowedRequests = allowedRequests;
     this.isSlotBorrowingEnabled = isSlotBorrowingEnabled;
+    setAdaptiveDefaults();
+  }
+
+  private void setAdaptiveDefaults() {
+    this.isAdaptive = false;
+    this.minAllowedRequests = DEFAULT_MIN_CONCURRENT_REQUESTS;
+    this.latencyTolerance = DEFAULT_LATENCY_TOLERANCE;
+    this.lowPriorityRatio = DEFAULT_LOW_PRIORITY_RATIO;
   }
 }
@@ -291,6 +291,13 @@ public class SolrConfig implements MapSerializable {
       queryResultWindowSize = Math.max(1, get("query").get("queryResultWindowSize").intVal(1));
       queryResultMaxDocsCached = get("query").get("queryResultMaxDocsCached").intVal(Integer.MAX_VALUE);
       enableLazyFieldLoading = get("query").get("enableLazyFieldLoading").boolVal(false);
+      concurrentSearch = get("query").get("concurrentSearch").boolVal(false);
+      maxDocsPerSearchSlice = get("query").get("maxDocsPerSearchSlice").intVal(DEFAULT_MAX_DOCS_PER_SEARCH_SLICE);
+      maxSegmentsPerSearchSlice = get("query").get("maxSegmentsPerSearchSlice").intVal(DEFAULT_MAX_SEGMENTS_PER_SEARCH_SLICE);
+      if (maxDocsPerSearchSlice < 1 || maxSegmentsPerSearchSlice < 1) {
+        throw new SolrException(ErrorCode.SERVER_ERROR,
+            "solrconfig.xml: <maxDocsPerSearchSlice> and <maxSegmentsPerSearchSlice> must be at least 1");
+      }
 
       filterCacheConfig = CacheConfig.getConfig(this, get("query").get("filterCache"), "query/filterCache");
       queryResultCacheConfig = CacheConfig.getConfig(this, get("query").get("queryResultCache"), "query/queryResultCache");
@@ -603,6 +610,12 @@ public class SolrConfig implements MapSerializable {
   public final int queryResultWindowSize;
   public final int queryResultMaxDocsCached;
   public final boolean enableLazyFieldLoading;
+  // concurrent search of the slices of the segments, with the indexSearcherExecutor of the node
+  public static final int DEFAULT_MAX_DOCS_PER_SEARCH_SLICE = 250_000;
+  public static final int DEFAULT_MAX_SEGMENTS_PER_SEARCH_SLICE = 5;
+  public final boolean concurrentSearch;
+  public final int maxDocsPerSearchSlice;
+  public final int maxSegmentsPerSearchSlice;
 
   // IndexConfig settings
   public final SolrIndexConfig indexConfig;
@@ -918,6 +931,9 @@ public class SolrConfig implements MapSerializable {
     m.put("queryResultWindowSize", queryResultWindowSize);
     m.put("queryResultMaxDocsCached", queryResultMaxDocsCached);
     m.put("enableLazyFieldLoading", enableLazyFieldLoading);
+    m.put("concurrentSearch", concurrentSearch);
+    m.put("maxDocsPerSearchSlice", maxDocsPerSearchSlice);
+    m.put("maxSegmentsPerSearchSlice", maxSegmentsPerSearchSlice);
     m.put("maxBooleanClauses", booleanQueryMaxClauseCount);
 
     for (SolrPluginInfo plugin : plugins) {
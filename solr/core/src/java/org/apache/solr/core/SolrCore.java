@@ -107,6 +107,7 @@ import org.apache.solr.handler.ReplicationHandler;
 import org.apache.solr.handler.RequestHandlerBase;
 import org.apache.solr.handler.SolrConfigHandler;
 import org.apache.solr.handler.component.HighlightComponent;
+import org.apache.solr.handler.component.QueryPhaseProfiler;
 import org.apache.solr.handler.component.SearchComponent;
 import org.apache.solr.logging.MDCLoggingContext;
 import org.apache.solr.metrics.SolrCoreMetricManager;
@@ -1018,6 +1019,7 @@ public final class SolrCore implements SolrInfoBean, Closeable {
 
       // initialize core metrics
       initializeMetrics(solrMetricsContext, null);
+      circuitBreakerManager.initializeMetrics(solrMetricsContext, null);
 
       SolrFieldCacheBean solrFieldCacheBean = new SolrFieldCacheBean();
       // this is registered at the CONTAINER level because it's not core-specific - for now we
@@ -2648,7 +2650,14 @@ public final class SolrCore implements SolrInfoBean, Closeable {
       if (log.isWarnEnabled() && slowQueryThresholdMillis >= 0) {
         final long qtime = (long) (req.getRequestTimer().getTime());
         if (qtime >= slowQueryThresholdMillis) {
-          slowLog.warn("slow: {}", rsp.getToLogAsString(logid));
+          QueryPhaseProfiler profiler = QueryPhaseProfiler.get(req);
+          if (profiler == null) {
+            slowLog.warn("slow: {}", rsp.getToLogAsString(logid));
+          } else {
+            // the stored fields are mostly loaded while writing the response, log the phases once it's written
+            final String toLog = rsp.getToLogAsString(logid);
+            profiler.afterResponseWritten(() -> slowLog.warn("slow: {} phases={}", toLog, profiler));
+          }
         }
       }
     }
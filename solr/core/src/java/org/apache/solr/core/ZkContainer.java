@@ -169,7 +169,18 @@ public class ZkContainer {
   public static volatile Predicate<CoreDescriptor> testing_beforeRegisterInZk;
 
   public void registerInZk(final SolrCore core, boolean background, boolean skipRecovery) {
+    registerInZk(core, background, skipRecovery, null);
+  }
+
+  /**
+   * @param afterRegister if not null, run once the registration is over, whether or not it succeeded. It is
+   *                      also run, immediately, in standalone mode.
+   */
+  public void registerInZk(final SolrCore core, boolean background, boolean skipRecovery, Runnable afterRegister) {
     if (zkController == null) {
+      if (afterRegister != null) {
+        afterRegister.run();
+      }
       return;
     }
 
@@ -208,6 +219,9 @@ public class ZkContainer {
         }
       } finally {
         MDCLoggingContext.clear();
+        if (afterRegister != null) {
+          afterRegister.run();
+        }
       }
     };
 
@@ -35,28 +35,36 @@ import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.BooleanSupplier;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.zip.Adler32;
+import java.util.zip.CRC32;
 import java.util.zip.Checksum;
 import java.util.zip.InflaterInputStream;
 
@@ -82,7 +90,9 @@ import org.apache.solr.cloud.ZkController;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrException.ErrorCode;
 import org.apache.solr.common.cloud.ClusterState;
+import org.apache.solr.common.cloud.DocCollection;
 import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.cloud.Slice;
 import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.util.ExecutorUtil;
@@ -153,6 +163,13 @@ public class IndexFetcher {
 
   private volatile boolean stop = false;
 
+  // set when one of several parallel downloads failed, so that the others give up too
+  private volatile boolean fetchFailed = false;
+
+  private final LongAdder bytesFetched = new LongAdder();
+
+  private final LongAdder bytesFetchedFromPeers = new LongAdder();
+
   private boolean useInternalCompression = false;
 
   private boolean useExternalCompression = false;
@@ -171,6 +188,14 @@ public class IndexFetcher {
 
   private boolean clearLocalIndexFirst = false;
 
+  private final int fetchIndexThreads;
+
+  private final long fetchIndexRangeSize;
+
+  private final boolean resumeIndexFetch;
+
+  private final boolean fetchFromPeers;
+
   private static final String INTERRUPT_RESPONSE_MESSAGE = "Interrupted while waiting for modify lock";
 
   public static class IndexFetchResult {
@@ -219,6 +244,17 @@ public class IndexFetcher {
     }
   }
 
+  /** A temporary index directory that a failed fetch kept, so that the next fetch of the same generation can resume. */
+  static class ResumableFetch {
+    final String tmpIdxDirName;
+    final long generation;
+
+    ResumableFetch(String tmpIdxDirName, long generation) {
+      this.tmpIdxDirName = tmpIdxDirName;
+      this.generation = generation;
+    }
+  }
+
   private static HttpClient createHttpClient(SolrCore core, String httpBasicAuthUser, String httpBasicAuthPassword, boolean useCompression) {
     final ModifiableSolrParams httpClientParams = new ModifiableSolrParams();
     httpClientParams.set(HttpClientUtil.PROP_BASIC_AUTH_USER, httpBasicAuthUser);
@@ -261,11 +297,36 @@ public class IndexFetcher {
       soTimeout = getParameter(initArgs, HttpClientUtil.PROP_SO_TIMEOUT, 120000, null);
     }
 
+    // as with the socket timeout, system properties win so that SolrCloud recovery can be tuned too
+    fetchIndexThreads = Math.max(1, Integer.getInteger("solr.indexfetcher.threads",
+        getIntParameter(initArgs, FETCH_INDEX_THREADS, 1)));
+    String rangeSizeMB = System.getProperty("solr.indexfetcher.rangeSizeMB");
+    if (rangeSizeMB == null && initArgs.get(FETCH_INDEX_RANGE_SIZE_MB) != null) {
+      rangeSizeMB = initArgs.get(FETCH_INDEX_RANGE_SIZE_MB).toString();
+    }
+    fetchIndexRangeSize = rangeSizeMB == null ? 0 : (long) (Double.parseDouble(rangeSizeMB) * 1024 * 1024);
+    String resume = System.getProperty("solr.indexfetcher.resume");
+    if (resume == null && initArgs.get(RESUME_INDEX_FETCH) != null) {
+      resume = initArgs.get(RESUME_INDEX_FETCH).toString();
+    }
+    resumeIndexFetch = Boolean.parseBoolean(resume);
+    String fromPeers = System.getProperty("solr.indexfetcher.fetchFromPeers");
+    if (fromPeers == null && initArgs.get(FETCH_FROM_PEERS) != null) {
+      fromPeers = initArgs.get(FETCH_FROM_PEERS).toString();
+    }
+    fetchFromPeers = Boolean.parseBoolean(fromPeers);
+
     String httpBasicAuthUser = (String) initArgs.get(HttpClientUtil.PROP_BASIC_AUTH_USER);
     String httpBasicAuthPassword = (String) initArgs.get(HttpClientUtil.PROP_BASIC_AUTH_PASS);
     myHttpClient = createHttpClient(solrCore, httpBasicAuthUser, httpBasicAuthPassword, useExternalCompression);
   }
 
+  /** Reads an int that is either configured in solrconfig.xml or passed as a request param. */
+  private static int getIntParameter(NamedList<?> initArgs, String configKey, int defaultValue) {
+    Object val = initArgs.get(configKey);
+    return val == null ? defaultValue : Integer.parseInt(val.toString());
+  }
+
   private void setLeaderUrl(String leaderUrl) {
     if (leaderUrl != null) {
       ClusterState clusterState = solrCore.getCoreContainer().getZkController() == null ?
@@ -301,6 +362,13 @@ public class IndexFetcher {
    * Gets the latest commit version and generation from the leader
    */
   public NamedList<Object> getLatestVersion() throws IOException {
+    return getLatestVersion(leaderUrl);
+  }
+
+  /**
+   * Gets the latest commit version and generation from the replica with the given core url
+   */
+  private NamedList<Object> getLatestVersion(String coreUrl) throws IOException {
     ModifiableSolrParams params = new ModifiableSolrParams();
     params.set(COMMAND, CMD_INDEX_VERSION);
     params.set(CommonParams.WT, JAVABIN);
@@ -308,7 +376,7 @@ public class IndexFetcher {
     QueryRequest req = new QueryRequest(params);
 
     // TODO modify to use shardhandler
-    try (HttpSolrClient client = new Builder(leaderUrl)
+    try (HttpSolrClient client = new Builder(coreUrl)
         .withHttpClient(myHttpClient)
         .withConnectionTimeout(connTimeout)
         .withSocketTimeout(soTimeout)
@@ -325,20 +393,8 @@ public class IndexFetcher {
    */
   @SuppressWarnings({"unchecked"})
   private void fetchFileList(long gen) throws IOException {
-    ModifiableSolrParams params = new ModifiableSolrParams();
-    params.set(COMMAND,  CMD_GET_FILE_LIST);
-    params.set(GENERATION, String.valueOf(gen));
-    params.set(CommonParams.WT, JAVABIN);
-    params.set(CommonParams.QT, ReplicationHandler.PATH);
-    QueryRequest req = new QueryRequest(params);
-
-    // TODO modify to use shardhandler
-    try (HttpSolrClient client = new HttpSolrClient.Builder(leaderUrl)
-        .withHttpClient(myHttpClient)
-        .withConnectionTimeout(connTimeout)
-        .withSocketTimeout(soTimeout)
-        .build()) {
-      NamedList<?> response = client.request(req);
+    try {
+      NamedList<?> response = getFileList(leaderUrl, gen);
 
       List<Map<String, Object>> files = (List<Map<String,Object>>) response.get(CMD_GET_FILE_LIST);
       if (files != null)
@@ -356,6 +412,27 @@ public class IndexFetcher {
     }
   }
 
+  /**
+   * Gets the list of files in a given index commit point of the replica with the given core url.
+   */
+  private NamedList<Object> getFileList(String coreUrl, long gen) throws IOException, SolrServerException {
+    ModifiableSolrParams params = new ModifiableSolrParams();
+    params.set(COMMAND,  CMD_GET_FILE_LIST);
+    params.set(GENERATION, String.valueOf(gen));
+    params.set(CommonParams.WT, JAVABIN);
+    params.set(CommonParams.QT, ReplicationHandler.PATH);
+    QueryRequest req = new QueryRequest(params);
+
+    // TODO modify to use shardhandler
+    try (HttpSolrClient client = new HttpSolrClient.Builder(coreUrl)
+        .withHttpClient(myHttpClient)
+        .withConnectionTimeout(connTimeout)
+        .withSocketTimeout(soTimeout)
+        .build()) {
+      return client.request(req);
+    }
+  }
+
   IndexFetchResult fetchLatestIndex(boolean forceReplication) throws IOException, InterruptedException {
     return fetchLatestIndex(forceReplication, false);
   }
@@ -375,6 +452,8 @@ public class IndexFetcher {
     boolean cleanupDone = false;
     boolean successfulInstall = false;
     markReplicationStart();
+    bytesFetched.reset();
+    bytesFetchedFromPeers.reset();
     Directory tmpIndexDir = null;
     String tmpIndexDirPath;
     Directory indexDir = null;
@@ -516,8 +595,12 @@ public class IndexFetcher {
           .getCommitTimestamp(commit) >= latestVersion
           || commit.getGeneration() >= latestGeneration || forceReplication;
 
-      String timestamp = new SimpleDateFormat(SnapShooter.DATE_FMT, Locale.ROOT).format(new Date());
-      String tmpIdxDirName = "index." + timestamp;
+      String tmpIdxDirName = takeResumableTmpIdxDir(latestGeneration);
+      final boolean resumed = tmpIdxDirName != null;
+      if (!resumed) {
+        String timestamp = new SimpleDateFormat(SnapShooter.DATE_FMT, Locale.ROOT).format(new Date());
+        tmpIdxDirName = "index." + timestamp;
+      }
       tmpIndexDirPath = solrCore.getDataDir() + tmpIdxDirName;
 
       tmpIndexDir = solrCore.getDirectoryFactory().get(tmpIndexDirPath, DirContext.DEFAULT, solrCore.getSolrConfig().indexConfig.lockType);
@@ -581,8 +664,19 @@ public class IndexFetcher {
           log.info("Starting download (fullCopy={}) to {}", isFullCopyNeeded, tmpIndexDir);
           successfulInstall = false;
 
-          long bytesDownloaded = downloadIndexFiles(isFullCopyNeeded, indexDir,
-              tmpIndexDir, indexDirPath, tmpIndexDirPath, latestGeneration);
+          long bytesDownloaded;
+          try {
+            bytesDownloaded = downloadIndexFiles(isFullCopyNeeded, indexDir,
+                tmpIndexDir, indexDirPath, tmpIndexDirPath, latestGeneration, resumed);
+          } catch (Exception e) {
+            if (resumeIndexFetch) {
+              // keep the files downloaded so far, the next fetch of this generation only downloads the rest
+              deleteTmpIdxDir = false;
+              replicationHandler.resumableFetch = new ResumableFetch(tmpIdxDirName, latestGeneration);
+              log.info("Keeping {} to resume the fetch of generation {}", tmpIndexDirPath, latestGeneration);
+            }
+            throw e;
+          }
           final long timeTakenSeconds = getReplicationTimeElapsed();
           final Long bytesDownloadedPerSecond = (timeTakenSeconds != 0 ? Long.valueOf(bytesDownloaded / timeTakenSeconds) : null);
           log.info("Total time taken for download (fullCopy={},bytesDownloaded={}) : {} secs ({} bytes/sec) to {}",
@@ -691,6 +785,40 @@ public class IndexFetcher {
     }
   }
 
+  /**
+   * Returns the name of the temporary index directory a failed fetch of the given generation left behind, or
+   * null if there is none.  A directory left behind for an older generation is removed.
+   */
+  private String takeResumableTmpIdxDir(long latestGeneration) {
+    ResumableFetch resumable = replicationHandler.resumableFetch;
+    replicationHandler.resumableFetch = null;
+    if (resumable == null) {
+      return null;
+    }
+    DirectoryFactory directoryFactory = solrCore.getDirectoryFactory();
+    String path = solrCore.getDataDir() + resumable.tmpIdxDirName;
+    try {
+      if (!directoryFactory.exists(path)) {
+        return null;
+      }
+      if (resumable.generation == latestGeneration) {
+        log.info("Resuming the fetch of generation {} into {}", latestGeneration, path);
+        return resumable.tmpIdxDirName;
+      }
+      log.info("Removing {}, the leader has moved on from generation {}", path, resumable.generation);
+      Directory dir = directoryFactory.get(path, DirContext.DEFAULT, solrCore.getSolrConfig().indexConfig.lockType);
+      try {
+        directoryFactory.doneWithDirectory(dir);
+        directoryFactory.remove(dir);
+      } finally {
+        directoryFactory.release(dir);
+      }
+    } catch (IOException e) {
+      SolrException.log(log, "Could not reuse or remove " + path, e);
+    }
+    return null;
+  }
+
   private Replica getLeaderReplica() throws InterruptedException {
     ZkController zkController = solrCore.getCoreContainer().getZkController();
     CloudDescriptor cd = solrCore.getCoreDescriptor().getCloudDescriptor();
@@ -723,6 +851,7 @@ public class IndexFetcher {
       if (fsyncService != null && !fsyncService.isShutdown()) fsyncService.shutdown();
       fsyncService = null;
       stop = false;
+      fetchFailed = false;
       fsyncException = null;
     } finally {
       // order below is important
@@ -825,6 +954,7 @@ public class IndexFetcher {
       }
 
       props.setProperty(LAST_CYCLE_BYTES_DOWNLOADED, String.valueOf(getTotalBytesDownloaded()));
+      props.setProperty(LAST_CYCLE_BYTES_FETCHED_FROM_PEERS, String.valueOf(getBytesFetchedFromPeers()));
       if (!successfulInstall) {
         int numFailures = 1;
         if (props.containsKey(TIMES_FAILED)) {
@@ -857,6 +987,16 @@ public class IndexFetcher {
     }
   }
 
+  /** The number of bytes received from the leader in the current (or last) fetch, including partial files. */
+  long getBytesFetched() {
+    return bytesFetched.sum();
+  }
+
+  /** The part of {@link #getBytesFetched()} that was fetched from other replicas than the leader. */
+  long getBytesFetchedFromPeers() {
+    return bytesFetchedFromPeers.sum();
+  }
+
   long getTotalBytesDownloaded() {
     long bytesDownloaded = 0;
     //get size from list of files to download
@@ -974,28 +1114,36 @@ public class IndexFetcher {
   }
 
   /**
-   * Download the index files. If a new index is needed, download all the files.
+   * Download the index files. If a new index is needed, download all the files.  Up to
+   * {@link ReplicationHandler#FETCH_INDEX_THREADS} files are downloaded at once, and files larger than
+   * {@link ReplicationHandler#FETCH_INDEX_RANGE_SIZE_MB} are split into ranges that are downloaded separately.
    *
    * @param downloadCompleteIndex is it a fresh index copy
    * @param indexDir                 the indexDir to be merged to
    * @param tmpIndexDir              the directory to which files need to be downloaded to
    * @param indexDirPath             the path of indexDir
    * @param latestGeneration         the version number
+   * @param resumed                  whether tmpIndexDir holds files of an earlier, failed fetch
    *
    * @return number of bytes downloaded
    */
   private long downloadIndexFiles(boolean downloadCompleteIndex, Directory indexDir, Directory tmpIndexDir,
-                                  String indexDirPath, String tmpIndexDirPath, long latestGeneration)
+                                  String indexDirPath, String tmpIndexDirPath, long latestGeneration,
+                                  boolean resumed)
       throws Exception {
     if (log.isDebugEnabled()) {
       log.debug("Download files to dir: {}", Arrays.asList(indexDir.listAll()));
     }
-    long bytesDownloaded = 0;
     long bytesSkippedCopying = 0;
+    long bytesResumed = 0;
+    boolean tmpDirIsFs = tmpIndexDir instanceof FSDirectory ||
+        (tmpIndexDir instanceof FilterDirectory && FilterDirectory.unwrap(tmpIndexDir) instanceof FSDirectory);
     boolean doDifferentialCopy = (indexDir instanceof FSDirectory ||
         (indexDir instanceof FilterDirectory && FilterDirectory.unwrap(indexDir) instanceof FSDirectory))
-        && (tmpIndexDir instanceof FSDirectory ||
-        (tmpIndexDir instanceof FilterDirectory && FilterDirectory.unwrap(tmpIndexDir) instanceof FSDirectory));
+        && tmpDirIsFs;
+    // ranges are written at their position in the file, which needs a file system directory
+    boolean splitRanges = fetchIndexRangeSize > 0 && tmpDirIsFs;
+    List<PeerCommit> peers = fetchFromPeers && fetchFromLeader ? getPeerCommits() : Collections.emptyList();
 
 
     long totalSpaceRequired = 0;
@@ -1012,9 +1160,20 @@ public class IndexFetcher {
       deleteFilesInAdvance(indexDir, indexDirPath, totalSpaceRequired, usableSpace);
     }
 
+    List<Callable<Long>> fetches = new ArrayList<>();
+    List<RangedFile> rangedFiles = new ArrayList<>();
     for (Map<String,Object> file : filesToDownload) {
       String filename = (String) file.get(NAME);
       long size = (Long) file.get(SIZE);
+      if (resumed) {
+        CompareResult resumedResult = compareFile(tmpIndexDir, filename, size, (Long) file.get(CHECKSUM));
+        if (resumedResult.equal && resumedResult.checkSummed) {
+          log.debug("Skipping download for {} because an earlier fetch completed it", filename);
+          bytesResumed += size;
+          filesDownloaded.add(new HashMap<>(file));
+          continue;
+        }
+      }
       CompareResult compareResult = compareFile(indexDir, filename, size, (Long) file.get(CHECKSUM));
       boolean alwaysDownload = filesToAlwaysDownloadIfNoChecksums(filename, size, compareResult);
       if (log.isDebugEnabled()) {
@@ -1032,24 +1191,227 @@ public class IndexFetcher {
           // compared to a file copy. TODO: Maybe we could do a move safely here?
           Files.createLink(new File(tmpIndexDirPath, filename).toPath(), localFile.toPath());
           bytesSkippedCopying += localFile.length();
+          filesDownloaded.add(new HashMap<>(file));
+        } else if (splitRanges && size > fetchIndexRangeSize) {
+          RangedFile rangedFile = new RangedFile(tmpIndexDir, tmpIndexDirPath, file);
+          rangedFiles.add(rangedFile);
+          for (long offset = 0; offset < size; offset += fetchIndexRangeSize) {
+            fetches.add(rangedFile.fetchRange(offset, Math.min(fetchIndexRangeSize, size - offset), latestGeneration,
+                choosePeer(peers, file, offset)));
+          }
         } else {
-          dirFileFetcher = new DirectoryFileFetcher(tmpIndexDir, file,
-              (String) file.get(NAME), FILE, latestGeneration);
-          currentFile = file;
-          dirFileFetcher.fetchFile();
-          bytesDownloaded += dirFileFetcher.getBytesDownloaded();
+          PeerCommit peer = choosePeer(peers, file, 0);
+          fetches.add(() -> {
+            DirectoryFileFetcher fetcher = null;
+            if (peer != null) {
+              try {
+                fetcher = new DirectoryFileFetcher(tmpIndexDir, file, filename, FILE, peer.url, peer.generation);
+                dirFileFetcher = fetcher;
+                currentFile = file;
+                fetcher.fetchFile();
+              } catch (ReplicationHandlerException e) {
+                throw e;
+              } catch (Exception e) {
+                log.warn("Could not fetch {} from {}, fetching it from the leader", filename, peer.url, e);
+                fetcher = null;
+                // normally already deleted by the failed fetch
+                try {
+                  tmpIndexDir.deleteFile(filename);
+                } catch (IOException ignored) {
+                }
+              }
+            }
+            if (fetcher == null) {
+              fetcher = fetchFromLeader(tmpIndexDir, file, filename, latestGeneration);
+            }
+            filesDownloaded.add(new HashMap<>(file));
+            return fetcher.getBytesDownloaded();
+          });
         }
-        filesDownloaded.add(new HashMap<>(file));
       } else {
         if (log.isDebugEnabled()) {
           log.debug("Skipping download for {} because it already exists", file.get(NAME));
         }
       }
     }
-    log.info("Bytes downloaded: {}, Bytes skipped downloading: {}", bytesDownloaded, bytesSkippedCopying);
+
+    long startNs = System.nanoTime();
+    long bytesDownloaded;
+    try {
+      bytesDownloaded = runFetches(fetches);
+    } finally {
+      for (RangedFile rangedFile : rangedFiles) {
+        rangedFile.closeAndDeleteIfIncomplete();
+      }
+    }
+    long elapsedMs = TimeUnit.MILLISECONDS.convert(System.nanoTime() - startNs, TimeUnit.NANOSECONDS);
+    log.info("Bytes downloaded: {} ({} from peers), Bytes skipped downloading: {}, Bytes resumed: {}, {} requests with {} threads in {} ms ({} bytes/sec)",
+        bytesDownloaded, bytesFetchedFromPeers.sum(), bytesSkippedCopying, bytesResumed, fetches.size(), fetchIndexThreads,
+        elapsedMs, elapsedMs == 0 ? bytesDownloaded : bytesDownloaded * 1000 / elapsedMs);
+    return bytesDownloaded;
+  }
+
+  /**
+   * Fetches an index file from the leader, once more if what was received doesn't match the checksum in its footer.
+   */
+  private DirectoryFileFetcher fetchFromLeader(Directory tmpIndexDir, Map<String, Object> file, String filename,
+                                               long latestGeneration) throws Exception {
+    DirectoryFileFetcher fetcher = new DirectoryFileFetcher(tmpIndexDir, file, filename, FILE, latestGeneration);
+    dirFileFetcher = fetcher;
+    currentFile = file;
+    try {
+      fetcher.fetchFile();
+      return fetcher;
+    } catch (Exception e) {
+      if (!fetcher.isChecksumMismatch()) {
+        throw e;
+      }
+      log.warn("Fetching {} again, its checksum didn't match", filename, e);
+    }
+    fetcher = new DirectoryFileFetcher(tmpIndexDir, file, filename, FILE, latestGeneration);
+    dirFileFetcher = fetcher;
+    fetcher.fetchFile();
+    return fetcher;
+  }
+
+  /**
+   * Runs the given downloads, in parallel if {@link #fetchIndexThreads} allows it.  The first failure stops
+   * the other downloads and is rethrown once they all finished.
+   *
+   * @return the number of bytes downloaded
+   */
+  private long runFetches(List<Callable<Long>> fetches) throws Exception {
+    long bytesDownloaded = 0;
+    if (fetchIndexThreads == 1 || fetches.size() <= 1) {
+      for (Callable<Long> fetch : fetches) {
+        bytesDownloaded += fetch.call();
+      }
+      return bytesDownloaded;
+    }
+
+    ExecutorService executor = ExecutorUtil.newMDCAwareFixedThreadPool(Math.min(fetchIndexThreads, fetches.size()),
+        new SolrNamedThreadFactory("indexFetcher"));
+    Exception failure = null;
+    try {
+      List<Future<Long>> futures = new ArrayList<>(fetches.size());
+      for (Callable<Long> fetch : fetches) {
+        futures.add(executor.submit(fetch));
+      }
+      for (Future<Long> future : futures) {
+        try {
+          bytesDownloaded += future.get();
+        } catch (CancellationException e) {
+          // cancelled after an earlier failure
+        } catch (ExecutionException e) {
+          if (failure == null || failure instanceof ReplicationHandlerException) {
+            // prefer the cause over the aborts it triggered in the other downloads
+            failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+          }
+          fetchFailed = true;
+          futures.forEach(f -> f.cancel(false));
+        }
+      }
+    } finally {
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+    }
+    if (failure != null) {
+      throw failure;
+    }
     return bytesDownloaded;
   }
 
+  /** The latest commit of another replica of this shard, whose files may be fetched instead of the leader's. */
+  private static class PeerCommit {
+    final String url;
+    final long generation;
+    final Map<String, Map<String, Object>> files = new HashMap<>();
+
+    PeerCommit(String url, long generation, List<Map<String, Object>> files) {
+      this.url = url;
+      this.generation = generation;
+      for (Map<String, Object> file : files) {
+        this.files.put((String) file.get(NAME), file);
+      }
+    }
+
+    /**
+     * Whether this commit has the given file of the leader.  Index file names are never reused, but other replicas
+     * may have written files of the same name, so the length and the checksum from the Lucene footer must match too.
+     */
+    boolean has(Map<String, Object> leaderFile) {
+      Map<String, Object> file = files.get(leaderFile.get(NAME));
+      return file != null && leaderFile.get(CHECKSUM) != null
+          && leaderFile.get(SIZE).equals(file.get(SIZE)) && leaderFile.get(CHECKSUM).equals(file.get(CHECKSUM));
+    }
+  }
+
+  /**
+   * Returns the latest commits of the other active PULL and TLOG replicas of this shard, which copy the leader's
+   * index files as they are.  Replicas that cannot be reached are left out.
+   */
+  private List<PeerCommit> getPeerCommits() {
+    ZkController zkController = solrCore.getCoreContainer().getZkController();
+    CloudDescriptor cd = solrCore.getCoreDescriptor().getCloudDescriptor();
+    ClusterState clusterState = zkController.getClusterState();
+    DocCollection collection = clusterState.getCollectionOrNull(cd.getCollectionName());
+    Slice slice = collection == null ? null : collection.getSlice(cd.getShardId());
+    if (slice == null) {
+      return Collections.emptyList();
+    }
+    Replica leader = slice.getLeader();
+    List<PeerCommit> peers = new ArrayList<>();
+    for (Replica replica : slice.getReplicas(EnumSet.of(Replica.Type.TLOG, Replica.Type.PULL))) {
+      if (replica.getName().equals(cd.getCoreNodeName()) || (leader != null && replica.getName().equals(leader.getName()))
+          || replica.getState() != Replica.State.ACTIVE || !clusterState.liveNodesContain(replica.getNodeName())) {
+        continue;
+      }
+      try {
+        PeerCommit peer = getPeerCommit(replica.getCoreUrl());
+        if (peer != null) {
+          peers.add(peer);
+        }
+      } catch (Exception e) {
+        log.warn("Could not get the latest commit of {}, not fetching files from it", replica.getCoreUrl(), e);
+      }
+    }
+    if (log.isInfoEnabled()) {
+      log.info("Fetching files from {} peers as well as from the leader", peers.size());
+    }
+    return peers;
+  }
+
+  @SuppressWarnings({"unchecked"})
+  private PeerCommit getPeerCommit(String peerUrl) throws IOException, SolrServerException {
+    // asking for the version reserves the commit, until the file list reserves it again
+    Long generation = (Long) getLatestVersion(peerUrl).get(GENERATION);
+    if (generation == null || generation <= 0) {
+      return null;
+    }
+    List<Map<String, Object>> files = (List<Map<String, Object>>) getFileList(peerUrl, generation).get(CMD_GET_FILE_LIST);
+    return files == null ? null : new PeerCommit(peerUrl, generation, files);
+  }
+
+  /**
+   * Chooses one of the peers that have the given file, or returns null to fetch it from the leader.  The choice
+   * depends on this replica and the range, so that replicas fetching the same files spread over the peers.
+   */
+  private PeerCommit choosePeer(List<PeerCommit> peers, Map<String, Object> file, long offset) {
+    if (peers.isEmpty()) {
+      return null;
+    }
+    List<PeerCommit> candidates = new ArrayList<>(peers.size());
+    for (PeerCommit peer : peers) {
+      if (peer.has(file)) {
+        candidates.add(peer);
+      }
+    }
+    if (candidates.isEmpty()) {
+      return null;
+    }
+    int hash = Objects.hash(solrCore.getCoreDescriptor().getCloudDescriptor().getCoreNodeName(), file.get(NAME), offset);
+    return candidates.get(Math.floorMod(hash, candidates.size()));
+  }
+
   //only for testing purposes. do not use this anywhere else
   //-----------START----------------------
   static BooleanSupplier testWait = () -> true;
@@ -1546,24 +1908,49 @@ public class IndexFetcher {
     private final String fileName;
     private final String saveAs;
     private final String solrParamOutput;
+    private final String sourceUrl;
     private final Long indexGen;
 
+    // the range of the file to fetch, offset is -1 to fetch the whole file
+    private final long offset;
     private final long size;
     private long bytesDownloaded = 0;
     private byte[] buf;
     private final Checksum checksum;
+    // the checksum from the Lucene footer, with the CRC computed over what was downloaded so far
+    private final Long footerChecksum;
+    private final CRC32 footerCrc;
     private int errorCount = 0;
     private boolean aborted = false;
+    private boolean checksumMismatch = false;
 
     FileFetcher(FileInterface file, Map<String, Object> fileDetails, String saveAs,
                 String solrParamOutput, long latestGen) throws IOException {
+      this(file, fileDetails, saveAs, solrParamOutput, leaderUrl, latestGen, -1, (Long) fileDetails.get(SIZE));
+    }
+
+    FileFetcher(FileInterface file, Map<String, Object> fileDetails, String saveAs, String solrParamOutput,
+                String sourceUrl, long gen, long offset, long len) throws IOException {
       this.file = file;
+      this.sourceUrl = sourceUrl;
       this.fileName = (String) fileDetails.get(NAME);
-      this.size = (Long) fileDetails.get(SIZE);
+      this.offset = offset;
+      this.size = len;
       buf = new byte[(int)Math.min(this.size, ReplicationHandler.PACKET_SZ)];
       this.solrParamOutput = solrParamOutput;
       this.saveAs = saveAs;
-      indexGen = latestGen;
+      indexGen = gen;
+      // whole index files are verified against the checksum in their Lucene footer, which spares the leader a
+      // checksum per packet: it still copies the packets through its buffer, but no longer checksums them
+      if (offset == -1 && FILE.equals(solrParamOutput) && fileDetails.get(CHECKSUM) != null
+          && size >= CodecUtil.footerLength()) {
+        includeChecksum = false;
+        footerChecksum = (Long) fileDetails.get(CHECKSUM);
+        footerCrc = new CRC32();
+      } else {
+        footerChecksum = null;
+        footerCrc = null;
+      }
       if (includeChecksum) {
         checksum = new Adler32();
       } else {
@@ -1575,6 +1962,11 @@ public class IndexFetcher {
       return bytesDownloaded;
     }
 
+    /** Whether the fetched file didn't match the checksum in its footer. */
+    boolean isChecksumMismatch() {
+      return checksumMismatch;
+    }
+
     /**
      * The main method which downloads file
      */
@@ -1583,7 +1975,8 @@ public class IndexFetcher {
       try {
         fetch();
       } catch(Exception e) {
-        if (!aborted) {
+        // the file is deleted when its checksum doesn't match, it has to be fetched by a new fetcher
+        if (!aborted && !checksumMismatch) {
           SolrException.log(IndexFetcher.log, "Error fetching file, doing one retry...", e);
           // one retry
           fetch();
@@ -1601,6 +1994,16 @@ public class IndexFetcher {
           try {
             //fetch packets one by one in a single request
             result = fetchPackets(is);
+            if (result == 0 && footerCrc != null) {
+              assert TestInjection.injectCorruptFetchedFile(footerCrc);
+              if (footerCrc.getValue() != footerChecksum) {
+                log.error("Checksum not matched between client and server for file: {}", fileName);
+                checksumMismatch = true;
+                // makes cleanup delete the file and fail
+                bytesDownloaded = 0;
+                return;
+              }
+            }
             if (result == 0 || result == NO_CONTENT) {
 
               return;
@@ -1628,11 +2031,15 @@ public class IndexFetcher {
       byte[] longbytes = new byte[8];
       try {
         while (true) {
+          // stop is not reset here, other files may be downloading in parallel
           if (stop) {
-            stop = false;
             aborted = true;
             throw new ReplicationHandlerException("User aborted replication");
           }
+          if (fetchFailed) {
+            aborted = true;
+            throw new ReplicationHandlerException("Aborted because another download failed");
+          }
           long checkSumServer = -1;
           fis.readFully(intbytes);
           //read the size of the packet
@@ -1664,9 +2071,17 @@ public class IndexFetcher {
               return 1;
             }
           }
+          if (footerCrc != null && bytesDownloaded < size - Long.BYTES) {
+            // the checksum itself, in the last 8 bytes, is not checksummed
+            footerCrc.update(buf, 0, (int) Math.min(packetSize, size - Long.BYTES - bytesDownloaded));
+          }
           //if everything is fine, write down the packet to the file
           file.write(buf, packetSize);
           bytesDownloaded += packetSize;
+          bytesFetched.add(packetSize);
+          if (!sourceUrl.equals(leaderUrl)) {
+            bytesFetchedFromPeers.add(packetSize);
+          }
           log.debug("Fetched and wrote {} bytes of file: {}", bytesDownloaded, fileName);
           //errorCount is always set to zero after a successful packet
           errorCount = 0;
@@ -1761,7 +2176,10 @@ public class IndexFetcher {
       params.set(CommonParams.WT, FILE_STREAM);
       // This happen if there is a failure there is a retry. the offset=<sizedownloaded> ensures that
       // the server starts from the offset
-      if (bytesDownloaded > 0) {
+      if (offset != -1) {
+        params.set(OFFSET, Long.toString(offset + bytesDownloaded));
+        params.set(LEN, Long.toString(size - bytesDownloaded));
+      } else if (bytesDownloaded > 0) {
         params.set(OFFSET, Long.toString(bytesDownloaded));
       }
 
@@ -1770,7 +2188,7 @@ public class IndexFetcher {
       InputStream is = null;
 
       // TODO use shardhandler
-      try (HttpSolrClient client = new Builder(leaderUrl)
+      try (HttpSolrClient client = new Builder(sourceUrl)
           .withHttpClient(myHttpClient)
           .withResponseParser(null)
           .withConnectionTimeout(connTimeout)
@@ -1824,6 +2242,12 @@ public class IndexFetcher {
                          String solrParamOutput, long latestGen) throws IOException {
       super(new DirectoryFile(tmpIndexDir, saveAs), fileDetails, saveAs, solrParamOutput, latestGen);
     }
+
+    DirectoryFileFetcher(Directory tmpIndexDir, Map<String, Object> fileDetails, String saveAs,
+                         String solrParamOutput, String sourceUrl, long gen) throws IOException {
+      super(new DirectoryFile(tmpIndexDir, saveAs), fileDetails, saveAs, solrParamOutput, sourceUrl, gen,
+          -1, (Long) fileDetails.get(SIZE));
+    }
   }
 
   private static class LocalFsFile implements FileInterface {
@@ -1868,6 +2292,109 @@ public class IndexFetcher {
     }
   }
 
+  /**
+   * A range of a file that is written at its own position, see {@link RangedFile}.  Syncing, closing and
+   * deleting is left to the {@link RangedFile}, which owns the channel.
+   */
+  private static class FileRange implements FileInterface {
+    private final FileChannel channel;
+    private long position;
+
+    FileRange(FileChannel channel, long position) {
+      this.channel = channel;
+      this.position = position;
+    }
+
+    public void sync() {
+    }
+
+    public void write(byte[] buf, int packetSize) throws IOException {
+      ByteBuffer bb = ByteBuffer.wrap(buf, 0, packetSize);
+      while (bb.hasRemaining()) {
+        position += channel.write(bb, position);
+      }
+    }
+
+    public void close() {
+    }
+
+    public void delete() {
+    }
+  }
+
+  /**
+   * A file that is fetched as several ranges, which may be fetched in parallel.  The file is written directly
+   * to the file system, bypassing the {@link Directory}, since an {@link IndexOutput} can only be written in order.
+   */
+  private class RangedFile {
+    private final Directory dir;
+    private final Map<String, Object> fileDetails;
+    private final String fileName;
+    private final Path path;
+    private final FileChannel channel;
+    private final AtomicLong bytesRemaining;
+
+    RangedFile(Directory dir, String dirPath, Map<String, Object> fileDetails) throws IOException {
+      this.dir = dir;
+      this.fileDetails = fileDetails;
+      this.fileName = (String) fileDetails.get(NAME);
+      this.path = new File(dirPath, fileName).toPath();
+      this.bytesRemaining = new AtomicLong((Long) fileDetails.get(SIZE));
+      Files.createDirectories(path.getParent());
+      this.channel = FileChannel.open(path,
+          StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    Callable<Long> fetchRange(long offset, long len, long latestGen, PeerCommit peer) {
+      return () -> {
+        currentFile = fileDetails;
+        FileFetcher fetcher = null;
+        if (peer != null) {
+          try {
+            fetcher = new FileFetcher(new FileRange(channel, offset), fileDetails, fileName, FILE,
+                peer.url, peer.generation, offset, len);
+            fetcher.fetchFile();
+          } catch (ReplicationHandlerException e) {
+            throw e;
+          } catch (Exception e) {
+            log.warn("Could not fetch {} from {}, fetching the range from the leader", fileName, peer.url, e);
+            fetcher = null;
+          }
+        }
+        if (fetcher == null) {
+          // a range is written at fixed positions, so fetching it again simply overwrites what the peer sent
+          fetcher = new FileFetcher(new FileRange(channel, offset), fileDetails, fileName, FILE,
+              leaderUrl, latestGen, offset, len);
+          fetcher.fetchFile();
+        }
+        if (bytesRemaining.addAndGet(-fetcher.getBytesDownloaded()) == 0) {
+          // the last range is in
+          channel.close();
+          fsyncService.submit(() -> {
+            try {
+              dir.sync(Collections.singleton(fileName));
+            } catch (IOException e) {
+              fsyncException = e;
+            }
+          });
+          filesDownloaded.add(new HashMap<>(fileDetails));
+        }
+        return fetcher.getBytesDownloaded();
+      };
+    }
+
+    void closeAndDeleteIfIncomplete() {
+      IOUtils.closeQuietly(channel);
+      if (bytesRemaining.get() != 0) {
+        try {
+          Files.deleteIfExists(path);
+        } catch (IOException e) {
+          log.error("Error deleting file: {}", path, e);
+        }
+      }
+    }
+  }
+
   private class LocalFsFileFetcher extends FileFetcher {
     LocalFsFileFetcher(File dir, Map<String, Object> fileDetails, String saveAs,
                        String solrParamOutput, long latestGen) throws IOException {
@@ -1923,6 +2450,8 @@ public class IndexFetcher {
 
   static final String LAST_CYCLE_BYTES_DOWNLOADED = "lastCycleBytesDownloaded";
 
+  static final String LAST_CYCLE_BYTES_FETCHED_FROM_PEERS = "lastCycleBytesFetchedFromPeers";
+
   static final String TIMES_FAILED = "timesFailed";
 
   static final String REPLICATION_FAILED_AT = "replicationFailedAt";
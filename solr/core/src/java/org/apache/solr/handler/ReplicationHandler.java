@@ -438,6 +438,9 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
 
   private volatile IndexFetcher currentIndexFetcher;
 
+  // survives the IndexFetcher, which SolrCloud recovery creates for every fetch
+  volatile IndexFetcher.ResumableFetch resumableFetch;
+
   public IndexFetchResult doFetch(SolrParams solrParams, boolean forceReplication) {
     String leaderUrl = solrParams == null ? null : ReplicationHandler.getObjectWithBackwardCompatibility(solrParams, LEADER_URL, LEGACY_LEADER_URL, null);
     if (!indexFetchLock.tryLock())
@@ -909,10 +912,14 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
         map.put("isReplicating", isReplicating());
         long elapsed = fetcher.getReplicationTimeElapsed();
         long val = fetcher.getTotalBytesDownloaded();
+        long fetched = fetcher.getBytesFetched();
         if (elapsed > 0) {
           map.put("timeElapsed", elapsed);
           map.put("bytesDownloaded", val);
           map.put("downloadSpeed", val / elapsed);
+          map.put("bytesFetched", fetched);
+          map.put("fetchSpeed", fetched / elapsed);
+          map.put("bytesFetchedFromPeers", fetcher.getBytesFetchedFromPeers());
         }
         Properties props = loadReplicationProperties();
         addReplicationProperties(map::putNoEx, props);
@@ -1061,6 +1068,9 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
           follower.add("currentFileSizeDownloaded", NumberUtils.readableSize(currFileSizeDownloaded));
           follower.add("currentFileSizePercent", String.valueOf(percentDownloaded));
           follower.add("bytesDownloaded", NumberUtils.readableSize(bytesDownloaded));
+          // unlike bytesDownloaded this includes partially downloaded files
+          follower.add("bytesFetched", NumberUtils.readableSize(fetcher.getBytesFetched()));
+          follower.add("bytesFetchedFromPeers", NumberUtils.readableSize(fetcher.getBytesFetchedFromPeers()));
           follower.add("totalPercent", String.valueOf(totalPercent));
           follower.add("timeRemaining", String.valueOf(estimatedTimeRemaining) + "s");
           follower.add("downloadSpeed", NumberUtils.readableSize(downloadSpeed));
@@ -1095,6 +1105,7 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
     addVal(consumer, IndexFetcher.TIMES_CONFIG_REPLICATED, props, Integer.class);
     addVal(consumer, IndexFetcher.CONF_FILES_REPLICATED_AT, props, Date.class);
     addVal(consumer, IndexFetcher.LAST_CYCLE_BYTES_DOWNLOADED, props, Long.class);
+    addVal(consumer, IndexFetcher.LAST_CYCLE_BYTES_FETCHED_FROM_PEERS, props, Long.class);
     addVal(consumer, IndexFetcher.TIMES_FAILED, props, Integer.class);
     addVal(consumer, IndexFetcher.REPLICATION_FAILED_AT, props, Date.class);
     addVal(consumer, IndexFetcher.PREVIOUS_CYCLE_TIME_TAKEN, props, Long.class);
@@ -1500,7 +1511,7 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
     protected boolean useChecksum;
 
     protected long offset = -1;
-    protected int len = -1;
+    protected long len = -1;
 
     protected Checksum checksum;
 
@@ -1547,12 +1558,12 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
 
     protected void initWrite() throws IOException {
       if (sOffset != null) offset = Long.parseLong(sOffset);
-      if (sLen != null) len = Integer.parseInt(sLen);
+      if (sLen != null) len = Long.parseLong(sLen);
       if (fileName == null && cfileName == null && tlogFileName == null) {
         // no filename do nothing
         writeNothingAndFlush();
       }
-      buf = new byte[(len == -1 || len > PACKET_SZ) ? PACKET_SZ : len];
+      buf = new byte[(len == -1 || len > PACKET_SZ) ? PACKET_SZ : (int) len];
 
       //reserve commit point till write is complete
       if(indexGen != null) {
@@ -1594,11 +1605,13 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
         if (offset != -1) in.seek(offset);
 
         long filelen = dir.fileLength(fileName);
+        offset = offset == -1 ? 0 : offset;
+        // a len only streams that range of the file, so a large file can be fetched over several requests
+        long end = len == -1 ? filelen : Math.min(filelen, offset + len);
         long maxBytesBeforePause = 0;
 
         while (true) {
-          offset = offset == -1 ? 0 : offset;
-          int read = (int) Math.min(buf.length, filelen - offset);
+          int read = (int) Math.min(buf.length, end - offset);
           in.readBytes(buf, 0, read);
 
           fos.writeInt(read);
@@ -1826,6 +1839,21 @@ public class ReplicationHandler extends RequestHandlerBase implements SolrCoreAw
 
   public static final String MAX_WRITE_PER_SECOND = "maxWriteMBPerSec";
 
+  /** The number of index files a follower downloads at once. */
+  public static final String FETCH_INDEX_THREADS = "fetchIndexThreads";
+
+  /** Index files larger than this many MB are downloaded as several ranges, 0 to download files in one request. */
+  public static final String FETCH_INDEX_RANGE_SIZE_MB = "fetchIndexRangeSizeMB";
+
+  /** Whether a follower keeps the files of a failed download, so that the next attempt only downloads the rest. */
+  public static final String RESUME_INDEX_FETCH = "resumeIndexFetch";
+
+  /**
+   * Whether a SolrCloud replica that fetches from its leader fetches the files that other PULL and TLOG
+   * replicas already have from them, leaving only the file list and the remaining files to the leader.
+   */
+  public static final String FETCH_FROM_PEERS = "fetchFromPeers";
+
   public static final String CONF_FILE_SHORT = "cf";
 
   public static final String TLOG_FILE = "tlogFile";
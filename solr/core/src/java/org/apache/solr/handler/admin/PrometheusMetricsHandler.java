@@ -0,0 +1,316 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.solr.handler.admin;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Counting;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Sampling;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.MapSolrParams;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.handler.ReplicationHandler;
+import org.apache.solr.handler.RequestHandlerBase;
+import org.apache.solr.metrics.SolrMetricManager;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.response.SolrQueryResponse;
+import org.apache.solr.security.AuthorizationContext;
+import org.apache.solr.security.PermissionNameProvider;
+
+/**
+ * Request handler returning the metrics of the node in the
+ * <a href="https://openmetrics.io">OpenMetrics</a> text format scraped by Prometheus.
+ * <p>
+ * Metrics are written straight from the registries of the {@link SolrMetricManager} to the response, and are
+ * filtered with the {@link MetricsHandler#GROUP_PARAM}, {@link MetricsHandler#REGISTRY_PARAM},
+ * {@link MetricsHandler#PREFIX_PARAM} and {@link MetricsHandler#REGEX_PARAM} parameters of the
+ * {@link MetricsHandler}.
+ * <p>
+ * A metric becomes a family named after it, prefixed with {@value #NAME_PREFIX}, with one sample per registry
+ * labelled with the name of the registry, and the name of the core for core registries. Counters and meters are
+ * counters, timers and histograms are summaries, timers in seconds, and numeric gauges are gauges. Gauges
+ * returning a map, such as the statistics of caches, become one gauge per numeric entry.
+ */
+public class PrometheusMetricsHandler extends RequestHandlerBase implements PermissionNameProvider {
+  public static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+  public static final String NAME_PREFIX = "solr_";
+
+  static final String REGISTRY_LABEL = "registry";
+  static final String CORE_LABEL = "core";
+
+  private static final String CORE_REGISTRY_PREFIX = SolrMetricManager.REGISTRY_NAME_PREFIX + "core.";
+  private static final double[] QUANTILES = {0.5, 0.75, 0.95, 0.99, 0.999};
+  private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+  private final MetricsHandler metricsHandler;
+
+  public PrometheusMetricsHandler(MetricsHandler metricsHandler) {
+    this.metricsHandler = metricsHandler;
+  }
+
+  @Override
+  public Name getPermissionName(AuthorizationContext request) {
+    return Name.METRICS_READ_PERM;
+  }
+
+  @Override
+  public void handleRequestBody(SolrQueryRequest req, SolrQueryResponse rsp) throws Exception {
+    if (metricsHandler.metricManager == null) {
+      throw new SolrException(SolrException.ErrorCode.INVALID_STATE, "SolrMetricManager instance not initialized");
+    }
+    if (!metricsHandler.isEnabled()) {
+      rsp.add("error", "metrics collection is disabled");
+      return;
+    }
+
+    SolrParams params = req.getParams();
+    MetricFilter mustMatchFilter = MetricsHandler.parseMustMatchFilter(params);
+    Set<String> registries = new TreeSet<>(metricsHandler.parseRegistries(
+        params.getParams(MetricsHandler.GROUP_PARAM), params.getParams(MetricsHandler.REGISTRY_PARAM)));
+
+    Map<String, String> map = new HashMap<>(1);
+    map.put(CommonParams.WT, ReplicationHandler.FILE_STREAM);
+    req.setParams(SolrParams.wrapDefaults(new MapSolrParams(map), req.getParams()));
+    rsp.add(ReplicationHandler.FILE_STREAM, new OpenMetricsWriter(metricsHandler.metricManager, registries, mustMatchFilter));
+  }
+
+  @Override
+  public String getDescription() {
+    return "A handler to return the metrics gathered by Solr in the OpenMetrics format";
+  }
+
+  @Override
+  public Category getCategory() {
+    return Category.ADMIN;
+  }
+
+  /** Converts a metric name to a valid OpenMetrics name. */
+  static String toMetricName(String name) {
+    StringBuilder sb = new StringBuilder(NAME_PREFIX.length() + name.length());
+    sb.append(NAME_PREFIX);
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == ':';
+      sb.append(valid ? c : '_');
+    }
+    return sb.toString();
+  }
+
+  private enum Type {counter, gauge, summary}
+
+  private static class Family {
+    final String name;
+    final Type type;
+    // the preformatted labels of each sample, and its metric or the value of its gauge
+    final List<String> labels = new ArrayList<>();
+    final List<Object> values = new ArrayList<>();
+
+    Family(String name, Type type) {
+      this.name = name;
+      this.type = type;
+    }
+  }
+
+  static class OpenMetricsWriter implements SolrCore.RawWriter {
+    private final SolrMetricManager metricManager;
+    private final Set<String> registries;
+    private final MetricFilter mustMatchFilter;
+    private final Map<String, Family> families = new TreeMap<>();
+
+    OpenMetricsWriter(SolrMetricManager metricManager, Set<String> registries, MetricFilter mustMatchFilter) {
+      this.metricManager = metricManager;
+      this.registries = registries;
+      this.mustMatchFilter = mustMatchFilter;
+    }
+
+    @Override
+    public String getContentType() {
+      return CONTENT_TYPE;
+    }
+
+    @Override
+    public void write(OutputStream os) throws IOException {
+      // all the samples of a family must be written together, while each registry has a sample of the same metrics
+      for (String registryName : registries) {
+        collect(registryName, metricManager.registry(registryName));
+      }
+
+      Writer writer = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8));
+      for (Family family : families.values()) {
+        writeFamily(writer, family);
+      }
+      writer.write("# EOF\n");
+      writer.flush();
+    }
+
+    private void collect(String registryName, MetricRegistry registry) {
+      String labels = labels(registryName);
+      for (Map.Entry<String, Metric> entry : registry.getMetrics().entrySet()) {
+        Metric metric = entry.getValue();
+        if (!mustMatchFilter.matches(entry.getKey(), metric)) {
+          continue;
+        }
+        String name = toMetricName(entry.getKey());
+        if (metric instanceof Counter || metric instanceof Meter) {
+          add(name, Type.counter, labels, metric);
+        } else if (metric instanceof Timer) {
+          add(name + "_seconds", Type.summary, labels, metric);
+        } else if (metric instanceof Histogram) {
+          add(name, Type.summary, labels, metric);
+        } else if (metric instanceof Gauge) {
+          Object value;
+          try {
+            value = ((Gauge<?>) metric).getValue();
+          } catch (Exception e) {
+            // some gauges fail when what they report on was closed, just skip them
+            continue;
+          }
+          if (value instanceof Map) {
+            for (Map.Entry<?, ?> mapEntry : ((Map<?, ?>) value).entrySet()) {
+              Double number = toNumber(mapEntry.getValue());
+              if (number != null) {
+                add(toMetricName(entry.getKey() + "." + mapEntry.getKey()), Type.gauge, labels, number);
+              }
+            }
+          } else {
+            Double number = toNumber(value);
+            if (number != null) {
+              add(name, Type.gauge, labels, number);
+            }
+          }
+        }
+      }
+    }
+
+    private void add(String name, Type type, String labels, Object value) {
+      Family family = families.computeIfAbsent(name, n -> new Family(n, type));
+      if (family.type != type) {
+        // two metrics with the same name once converted, but different types
+        String typedName = name + "_" + type;
+        family = families.computeIfAbsent(typedName, n -> new Family(n, type));
+      }
+      family.labels.add(labels);
+      family.values.add(value);
+    }
+
+    private static Double toNumber(Object value) {
+      if (value instanceof Number) {
+        return ((Number) value).doubleValue();
+      } else if (value instanceof Boolean) {
+        return (Boolean) value ? 1.0 : 0.0;
+      }
+      return null;
+    }
+
+    private static String labels(String registryName) {
+      StringBuilder sb = new StringBuilder();
+      appendLabel(sb, REGISTRY_LABEL, registryName);
+      if (registryName.startsWith(CORE_REGISTRY_PREFIX)) {
+        sb.append(',');
+        appendLabel(sb, CORE_LABEL, registryName.substring(CORE_REGISTRY_PREFIX.length()));
+      }
+      return sb.toString();
+    }
+
+    private static void appendLabel(StringBuilder sb, String name, String value) {
+      sb.append(name).append("=\"");
+      for (int i = 0; i < value.length(); i++) {
+        char c = value.charAt(i);
+        if (c == '\\' || c == '"') {
+          sb.append('\\').append(c);
+        } else if (c == '\n') {
+          sb.append("\\n");
+        } else {
+          sb.append(c);
+        }
+      }
+      sb.append('"');
+    }
+
+    private static void writeFamily(Writer writer, Family family) throws IOException {
+      writer.write("# TYPE ");
+      writer.write(family.name);
+      writer.write(' ');
+      writer.write(family.type.name());
+      writer.write('\n');
+
+      for (int i = 0; i < family.values.size(); i++) {
+        String labels = family.labels.get(i);
+        Object value = family.values.get(i);
+        switch (family.type) {
+          case counter:
+            writeSample(writer, family.name + "_total", labels, Long.toString(((Counting) value).getCount()));
+            break;
+          case gauge:
+            writeSample(writer, family.name, labels, toString((Double) value));
+            break;
+          case summary:
+            Snapshot snapshot = ((Sampling) value).getSnapshot();
+            double scale = value instanceof Timer ? 1 / NANOS_PER_SECOND : 1;
+            for (double quantile : QUANTILES) {
+              writeSample(writer, family.name, labels + ",quantile=\"" + quantile + "\"",
+                  toString(snapshot.getValue(quantile) * scale));
+            }
+            writeSample(writer, family.name + "_count", labels, Long.toString(((Counting) value).getCount()));
+            break;
+        }
+      }
+    }
+
+    private static void writeSample(Writer writer, String name, String labels, String value) throws IOException {
+      writer.write(name);
+      writer.write('{');
+      writer.write(labels);
+      writer.write("} ");
+      writer.write(value);
+      writer.write('\n');
+    }
+
+    private static String toString(double value) {
+      if (Double.isNaN(value)) {
+        return "NaN";
+      } else if (Double.isInfinite(value)) {
+        return value > 0 ? "+Inf" : "-Inf";
+      }
+      return Double.toString(value);
+    }
+  }
+}
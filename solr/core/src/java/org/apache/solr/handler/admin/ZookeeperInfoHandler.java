@@ -711,6 +711,10 @@ public final class ZookeeperInfoHandler extends RequestHandlerBase {
         byte[] data = zkClient.getData(path, null, stat, true);
         if (null != data) {
           try {
+            if (path.endsWith("/state.json")) {
+              // state.json may be stored compressed, see ClusterState#encodeCollectionState
+              data = ClusterState.decodeStateBytes(data);
+            }
             dataStr = (new BytesRef(data)).utf8ToString();
           } catch (Exception e) {
             dataStrErr = "data is not parsable as a utf8 String: " + e.toString();
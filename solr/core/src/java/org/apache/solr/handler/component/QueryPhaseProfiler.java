@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.handler.component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+import com.codahale.metrics.Timer;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.request.SolrRequestInfo;
+import org.apache.solr.search.facet.FacetModule;
+
+/**
+ * Records the time spent by a search request in each of its {@link Phase}s.
+ * <p>
+ * A profiler is attached to the context of every request handled by a {@link SearchHandler}, since recording
+ * a phase only costs two calls to {@link System#nanoTime()}. The time of each phase excludes the time of the
+ * nested phases recorded while it runs: the time spent looking up filters while collecting documents is
+ * recorded as {@link Phase#FILTER}, not {@link Phase#COLLECTION}.
+ * <p>
+ * The phases of a sample of the requests are recorded in the timers of the handler, and the phases of slow
+ * requests are logged along with them, once their response is written if its write is profiled.
+ */
+public class QueryPhaseProfiler {
+
+  public static final String CONTEXT_KEY = QueryPhaseProfiler.class.getName();
+  /** Set in the context of the requests whose response write will be recorded by the caller of the handler. */
+  public static final String RESPONSE_WRITE_PROFILED = CONTEXT_KEY + ".responseWriteProfiled";
+
+  public enum Phase {
+    /** Parsing of the query, in the prepare phase of the {@link QueryComponent}. */
+    PARSE("parse", false),
+    /** Lookup or computation of the DocSets of the filters. Nested in other phases. */
+    FILTER("filter", true),
+    /** Intersection of the DocSets of the filters. Nested in other phases. */
+    INTERSECTION("intersection", true),
+    /** Search and collection of the documents, in the process phase of the {@link QueryComponent}. */
+    COLLECTION("collection", false),
+    FACETS("facets", false),
+    HIGHLIGHTING("highlighting", false),
+    /** Loading of stored fields. Nested in other phases, mostly in the response write. */
+    STORED_FIELDS("storedFields", true),
+    /** The other search components. */
+    OTHER("other", false),
+    RESPONSE_WRITE("responseWrite", false);
+
+    private final String name;
+    private final boolean nested;
+
+    Phase(String name, boolean nested) {
+      this.name = name;
+      this.nested = nested;
+    }
+
+    public String getName() {
+      return name;
+    }
+  }
+
+  private final AtomicLongArray nanos = new AtomicLongArray(Phase.values().length);
+  // the phase whose time includes the nested phases being recorded
+  private volatile Phase current;
+  // null if this request isn't sampled
+  private final Map<Phase, Timer> timers;
+  private final boolean responseWriteProfiled;
+  private Runnable afterResponseWritten;
+
+  /**
+   * @param timers the timers of each phase if the request is sampled, null otherwise
+   * @param responseWriteProfiled true if {@link #responseWritten(long)} will be called once the response is written
+   */
+  public QueryPhaseProfiler(Map<Phase, Timer> timers, boolean responseWriteProfiled) {
+    this.timers = timers;
+    this.responseWriteProfiled = responseWriteProfiled;
+  }
+
+  /** Returns the profiler of a request, or null if it has none. */
+  public static QueryPhaseProfiler get(SolrQueryRequest req) {
+    return req == null ? null : (QueryPhaseProfiler) req.getContext().get(CONTEXT_KEY);
+  }
+
+  /** Returns the profiler of the request being executed by this thread, or null if it has none. */
+  public static QueryPhaseProfiler current() {
+    SolrRequestInfo requestInfo = SolrRequestInfo.getRequestInfo();
+    return requestInfo == null ? null : get(requestInfo.getReq());
+  }
+
+  /** Returns the phase of the prepare or process method of a search component. */
+  static Phase phaseOf(SearchComponent component, boolean prepare) {
+    if (component instanceof QueryComponent) {
+      return prepare ? Phase.PARSE : Phase.COLLECTION;
+    } else if (component instanceof FacetComponent || component instanceof FacetModule) {
+      return Phase.FACETS;
+    } else if (component instanceof HighlightComponent) {
+      return Phase.HIGHLIGHTING;
+    }
+    return Phase.OTHER;
+  }
+
+  /** Starts a phase, returning the start time to pass to {@link #stop(Phase, long)}. */
+  public long start(Phase phase) {
+    if (!phase.nested) {
+      current = phase;
+    }
+    return System.nanoTime();
+  }
+
+  /** Stops a phase started at the given time. */
+  public void stop(Phase phase, long startNanos) {
+    long elapsed = System.nanoTime() - startNanos;
+    nanos.addAndGet(phase.ordinal(), elapsed);
+    if (phase.nested) {
+      Phase including = current;
+      if (including != null) {
+        nanos.addAndGet(including.ordinal(), -elapsed);
+      }
+    } else {
+      current = null;
+    }
+  }
+
+  /** Returns the time recorded for a phase, in nanoseconds. */
+  public long getNanos(Phase phase) {
+    return nanos.get(phase.ordinal());
+  }
+
+  public boolean isSampled() {
+    return timers != null;
+  }
+
+  public boolean isResponseWriteProfiled() {
+    return responseWriteProfiled;
+  }
+
+  /**
+   * Runs an action, such as logging the phases of the request, once all the phases are recorded: after the
+   * response is written if its write is profiled, right away otherwise.
+   */
+  public void afterResponseWritten(Runnable action) {
+    if (responseWriteProfiled) {
+      afterResponseWritten = action;
+    } else {
+      action.run();
+    }
+  }
+
+  /** Records the time of the given phases in their timers, if the request is sampled. */
+  void record(Phase... phases) {
+    if (timers != null) {
+      for (Phase phase : phases) {
+        long phaseNanos = getNanos(phase);
+        if (phaseNanos > 0) {
+          timers.get(phase).update(phaseNanos, TimeUnit.NANOSECONDS);
+        }
+      }
+    }
+  }
+
+  /**
+   * Records the time of the phases of the search, before the response is written: the stored fields are
+   * mostly loaded while writing the response.
+   */
+  void recordSearch() {
+    record(Phase.PARSE, Phase.FILTER, Phase.INTERSECTION, Phase.COLLECTION, Phase.FACETS, Phase.HIGHLIGHTING, Phase.OTHER);
+  }
+
+  /**
+   * Stops the {@link Phase#RESPONSE_WRITE} phase, records the phases done while writing the response and runs
+   * the action given to {@link #afterResponseWritten(Runnable)}, even if writing the response failed.
+   */
+  public void responseWritten(long startNanos) {
+    stop(Phase.RESPONSE_WRITE, startNanos);
+    record(Phase.STORED_FIELDS, Phase.RESPONSE_WRITE);
+    Runnable action = afterResponseWritten;
+    afterResponseWritten = null;
+    if (action != null) {
+      action.run();
+    }
+  }
+
+  /** The time of each phase that took any, in milliseconds. */
+  public NamedList<Object> toNamedList() {
+    NamedList<Object> phases = new SimpleOrderedMap<>();
+    for (Phase phase : Phase.values()) {
+      long phaseNanos = getNanos(phase);
+      if (phaseNanos > 0) {
+        phases.add(phase.getName(), phaseNanos / 1_000_000.0);
+      }
+    }
+    return phases;
+  }
+
+  /** Creates the timers of each phase. */
+  static Map<Phase, Timer> newTimers(Function<Phase, Timer> timerFactory) {
+    Map<Phase, Timer> timers = new EnumMap<>(Phase.class);
+    for (Phase phase : Phase.values()) {
+      timers.put(phase, timerFactory.apply(phase));
+    }
+    return timers;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    for (Phase phase : Phase.values()) {
+      long phaseNanos = getNanos(phase);
+      if (phaseNanos > 0) {
+        if (sb.length() > 1) {
+          sb.append(", ");
+        }
+        sb.append(phase.getName()).append('=').append(String.format(Locale.ROOT, "%.2f", phaseNanos / 1_000_000.0));
+      }
+    }
+    return sb.append('}').toString();
+  }
+}
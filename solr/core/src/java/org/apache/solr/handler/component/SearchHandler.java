@@ -16,6 +16,7 @@
  */
 package org.apache.solr.handler.component;
 
+import com.codahale.metrics.Timer;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.lucene.index.ExitableDirectoryReader;
 import org.apache.lucene.search.TotalHits;
@@ -34,6 +35,7 @@ import org.apache.solr.core.CoreContainer;
 import org.apache.solr.core.PluginInfo;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.handler.RequestHandlerBase;
+import org.apache.solr.metrics.SolrMetricsContext;
 import org.apache.solr.pkg.PackageAPI;
 import org.apache.solr.pkg.PackageListeners;
 import org.apache.solr.pkg.PackageLoader;
@@ -49,16 +51,19 @@ import org.apache.solr.util.RTimerTree;
 import org.apache.solr.util.SolrPluginUtils;
 import org.apache.solr.util.circuitbreaker.CircuitBreaker;
 import org.apache.solr.util.circuitbreaker.CircuitBreakerManager;
+import org.apache.solr.util.circuitbreaker.QueryCost;
 import org.apache.solr.util.plugin.PluginInfoInitialized;
 import org.apache.solr.util.plugin.SolrCoreAware;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.lang.invoke.MethodHandles;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.apache.solr.common.params.CommonParams.*;
@@ -71,6 +76,8 @@ public class SearchHandler extends RequestHandlerBase implements SolrCoreAware,
   static final String INIT_COMPONENTS = "components";
   static final String INIT_FIRST_COMPONENTS = "first-components";
   static final String INIT_LAST_COMPONENTS = "last-components";
+  static final String INIT_PROFILER_SAMPLE_RATE = "profilerSampleRate";
+  static final double DEFAULT_PROFILER_SAMPLE_RATE = 0.1;
 
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
@@ -83,6 +90,8 @@ public class SearchHandler extends RequestHandlerBase implements SolrCoreAware,
   private ShardHandlerFactory shardHandlerFactory;
   private PluginInfo shfInfo;
   private SolrCore core;
+  private double profilerSampleRate = DEFAULT_PROFILER_SAMPLE_RATE;
+  private Map<QueryPhaseProfiler.Phase, Timer> phaseTimers;
 
   protected List<String> getDefaultComponents() {
     ArrayList<String> names = new ArrayList<>(8);
@@ -99,6 +108,17 @@ public class SearchHandler extends RequestHandlerBase implements SolrCoreAware,
     return names;
   }
 
+  @Override
+  public void init(NamedList<?> args) {
+    super.init(args);
+    if (args != null) {
+      Object sampleRate = args.get(INIT_PROFILER_SAMPLE_RATE);
+      if (sampleRate != null) {
+        profilerSampleRate = Double.parseDouble(sampleRate.toString());
+      }
+    }
+  }
+
   @Override
   public void init(PluginInfo info) {
     init(info.initArgs);
@@ -110,6 +130,13 @@ public class SearchHandler extends RequestHandlerBase implements SolrCoreAware,
     }
   }
 
+  @Override
+  public void initializeMetrics(SolrMetricsContext parentContext, String scope) {
+    super.initializeMetrics(parentContext, scope);
+    phaseTimers = QueryPhaseProfiler.newTimers(phase ->
+        solrMetricsContext.timer(phase.getName(), getCategory().toString(), scope, "phases"));
+  }
+
   @Override
   public PermissionNameProvider.Name getPermissionName(AuthorizationContext ctx) {
     return PermissionNameProvider.Name.READ_PERM;
@@ -291,6 +318,12 @@ public class SearchHandler extends RequestHandlerBase implements SolrCoreAware,
     if (rb.requestInfo != null) {
       rb.requestInfo.setResponseBuilder(rb);
     }
+
+    boolean sampled = phaseTimers != null && profilerSampleRate > 0
+        && (profilerSampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < profilerSampleRate);
+    final QueryPhaseProfiler profiler = new QueryPhaseProfiler(sampled ? phaseTimers : null,
+        Boolean.TRUE.equals(req.getContext().get(QueryPhaseProfiler.RESPONSE_WRITE_PROFILED)));
+    req.getContext().put(QueryPhaseProfiler.CONTEXT_KEY, profiler);
     
     tagRequestWithRequestId(rb);
 
@@ -318,6 +351,7 @@ public class SearchHandler extends RequestHandlerBase implements SolrCoreAware,
       }
 
       if (trippedCircuitBreakers != null) {
+        circuitBreakerManager.markRejected(trippedCircuitBreakers);
         String errorMessage = CircuitBreakerManager.toErrorMessage(trippedCircuitBreakers);
         rsp.add(STATUS, FAILURE);
         rsp.setException(new SolrException(SolrException.ErrorCode.SERVICE_UNAVAILABLE, "Circuit Breakers tripped " + errorMessage));
@@ -330,19 +364,31 @@ public class SearchHandler extends RequestHandlerBase implements SolrCoreAware,
     if (timer == null) {
       // non-debugging prepare phase
       for( SearchComponent c : components ) {
-        c.prepare(rb);
+        prepare(c, rb, profiler);
       }
     } else {
       // debugging prepare phase
       RTimerTree subt = timer.sub( "prepare" );
       for( SearchComponent c : components ) {
         rb.setTimer(subt.sub( c.getName() ) );
-        c.prepare(rb);
+        prepare(c, rb, profiler);
         rb.getTimer().stop();
       }
       subt.stop();
     }
 
+    if (circuitBreakerManager.isCostBasedAdmissionEnabled()) {
+      // the cost of the request is only known once the components parsed it
+      QueryCost queryCost = QueryCost.estimate(rb);
+      String errorMessage = circuitBreakerManager.checkQueryCost(queryCost);
+      if (errorMessage != null) {
+        circuitBreakerManager.markRejected(CircuitBreakerManager.COST_REJECTION_PREFIX + queryCost.getDominantFactor());
+        rsp.add(STATUS, FAILURE);
+        rsp.setException(new SolrException(SolrException.ErrorCode.SERVICE_UNAVAILABLE, "Circuit Breakers rejected request: " + errorMessage));
+        return;
+      }
+    }
+
     { // Once all of our components have been prepared, check if this request involves a SortSpec.
       // If it does, and if our request includes a cursorMark param, then parse & init the CursorMark state
       // (This must happen after the prepare() of all components, because any component may have modified the SortSpec)
@@ -365,7 +411,7 @@ public class SearchHandler extends RequestHandlerBase implements SolrCoreAware,
         if(!rb.isDebug()) {
           // Process
           for( SearchComponent c : components ) {
-            c.process(rb);
+            process(c, rb, profiler);
           }
         }
         else {
@@ -373,7 +419,7 @@ public class SearchHandler extends RequestHandlerBase implements SolrCoreAware,
           RTimerTree subt = timer.sub( "process" );
           for( SearchComponent c : components ) {
             rb.setTimer( subt.sub( c.getName() ) );
-            c.process(rb);
+            process(c, rb, profiler);
             rb.getTimer().stop();
           }
           subt.stop();
@@ -381,6 +427,7 @@ public class SearchHandler extends RequestHandlerBase implements SolrCoreAware,
           // add the timing info
           if (rb.isDebugTimings()) {
             rb.addDebugInfo("timing", timer.asNamedList() );
+            rb.addDebugInfo("phases", profiler.toNamedList());
           }
         }
       } catch (ExitableDirectoryReader.ExitingReaderException ex) {
@@ -544,6 +591,28 @@ public class SearchHandler extends RequestHandlerBase implements SolrCoreAware,
       shardInfo.add(shardInfoName, nl);   
       rsp.getValues().add(ShardParams.SHARDS_INFO,shardInfo);            
     }
+
+    profiler.recordSearch();
+  }
+
+  private static void prepare(SearchComponent c, ResponseBuilder rb, QueryPhaseProfiler profiler) throws IOException {
+    QueryPhaseProfiler.Phase phase = QueryPhaseProfiler.phaseOf(c, true);
+    long start = profiler.start(phase);
+    try {
+      c.prepare(rb);
+    } finally {
+      profiler.stop(phase, start);
+    }
+  }
+
+  private static void process(SearchComponent c, ResponseBuilder rb, QueryPhaseProfiler profiler) throws IOException {
+    QueryPhaseProfiler.Phase phase = QueryPhaseProfiler.phaseOf(c, false);
+    long start = profiler.start(phase);
+    try {
+      c.process(rb);
+    } finally {
+      profiler.stop(phase, start);
+    }
   }
 
   private void tagRequestWithRequestId(ResponseBuilder rb) {
@@ -51,7 +51,22 @@ import org.apache.solr.update.processor.UpdateRequestProcessor;
  * @see org.apache.solr.common.util.JavaBinCodec
  */
 public class JavabinLoader extends ContentStreamLoader {
+  /**
+   * Init arg or request param; if true, string and binary field values are not copied into
+   * Strings and byte[]s but handed down the update chain as
+   * {@link org.apache.solr.common.util.ByteArrayUtf8CharSequence} and {@link java.nio.ByteBuffer}
+   * slices over the request bytes.
+   */
+  public static final String ZERO_COPY = "javabin.zeroCopy";
+  /**
+   * Init arg; the largest request (in bytes) that is buffered in memory as a whole in zero-copy
+   * mode. Larger requests, or requests of unknown length, are still streamed.
+   */
+  public static final String ZERO_COPY_MAX_BUFFERED_BYTES = "javabin.zeroCopyMaxBufferedBytes";
+
   final ContentStreamLoader contentStreamLoader;
+  private boolean zeroCopy = false;
+  private long zeroCopyMaxBufferedBytes = 32 * 1024 * 1024;
 
   public JavabinLoader() {
     this.contentStreamLoader = this;
@@ -62,11 +77,28 @@ public class JavabinLoader extends ContentStreamLoader {
     this.contentStreamLoader = contentStreamLoader;
   }
 
+  @Override
+  public JavabinLoader init(SolrParams args) {
+    if (args != null) {
+      zeroCopy = args.getBool(ZERO_COPY, zeroCopy);
+      zeroCopyMaxBufferedBytes = args.getLong(ZERO_COPY_MAX_BUFFERED_BYTES, zeroCopyMaxBufferedBytes);
+    }
+    return this;
+  }
+
   @Override
   public void load(SolrQueryRequest req, SolrQueryResponse rsp, ContentStream stream, UpdateRequestProcessor processor) throws Exception {
     InputStream is = null;
     try {
       is = stream.getStream();
+      if (req.getParams().getBool(ZERO_COPY, zeroCopy)) {
+        Long size = stream.getSize();
+        if (size != null && size <= zeroCopyMaxBufferedBytes) {
+          // with the whole request in one array, values can be sliced straight out of it
+          byte[] buf = is.readNBytes(size.intValue());
+          is = new FastInputStream(null, buf, 0, buf.length);
+        }
+      }
       parseAndLoadDocs(req, rsp, is, processor);
     } finally {
       if(is != null) {
@@ -81,6 +113,7 @@ public class JavabinLoader extends ContentStreamLoader {
       handleMultiStream(req, rsp, stream, processor);
       return;
     }
+    final boolean zeroCopy = req.getParams().getBool(ZERO_COPY, this.zeroCopy);
     UpdateRequest update = null;
     JavaBinUpdateRequestCodec.StreamingUpdateHandler handler = new JavaBinUpdateRequestCodec.StreamingUpdateHandler() {
       private AddUpdateCommand addCmd = null;
@@ -119,6 +152,9 @@ public class JavabinLoader extends ContentStreamLoader {
       if (in.peek() == -1) return;
       try {
         update = new JavaBinUpdateRequestCodec()
+            .setReadStringAsCharSeq(zeroCopy)
+            .setReadByteArrayAsByteBuffer(zeroCopy)
+            .setDictionary(req.getSchema().getJavaBinDictionary())
             .unmarshal(in, handler);
       } catch (EOFException e) {
         break; // this is expected
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
 import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -39,7 +40,10 @@ import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.common.params.UpdateParams;
 import org.apache.solr.common.util.ContentStream;
+import org.apache.solr.common.util.ContentStreamBase;
 import org.apache.solr.common.util.JsonRecordReader;
+import org.apache.solr.common.util.Utf8Reader;
+import org.apache.solr.core.SolrCore;
 import org.apache.solr.handler.RequestHandlerUtils;
 import org.apache.solr.handler.UpdateRequestHandler;
 import org.apache.solr.request.SolrQueryRequest;
@@ -49,7 +53,12 @@ import org.apache.solr.update.AddUpdateCommand;
 import org.apache.solr.update.CommitUpdateCommand;
 import org.apache.solr.update.DeleteUpdateCommand;
 import org.apache.solr.update.RollbackUpdateCommand;
+import org.apache.solr.update.StreamingDocumentBuilder;
+import org.apache.solr.update.processor.DistributedUpdateProcessorFactory;
+import org.apache.solr.update.processor.LogUpdateProcessorFactory;
+import org.apache.solr.update.processor.RunUpdateProcessorFactory;
 import org.apache.solr.update.processor.UpdateRequestProcessor;
+import org.apache.solr.update.processor.UpdateRequestProcessorFactory;
 import org.apache.solr.util.RecordingJSONParser;
 import org.noggit.JSONParser;
 import org.noggit.JSONParser.ParseException;
@@ -72,6 +81,50 @@ public class JsonLoader extends ContentStreamLoader {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   private static final AtomicBoolean WARNED_ABOUT_INDEX_TIME_BOOSTS = new AtomicBoolean();
   public static final String CHILD_DOC_KEY = "_childDocuments_";
+  /**
+   * Request param; if true, and {@link #canBuildDocsDirectly} allows it, the documents of an add are parsed straight
+   * into Lucene documents by a {@link StreamingDocumentBuilder}, skipping the {@link SolrInputDocument}.
+   * Nested documents and atomic updates are rejected in this mode.
+   */
+  public static final String DIRECT_DOCS = "json.directDocs";
+
+  // the buffers of the parser and of the reader decoding its input, reused by the next load of the thread
+  private static final ThreadLocal<ParserBuffers> PARSER_BUFFERS = new ThreadLocal<>();
+
+  static final class ParserBuffers {
+    final char[] chars = new char[8192];
+    final byte[] bytes = new byte[8192];
+
+    /** Takes the buffers of the current thread, or new ones if another load of the thread is using them. */
+    static ParserBuffers take() {
+      ParserBuffers buffers = PARSER_BUFFERS.get();
+      if (buffers == null) {
+        return new ParserBuffers();
+      }
+      PARSER_BUFFERS.remove();
+      return buffers;
+    }
+
+    /** Gives the buffers back to the current thread, once nothing reads from them anymore. */
+    void release() {
+      PARSER_BUFFERS.set(this);
+    }
+  }
+
+  /**
+   * Returns a reader of the stream that decodes UTF-8 straight from its bytes into the buffer of the parser
+   * when the stream has no other charset, or the reader of the stream otherwise.
+   */
+  static Reader getReader(ContentStream stream, byte[] buffer) throws IOException {
+    if (stream instanceof ContentStreamBase.StringStream) {
+      return stream.getReader();
+    }
+    String charset = ContentStreamBase.getCharsetFromContentType(stream.getContentType());
+    if (charset == null || StandardCharsets.UTF_8.name().equalsIgnoreCase(charset)) {
+      return new Utf8Reader(stream.getStream(), buffer);
+    }
+    return stream.getReader();
+  }
 
   @Override
   public String getDefaultWT() {
@@ -110,6 +163,26 @@ public class JsonLoader extends ContentStreamLoader {
     return result;
   }
 
+  /**
+   * Documents can only be built directly if nothing after the loader needs the full {@link SolrInputDocument}:
+   * the core has no update log, isn't part of SolrCloud, and the update chain only has the standard
+   * log, distributed and run processors.
+   */
+  public static boolean canBuildDocsDirectly(SolrQueryRequest req) {
+    SolrCore core = req.getCore();
+    if (core == null || core.getUpdateHandler().getUpdateLog() != null || core.getCoreContainer().isZooKeeperAware()) {
+      return false;
+    }
+    for (UpdateRequestProcessorFactory factory : core.getUpdateProcessorChain(req.getParams()).getProcessors()) {
+      if (!(factory instanceof LogUpdateProcessorFactory
+          || factory instanceof DistributedUpdateProcessorFactory
+          || factory instanceof RunUpdateProcessorFactory)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private static boolean mapEntryIsChildDoc(Object val) {
     if(val instanceof List) {
       List<?> listVal = (List<?>) val;
@@ -125,8 +198,12 @@ public class JsonLoader extends ContentStreamLoader {
     protected final SolrQueryRequest req;
     protected SolrQueryResponse rsp;
     protected JSONParser parser;
+    // the buffers of the parser during a load
+    protected ParserBuffers buffers;
     protected final int commitWithin;
     protected final boolean overwrite;
+    // non-null if documents are built directly
+    protected final StreamingDocumentBuilder docBuilder;
 
     SingleThreadedJsonLoader(SolrQueryRequest req, SolrQueryResponse rsp, UpdateRequestProcessor processor) {
       this.processor = processor;
@@ -135,6 +212,8 @@ public class JsonLoader extends ContentStreamLoader {
 
       commitWithin = req.getParams().getInt(UpdateParams.COMMIT_WITHIN, -1);
       overwrite = req.getParams().getBool(UpdateParams.OVERWRITE, true);
+      docBuilder = req.getParams().getBool(DIRECT_DOCS, false) && canBuildDocsDirectly(req)
+          ? new StreamingDocumentBuilder(req.getSchema()) : null;
     }
 
     @Override
@@ -144,8 +223,9 @@ public class JsonLoader extends ContentStreamLoader {
                      UpdateRequestProcessor processor) throws Exception {
 
       Reader reader = null;
+      buffers = ParserBuffers.take();
       try {
-        reader = stream.getReader();
+        reader = getReader(stream, buffers.bytes);
         if (log.isTraceEnabled()) {
           String body = IOUtils.toString(reader);
           log.trace("body: {}", body);
@@ -158,9 +238,16 @@ public class JsonLoader extends ContentStreamLoader {
       }
       finally {
         IOUtils.closeQuietly(reader);
+        parser = null;
+        buffers.release();
+        buffers = null;
       }
     }
 
+    private JSONParser newParser(Reader reader) {
+      return buffers == null ? new JSONParser(reader) : new JSONParser(reader, buffers.chars);
+    }
+
     @SuppressWarnings("fallthrough")
     void processUpdate(Reader reader) throws IOException {
       String path = (String) req.getContext().get(PATH);
@@ -170,7 +257,7 @@ public class JsonLoader extends ContentStreamLoader {
         handleSplitMode(split, f, reader);
         return;
       }
-      parser = new JSONParser(reader);
+      parser = newParser(reader);
       int ev = parser.nextEvent();
       while (ev != JSONParser.EOF) {
 
@@ -247,7 +334,7 @@ public class JsonLoader extends ContentStreamLoader {
           throw new SolrException(SolrException.ErrorCode.BAD_REQUEST, "Raw data can be stored only if split=/");
         parser = new RecordingJSONParser(reader);
       } else {
-        parser = new JSONParser(reader);
+        parser = newParser(reader);
 
       }
 
@@ -470,7 +557,7 @@ public class JsonLoader extends ContentStreamLoader {
                     + " add command at [" + parser.getPosition() + "]");
               }
               ev = assertNextEvent(JSONParser.OBJECT_START);
-              cmd.solrDoc = parseDoc(ev);
+              parseDoc(ev, cmd);
             } else if (UpdateRequestHandler.OVERWRITE.equals(key)) {
               cmd.overwrite = parser.getBoolean(); // reads next boolean
             } else if (UpdateRequestHandler.COMMIT_WITHIN.equals(key)) {
@@ -515,7 +602,7 @@ public class JsonLoader extends ContentStreamLoader {
         if (ev == JSONParser.ARRAY_END) break;
 
         assertEvent(ev, JSONParser.OBJECT_START);
-        cmd.solrDoc = parseDoc(ev);
+        parseDoc(ev, cmd);
         processor.processAdd(cmd);
       }
     }
@@ -537,6 +624,44 @@ public class JsonLoader extends ContentStreamLoader {
     }
 
 
+    private void parseDoc(int ev, AddUpdateCommand cmd) throws IOException {
+      if (docBuilder == null) {
+        cmd.solrDoc = parseDoc(ev);
+        return;
+      }
+      assert ev == JSONParser.OBJECT_START;
+
+      docBuilder.reset();
+      for (; ; ) {
+        ev = parser.nextEvent();
+        if (ev == JSONParser.OBJECT_END) {
+          cmd.solrDoc = docBuilder.getIdDocument();
+          cmd.luceneDocument = docBuilder.build();
+          return;
+        }
+        String fieldName = parser.getString();
+        ev = parser.nextEvent();
+        if (ev == JSONParser.ARRAY_START) {
+          while ((ev = parser.nextEvent()) != JSONParser.ARRAY_END) {
+            docBuilder.addValue(fieldName, parseDirectFieldValue(ev, fieldName));
+          }
+        } else {
+          docBuilder.addValue(fieldName, parseDirectFieldValue(ev, fieldName));
+        }
+      }
+    }
+
+    private Object parseDirectFieldValue(int ev, String fieldName) throws IOException {
+      switch (ev) {
+        case JSONParser.ARRAY_START:
+        case JSONParser.OBJECT_START:
+          throw new SolrException(SolrException.ErrorCode.BAD_REQUEST, "Nested documents and atomic updates"
+              + " are not supported with " + DIRECT_DOCS + "=true at [" + parser.getPosition() + "], field=" + fieldName);
+        default:
+          return parseFieldValue(ev, fieldName);
+      }
+    }
+
     private SolrInputDocument parseDoc(int ev) throws IOException {
       assert ev == JSONParser.OBJECT_START;
 
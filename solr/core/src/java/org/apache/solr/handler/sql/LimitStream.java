@@ -46,6 +46,18 @@ class LimitStream extends TupleStream {
     this.count = 0;
   }
 
+  TupleStream getStream() {
+    return stream;
+  }
+
+  int getLimit() {
+    return limit;
+  }
+
+  int getOffset() {
+    return offset;
+  }
+
   public void open() throws IOException {
     this.stream.open();
   }
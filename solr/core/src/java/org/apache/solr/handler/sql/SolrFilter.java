@@ -32,6 +32,7 @@ import org.apache.calcite.plan.RelTraitSet;
 import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.core.Filter;
 import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.rex.RexBuilder;
 import org.apache.calcite.rex.RexCall;
 import org.apache.calcite.rex.RexInputRef;
@@ -79,9 +80,34 @@ class SolrFilter extends Filter implements SolrRel {
   public void implement(Implementor implementor) {
     implementor.visitChild(0, getInput());
     if (getInput() instanceof SolrAggregate) {
-      HavingTranslator translator = new HavingTranslator(SolrRules.solrFieldNames(getRowType()), implementor.reverseAggMappings, builder);
-      String havingPredicate = translator.translateMatch(condition);
-      implementor.setHavingPredicate(havingPredicate);
+      // conditions on the single-valued GROUP BY fields only select documents: they are pushed down into the
+      // query, so that Solr doesn't compute the buckets they would filter out, and only the other conditions are
+      // applied to the buckets. A document is in the buckets of all the values of a multi-valued field, so a
+      // condition on one of them can't exclude the document from the buckets of the others.
+      List<String> fieldNames = SolrRules.solrFieldNames(getRowType());
+      List<String> solrFieldNames = fieldNames.stream()
+          .map(name -> implementor.fieldMappings.getOrDefault(name, name))
+          .collect(Collectors.toList());
+      Translator bucketTranslator = new Translator(solrFieldNames, builder);
+      List<RexNode> havingConditions = new ArrayList<>();
+      for (RexNode conjunction : RelOptUtil.conjunctions(condition)) {
+        String query = null;
+        if (isFieldComparison(conjunction, getInput().getRowType())
+            && RelOptUtil.InputFinder.bits(conjunction).asList().stream()
+            .noneMatch(field -> implementor.reverseAggMappings.containsKey(fieldNames.get(field)))) {
+          query = bucketTranslator.translateMatch(conjunction);
+        }
+        if (query != null) {
+          implementor.addFilterQuery(query);
+        } else {
+          havingConditions.add(conjunction);
+        }
+      }
+      if (!havingConditions.isEmpty()) {
+        HavingTranslator translator = new HavingTranslator(fieldNames, implementor.reverseAggMappings, builder);
+        String havingPredicate = translator.translateMatch(RexUtil.composeConjunction(builder, havingConditions));
+        implementor.setHavingPredicate(havingPredicate);
+      }
     } else {
       Translator translator = new Translator(SolrRules.solrFieldNames(getRowType()), builder);
       String query = translator.translateMatch(condition);
@@ -90,6 +116,26 @@ class SolrFilter extends Filter implements SolrRel {
     }
   }
 
+  /**
+   * Returns true for the comparisons of a single-valued field with literals, the only conditions on buckets that are
+   * pushed down. Multi-valued fields are typed as {@link SqlTypeName#ANY} by the {@link SolrSchema}.
+   */
+  private static boolean isFieldComparison(RexNode condition, RelDataType rowType) {
+    if (condition.isA(SqlKind.NOT)) {
+      return isFieldComparison(((RexCall) condition).getOperands().get(0), rowType);
+    }
+    if (!(condition.isA(SqlKind.SEARCH) || condition.getKind().belongsTo(SqlKind.COMPARISON))) {
+      return false;
+    }
+    List<RexNode> operands = ((RexCall) condition).getOperands();
+    if (!(operands.get(0) instanceof RexInputRef)) {
+      return false;
+    }
+    RelDataType fieldType = rowType.getFieldList().get(((RexInputRef) operands.get(0)).getIndex()).getType();
+    return fieldType.getSqlTypeName() != SqlTypeName.ANY
+        && operands.subList(1, operands.size()).stream().allMatch(operand -> operand instanceof RexLiteral);
+  }
+
   private static class Translator {
 
     protected final List<String> fieldNames;
@@ -587,10 +633,11 @@ class SolrFilter extends Filter implements SolrRel {
       Pair<String, RexLiteral> binaryTranslated = getFieldValuePair(node);
       switch (node.getKind()) {
         case EQUALS:
-          String terms = binaryTranslated.getValue().getValue2().toString().trim();
-          return "eq(" + binaryTranslated.getKey() + "," + terms + ")";
+          return "eq(" + binaryTranslated.getKey() + "," + toEqualsValue(binaryTranslated.getValue()) + ")";
         case NOT_EQUALS:
-          return "not(eq(" + binaryTranslated.getKey() + "," + binaryTranslated.getValue() + "))";
+          String value = isString(binaryTranslated.getValue()) ?
+              toEqualsValue(binaryTranslated.getValue()) : String.valueOf(binaryTranslated.getValue());
+          return "not(eq(" + binaryTranslated.getKey() + "," + value + "))";
         case LESS_THAN:
           return "lt(" + binaryTranslated.getKey() + "," + binaryTranslated.getValue() + ")";
         case LESS_THAN_OR_EQUAL:
@@ -603,5 +650,15 @@ class SolrFilter extends Filter implements SolrRel {
           throw new AssertionError("cannot translate " + node);
       }
     }
+
+    // a string is the name of a field for the evaluators, so string values, e.g. of a GROUP BY field, are raw values
+    private String toEqualsValue(RexLiteral literal) {
+      String value = literal.getValue2().toString().trim();
+      return isString(literal) ? "val(" + value + ")" : value;
+    }
+
+    private boolean isString(RexLiteral literal) {
+      return SqlTypeName.CHAR_TYPES.contains(literal.getTypeName());
+    }
   }
 }
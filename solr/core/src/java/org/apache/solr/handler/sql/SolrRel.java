@@ -72,6 +72,22 @@ interface SolrRel extends RelNode {
       this.negativeQuery = negativeQuery;
     }
 
+    /** Adds a query that the documents must match too, ANDed with the query of the WHERE clause if there is one. */
+    void addFilterQuery(String query) {
+      if (this.query == null) {
+        addQuery(query);
+        setNegativeQuery(query.startsWith("-"));
+      } else {
+        addQuery("(" + positive(this.query) + ") AND (" + positive(query) + ")");
+        setNegativeQuery(false);
+      }
+    }
+
+    // a clause with only negative terms matches nothing on its own
+    private static String positive(String query) {
+      return query.startsWith("-") ? "*:* " + query : query;
+    }
+
     void addOrder(String column, String direction) {
       column = this.fieldMappings.getOrDefault(column, column);
       this.orders.add(new Pair<>(column, direction));
@@ -46,6 +46,8 @@ import org.apache.solr.client.solrj.io.eval.NotEvaluator;
 import org.apache.solr.client.solrj.io.eval.OrEvaluator;
 import org.apache.solr.client.solrj.io.eval.RawValueEvaluator;
 import org.apache.solr.client.solrj.io.stream.*;
+import org.apache.solr.client.solrj.io.stream.expr.DefaultStreamFactory;
+import org.apache.solr.client.solrj.io.stream.expr.Expressible;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpressionParser;
 import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
 import org.apache.solr.client.solrj.io.stream.metrics.*;
@@ -109,6 +111,68 @@ class SolrTable extends AbstractQueryableTable implements TranslatableTable {
                                    final String negativeQuery,
                                    final String havingPredicate,
                                    final String offset) {
+    TupleStream tupleStream;
+    try {
+      tupleStream = buildStream(properties, fields, query, orders, buckets, metricPairs, limit, negativeQuery, havingPredicate, offset);
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+
+    StreamContext streamContext = new StreamContext();
+    streamContext.setSolrClientCache(schema.getSolrClientCache());
+    tupleStream.setStreamContext(streamContext);
+
+    final TupleStream finalStream = tupleStream;
+
+    return new AbstractEnumerable<Object>() {
+      // Use original fields list to make sure only the fields specified are enumerated
+      public Enumerator<Object> enumerator() {
+        return new SolrEnumerator(finalStream, fields);
+      }
+    };
+  }
+
+  /**
+   * Returns the streaming expression that a query on this table runs, for EXPLAIN. Streams that aren't expressible
+   * are shown with their parameters, like {@code limit(facet(...), limit=10, offset=20)}.
+   */
+  String explain(final List<Map.Entry<String, Class<?>>> fields,
+                 final String query,
+                 final List<Pair<String, String>> orders,
+                 final List<String> buckets,
+                 final List<Pair<String, String>> metricPairs,
+                 final String limit,
+                 final String negativeQuery,
+                 final String havingPredicate,
+                 final String offset) throws IOException {
+    TupleStream tupleStream = buildStream(schema.properties, fields, query, orders, buckets, metricPairs, limit,
+        negativeQuery, havingPredicate, offset);
+    StreamFactory factory = new DefaultStreamFactory()
+        .withFunctionName("search", CloudSolrStream.class);
+    return explain(tupleStream, factory);
+  }
+
+  private static String explain(TupleStream tupleStream, StreamFactory factory) throws IOException {
+    if (tupleStream instanceof LimitStream) {
+      LimitStream limitStream = (LimitStream) tupleStream;
+      return "limit(" + explain(limitStream.getStream(), factory) + ", limit=" + limitStream.getLimit()
+          + ", offset=" + limitStream.getOffset() + ")";
+    } else if (tupleStream instanceof Expressible) {
+      return ((Expressible) tupleStream).toExpression(factory).toString();
+    }
+    return tupleStream.getClass().getSimpleName();
+  }
+
+  private TupleStream buildStream(final Properties properties,
+                                  final List<Map.Entry<String, Class<?>>> fields,
+                                  final String query,
+                                  final List<Pair<String, String>> orders,
+                                  final List<String> buckets,
+                                  final List<Pair<String, String>> metricPairs,
+                                  final String limit,
+                                  final String negativeQuery,
+                                  final String havingPredicate,
+                                  final String offset) throws IOException {
     // SolrParams should be a ModifiableParams instead of a map
     boolean mapReduce = "map_reduce".equals(properties.getProperty("aggregationMode"));
     boolean negative = Boolean.parseBoolean(negativeQuery);
@@ -127,53 +191,35 @@ class SolrTable extends AbstractQueryableTable implements TranslatableTable {
 
     TupleStream tupleStream;
     String zk = properties.getProperty("zk");
-    try {
-      if (metricPairs.isEmpty() && buckets.isEmpty()) {
-        tupleStream = handleSelect(zk, collection, q, fields, orders, limit, offset);
-      } else {
-        if(buckets.isEmpty()) {
-          tupleStream = handleStats(zk, collection, q, metricPairs, fields);
-        } else {
-          if(mapReduce) {
-            tupleStream = handleGroupByMapReduce(zk,
-                                                 collection,
-                                                 properties,
-                                                 fields,
-                                                 q,
-                                                 orders,
-                                                 buckets,
-                                                 metricPairs,
-                                                 limit,
-                                                 havingPredicate);
-          } else {
-            tupleStream = handleGroupByFacet(zk,
-                                             collection,
-                                             fields,
-                                             q,
-                                             orders,
-                                             buckets,
-                                             metricPairs,
-                                             limit,
-                                             havingPredicate);
-          }
-        }
-      }
-    } catch (IOException e) {
-      throw new RuntimeException(e);
+    if (metricPairs.isEmpty() && buckets.isEmpty()) {
+      tupleStream = handleSelect(zk, collection, q, fields, orders, limit, offset);
+    } else if (buckets.isEmpty()) {
+      tupleStream = handleStats(zk, collection, q, metricPairs, fields);
+    } else if (mapReduce) {
+      tupleStream = handleGroupByMapReduce(zk,
+                                           collection,
+                                           properties,
+                                           fields,
+                                           q,
+                                           orders,
+                                           buckets,
+                                           metricPairs,
+                                           limit,
+                                           havingPredicate,
+                                           offset);
+    } else {
+      tupleStream = handleGroupByFacet(zk,
+                                       collection,
+                                       fields,
+                                       q,
+                                       orders,
+                                       buckets,
+                                       metricPairs,
+                                       limit,
+                                       havingPredicate,
+                                       offset);
     }
-
-    StreamContext streamContext = new StreamContext();
-    streamContext.setSolrClientCache(schema.getSolrClientCache());
-    tupleStream.setStreamContext(streamContext);
-
-    final TupleStream finalStream = tupleStream;
-
-    return new AbstractEnumerable<Object>() {
-      // Use original fields list to make sure only the fields specified are enumerated
-      public Enumerator<Object> enumerator() {
-        return new SolrEnumerator(finalStream, fields);
-      }
-    };
+    return tupleStream;
   }
 
   private static StreamComparator bucketSortComp(List<Bucket> buckets, Map<String,String> dirs) {
@@ -459,7 +505,8 @@ class SolrTable extends AbstractQueryableTable implements TranslatableTable {
                                              final List<String> _buckets,
                                              final List<Pair<String, String>> metricPairs,
                                              final String limit,
-                                             final String havingPredicate) throws IOException {
+                                             final String havingPredicate,
+                                             final String offset) throws IOException {
 
     Map<String, Class<?>> fmap = new HashMap<>();
     for(Map.Entry<String, Class<?>> entry : fields) {
@@ -548,9 +595,9 @@ class SolrTable extends AbstractQueryableTable implements TranslatableTable {
       tupleStream = parallelStream;
     }
 
-    //TODO: Currently we are not pushing down the having clause.
-    //      We need to push down the having clause to ensure that LIMIT does not cut off records prior to the having filter.
+    // The having clause is applied before the limit, so the LIMIT doesn't cut off records prior to the having filter.
 
+    int off = (offset == null) ? 0 : Integer.parseInt(offset);
     if(orders != null && orders.size() > 0) {
       if(!sortsEqual(buckets, sortDirection, orders)) {
         int lim = (limit == null) ? 100 : Integer.parseInt(limit);
@@ -558,18 +605,21 @@ class SolrTable extends AbstractQueryableTable implements TranslatableTable {
         //Rank the Tuples
         //If parallel stream is used ALL the Rolled up tuples from the workers will be ranked
         //Providing a true Top or Bottom.
-        tupleStream = new RankStream(tupleStream, lim, comp);
+        tupleStream = new RankStream(tupleStream, lim + off, comp);
+        if(off > 0) {
+          tupleStream = new LimitStream(tupleStream, lim, off);
+        }
       } else {
         // Sort is the same as the same as the underlying stream
         // Only need to limit the result, not Rank the result
         if(limit != null) {
-          tupleStream = new LimitStream(tupleStream, Integer.parseInt(limit));
+          tupleStream = new LimitStream(tupleStream, Integer.parseInt(limit), off);
         }
       }
     } else {
       //No order by, check for limit
       if(limit != null) {
-        tupleStream = new LimitStream(tupleStream, Integer.parseInt(limit));
+        tupleStream = new LimitStream(tupleStream, Integer.parseInt(limit), off);
       }
     }
 
@@ -598,7 +648,8 @@ class SolrTable extends AbstractQueryableTable implements TranslatableTable {
                                          final List<String> bucketFields,
                                          final List<Pair<String, String>> metricPairs,
                                          final String lim,
-                                         final String havingPredicate) throws IOException {
+                                         final String havingPredicate,
+                                         final String offset) throws IOException {
 
 
     Map<String, Class<?>> fmap = new HashMap<>();
@@ -624,6 +675,7 @@ class SolrTable extends AbstractQueryableTable implements TranslatableTable {
     }
 
     int limit = lim != null ? Integer.parseInt(lim) : 1000;
+    int off = offset != null ? Integer.parseInt(offset) : 0;
 
     FieldComparator[] sorts = null;
 
@@ -636,7 +688,11 @@ class SolrTable extends AbstractQueryableTable implements TranslatableTable {
       sorts = getComps(orders);
     }
 
-    int overfetch = (int)(limit * 1.25);
+    // The filters on the single-valued GROUP BY fields are part of the query, but JSON facets can't filter buckets
+    // on their metrics: with a HAVING clause the buckets are filtered here, so all of them are fetched to not miss
+    // any bucket that would be in the page after filtering. This computes and sends every bucket of the query, which
+    // is costly on high cardinality fields: the map_reduce aggregation mode streams the buckets instead.
+    int overfetch = (havingPredicate != null && lim != null) ? -1 : (int)((limit + off) * 1.25);
 
     TupleStream tupleStream = new FacetStream(zkHost,
                                               collection,
@@ -674,7 +730,7 @@ class SolrTable extends AbstractQueryableTable implements TranslatableTable {
 
     if(lim != null)
     {
-      tupleStream = new LimitStream(tupleStream, limit);
+      tupleStream = new LimitStream(tupleStream, limit, off);
     }
 
     return tupleStream;
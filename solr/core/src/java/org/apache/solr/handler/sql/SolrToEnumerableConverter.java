@@ -18,19 +18,23 @@ package org.apache.solr.handler.sql;
 
 import com.google.common.collect.Lists;
 import org.apache.calcite.adapter.enumerable.*;
+import org.apache.calcite.adapter.java.JavaTypeFactory;
 import org.apache.calcite.linq4j.tree.BlockBuilder;
 import org.apache.calcite.linq4j.tree.Expression;
 import org.apache.calcite.linq4j.tree.Expressions;
 import org.apache.calcite.linq4j.tree.MethodCallExpression;
 import org.apache.calcite.plan.*;
 import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelWriter;
 import org.apache.calcite.rel.convert.ConverterImpl;
 import org.apache.calcite.rel.metadata.RelMetadataQuery;
 import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.runtime.Hook;
+import org.apache.calcite.sql.SqlExplainLevel;
 import org.apache.calcite.util.BuiltInMethod;
 import org.apache.calcite.util.Pair;
 
+import java.lang.reflect.Type;
 import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
@@ -54,6 +58,40 @@ class SolrToEnumerableConverter extends ConverterImpl implements EnumerableRel {
     return super.computeSelfCost(planner, mq).multiplyBy(.1);
   }
 
+  /**
+   * Adds the streaming expression run for this query to the output of EXPLAIN PLAN, as the "solr" attribute.
+   * It isn't part of the digest of the node, so it is only built for EXPLAIN.
+   */
+  @Override
+  public RelWriter explainTerms(RelWriter pw) {
+    super.explainTerms(pw);
+    SqlExplainLevel level = pw.getDetailLevel();
+    if (level == SqlExplainLevel.EXPPLAN_ATTRIBUTES || level == SqlExplainLevel.ALL_ATTRIBUTES) {
+      pw.item("solr", explainSolr());
+    }
+    return pw;
+  }
+
+  private String explainSolr() {
+    final SolrRel.Implementor solrImplementor = new SolrRel.Implementor();
+    try {
+      solrImplementor.visitChild(0, getInput());
+      final RelDataType rowType = getRowType();
+      final JavaTypeFactory typeFactory = (JavaTypeFactory) getCluster().getTypeFactory();
+      List<Map.Entry<String, Class<?>>> fields = new ArrayList<>();
+      List<String> fieldNames = generateFields(SolrRules.solrFieldNames(rowType), solrImplementor.fieldMappings);
+      for (int i = 0; i < fieldNames.size(); i++) {
+        Type type = typeFactory.getJavaClass(rowType.getFieldList().get(i).getType());
+        fields.add(new Pair<>(fieldNames.get(i), type instanceof Class ? (Class<?>) type : Object.class));
+      }
+      return solrImplementor.solrTable.explain(fields, solrImplementor.query, solrImplementor.orders,
+          solrImplementor.buckets, solrImplementor.metricPairs, solrImplementor.limitValue,
+          Boolean.toString(solrImplementor.negativeQuery), solrImplementor.havingPredicate, solrImplementor.offsetValue);
+    } catch (Exception e) {
+      return "unavailable: " + e.getMessage();
+    }
+  }
+
   public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
     // Generates a call to "query" with the appropriate fields
     final BlockBuilder list = new BlockBuilder();
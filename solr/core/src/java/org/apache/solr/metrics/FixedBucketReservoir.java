@@ -0,0 +1,305 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.metrics;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+
+/**
+ * A {@link Reservoir} counting values in fixed, logarithmically sized buckets, like HdrHistogram.
+ * <p>
+ * Unlike the {@link ExponentiallyDecayingReservoir}, which takes a lock and allocates a sample for many of the
+ * values it records, recording a value only increments the counter of its bucket, so that timers and histograms
+ * updated on every request don't become a point of contention under high load. The counters are striped by
+ * thread, and the stripes are allocated on first use, so that rarely used metrics stay small.
+ * <p>
+ * Each power of two is split in {@value #SUB_BUCKETS} buckets, so the values of a snapshot are within about 6%
+ * of the recorded values. The values recorded during the current and the previous time window are kept, so a
+ * snapshot covers between one and two windows.
+ */
+public class FixedBucketReservoir implements Reservoir {
+  static final int SUB_BUCKET_BITS = 4;
+  static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  /** One linear group of buckets for the smallest values, then one group per power of two. */
+  static final int NUM_BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  public static final int DEFAULT_STRIPES = 4;
+
+  private final Clock clock;
+  private final long windowNanos;
+  private final int stripeMask;
+  private final AtomicLong nextRotation;
+  private volatile Generation current;
+  private volatile Generation previous;
+
+  /** Creates a reservoir keeping values for 5 minutes, comparable to the {@link ExponentiallyDecayingReservoir}. */
+  public FixedBucketReservoir() {
+    this(300, TimeUnit.SECONDS, Clock.defaultClock(), DEFAULT_STRIPES);
+  }
+
+  /**
+   * @param window the time during which values are kept, they are kept for up to twice as long
+   * @param stripes the number of counters of each bucket, rounded up to a power of two
+   */
+  public FixedBucketReservoir(long window, TimeUnit windowUnit, Clock clock, int stripes) {
+    if (window <= 0) {
+      throw new IllegalArgumentException("window must be positive: " + window);
+    }
+    if (stripes <= 0) {
+      throw new IllegalArgumentException("stripes must be positive: " + stripes);
+    }
+    this.clock = clock;
+    this.windowNanos = windowUnit.toNanos(window);
+    int numStripes = Integer.highestOneBit(stripes) == stripes ? stripes : Integer.highestOneBit(stripes) << 1;
+    this.stripeMask = numStripes - 1;
+    this.current = new Generation(numStripes);
+    this.previous = new Generation(numStripes);
+    this.nextRotation = new AtomicLong(clock.getTick() + windowNanos);
+  }
+
+  /** Returns the index of the bucket of a value. */
+  static int bucketIndex(long value) {
+    if (value < SUB_BUCKETS) {
+      return value <= 0 ? 0 : (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int shift = exponent - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+  }
+
+  /** Returns the smallest value of a bucket. */
+  static long lowerBound(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+  }
+
+  /** Returns the largest value of a bucket. */
+  static long upperBound(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    return lowerBound(index) + (1L << shift) - 1;
+  }
+
+  /** Returns the value reported for the values of a bucket, its middle. */
+  static long representativeValue(int index) {
+    long lower = lowerBound(index);
+    return lower + (upperBound(index) - lower) / 2;
+  }
+
+  @Override
+  public int size() {
+    long count = 0;
+    for (long bucketCount : mergeCounts()) {
+      count += bucketCount;
+    }
+    return (int) Math.min(count, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public void update(long value) {
+    rotateIfNeeded();
+    Generation generation = current;
+    int stripe = (int) Thread.currentThread().getId() & stripeMask;
+    AtomicLongArray counts = generation.stripes.get(stripe);
+    if (counts == null) {
+      counts = new AtomicLongArray(NUM_BUCKETS);
+      if (!generation.stripes.compareAndSet(stripe, null, counts)) {
+        counts = generation.stripes.get(stripe);
+      }
+    }
+    counts.incrementAndGet(bucketIndex(value));
+    generation.sum.add(Math.max(0, value));
+  }
+
+  @Override
+  public Snapshot getSnapshot() {
+    long[] counts = mergeCounts();
+    return new BucketSnapshot(counts, previous.sum.sum() + current.sum.sum());
+  }
+
+  private long[] mergeCounts() {
+    rotateIfNeeded();
+    long[] counts = new long[NUM_BUCKETS];
+    previous.addTo(counts);
+    current.addTo(counts);
+    return counts;
+  }
+
+  private void rotateIfNeeded() {
+    long next = nextRotation.get();
+    long now = clock.getTick();
+    if (now - next < 0) {
+      return;
+    }
+    // only the thread that moves the next rotation rotates the generations
+    if (nextRotation.compareAndSet(next, now + windowNanos)) {
+      int numStripes = stripeMask + 1;
+      // after a window without any update, what the current generation holds is too old to be kept
+      previous = now - next >= windowNanos ? new Generation(numStripes) : current;
+      current = new Generation(numStripes);
+    }
+  }
+
+  private static final class Generation {
+    final AtomicReferenceArray<AtomicLongArray> stripes;
+    final LongAdder sum = new LongAdder();
+
+    Generation(int numStripes) {
+      this.stripes = new AtomicReferenceArray<>(numStripes);
+    }
+
+    void addTo(long[] counts) {
+      for (int i = 0; i < stripes.length(); i++) {
+        AtomicLongArray stripe = stripes.get(i);
+        if (stripe != null) {
+          for (int j = 0; j < counts.length; j++) {
+            counts[j] += stripe.get(j);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * The counts of the buckets of a {@link FixedBucketReservoir}. The values of the snapshot are the middles of the
+   * non empty buckets, one per bucket.
+   */
+  static class BucketSnapshot extends Snapshot {
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+
+    BucketSnapshot(long[] counts, long sum) {
+      this.counts = counts;
+      this.sum = sum;
+      long total = 0;
+      for (long bucketCount : counts) {
+        total += bucketCount;
+      }
+      this.count = total;
+    }
+
+    @Override
+    public double getValue(double quantile) {
+      if (quantile < 0.0 || quantile > 1.0 || Double.isNaN(quantile)) {
+        throw new IllegalArgumentException(quantile + " is not in [0..1]");
+      }
+      if (count == 0) {
+        return 0.0;
+      }
+      long rank = Math.max(1, (long) Math.ceil(quantile * count));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return representativeValue(i);
+        }
+      }
+      return getMax();
+    }
+
+    @Override
+    public long[] getValues() {
+      int nonEmpty = 0;
+      for (long bucketCount : counts) {
+        if (bucketCount > 0) {
+          nonEmpty++;
+        }
+      }
+      long[] values = new long[nonEmpty];
+      int j = 0;
+      for (int i = 0; i < counts.length; i++) {
+        if (counts[i] > 0) {
+          values[j++] = representativeValue(i);
+        }
+      }
+      return values;
+    }
+
+    @Override
+    public int size() {
+      return (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public long getMax() {
+      for (int i = counts.length - 1; i >= 0; i--) {
+        if (counts[i] > 0) {
+          return upperBound(i);
+        }
+      }
+      return 0;
+    }
+
+    @Override
+    public double getMean() {
+      return count == 0 ? 0.0 : (double) sum / count;
+    }
+
+    @Override
+    public long getMin() {
+      for (int i = 0; i < counts.length; i++) {
+        if (counts[i] > 0) {
+          return lowerBound(i);
+        }
+      }
+      return 0;
+    }
+
+    @Override
+    public double getStdDev() {
+      if (count <= 1) {
+        return 0.0;
+      }
+      double mean = getMean();
+      double variance = 0;
+      for (int i = 0; i < counts.length; i++) {
+        if (counts[i] > 0) {
+          double diff = representativeValue(i) - mean;
+          variance += counts[i] * diff * diff;
+        }
+      }
+      return Math.sqrt(variance / (count - 1));
+    }
+
+    @Override
+    public void dump(OutputStream output) {
+      try (PrintWriter out = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+        for (long value : getValues()) {
+          out.println(value);
+        }
+      }
+    }
+  }
+}
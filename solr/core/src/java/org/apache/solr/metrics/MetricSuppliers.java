@@ -129,13 +129,16 @@ public class MetricSuppliers {
   public static final String RESERVOIR_SIZE = "size";
   /** Alpha parameter of {@link ExponentiallyDecayingReservoir}. */
   public static final String RESERVOIR_EDR_ALPHA = "alpha";
-  /** Time window in seconds of {@link SlidingTimeWindowReservoir}. */
+  /** Time window in seconds of {@link SlidingTimeWindowReservoir} and {@link FixedBucketReservoir}. */
   public static final String RESERVOIR_WINDOW = "window";
+  /** Number of counters of each bucket of {@link FixedBucketReservoir}. */
+  public static final String RESERVOIR_STRIPES = "stripes";
 
   private static final String EDR_CLAZZ = ExponentiallyDecayingReservoir.class.getName();
   private static final String UNI_CLAZZ = UniformReservoir.class.getName();
   private static final String STW_CLAZZ = SlidingTimeWindowReservoir.class.getName();
   private static final String SW_CLAZZ = SlidingWindowReservoir.class.getName();
+  private static final String FB_CLAZZ = FixedBucketReservoir.class.getName();
 
   private static final int DEFAULT_SIZE = 1028;
   private static final double DEFAULT_ALPHA = 0.015;
@@ -150,6 +153,7 @@ public class MetricSuppliers {
     int size = -1;
     double alpha = -1;
     long window = -1;
+    int stripes = -1;
     if (info.initArgs != null) {
       if (info.initArgs.get(RESERVOIR) != null) {
         String val = String.valueOf(info.initArgs.get(RESERVOIR)).trim();
@@ -169,6 +173,10 @@ public class MetricSuppliers {
       if (n != null) {
         window = n.longValue();
       }
+      n = (Number)info.initArgs.get(RESERVOIR_STRIPES);
+      if (n != null) {
+        stripes = n.intValue();
+      }
     }
     if (size <= 0) {
       size = DEFAULT_SIZE;
@@ -188,6 +196,14 @@ public class MetricSuppliers {
       return new SlidingTimeWindowReservoir(window, TimeUnit.SECONDS);
     } else if (clazz.equals(SW_CLAZZ)) {
       return new SlidingWindowReservoir(size);
+    } else if (clazz.equals(FB_CLAZZ)) {
+      if (window <= 0) {
+        window = DEFAULT_WINDOW;
+      }
+      if (stripes <= 0) {
+        stripes = FixedBucketReservoir.DEFAULT_STRIPES;
+      }
+      return new FixedBucketReservoir(window, TimeUnit.SECONDS, clk, stripes);
     } else { // custom reservoir
       Reservoir reservoir;
       if (loader == null) {
@@ -212,8 +228,8 @@ public class MetricSuppliers {
   /**
    * Default supplier of {@link Timer} instances, with configurable clock and reservoir.
    * See {@link DefaultMeterSupplier} for clock configuration. Reservoir configuration uses
-   * {@link #RESERVOIR}, {@link #RESERVOIR_EDR_ALPHA}, {@link #RESERVOIR_SIZE} and
-   * {@link #RESERVOIR_WINDOW}.
+   * {@link #RESERVOIR}, {@link #RESERVOIR_EDR_ALPHA}, {@link #RESERVOIR_SIZE},
+   * {@link #RESERVOIR_WINDOW} and {@link #RESERVOIR_STRIPES}.
    */
   public static final class DefaultTimerSupplier implements MetricRegistry.MetricSupplier<Timer>, PluginInfoInitialized {
 
@@ -36,6 +36,7 @@ import org.apache.solr.client.solrj.impl.BinaryResponseParser;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.util.JavaBinCodec;
+import org.apache.solr.common.util.JavaBinDictionary;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.common.util.Utf8CharSequence;
 import org.apache.solr.request.SolrQueryRequest;
@@ -58,10 +59,23 @@ public class BinaryResponseWriter implements BinaryQueryResponseWriter {
     Resolver resolver = new Resolver(req, response.getReturnFields());
     if (req.getParams().getBool(CommonParams.OMIT_HEADER, false)) response.removeResponseHeader();
     try (JavaBinCodec jbc = new JavaBinCodec(resolver)) {
-      jbc.setWritableDocFields(resolver).marshal(response.getValues(), out);
+      jbc.setWritableDocFields(resolver).setDictionary(getDictionary(req)).marshal(response.getValues(), out);
     }
   }
 
+  /**
+   * Returns the javabin dictionary of the request's schema if the client asked for it with
+   * {@link JavaBinDictionary#PARAM} and has the same one, otherwise null.
+   */
+  static JavaBinDictionary getDictionary(SolrQueryRequest req) {
+    String id = req.getParams().get(JavaBinDictionary.PARAM);
+    if (id == null || req.getCore() == null) {
+      return null;
+    }
+    JavaBinDictionary dictionary = req.getSchema().getJavaBinDictionary();
+    return id.equals(Long.toString(dictionary.getId())) ? dictionary : null;
+  }
+
   private static void serialize(SolrQueryResponse response,Resolver resolver, String f) throws IOException {
     try (JavaBinCodec jbc = new JavaBinCodec(resolver); FileOutputStream fos = new FileOutputStream(f)) {
       jbc.setWritableDocFields(resolver).marshal(response.getValues(), fos);
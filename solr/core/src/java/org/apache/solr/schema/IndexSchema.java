@@ -61,6 +61,7 @@ import org.apache.solr.common.params.MapSolrParams;
 import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.common.util.Cache;
+import org.apache.solr.common.util.JavaBinDictionary;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.common.util.Pair;
 import org.apache.solr.common.util.SimpleOrderedMap;
@@ -247,6 +248,21 @@ public class IndexSchema {
    */
   public Map<String,SchemaField> getFields() { return fields; }
 
+  private volatile JavaBinDictionary javaBinDictionary;
+
+  /**
+   * The javabin dictionary of this schema, built from the names of its explicit fields.
+   *
+   * @see JavaBinDictionary#forFieldNames
+   */
+  public JavaBinDictionary getJavaBinDictionary() {
+    JavaBinDictionary dictionary = javaBinDictionary;
+    if (dictionary == null) {
+      javaBinDictionary = dictionary = JavaBinDictionary.forFieldNames(fields.keySet());
+    }
+    return dictionary;
+  }
+
   /**
    * Provides direct access to the Map containing all Field Types
    * in the index, keyed on field type name.
@@ -22,6 +22,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.lucene.document.Field;
 import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.index.IndexableField;
@@ -69,6 +70,15 @@ public class StrField extends PrimitiveFieldType {
     return Collections.singletonList(fval);
   }
 
+  @Override
+  public IndexableField createField(SchemaField field, Object value) {
+    if (value instanceof ByteArrayUtf8CharSequence && field.indexed() && !field.stored() && !field.tokenized()) {
+      // nothing needs the String form; index the utf8 bytes as they came in
+      return new Field(field.getName(), getBytesRef(value), field);
+    }
+    return super.createField(field, value);
+  }
+
   public static BytesRef getBytesRef(Object value) {
     if (value instanceof ByteArrayUtf8CharSequence) {
       ByteArrayUtf8CharSequence utf8 = (ByteArrayUtf8CharSequence) value;
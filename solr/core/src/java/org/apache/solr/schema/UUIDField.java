@@ -97,6 +97,12 @@ public class UUIDField extends StrField {
     return uuid.toString().toLowerCase(Locale.ROOT);
   }
 
+  @Override
+  public IndexableField createField(SchemaField field, Object value) {
+    // toInternal() validates and rewrites the value, so the raw utf8 bytes can't be indexed as-is
+    return super.createField(field, value == null ? null : value.toString());
+  }
+
   @Override
   public UUID toObject(IndexableField f) {
     return UUID.fromString(toExternal(f));
@@ -17,6 +17,7 @@
 package org.apache.solr.search;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -91,6 +92,41 @@ public class DocSetUtil {
     return collector.getDocSet();
   }
 
+  /**
+   * Like {@link #getDocSet(DocSetCollector, SolrIndexSearcher)}, for the collectors of disjoint slices of the
+   * segments collected concurrently, once they all finished collecting.
+   */
+  static DocSet getDocSet(SliceDocSetCollector[] collectors, SolrIndexSearcher searcher) {
+    int size = 0;
+    for (SliceDocSetCollector collector : collectors) {
+      size += collector.size();
+    }
+    if (size == 0) {
+      return DocSet.empty();
+    }
+
+    FixedBitSet bits = collectors[0].shared.getIfAllocated();
+    if (bits == null) {
+      // all the slices kept their documents aside, each slice in the order of its segments
+      int[] docs = new int[size];
+      int pos = 0;
+      for (SliceDocSetCollector collector : collectors) {
+        int[] sliceDocs = collector.scratch.toArray();
+        System.arraycopy(sliceDocs, 0, docs, pos, sliceDocs.length);
+        pos += sliceDocs.length;
+      }
+      Arrays.sort(docs);
+      return getDocSet(new SortedIntDocSet(docs, size), searcher);
+    }
+
+    for (SliceDocSetCollector collector : collectors) {
+      collector.scratch.copyTo(bits);
+      collector.boundaryDocs.copyTo(bits);
+    }
+    BitDocSet set = new BitDocSet(bits, size);
+    return getDocSet(size <= smallSetSize(searcher.maxDoc()) ? toSmallSet(set) : set, searcher);
+  }
+
   /**
    * This variant of getDocSet maps all sets with size numDocs to searcher.getLiveDocs.
    * The returned set should not be modified.
@@ -137,6 +173,11 @@ public class DocSetUtil {
   // code to produce docsets for non-docsetproducer queries
   public static DocSet createDocSetGeneric(SolrIndexSearcher searcher, Query query) throws IOException {
 
+    if (searcher.isSearchConcurrent() && SolrIndexSearcher.isWeightThreadSafe(query)) {
+      // This may throw an ExitableDirectoryReader.ExitingReaderException too
+      return searcher.searchSlicesDocSet(query);
+    }
+
     int maxDoc = searcher.getIndexReader().maxDoc();
     DocSetCollector collector = new DocSetCollector(maxDoc);
 
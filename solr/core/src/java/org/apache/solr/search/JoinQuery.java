@@ -84,7 +84,7 @@ class JoinQuery extends Query {
 
   @Override
   public void visit(QueryVisitor visitor) {
-
+    visitor.visitLeaf(this);
   }
 
   @Override
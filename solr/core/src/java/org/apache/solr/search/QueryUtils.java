@@ -27,12 +27,24 @@ import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.solr.common.SolrException;
+import org.apache.solr.search.join.CrossCollectionJoinQuery;
+import org.apache.solr.search.join.GraphQuery;
+import org.apache.solr.search.join.ScoreJoinQParserPlugin;
 
 /**
  *
  */
 public class QueryUtils {
 
+  /**
+   * Returns true if the query is one of the queries of the join, {!join score=...}, graph and cross
+   * collection join parsers, which match documents from the terms of other documents.
+   */
+  public static boolean isJoinQuery(Query q) {
+    return q instanceof JoinQuery || q instanceof GraphQuery || q instanceof CrossCollectionJoinQuery
+        || ScoreJoinQParserPlugin.isJoinQuery(q);
+  }
+
   /** return true if this query has no positive components */
   public static boolean isNegative(Query q) {
     if (!(q instanceof BooleanQuery)) return false;
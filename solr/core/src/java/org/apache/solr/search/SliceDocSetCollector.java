@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.io.IOException;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.SimpleCollector;
+import org.apache.lucene.util.FixedBitSet;
+
+/**
+ * Collects the documents of one of the slices of the segments searched concurrently, into a bit set shared by
+ * the collectors of all the slices, so that a concurrent search allocates a single maxDoc bit set like a
+ * {@link DocSetCollector} does.
+ * <p>
+ * A slice only sets the words of the bit set whose documents all belong to the segment it collects, so that
+ * the slices never write to the same word. The documents of the words at the boundaries of the segment, at
+ * most two per segment, are kept aside with the first documents collected, and are set by
+ * {@link DocSetUtil#getDocSet(SliceDocSetCollector[], SolrIndexSearcher)} once all the slices are collected.
+ */
+final class SliceDocSetCollector extends SimpleCollector {
+  final SharedBits shared;
+  final int smallSetSize;
+  // the first documents collected, before the slice collects more than smallSetSize
+  final DocSetCollector.ExpandingIntArray scratch;
+  // the documents of the words shared with other segments
+  final DocSetCollector.ExpandingIntArray boundaryDocs;
+  FixedBitSet bits;
+  int pos = 0;
+  int base;
+  // the words only holding documents of the current segment
+  int firstOwnedWord;
+  int endOwnedWord;
+
+  private SliceDocSetCollector(SharedBits shared, int smallSetSize, int numLeaves) {
+    this.shared = shared;
+    this.smallSetSize = smallSetSize;
+    this.scratch = new DocSetCollector.ExpandingIntArray(smallSetSize);
+    this.boundaryDocs = new DocSetCollector.ExpandingIntArray(numLeaves * 2 * Long.SIZE);
+  }
+
+  /** Creates the collectors of the given slices of the segments of an index. */
+  static SliceDocSetCollector[] create(int maxDoc, IndexSearcher.LeafSlice[] slices) {
+    final SharedBits shared = new SharedBits(maxDoc);
+    // together the slices keep as many documents aside as a DocSetCollector before using the bit set
+    final int smallSetSize = DocSetUtil.smallSetSize(maxDoc) / slices.length + 1;
+    final SliceDocSetCollector[] collectors = new SliceDocSetCollector[slices.length];
+    for (int i = 0; i < slices.length; i++) {
+      collectors[i] = new SliceDocSetCollector(shared, smallSetSize, slices[i].leaves.length);
+    }
+    return collectors;
+  }
+
+  @Override
+  public void collect(int doc) throws IOException {
+    doc += base;
+    if (pos < smallSetSize) {
+      scratch.add(pos, doc);
+    } else {
+      if (bits == null) bits = shared.get();
+      final int word = doc >> 6;
+      if (word >= firstOwnedWord && word < endOwnedWord) {
+        bits.set(doc);
+      } else {
+        boundaryDocs.add(boundaryDocs.size(), doc);
+      }
+    }
+
+    pos++;
+  }
+
+  /** The number of documents that have been collected */
+  public int size() {
+    return pos;
+  }
+
+  @Override
+  public ScoreMode scoreMode() {
+    return ScoreMode.COMPLETE_NO_SCORES;
+  }
+
+  @Override
+  protected void doSetNextReader(LeafReaderContext context) throws IOException {
+    this.base = context.docBase;
+    this.firstOwnedWord = (base + Long.SIZE - 1) >> 6;
+    this.endOwnedWord = (base + context.reader().maxDoc()) >> 6;
+  }
+
+  /** The bit set of the slices, allocated by the first slice collecting more than its small set size. */
+  static final class SharedBits {
+    private final int maxDoc;
+    private FixedBitSet bits;
+
+    SharedBits(int maxDoc) {
+      this.maxDoc = maxDoc;
+    }
+
+    synchronized FixedBitSet get() {
+      if (bits == null) {
+        bits = new FixedBitSet(maxDoc);
+      }
+      return bits;
+    }
+
+    /** The bit set, or null if no slice needed it. Only called once all the slices are collected. */
+    synchronized FixedBitSet getIfAllocated() {
+      return bits;
+    }
+  }
+}
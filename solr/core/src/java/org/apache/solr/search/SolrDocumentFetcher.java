@@ -64,6 +64,7 @@ import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentBase;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.core.SolrConfig;
+import org.apache.solr.handler.component.QueryPhaseProfiler;
 import org.apache.solr.response.DocsStreamer;
 import org.apache.solr.response.ResultContext;
 import org.apache.solr.schema.AbstractEnumField;
@@ -217,6 +218,19 @@ public class SolrDocumentFetcher {
    * @see SolrIndexSearcher#doc(int, Set)
    */
   public Document doc(int i, Set<String> fields) throws IOException {
+    QueryPhaseProfiler profiler = QueryPhaseProfiler.current();
+    if (profiler == null) {
+      return loadDocument(i, fields);
+    }
+    long start = profiler.start(QueryPhaseProfiler.Phase.STORED_FIELDS);
+    try {
+      return loadDocument(i, fields);
+    } finally {
+      profiler.stop(QueryPhaseProfiler.Phase.STORED_FIELDS, start);
+    }
+  }
+
+  private Document loadDocument(int i, Set<String> fields) throws IOException {
     Document d;
     if (documentCache != null) {
       final Set<String> getFields = enableLazyFieldLoading ? fields : null;
@@ -30,7 +30,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -49,6 +54,7 @@ import org.apache.lucene.index.StoredFieldVisitor;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.index.Terms;
 import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.queries.function.FunctionQuery;
 import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.*;
 import org.apache.lucene.search.TotalHits.Relation;
@@ -66,6 +72,7 @@ import org.apache.solr.core.DirectoryFactory.DirContext;
 import org.apache.solr.core.SolrConfig;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.core.SolrInfoBean;
+import org.apache.solr.handler.component.QueryPhaseProfiler;
 import org.apache.solr.index.SlowCompositeReaderWrapper;
 import org.apache.solr.metrics.MetricsMap;
 import org.apache.solr.metrics.SolrMetricManager;
@@ -119,6 +126,10 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
   private final int queryResultMaxDocsCached;
   private final boolean useFilterForSortedQuery;
 
+  // the slices of the segments searched concurrently by the searchExecutor, null if the searches aren't concurrent
+  private final LeafSlice[] searchSlices;
+  private final Executor searchExecutor;
+
   private final boolean cachingEnabled;
   private final SolrCache<Query,DocSet> filterCache;
   private final SolrCache<QueryResultKey,DocList> queryResultCache;
@@ -237,6 +248,141 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     return collector;
   }
 
+  /**
+   * Whether the searches of this searcher are collected concurrently over slices of the segments.
+   * @see SolrConfig#concurrentSearch
+   */
+  public boolean isSearchConcurrent() {
+    return searchSlices != null;
+  }
+
+  /**
+   * Whether the main query of a command can be collected concurrently over slices of the segments. Post filters,
+   * early termination, cancellable queries and rank queries rely on a single collector seeing all the documents,
+   * so they are collected by the calling thread, as are the queries whose weight can't be shared by threads.
+   */
+  private boolean isSearchConcurrent(QueryCommand cmd, ProcessedFilter pf) {
+    return searchSlices != null && pf.postFilter == null && !cmd.getSegmentTerminateEarly()
+        && !cmd.getTerminateEarly() && !cmd.isQueryCancellable() && !(cmd.getQuery() instanceof RankQuery)
+        && isWeightThreadSafe(cmd.getQuery()) && (pf.filter == null || isWeightThreadSafe(pf.filter));
+  }
+
+  /**
+   * Whether the weight of a query can score the slices of the segments concurrently. The weights of the join
+   * queries compute their matches lazily from the first segment scored, and function queries and the filters
+   * of function ranges share the context of their value sources, where functions like scale() store what they
+   * computed, between the segments.
+   */
+  static boolean isWeightThreadSafe(Query query) {
+    final boolean[] threadSafe = {true};
+    query.visit(new QueryVisitor() {
+      @Override
+      public void visitLeaf(Query leaf) {
+        if (QueryUtils.isJoinQuery(leaf) || leaf instanceof FunctionQuery || leaf instanceof SolrFilter
+            || (leaf instanceof SolrConstantScoreQuery
+                && ((SolrConstantScoreQuery) leaf).getFilter() instanceof SolrFilter)) {
+          threadSafe[0] = false;
+        }
+      }
+    });
+    return threadSafe[0];
+  }
+
+  /**
+   * Searches the query concurrently over the slices of the segments, each slice being collected by the collector
+   * at the same index, which must all have the same score mode. The slices are searched by the searchExecutor, or
+   * by the calling thread for the ones no thread of the executor started yet, so that a search never waits for
+   * slices queued behind the ones of other searches.
+   *
+   * @param qr if not null, a slice that times out stops its collection and marks the results as partial,
+   *           otherwise the timeout is thrown
+   * @param timeAllowed if positive, the time allowed to collect all the slices
+   */
+  void searchSlices(Query query, Collector[] collectors, QueryResult qr, long timeAllowed) throws IOException {
+    assert collectors.length == searchSlices.length;
+    final Weight weight = createWeight(rewrite(query), collectors[0].scoreMode(), 1);
+    // the timeout of the ExitableDirectoryReader is per thread
+    final Long timeoutAtNs = SolrQueryTimeoutImpl.getTimeoutAtNs();
+    final AtomicBoolean partialResults = new AtomicBoolean();
+
+    // the time allowed is for the whole search, even if the calling thread collects the slices one by one
+    final long baseline = TimeLimitingCollector.getGlobalCounter().get();
+
+    final List<FutureTask<Void>> tasks = new ArrayList<>(searchSlices.length);
+    for (int i = 0; i < searchSlices.length; i++) {
+      final List<LeafReaderContext> leaves = Arrays.asList(searchSlices[i].leaves);
+      final Collector collector;
+      if (timeAllowed > 0) {
+        final TimeLimitingCollector timeLimitingCollector =
+            new TimeLimitingCollector(collectors[i], TimeLimitingCollector.getGlobalCounter(), timeAllowed);
+        timeLimitingCollector.setBaseline(baseline);
+        collector = timeLimitingCollector;
+      } else {
+        collector = collectors[i];
+      }
+      tasks.add(new FutureTask<>(() -> {
+        final Long previousTimeoutAtNs = SolrQueryTimeoutImpl.getTimeoutAtNs();
+        SolrQueryTimeoutImpl.setTimeoutAtNs(timeoutAtNs);
+        try {
+          search(leaves, weight, collector);
+        } catch (TimeLimitingCollector.TimeExceededException | ExitableDirectoryReader.ExitingReaderException x) {
+          if (qr == null) {
+            throw x;
+          }
+          log.warn("Query: [{}]; ", query, x);
+          partialResults.set(true);
+        } finally {
+          SolrQueryTimeoutImpl.setTimeoutAtNs(previousTimeoutAtNs);
+        }
+        return null;
+      }));
+    }
+
+    for (int i = 1; i < tasks.size(); i++) {
+      try {
+        searchExecutor.execute(tasks.get(i));
+      } catch (RejectedExecutionException e) {
+        // run by the calling thread below
+      }
+    }
+    // a task already started by the executor isn't run again
+    for (FutureTask<Void> task : tasks) {
+      task.run();
+    }
+    for (FutureTask<Void> task : tasks) {
+      try {
+        task.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new SolrException(ErrorCode.SERVER_ERROR, "Interrupted while searching " + query, e);
+      } catch (ExecutionException e) {
+        final Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+          throw (IOException) cause;
+        } else if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new SolrException(ErrorCode.SERVER_ERROR, cause);
+      }
+    }
+
+    if (partialResults.get()) {
+      qr.setPartialResults(true);
+    }
+  }
+
+  /**
+   * Collects the documents matching the query into a DocSet, concurrently over the slices of the segments.
+   * @see #isSearchConcurrent()
+   */
+  DocSet searchSlicesDocSet(Query query) throws IOException {
+    final SliceDocSetCollector[] collectors = SliceDocSetCollector.create(maxDoc(), searchSlices);
+    searchSlices(query, collectors, null, 0);
+    return DocSetUtil.getDocSet(collectors, this);
+  }
+
   public SolrIndexSearcher(SolrCore core, String path, IndexSchema schema, SolrIndexConfig config, String name,
       boolean enableCache, DirectoryFactory directoryFactory) throws IOException {
     // We don't need to reserve the directory because we get it from the factory
@@ -285,6 +431,17 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     this.queryResultMaxDocsCached = solrConfig.queryResultMaxDocsCached;
     this.useFilterForSortedQuery = solrConfig.useFilterForSortedQuery;
 
+    final Executor indexSearcherExecutor = core.getCoreContainer() == null ? null
+        : core.getCoreContainer().getIndexSearcherExecutor();
+    if (solrConfig.concurrentSearch && indexSearcherExecutor != null) {
+      final LeafSlice[] slices = IndexSearcher.slices(leafContexts,
+          solrConfig.maxDocsPerSearchSlice, solrConfig.maxSegmentsPerSearchSlice);
+      this.searchSlices = slices.length > 1 ? slices : null;
+    } else {
+      this.searchSlices = null;
+    }
+    this.searchExecutor = searchSlices == null ? null : indexSearcherExecutor;
+
     this.docFetcher = new SolrDocumentFetcher(this, solrConfig, enableCache);
 
     this.cachingEnabled = enableCache;
@@ -915,6 +1072,9 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
         return pf.answer;
       } else if (pf.filter == null) {
         return getLiveDocSet(); // note: this is what happens when queries is an empty list
+      } else if (isSearchConcurrent() && isWeightThreadSafe(pf.filter)) {
+        // intersect the filters that aren't cached concurrently
+        return searchSlicesDocSet(pf.filter);
       }
     }
 
@@ -980,6 +1140,9 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       smallestIndex = end;
     } // we are done with setFilter at this point
 
+    QueryPhaseProfiler profiler = QueryPhaseProfiler.current();
+    long filterStart = profiler == null ? 0 : profiler.start(QueryPhaseProfiler.Phase.FILTER);
+
     int smallestCount = Integer.MAX_VALUE;
     for (Query q : queries) {
       if (q instanceof ExtendedQuery) {
@@ -1031,6 +1194,12 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       answer = getLiveDocSet();
     }
 
+    long intersectionStart = 0;
+    if (profiler != null) {
+      profiler.stop(QueryPhaseProfiler.Phase.FILTER, filterStart);
+      intersectionStart = profiler.start(QueryPhaseProfiler.Phase.INTERSECTION);
+    }
+
     // do negative queries first to shrink set size
     for (int i = 0; i < end; i++) {
       if (neg[i]) answer = answer.andNot(sets[i]);
@@ -1040,6 +1209,10 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       if (!neg[i] && i != smallestIndex) answer = answer.intersection(sets[i]);
     }
 
+    if (profiler != null) {
+      profiler.stop(QueryPhaseProfiler.Phase.INTERSECTION, intersectionStart);
+    }
+
     // ignore "answer" if it simply matches all docs
     if (answer != null && answer.size() == numDocs()) {
       answer = null;
@@ -1526,6 +1699,71 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     }
   }
 
+  /**
+   * Collects the top documents of the main query of a command concurrently over the slices of the segments,
+   * like the collector of {@link #buildTopDocsCollector(int, QueryCommand)} would, along with the maximum score
+   * and the DocSet of the matching documents when the collectors for them are given.
+   */
+  private TopDocs searchSlicesTopDocs(QueryResult qr, Query query, QueryCommand cmd, int len,
+      MaxScoreCollector[] maxScoreCollectors, SliceDocSetCollector[] setCollectors) throws IOException {
+    final int minNumFound = cmd.getMinExactCount();
+    final Sort weightedSort = cmd.getSort() == null ? null : weightSort(cmd.getSort());
+    // the collectors of a shared manager skip the documents that can't compete with the ones of the other slices
+    final CollectorManager<? extends TopDocsCollector<? extends ScoreDoc>, ? extends TopDocs> manager;
+    if (weightedSort == null) {
+      assert null == cmd.getCursorMark() : "have cursor but no sort";
+      manager = TopScoreDocCollector.createSharedManager(len, null, minNumFound);
+    } else {
+      final CursorMark cursor = cmd.getCursorMark();
+      final FieldDoc searchAfter = (null != cursor ? cursor.getSearchAfterFieldDoc() : null);
+      manager = TopFieldCollector.createSharedManager(weightedSort, len, searchAfter, minNumFound);
+    }
+
+    final TopDocsCollector<?>[] topCollectors = new TopDocsCollector<?>[searchSlices.length];
+    final Collector[] collectors = new Collector[searchSlices.length];
+    for (int i = 0; i < collectors.length; i++) {
+      topCollectors[i] = manager.newCollector();
+      collectors[i] = MultiCollector.wrap(topCollectors[i],
+          setCollectors == null ? null : setCollectors[i],
+          maxScoreCollectors == null ? null : maxScoreCollectors[i]);
+    }
+    searchSlices(query, collectors, qr, cmd.getTimeAllowed());
+
+    if (weightedSort == null) {
+      final TopDocs[] topDocs = new TopDocs[topCollectors.length];
+      for (int i = 0; i < topDocs.length; i++) {
+        topDocs[i] = topCollectors[i].topDocs();
+      }
+      return TopDocs.merge(0, len, topDocs);
+    } else {
+      final TopFieldDocs[] topDocs = new TopFieldDocs[topCollectors.length];
+      for (int i = 0; i < topDocs.length; i++) {
+        topDocs[i] = (TopFieldDocs) topCollectors[i].topDocs();
+      }
+      return TopDocs.merge(weightedSort, 0, len, topDocs);
+    }
+  }
+
+  private MaxScoreCollector[] newMaxScoreCollectors() {
+    final MaxScoreCollector[] collectors = new MaxScoreCollector[searchSlices.length];
+    for (int i = 0; i < collectors.length; i++) {
+      collectors[i] = new MaxScoreCollector();
+    }
+    return collectors;
+  }
+
+  /** The maximum score collected by the collectors of the slices, NaN if none collected a hit. */
+  private static float getMaxScore(MaxScoreCollector[] collectors) {
+    float maxScore = Float.NaN;
+    for (MaxScoreCollector collector : collectors) {
+      final float score = collector.getMaxScore();
+      if (Float.isNaN(maxScore) || score > maxScore) {
+        maxScore = score;
+      }
+    }
+    return maxScore;
+  }
+
   private void getDocListNC(QueryResult qr, QueryCommand cmd) throws IOException {
     int len = cmd.getSupersetMaxDoc();
     int last = len;
@@ -1544,7 +1782,28 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     Relation hitsRelation;
 
     // handle zero case...
-    if (lastDocRequested <= 0) {
+    if (lastDocRequested <= 0 && isSearchConcurrent(cmd, pf)) {
+      final TotalHitCountCollector[] hitCountCollectors = new TotalHitCountCollector[searchSlices.length];
+      final MaxScoreCollector[] maxScoreCollectors = needScores ? newMaxScoreCollectors() : null;
+      final Collector[] collectors = new Collector[searchSlices.length];
+      for (int i = 0; i < collectors.length; i++) {
+        hitCountCollectors[i] = new TotalHitCountCollector();
+        collectors[i] = MultiCollector.wrap(hitCountCollectors[i], needScores ? maxScoreCollectors[i] : null);
+      }
+      searchSlices(query, collectors, qr, cmd.getTimeAllowed());
+
+      nDocsReturned = 0;
+      ids = new int[nDocsReturned];
+      scores = new float[nDocsReturned];
+      totalHits = 0;
+      for (TotalHitCountCollector hitCountCollector : hitCountCollectors) {
+        totalHits += hitCountCollector.getTotalHits();
+      }
+      maxScore = totalHits > 0 ? (needScores ? getMaxScore(maxScoreCollectors) : Float.NEGATIVE_INFINITY) : 0.0f;
+      // no docs on this page, so cursor doesn't change
+      qr.setNextCursorMark(cmd.getCursorMark());
+      hitsRelation = Relation.EQUAL_TO;
+    } else if (lastDocRequested <= 0) {
       final float[] topscore = new float[] {Float.NEGATIVE_INFINITY};
       final int[] numHits = new int[1];
 
@@ -1596,28 +1855,39 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       qr.setNextCursorMark(cmd.getCursorMark());
       hitsRelation = Relation.EQUAL_TO;
     } else {
-      final TopDocsCollector<?> topCollector = buildTopDocsCollector(len, cmd);
-      MaxScoreCollector maxScoreCollector = null;
-      Collector collector = topCollector;
-      if ((cmd.getFlags() & GET_SCORES) != 0) {
-        maxScoreCollector = new MaxScoreCollector();
-        collector = MultiCollector.wrap(topCollector, maxScoreCollector);
-      }
-      ScoreMode scoreModeUsed = buildAndRunCollectorChain(qr, query, collector, cmd, pf.postFilter).scoreMode();
-
-      totalHits = topCollector.getTotalHits();
-      TopDocs topDocs = topCollector.topDocs(0, len);
-      if (scoreModeUsed == ScoreMode.COMPLETE || scoreModeUsed == ScoreMode.COMPLETE_NO_SCORES) {
-        hitsRelation = TotalHits.Relation.EQUAL_TO;
-      } else {
+      final TopDocs topDocs;
+      final float collectedMaxScore;
+      if (isSearchConcurrent(cmd, pf)) {
+        final MaxScoreCollector[] maxScoreCollectors = needScores ? newMaxScoreCollectors() : null;
+        topDocs = searchSlicesTopDocs(qr, query, cmd, len, maxScoreCollectors, null);
+        totalHits = (int) topDocs.totalHits.value;
         hitsRelation = topDocs.totalHits.relation;
+        collectedMaxScore = maxScoreCollectors == null ? Float.NaN : getMaxScore(maxScoreCollectors);
+      } else {
+        final TopDocsCollector<?> topCollector = buildTopDocsCollector(len, cmd);
+        MaxScoreCollector maxScoreCollector = null;
+        Collector collector = topCollector;
+        if ((cmd.getFlags() & GET_SCORES) != 0) {
+          maxScoreCollector = new MaxScoreCollector();
+          collector = MultiCollector.wrap(topCollector, maxScoreCollector);
+        }
+        ScoreMode scoreModeUsed = buildAndRunCollectorChain(qr, query, collector, cmd, pf.postFilter).scoreMode();
+
+        totalHits = topCollector.getTotalHits();
+        topDocs = topCollector.topDocs(0, len);
+        if (scoreModeUsed == ScoreMode.COMPLETE || scoreModeUsed == ScoreMode.COMPLETE_NO_SCORES) {
+          hitsRelation = TotalHits.Relation.EQUAL_TO;
+        } else {
+          hitsRelation = topDocs.totalHits.relation;
+        }
+        collectedMaxScore = maxScoreCollector == null ? Float.NaN : maxScoreCollector.getMaxScore();
       }
       if (cmd.getSort() != null && cmd.getQuery() instanceof RankQuery == false && (cmd.getFlags() & GET_SCORES) != 0) {
         TopFieldCollector.populateScores(topDocs.scoreDocs, this, query);
       }
       populateNextCursorMarkFromTopDocs(qr, cmd, topDocs);
 
-      maxScore = totalHits > 0 ? (maxScoreCollector == null ? Float.NaN : maxScoreCollector.getMaxScore()) : 0.0f;
+      maxScore = totalHits > 0 ? collectedMaxScore : 0.0f;
       nDocsReturned = topDocs.scoreDocs.length;
       ids = new int[nDocsReturned];
       scores = (cmd.getFlags() & GET_SCORES) != 0 ? new float[nDocsReturned] : null;
@@ -1655,7 +1925,25 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
     final Query query = QueryUtils.combineQueryAndFilter(QueryUtils.makeQueryable(cmd.getQuery()), pf.filter);
 
     // handle zero case...
-    if (lastDocRequested <= 0) {
+    if (lastDocRequested <= 0 && isSearchConcurrent(cmd, pf)) {
+      final SliceDocSetCollector[] setCollectors = SliceDocSetCollector.create(maxDoc, searchSlices);
+      final MaxScoreCollector[] maxScoreCollectors = needScores ? newMaxScoreCollectors() : null;
+      final Collector[] collectors = new Collector[searchSlices.length];
+      for (int i = 0; i < collectors.length; i++) {
+        collectors[i] = MultiCollector.wrap(setCollectors[i], needScores ? maxScoreCollectors[i] : null);
+      }
+      searchSlices(query, collectors, qr, cmd.getTimeAllowed());
+
+      set = DocSetUtil.getDocSet(setCollectors, this);
+
+      nDocsReturned = 0;
+      ids = new int[nDocsReturned];
+      scores = new float[nDocsReturned];
+      totalHits = set.size();
+      maxScore = totalHits > 0 ? (needScores ? getMaxScore(maxScoreCollectors) : Float.NEGATIVE_INFINITY) : 0.0f;
+      // no docs on this page, so cursor doesn't change
+      qr.setNextCursorMark(cmd.getCursorMark());
+    } else if (lastDocRequested <= 0) {
       final float[] topscore = new float[] {Float.NEGATIVE_INFINITY};
 
       Collector collector;
@@ -1700,31 +1988,45 @@ public class SolrIndexSearcher extends IndexSearcher implements Closeable, SolrI
       // no docs on this page, so cursor doesn't change
       qr.setNextCursorMark(cmd.getCursorMark());
     } else {
-      final TopDocsCollector<? extends ScoreDoc> topCollector = buildTopDocsCollector(len, cmd);
-      DocSetCollector setCollector = new DocSetCollector(maxDoc);
-      MaxScoreCollector maxScoreCollector = null;
-      List<Collector> collectors = new ArrayList<>(Arrays.asList(topCollector, setCollector));
-
-      if ((cmd.getFlags() & GET_SCORES) != 0) {
-        maxScoreCollector = new MaxScoreCollector();
-        collectors.add(maxScoreCollector);
-      }
+      final TopDocs topDocs;
+      final float collectedMaxScore;
+      if (isSearchConcurrent(cmd, pf)) {
+        final SliceDocSetCollector[] setCollectors = SliceDocSetCollector.create(maxDoc, searchSlices);
+        final MaxScoreCollector[] maxScoreCollectors = needScores ? newMaxScoreCollectors() : null;
+        topDocs = searchSlicesTopDocs(qr, query, cmd, len, maxScoreCollectors, setCollectors);
 
-      Collector collector = MultiCollector.wrap(collectors);
+        set = DocSetUtil.getDocSet(setCollectors, this);
 
-      buildAndRunCollectorChain(qr, query, collector, cmd, pf.postFilter);
+        totalHits = (int) topDocs.totalHits.value;
+        collectedMaxScore = maxScoreCollectors == null ? Float.NaN : getMaxScore(maxScoreCollectors);
+      } else {
+        final TopDocsCollector<? extends ScoreDoc> topCollector = buildTopDocsCollector(len, cmd);
+        DocSetCollector setCollector = new DocSetCollector(maxDoc);
+        MaxScoreCollector maxScoreCollector = null;
+        List<Collector> collectors = new ArrayList<>(Arrays.asList(topCollector, setCollector));
+
+        if ((cmd.getFlags() & GET_SCORES) != 0) {
+          maxScoreCollector = new MaxScoreCollector();
+          collectors.add(maxScoreCollector);
+        }
 
-      set = DocSetUtil.getDocSet(setCollector, this);
+        Collector collector = MultiCollector.wrap(collectors);
 
-      totalHits = topCollector.getTotalHits();
+        buildAndRunCollectorChain(qr, query, collector, cmd, pf.postFilter);
+
+        set = DocSetUtil.getDocSet(setCollector, this);
+
+        totalHits = topCollector.getTotalHits();
+        topDocs = topCollector.topDocs(0, len);
+        collectedMaxScore = maxScoreCollector == null ? Float.NaN : maxScoreCollector.getMaxScore();
+      }
       assert (totalHits == set.size()) || qr.isPartialResults();
 
-      TopDocs topDocs = topCollector.topDocs(0, len);
       if (cmd.getSort() != null && cmd.getQuery() instanceof RankQuery == false && (cmd.getFlags() & GET_SCORES) != 0) {
         TopFieldCollector.populateScores(topDocs.scoreDocs, this, query);
       }
       populateNextCursorMarkFromTopDocs(qr, cmd, topDocs);
-      maxScore = totalHits > 0 ? (maxScoreCollector == null ? Float.NaN : maxScoreCollector.getMaxScore()) : 0.0f;
+      maxScore = totalHits > 0 ? collectedMaxScore : 0.0f;
       nDocsReturned = topDocs.scoreDocs.length;
 
       ids = new int[nDocsReturned];
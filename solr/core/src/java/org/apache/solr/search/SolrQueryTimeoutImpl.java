@@ -98,6 +98,19 @@ public class SolrQueryTimeoutImpl implements QueryTimeout {
     timeoutAt.remove();
   }
 
+  /**
+   * Sets the time at which the current thread times out, e.g. to search on behalf of another thread.
+   *
+   * @param timeoutAtNs the time returned by {@link #getTimeoutAtNs()}, or null for no timeout
+   */
+  static void setTimeoutAtNs(Long timeoutAtNs) {
+    if (timeoutAtNs == null) {
+      reset();
+    } else {
+      timeoutAt.set(timeoutAtNs);
+    }
+  }
+
   @Override
   public String toString() {
     return "timeoutAt: " + getTimeoutAtNs() + " (System.nanoTime(): " + nanoTime() + ")";
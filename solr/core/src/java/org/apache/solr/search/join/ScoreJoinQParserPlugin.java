@@ -74,6 +74,11 @@ public class ScoreJoinQParserPlugin extends QParserPlugin {
 
   public static final String SCORE = "score";
 
+  /** Returns true if the query is one of the queries created by this parser. */
+  public static boolean isJoinQuery(Query q) {
+    return q instanceof SameCoreJoinQuery;
+  }
+
   static class OtherCoreJoinQuery extends SameCoreJoinQuery {
     private final String fromIndex;
     private final long fromCoreOpenTime;
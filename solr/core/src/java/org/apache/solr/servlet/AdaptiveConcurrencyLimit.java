@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.solr.servlet;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.solr.common.annotation.SolrThreadSafe;
+import org.apache.solr.core.RateLimiterConfig;
+
+/**
+ * A limit on the number of concurrent requests which adapts to the latency of the requests it admits.
+ * <p>
+ * The limit follows the gradient between a long term average of the latency, the latency of the node when
+ * it isn't overloaded, and a short term average: while the short term latency stays within
+ * {@link RateLimiterConfig#latencyTolerance} times the long term one the limit grows, up to
+ * {@link RateLimiterConfig#allowedRequests}, and once requests start queueing in the node and take longer the
+ * limit shrinks proportionally, down to {@link RateLimiterConfig#minAllowedRequests}. This sheds load as soon
+ * as the node saturates, rather than when it can't keep up any more.
+ * <p>
+ * Low priority requests are only admitted up to {@link RateLimiterConfig#lowPriorityRatio} of the limit,
+ * and high priority requests up to {@link RateLimiterConfig#allowedRequests} whatever the limit.
+ */
+@SolrThreadSafe
+class AdaptiveConcurrencyLimit {
+  // weight of a sample in the short term average of the latency
+  private static final double SHORT_TERM_WEIGHT = 0.1;
+  // weight of a sample in the long term average of the latency
+  private static final double LONG_TERM_WEIGHT = 0.002;
+  // weight of a new limit, so that the limit doesn't swing with every sample
+  private static final double SMOOTHING = 0.2;
+  // the limit is at most halved by a sample
+  private static final double MIN_GRADIENT = 0.5;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition slotReleased = lock.newCondition();
+
+  private int inFlight;
+  private volatile double limit;
+  // in nanoseconds, 0 until the first request completes
+  private double shortTermLatency;
+  private double longTermLatency;
+
+  AdaptiveConcurrencyLimit(int initialLimit) {
+    this.limit = initialLimit;
+  }
+
+  /** The current number of requests of normal priority that are admitted concurrently. */
+  int getLimit() {
+    return (int) limit;
+  }
+
+  int getInFlight() {
+    lock.lock();
+    try {
+      return inFlight;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Admits a request if the number of requests in flight is below the limit for its priority,
+   * waiting up to the given time for a request to complete otherwise.
+   * @return true if the request was admitted, in which case {@link #release(long, RateLimiterConfig)} must be called
+   * when it completes
+   */
+  boolean acquire(RequestRateLimiter.RequestPriority priority, RateLimiterConfig config, long timeoutMs) throws InterruptedException {
+    long remainingNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, timeoutMs));
+    lock.lockInterruptibly();
+    try {
+      while (inFlight >= maxInFlight(priority, config)) {
+        if (remainingNanos <= 0) {
+          return false;
+        }
+        remainingNanos = slotReleased.awaitNanos(remainingNanos);
+      }
+      inFlight++;
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private int maxInFlight(RequestRateLimiter.RequestPriority priority, RateLimiterConfig config) {
+    switch (priority) {
+      case HIGH:
+        return config.allowedRequests;
+      case LOW:
+        return Math.max(1, (int) (limit * config.lowPriorityRatio));
+      default:
+        return Math.max(1, (int) limit);
+    }
+  }
+
+  /** Releases the slot of a completed request, and adapts the limit to its latency. */
+  void release(long latencyNanos, RateLimiterConfig config) {
+    lock.lock();
+    try {
+      update(latencyNanos, inFlight, config);
+      inFlight--;
+      slotReleased.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void update(long latencyNanos, int inFlight, RateLimiterConfig config) {
+    double latency = Math.max(1, latencyNanos);
+    if (longTermLatency == 0) {
+      shortTermLatency = longTermLatency = latency;
+      return;
+    }
+    shortTermLatency += (latency - shortTermLatency) * SHORT_TERM_WEIGHT;
+    longTermLatency += (latency - longTermLatency) * LONG_TERM_WEIGHT;
+    // after a long overload the long term average has drifted up: bring it back faster once the load is gone
+    if (longTermLatency > 2 * shortTermLatency) {
+      longTermLatency *= 0.95;
+    }
+
+    // with few requests in flight there is nothing to learn about how many more the node could handle
+    if (inFlight < limit / 2) {
+      return;
+    }
+
+    double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, config.latencyTolerance * longTermLatency / shortTermLatency));
+    // the square root of the limit is the number of requests allowed to queue in the node, which lets the limit grow
+    double newLimit = limit * gradient + Math.sqrt(limit);
+    newLimit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+    int maxLimit = Math.max(1, config.allowedRequests);
+    limit = Math.max(Math.min(config.minAllowedRequests, maxLimit), Math.min(maxLimit, newLimit));
+  }
+}
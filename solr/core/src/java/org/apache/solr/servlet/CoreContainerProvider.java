@@ -38,6 +38,7 @@ import org.apache.solr.metrics.OperatingSystemMetricSet;
 import org.apache.solr.metrics.SolrMetricManager;
 import org.apache.solr.metrics.SolrMetricManager.ResolutionStrategy;
 import org.apache.solr.metrics.SolrMetricProducer;
+import org.apache.solr.metrics.SolrMetricsContext;
 import org.apache.solr.servlet.RateLimitManager.Builder;
 import org.apache.solr.util.StartupLoggingUtils;
 import org.slf4j.Logger;
@@ -225,6 +226,8 @@ public class CoreContainerProvider implements ServletContextListener {
       Builder builder = new Builder(zkClient);
 
       this.rateLimitManager = builder.build();
+      this.rateLimitManager.initializeMetrics(new SolrMetricsContext(coresInit.getMetricManager(),
+          SolrMetricManager.getRegistryName(Group.node), metricTag), "rateLimiter");
 
       if (zkController != null) {
         zkController.zkStateReader.registerClusterPropertiesListener(this.rateLimitManager);
@@ -89,6 +89,7 @@ import org.apache.solr.core.CoreContainer;
 import org.apache.solr.core.SolrConfig;
 import org.apache.solr.core.SolrCore;
 import org.apache.solr.handler.ContentStreamHandlerBase;
+import org.apache.solr.handler.component.QueryPhaseProfiler;
 import org.apache.solr.request.LocalSolrQueryRequest;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.request.SolrQueryRequestBase;
@@ -561,6 +562,10 @@ public class HttpSolrCall {
              */
             SolrRequestInfo.setRequestInfo(new SolrRequestInfo(solrReq, solrRsp, action));
             mustClearSolrRequestInfo = true;
+            if (Method.HEAD != reqMethod) {
+              // search handlers record the phases of writeResponse too
+              solrReq.getContext().put(QueryPhaseProfiler.RESPONSE_WRITE_PROFILED, Boolean.TRUE);
+            }
             execute(solrRsp);
             if (shouldAudit()) {
               EventType eventType = solrRsp.getException() == null ? EventType.COMPLETED : EventType.ERROR;
@@ -916,7 +921,15 @@ public class HttpSolrCall {
 
       if (Method.HEAD != reqMethod) {
         OutputStream out = response.getOutputStream();
-        QueryResponseWriterUtil.writeQueryResponse(out, responseWriter, solrReq, solrRsp, ct);
+        QueryPhaseProfiler profiler = QueryPhaseProfiler.get(solrReq);
+        long start = profiler == null ? 0 : profiler.start(QueryPhaseProfiler.Phase.RESPONSE_WRITE);
+        try {
+          QueryResponseWriterUtil.writeQueryResponse(out, responseWriter, solrReq, solrRsp, ct);
+        } finally {
+          if (profiler != null) {
+            profiler.responseWritten(start);
+          }
+        }
       }
       //else http HEAD request, nothing to write out, waited this long just to get ContentType
     } catch (EOFException e) {
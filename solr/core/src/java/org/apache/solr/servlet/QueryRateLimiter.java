@@ -114,5 +114,22 @@ public class QueryRateLimiter extends RequestRateLimiter {
     if (rateLimiterMeta.slotAcquisitionTimeoutInMS != null) {
       rateLimiterConfig.waitForSlotAcquisition = rateLimiterMeta.slotAcquisitionTimeoutInMS.longValue();
     }
+
+    if (rateLimiterMeta.adaptive != null) {
+      rateLimiterConfig.isAdaptive = rateLimiterMeta.adaptive;
+    }
+
+    if (rateLimiterMeta.minAllowedRequests != null) {
+      rateLimiterConfig.minAllowedRequests = Math.max(1, rateLimiterMeta.minAllowedRequests);
+    }
+
+    if (rateLimiterMeta.latencyTolerance != null) {
+      // a tolerance below 1 would shrink the limit even when the latency is at its usual level
+      rateLimiterConfig.latencyTolerance = Math.max(1.0, rateLimiterMeta.latencyTolerance);
+    }
+
+    if (rateLimiterMeta.lowPriorityRatio != null) {
+      rateLimiterConfig.lowPriorityRatio = Math.min(1.0, Math.max(0.0, rateLimiterMeta.lowPriorityRatio));
+    }
   }
 }
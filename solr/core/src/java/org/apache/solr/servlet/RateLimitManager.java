@@ -28,10 +28,13 @@ import org.apache.solr.client.solrj.SolrRequest;
 import org.apache.solr.common.annotation.SolrThreadSafe;
 import org.apache.solr.common.cloud.ClusterPropertiesListener;
 import org.apache.solr.common.cloud.SolrZkClient;
+import org.apache.solr.metrics.SolrMetricProducer;
+import org.apache.solr.metrics.SolrMetricsContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static org.apache.solr.common.params.CommonParams.SOLR_REQUEST_CONTEXT_PARAM;
+import static org.apache.solr.common.params.CommonParams.SOLR_REQUEST_PRIORITY_PARAM;
 import static org.apache.solr.common.params.CommonParams.SOLR_REQUEST_TYPE_PARAM;
 
 /**
@@ -44,15 +47,20 @@ import static org.apache.solr.common.params.CommonParams.SOLR_REQUEST_TYPE_PARAM
  * rate limiting is being done for a specific request type.
  */
 @SolrThreadSafe
-public class RateLimitManager implements ClusterPropertiesListener {
+public class RateLimitManager implements ClusterPropertiesListener, SolrMetricProducer {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
   public final static int DEFAULT_CONCURRENT_REQUESTS= (Runtime.getRuntime().availableProcessors()) * 3;
   public final static long DEFAULT_SLOT_ACQUISITION_TIMEOUT_MS = -1;
+  public final static int DEFAULT_MIN_CONCURRENT_REQUESTS = Runtime.getRuntime().availableProcessors();
+  public final static double DEFAULT_LATENCY_TOLERANCE = 2.0;
+  public final static double DEFAULT_LOW_PRIORITY_RATIO = 0.5;
   private final Map<String, RequestRateLimiter> requestRateLimiterMap;
 
   private final Map<HttpServletRequest, RequestRateLimiter.SlotMetadata> activeRequestsMap;
 
+  private SolrMetricsContext solrMetricsContext;
+
   public RateLimitManager() {
     this.requestRateLimiterMap = new HashMap<>();
     this.activeRequestsMap = new ConcurrentHashMap<>();
@@ -100,7 +108,8 @@ public class RateLimitManager implements ClusterPropertiesListener {
       return true;
     }
 
-    RequestRateLimiter.SlotMetadata result = requestRateLimiter.handleRequest();
+    RequestRateLimiter.RequestPriority priority = RequestRateLimiter.RequestPriority.fromClient(request.getHeader(SOLR_REQUEST_PRIORITY_PARAM));
+    RequestRateLimiter.SlotMetadata result = requestRateLimiter.handleRequest(priority);
 
     if (result != null) {
       // Can be the case if request rate limiter is disabled
@@ -117,6 +126,7 @@ public class RateLimitManager implements ClusterPropertiesListener {
       return true;
     }
 
+    requestRateLimiter.markRejected();
     return false;
   }
 
@@ -182,6 +192,19 @@ public class RateLimitManager implements ClusterPropertiesListener {
     return requestRateLimiterMap.get(requestType.toString());
   }
 
+  @Override
+  public void initializeMetrics(SolrMetricsContext parentContext, String scope) {
+    solrMetricsContext = parentContext.getChildContext(this);
+    for (RequestRateLimiter requestRateLimiter : requestRateLimiterMap.values()) {
+      requestRateLimiter.initializeMetrics(solrMetricsContext, scope);
+    }
+  }
+
+  @Override
+  public SolrMetricsContext getSolrMetricsContext() {
+    return solrMetricsContext;
+  }
+
   public static class Builder {
     protected SolrZkClient solrZkClient;
 
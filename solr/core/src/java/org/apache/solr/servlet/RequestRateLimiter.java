@@ -17,11 +17,16 @@
 
 package org.apache.solr.servlet;
 
+import java.util.Locale;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
 import org.apache.solr.common.annotation.SolrThreadSafe;
 import org.apache.solr.core.RateLimiterConfig;
+import org.apache.solr.core.SolrInfoBean;
+import org.apache.solr.metrics.SolrMetricsContext;
 
 /**
  * Handles rate limiting for a specific request type.
@@ -40,38 +45,116 @@ public class RequestRateLimiter {
   // irrespective of whether the request is of this request rate limiter or other.
   private final Semaphore borrowableSlotsPool;
 
+  // Used instead of the slot pools when the rate limiter is adaptive
+  private final AdaptiveConcurrencyLimit adaptiveLimit;
+
   private final RateLimiterConfig rateLimiterConfig;
   private final SlotMetadata guaranteedSlotMetadata;
   private final SlotMetadata borrowedSlotMetadata;
   private static final SlotMetadata nullSlotMetadata = new SlotMetadata(null);
 
+  // Replaced by registered metrics by initializeMetrics
+  private volatile Timer queueTime = new Timer();
+  private volatile Meter rejectedRequests = new Meter();
+
+  /** The priority of a request, given by the {@link org.apache.solr.common.params.CommonParams#SOLR_REQUEST_PRIORITY_PARAM} header. */
+  public enum RequestPriority {
+    HIGH, NORMAL, LOW;
+
+    /** Returns the priority of the given header value, NORMAL if it is null or unknown. */
+    public static RequestPriority get(String value) {
+      if (value != null) {
+        try {
+          return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+          // use the default
+        }
+      }
+      return NORMAL;
+    }
+
+    /**
+     * Returns the priority a client asks for with the given header value. Requests are rate limited before they
+     * are authenticated, so any caller could claim HIGH: a client may only lower the priority of its requests.
+     */
+    public static RequestPriority fromClient(String value) {
+      RequestPriority priority = get(value);
+      return priority == HIGH ? NORMAL : priority;
+    }
+  }
+
   public RequestRateLimiter(RateLimiterConfig rateLimiterConfig) {
     this.rateLimiterConfig = rateLimiterConfig;
     this.guaranteedSlotsPool = new Semaphore(rateLimiterConfig.guaranteedSlotsThreshold);
     this.borrowableSlotsPool = new Semaphore(rateLimiterConfig.allowedRequests - rateLimiterConfig.guaranteedSlotsThreshold);
     this.guaranteedSlotMetadata = new SlotMetadata(guaranteedSlotsPool);
     this.borrowedSlotMetadata = new SlotMetadata(borrowableSlotsPool);
+    this.adaptiveLimit = new AdaptiveConcurrencyLimit(rateLimiterConfig.allowedRequests);
+  }
+
+  /**
+   * Registers the metrics of this rate limiter: the time requests wait for a slot, the rejected requests,
+   * the current limit of concurrent requests and the number of requests in flight.
+   */
+  public void initializeMetrics(SolrMetricsContext solrMetricsContext, String scope) {
+    String category = SolrInfoBean.Category.CONTAINER.toString();
+    String type = rateLimiterConfig.requestType.toString();
+    queueTime = solrMetricsContext.timer("queueTime", category, scope, type);
+    rejectedRequests = solrMetricsContext.meter("rejected", category, scope, type);
+    solrMetricsContext.gauge(this::getAllowedRequests, true, "allowedRequests", category, scope, type);
+    solrMetricsContext.gauge(adaptiveLimit::getInFlight, true, "adaptiveInFlight", category, scope, type);
+  }
+
+  /** The number of concurrent requests currently allowed, which changes with the load if the rate limiter is adaptive. */
+  public int getAllowedRequests() {
+    return rateLimiterConfig.isAdaptive ? adaptiveLimit.getLimit() : rateLimiterConfig.allowedRequests;
+  }
+
+  /**
+   * Handles an incoming request of normal priority.
+   * @see #handleRequest(RequestPriority)
+   */
+  public SlotMetadata handleRequest() throws InterruptedException {
+    return handleRequest(RequestPriority.NORMAL);
   }
 
   /**
    * Handles an incoming request. returns a metadata object representing the metadata for the acquired slot, if acquired.
    * If a slot is not acquired, returns a null metadata object.
+   * The priority of the request is only used by adaptive rate limiters.
    * */
-  public SlotMetadata handleRequest() throws InterruptedException {
+  public SlotMetadata handleRequest(RequestPriority priority) throws InterruptedException {
 
     if (!rateLimiterConfig.isEnabled) {
       return nullSlotMetadata;
     }
 
-    if (guaranteedSlotsPool.tryAcquire(rateLimiterConfig.waitForSlotAcquisition, TimeUnit.MILLISECONDS)) {
-      return guaranteedSlotMetadata;
-    }
+    long startTime = System.nanoTime();
+    try {
+      if (rateLimiterConfig.isAdaptive) {
+        if (adaptiveLimit.acquire(priority, rateLimiterConfig, rateLimiterConfig.waitForSlotAcquisition)) {
+          return new AdaptiveSlotMetadata();
+        }
+        return null;
+      }
 
-    if (borrowableSlotsPool.tryAcquire(rateLimiterConfig.waitForSlotAcquisition, TimeUnit.MILLISECONDS)) {
-      return borrowedSlotMetadata;
+      if (guaranteedSlotsPool.tryAcquire(rateLimiterConfig.waitForSlotAcquisition, TimeUnit.MILLISECONDS)) {
+        return guaranteedSlotMetadata;
+      }
+
+      if (borrowableSlotsPool.tryAcquire(rateLimiterConfig.waitForSlotAcquisition, TimeUnit.MILLISECONDS)) {
+        return borrowedSlotMetadata;
+      }
+
+      return null;
+    } finally {
+      queueTime.update(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
     }
+  }
 
-    return null;
+  /** Records a request of this type rejected by the {@link RateLimitManager}. */
+  void markRejected() {
+    rejectedRequests.mark();
   }
 
   /**
@@ -80,9 +163,15 @@ public class RequestRateLimiter {
    * @return returns a metadata object for the acquired slot, if acquired. If the
    * slot was not acquired, returns a metadata object with a null pool.
    *
+   * Slots are never borrowed from an adaptive rate limiter.
+   *
    * @lucene.experimental -- Can cause slots to be blocked if a request borrows a slot and is itself long lived.
    */
   public SlotMetadata allowSlotBorrowing() throws InterruptedException {
+    if (rateLimiterConfig.isAdaptive) {
+      return nullSlotMetadata;
+    }
+
     if (borrowableSlotsPool.tryAcquire(rateLimiterConfig.waitForSlotAcquisition, TimeUnit.MILLISECONDS)) {
       return borrowedSlotMetadata;
     }
@@ -112,4 +201,23 @@ public class RequestRateLimiter {
       return usedPool != null;
     }
   }
+
+  // The slot of a request admitted by the adaptive limit, which learns from the latency of the request when released
+  private class AdaptiveSlotMetadata extends SlotMetadata {
+    private final long startTime = System.nanoTime();
+
+    AdaptiveSlotMetadata() {
+      super(null);
+    }
+
+    @Override
+    public void decrementRequest() {
+      adaptiveLimit.release(System.nanoTime() - startTime, rateLimiterConfig);
+    }
+
+    @Override
+    public boolean isReleasable() {
+      return true;
+    }
+  }
 }
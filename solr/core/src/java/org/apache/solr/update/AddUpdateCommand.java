@@ -51,6 +51,12 @@ public class AddUpdateCommand extends UpdateCommand {
    */
   public SolrInputDocument solrDoc;
 
+  /**
+   * The Lucene document, if a loader already built it from the request with a
+   * {@link StreamingDocumentBuilder}.  When set, {@link #solrDoc} only holds the uniqueKey.
+   */
+  public Document luceneDocument;
+
   /**
    * This is the version of a document, previously indexed, on which the current
    * update depends on. This version could be that of a previous in-place update
@@ -109,6 +115,7 @@ public class AddUpdateCommand extends UpdateCommand {
    /** Reset state to reuse this object with a different document in the same request */
    public void clear() {
      solrDoc = null;
+     luceneDocument = null;
      indexedId = null;
      indexedIdStr = null;
      childDocIdStr = null;
@@ -236,6 +243,9 @@ public class AddUpdateCommand extends UpdateCommand {
   Iterable<Document> makeLuceneDocs() {
     // perhaps this should move to UpdateHandler or DocumentBuilder?
     assert ! isInPlaceUpdate() : "We don't expect this to happen."; // but should "work"?
+    if (luceneDocument != null) {
+      return Collections.singleton(luceneDocument);
+    }
     if (!req.getSchema().isUsableForChildDocs()) {
       // note if the doc is nested despite this, we'll throw an exception elsewhere
       final boolean forInPlaceUpdate = false;
@@ -52,7 +52,7 @@ public class DocumentBuilder {
    *        when constructing a Lucene document for writing an in-place update, and we don't need
    *        presence of non-updatable fields (non NDV) in such a document.
    */
-  private static void addField(Document doc, SchemaField field, Object val,
+  static void addField(Document doc, SchemaField field, Object val,
       boolean forInPlaceUpdate) {
     if (val instanceof IndexableField) {
       if (forInPlaceUpdate) {
@@ -274,7 +274,7 @@ public class DocumentBuilder {
   }
 
   /** Move the largest stored field last, because Lucene can avoid loading that one if it's not needed. */
-  private static void moveLargestFieldLast(Document doc) {
+  static void moveLargestFieldLast(Document doc) {
     String largestField = null;
     int largestFieldLen = -1;
     boolean largestIsLast = true;
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.lucene.document.Document;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.schema.CopyField;
+import org.apache.solr.schema.IndexSchema;
+import org.apache.solr.schema.SchemaField;
+
+/**
+ * Builds a Lucene {@link Document} one field value at a time, as a parser produces them, applying the
+ * same schema rules as {@link DocumentBuilder} but without collecting the values in a
+ * {@link SolrInputDocument} first.
+ * <p>
+ * Only flat documents can be built this way: there is no support for nested documents or atomic updates,
+ * and nothing but the uniqueKey is available to update processors.  Instances are reusable but not thread safe.
+ *
+ * @see AddUpdateCommand#luceneDocument
+ */
+public class StreamingDocumentBuilder {
+
+  private final IndexSchema schema;
+  private final SchemaField uniqueKeyField;
+  // fields given values directly, and fields that got values either directly or as a copyField target
+  private final Set<String> sourceFields = new HashSet<>();
+  private final Set<String> usedFields = new HashSet<>();
+  private Document doc = new Document();
+  private Object uniqueKey;
+
+  public StreamingDocumentBuilder(IndexSchema schema) {
+    this.schema = schema;
+    this.uniqueKeyField = schema.getUniqueKeyField();
+  }
+
+  /**
+   * Adds one value of the named field, and of any copyField targets.  A multi-valued
+   * field is added by calling this once per value.  Null values are ignored.
+   */
+  public void addValue(String name, Object val) {
+    if (val == null) {
+      return;
+    }
+    SchemaField sfield = schema.getFieldOrNull(name);
+    List<CopyField> copyFields = schema.getCopyFieldsList(name);
+    if (sfield == null && copyFields.isEmpty()) {
+      throw new SolrException(SolrException.ErrorCode.BAD_REQUEST,
+          "ERROR: " + getID() + "unknown field '" + name + "'");
+    }
+
+    try {
+      if (sfield != null) {
+        if (!sourceFields.add(name) && !sfield.multiValued()) {
+          throw new SolrException(SolrException.ErrorCode.BAD_REQUEST,
+              "ERROR: " + getID() + "multiple values encountered for non multiValued field " + sfield.getName() + ": " + val);
+        }
+        usedFields.add(sfield.getName());
+        if (sfield == uniqueKeyField) {
+          uniqueKey = val;
+        }
+        DocumentBuilder.addField(doc, sfield, val, false);
+      }
+
+      for (CopyField cf : copyFields) {
+        SchemaField destinationField = cf.getDestination();
+        if (!destinationField.multiValued() && usedFields.contains(destinationField.getName())) {
+          throw new SolrException(SolrException.ErrorCode.BAD_REQUEST,
+              "Multiple values encountered for non multiValued copy field " + destinationField.getName() + ": " + val);
+        }
+        Object copyVal = val;
+        if (copyVal instanceof CharSequence && cf.getMaxChars() > 0) {
+          copyVal = cf.getLimitedValue(copyVal.toString());
+        }
+        DocumentBuilder.addField(doc, destinationField, copyVal, false);
+        usedFields.add(destinationField.getName());
+      }
+    } catch (SolrException ex) {
+      throw new SolrException(SolrException.ErrorCode.getErrorCode(ex.code()),
+          "ERROR: " + getID() + "Error adding field '" + name + "'='" + val + "' msg=" + ex.getMessage(), ex);
+    } catch (Exception ex) {
+      throw new SolrException(SolrException.ErrorCode.BAD_REQUEST,
+          "ERROR: " + getID() + "Error adding field '" + name + "'='" + val + "' msg=" + ex.getMessage(), ex);
+    }
+  }
+
+  /** The uniqueKey value added to the document being built, or null if none was added yet. */
+  public Object getUniqueKey() {
+    return uniqueKey;
+  }
+
+  /**
+   * Returns the {@link SolrInputDocument} that stands in for the document being built, holding only its uniqueKey.
+   * Must be called before {@link #build()}, which resets the builder.
+   */
+  public SolrInputDocument getIdDocument() {
+    SolrInputDocument idDoc = new SolrInputDocument();
+    if (uniqueKey != null) {
+      idDoc.setField(uniqueKeyField.getName(), uniqueKey);
+    }
+    return idDoc;
+  }
+
+  /**
+   * Validates required fields, adds defaults and the {@code _root_} field, and returns the built document.
+   * The builder is then reset for the next document.
+   */
+  public Document build() {
+    Document out = doc;
+    try {
+      if (uniqueKey != null && schema.isUsableForChildDocs() && out.getField(IndexSchema.ROOT_FIELD_NAME) == null) {
+        // what AddUpdateCommand#makeLuceneDocs would have done for a document without children
+        DocumentBuilder.addField(out, schema.getField(IndexSchema.ROOT_FIELD_NAME), uniqueKey.toString(), false);
+      }
+      for (SchemaField field : schema.getRequiredFields()) {
+        if (out.getField(field.getName()) == null) {
+          if (field.getDefaultValue() != null) {
+            DocumentBuilder.addField(out, field, field.getDefaultValue(), false);
+          } else {
+            throw new SolrException(SolrException.ErrorCode.BAD_REQUEST,
+                getID() + "missing required field: " + field.getName());
+          }
+        }
+      }
+      DocumentBuilder.moveLargestFieldLast(out);
+      return out;
+    } finally {
+      reset();
+    }
+  }
+
+  /** Discards the document being built. */
+  public void reset() {
+    doc = new Document();
+    sourceFields.clear();
+    usedFields.clear();
+    uniqueKey = null;
+  }
+
+  private String getID() {
+    return uniqueKey == null ? "" : "[doc=" + uniqueKey + "] ";
+  }
+}
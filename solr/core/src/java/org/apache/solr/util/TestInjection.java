@@ -31,6 +31,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.Checksum;
 
 import org.apache.lucene.index.IndexWriter;
 import org.apache.solr.common.NonExistentCoreException;
@@ -155,6 +156,11 @@ public class TestInjection {
 
   public volatile static boolean failInExecutePlanAction = false;
 
+  /**
+   * The number of index files fetched by replication whose checksum {@link #injectCorruptFetchedFile} corrupts
+   */
+  public volatile static AtomicInteger corruptFetchedFiles = new AtomicInteger(0);
+
   /**
    * Defaults to <code>false</code>, If set to <code>true</code>, 
    * then {@link #injectSkipIndexWriterCommitOnClose} will return <code>true</code>
@@ -197,6 +203,7 @@ public class TestInjection {
     delayBeforeCreatingNewDocSet = null;
     countDocSetDelays.set(0);
     failInExecutePlanAction = false;
+    corruptFetchedFiles.set(0);
     skipIndexWriterCommitOnClose = false;
     uifOutOfMemoryError = false;
     notifyPauseForeverDone();
@@ -206,6 +213,17 @@ public class TestInjection {
     }
   }
 
+  /**
+   * Changes the checksum computed for an index file fetched by replication, so that it doesn't match the file,
+   * while {@link #corruptFetchedFiles} is positive.
+   */
+  public static boolean injectCorruptFetchedFile(Checksum checksum) {
+    if (corruptFetchedFiles.getAndUpdate(count -> Math.max(0, count - 1)) > 0) {
+      checksum.update(0);
+    }
+    return true;
+  }
+
   public static boolean injectWrongIndexFingerprint() {
     if (wrongIndexFingerprint != null)  {
       Random rand = random();
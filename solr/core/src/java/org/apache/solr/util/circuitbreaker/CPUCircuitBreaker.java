@@ -88,6 +88,22 @@ public class CPUCircuitBreaker extends CircuitBreaker {
     return (localSeenCPUUsage >= localAllowedCPUUsage);
   }
 
+  @Override
+  public double getPressure() {
+    if (!isEnabled() || !enabled) {
+      return 0;
+    }
+
+    double localSeenCPUUsage = calculateLiveCPUUsage();
+    // a negative value means the CPU usage is unavailable
+    return localSeenCPUUsage < 0 ? 0 : localSeenCPUUsage / getCpuUsageThreshold();
+  }
+
+  @Override
+  public String getName() {
+    return "cpu";
+  }
+
   @Override
   public String getDebugInfo() {
 
@@ -60,6 +60,22 @@ public abstract class CircuitBreaker {
    */
   public abstract String getErrorMessage();
 
+  /**
+   * Returns the current value of the resource this circuit breaker watches relative to the threshold at which it
+   * trips, so that 1 or more means tripped. Used for cost-based admission, which rejects expensive requests
+   * before the circuit breaker trips. Circuit breakers which can't tell return 0.
+   */
+  public double getPressure() {
+    return 0;
+  }
+
+  /**
+   * A short name for the reason a circuit breaker rejects requests, used in the rejection metrics.
+   */
+  public String getName() {
+    return getClass().getSimpleName();
+  }
+
   public static class CircuitBreakerConfig {
     private final boolean enabled;
     private final boolean memCBEnabled;
@@ -19,10 +19,14 @@ package org.apache.solr.util.circuitbreaker;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 import com.google.common.annotations.VisibleForTesting;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.core.PluginInfo;
+import org.apache.solr.core.SolrInfoBean;
+import org.apache.solr.metrics.SolrMetricProducer;
+import org.apache.solr.metrics.SolrMetricsContext;
 import org.apache.solr.util.plugin.PluginInfoInitialized;
 
 /**
@@ -38,13 +42,26 @@ import org.apache.solr.util.plugin.PluginInfoInitialized;
  *
  * NOTE: The current way of registering new default circuit breakers is minimal and not a long term
  * solution. There will be a follow up with a SIP for a schema API design.
+ *
+ * With cost-based admission enabled, the manager also rejects expensive requests before any circuit breaker
+ * trips: once the pressure of a circuit breaker, see {@link CircuitBreaker#getPressure()}, goes above
+ * admissionPressureThreshold, the maximum {@link QueryCost} admitted decreases from maxQueryCost down to 1
+ * as the pressure gets closer to 1. Cheap requests keep flowing until a circuit breaker trips.
  */
-public class CircuitBreakerManager implements PluginInfoInitialized {
+public class CircuitBreakerManager implements PluginInfoInitialized, SolrMetricProducer {
+  public static final String COST_REJECTION_PREFIX = "cost.";
+
   // Class private to potentially allow "family" of circuit breakers to be enabled or disabled
   private final boolean enableCircuitBreakerManager;
 
   private final List<CircuitBreaker> circuitBreakerList = new ArrayList<>();
 
+  private boolean costBasedAdmission = false;
+  private double admissionPressureThreshold = 0.75;
+  private double maxQueryCost = 1000;
+
+  private SolrMetricsContext solrMetricsContext;
+
   public CircuitBreakerManager(final boolean enableCircuitBreakerManager) {
     this.enableCircuitBreakerManager = enableCircuitBreakerManager;
   }
@@ -59,6 +76,26 @@ public class CircuitBreakerManager implements PluginInfoInitialized {
 
     register(memoryCircuitBreaker);
     register(cpuCircuitBreaker);
+
+    NamedList<?> args = pluginInfo == null ? null : pluginInfo.initArgs;
+    if (args != null) {
+      setCostBasedAdmission(Boolean.parseBoolean(args._getStr("costBasedAdmission", "false")),
+          Double.parseDouble(args._getStr("admissionPressureThreshold", "0.75")),
+          Double.parseDouble(args._getStr("maxQueryCost", "1000")));
+    }
+  }
+
+  @VisibleForTesting
+  public void setCostBasedAdmission(boolean costBasedAdmission, double admissionPressureThreshold, double maxQueryCost) {
+    if (admissionPressureThreshold < 0 || admissionPressureThreshold >= 1) {
+      throw new IllegalArgumentException("admissionPressureThreshold must be between 0 and 1, found " + admissionPressureThreshold);
+    }
+    if (maxQueryCost < 1) {
+      throw new IllegalArgumentException("maxQueryCost must be 1 or more, found " + maxQueryCost);
+    }
+    this.costBasedAdmission = costBasedAdmission;
+    this.admissionPressureThreshold = admissionPressureThreshold;
+    this.maxQueryCost = maxQueryCost;
   }
 
   public void register(CircuitBreaker circuitBreaker) {
@@ -112,6 +149,91 @@ public class CircuitBreakerManager implements PluginInfoInitialized {
     return false;
   }
 
+  public boolean isCostBasedAdmissionEnabled() {
+    return enableCircuitBreakerManager && costBasedAdmission;
+  }
+
+  /**
+   * Returns the highest pressure of the enabled circuit breakers, 0 if none can tell.
+   */
+  public double getPressure() {
+    double pressure = 0;
+
+    if (enableCircuitBreakerManager) {
+      for (CircuitBreaker circuitBreaker : circuitBreakerList) {
+        if (circuitBreaker.isEnabled()) {
+          pressure = Math.max(pressure, circuitBreaker.getPressure());
+        }
+      }
+    }
+
+    return pressure;
+  }
+
+  /**
+   * Returns the maximum cost of the requests admitted under the given pressure.
+   */
+  public double getMaxAdmittedCost(double pressure) {
+    if (pressure < admissionPressureThreshold) {
+      return Double.POSITIVE_INFINITY;
+    }
+
+    // decreases exponentially, so that requests are rejected by order of magnitude of their cost
+    double ratio = Math.min(1, (pressure - admissionPressureThreshold) / (1 - admissionPressureThreshold));
+    return Math.pow(maxQueryCost, 1 - ratio);
+  }
+
+  /**
+   * Checks whether a request of the given cost may be executed under the current pressure.
+   *
+   * @return An error message if the request should be rejected, null otherwise.
+   */
+  public String checkQueryCost(QueryCost queryCost) {
+    if (!isCostBasedAdmissionEnabled()) {
+      return null;
+    }
+
+    double pressure = getPressure();
+    double maxAdmittedCost = getMaxAdmittedCost(pressure);
+
+    if (queryCost.getCost() <= maxAdmittedCost) {
+      return null;
+    }
+
+    return String.format(Locale.ROOT, "Request cost %.1f, mostly due to %s, is above the maximum cost %.1f admitted " +
+        "under the current circuit breaker pressure %.2f", queryCost.getCost(), queryCost.getDominantFactor(),
+        maxAdmittedCost, pressure);
+  }
+
+  /**
+   * Records requests rejected because of the given circuit breakers.
+   */
+  public void markRejected(List<CircuitBreaker> trippedCircuitBreakers) {
+    for (CircuitBreaker circuitBreaker : trippedCircuitBreakers) {
+      markRejected(circuitBreaker.getName());
+    }
+  }
+
+  /**
+   * Records a request rejected for the given reason: the name of a circuit breaker, or
+   * {@value #COST_REJECTION_PREFIX} followed by the dominant factor of the cost of the request.
+   */
+  public void markRejected(String reason) {
+    if (solrMetricsContext != null) {
+      solrMetricsContext.meter(reason, SolrInfoBean.Category.QUERY.toString(), "circuitBreaker", "rejected").mark();
+    }
+  }
+
+  @Override
+  public void initializeMetrics(SolrMetricsContext parentContext, String scope) {
+    solrMetricsContext = parentContext;
+  }
+
+  @Override
+  public SolrMetricsContext getSolrMetricsContext() {
+    return solrMetricsContext;
+  }
+
   /**
    * Construct the final error message to be printed when circuit breakers trip.
    *
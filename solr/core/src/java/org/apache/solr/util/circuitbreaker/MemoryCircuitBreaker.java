@@ -92,6 +92,20 @@ public class MemoryCircuitBreaker extends CircuitBreaker {
     return (localSeenMemory >= localAllowedMemory);
   }
 
+  @Override
+  public double getPressure() {
+    if (!isEnabled() || !enabled) {
+      return 0;
+    }
+
+    return calculateLiveMemoryUsage() / (double) getCurrentMemoryThreshold();
+  }
+
+  @Override
+  public String getName() {
+    return "memory";
+  }
+
   @Override
   public String getDebugInfo() {
     if (seenMemory.get() == 0L || allowedMemory.get() == 0L) {
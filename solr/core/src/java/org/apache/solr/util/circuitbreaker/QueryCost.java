@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.solr.util.circuitbreaker;
+
+import java.util.Map;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.solr.common.params.FacetParams;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.handler.component.ResponseBuilder;
+import org.apache.solr.search.QueryUtils;
+import org.apache.solr.search.SortSpec;
+
+/**
+ * <p>
+ * A rough estimate of the cost of a search request, computed from its parsed {@link ResponseBuilder} before
+ * it is executed, so that the {@link CircuitBreakerManager} can reject the most expensive requests first when
+ * the node comes under pressure.
+ * </p>
+ *
+ * <p>
+ * The unit is about the cost of a query on a single term returning 10 documents. The estimate accounts for the
+ * number of query and filter clauses, facets, the number of rows, deep paging, joins and grouping, and
+ * remembers which of these factors dominates the cost, to report why a request was rejected.
+ * </p>
+ */
+public class QueryCost {
+  public static final String CLAUSES = "clauses";
+  public static final String FACETS = "facets";
+  public static final String ROWS = "rows";
+  public static final String DEEP_PAGING = "deepPaging";
+  public static final String JOINS = "joins";
+  public static final String GROUPING = "grouping";
+
+  // the weights of each factor
+  private static final double CLAUSE_COST = 0.1;
+  private static final double FACET_COST = 5;
+  private static final double ROW_COST = 0.01;
+  // each skipped document still has to be collected, and distributed requests collect offset + rows documents per shard
+  private static final double OFFSET_COST = 0.02;
+  private static final double JOIN_COST = 20;
+  private static final double GROUPING_COST = 10;
+
+  private final double cost;
+  private final String dominantFactor;
+
+  public QueryCost(int clauses, int facets, int rows, int offset, int joins, boolean grouping) {
+    double[] factorCosts = {
+        clauses * CLAUSE_COST,
+        facets * FACET_COST,
+        Math.max(0, rows) * ROW_COST,
+        Math.max(0, offset) * OFFSET_COST,
+        joins * JOIN_COST,
+        grouping ? GROUPING_COST : 0};
+    String[] factors = {CLAUSES, FACETS, ROWS, DEEP_PAGING, JOINS, GROUPING};
+
+    double total = 1;
+    int dominant = 0;
+    for (int i = 0; i < factorCosts.length; i++) {
+      total += factorCosts[i];
+      if (factorCosts[i] > factorCosts[dominant]) {
+        dominant = i;
+      }
+    }
+    this.cost = total;
+    this.dominantFactor = factors[dominant];
+  }
+
+  /** Estimates the cost of a request whose components were prepared, and its query parsed. */
+  public static QueryCost estimate(ResponseBuilder rb) {
+    ClauseCounter counter = new ClauseCounter();
+    if (rb.getQuery() != null) {
+      rb.getQuery().visit(counter);
+    }
+    if (rb.getFilters() != null) {
+      for (Query filter : rb.getFilters()) {
+        filter.visit(counter);
+      }
+    }
+
+    SortSpec sortSpec = rb.getSortSpec();
+    int rows = sortSpec == null ? 0 : sortSpec.getCount();
+    int offset = sortSpec == null ? 0 : sortSpec.getOffset();
+
+    return new QueryCost(counter.clauses, countFacets(rb), rows, offset, counter.joins, rb.grouping());
+  }
+
+  private static int countFacets(ResponseBuilder rb) {
+    int facets = 0;
+    if (rb.doFacets) {
+      SolrParams params = rb.req.getParams();
+      for (String param : new String[] {FacetParams.FACET_FIELD, FacetParams.FACET_QUERY, FacetParams.FACET_RANGE,
+          FacetParams.FACET_PIVOT, FacetParams.FACET_INTERVAL}) {
+        String[] values = params.getParams(param);
+        facets += values == null ? 0 : values.length;
+      }
+    }
+    Map<String, Object> json = rb.req.getJSON();
+    Object jsonFacets = json == null ? null : json.get("facet");
+    if (jsonFacets instanceof Map) {
+      facets += ((Map<?, ?>) jsonFacets).size();
+    } else if (rb.req.getParams().get("json.facet") != null) {
+      facets++;
+    }
+    return facets;
+  }
+
+  /** The estimated cost, 1 or more. */
+  public double getCost() {
+    return cost;
+  }
+
+  /** The factor that accounts for most of the cost, one of the constants of this class. */
+  public String getDominantFactor() {
+    return dominantFactor;
+  }
+
+  @Override
+  public String toString() {
+    return "QueryCost{cost=" + cost + ", dominantFactor=" + dominantFactor + "}";
+  }
+
+  private static class ClauseCounter extends QueryVisitor {
+    int clauses;
+    int joins;
+
+    @Override
+    public void consumeTerms(Query query, Term... terms) {
+      clauses += terms.length;
+    }
+
+    @Override
+    public void visitLeaf(Query query) {
+      clauses++;
+      if (QueryUtils.isJoinQuery(query)) {
+        joins++;
+      }
+    }
+  }
+}
@@ -83,4 +83,32 @@ public class ClusterStateTest extends SolrTestCaseJ4 {
     assertEquals("Should not have collections", 0, loadedClusterState.getCollectionsMap().size());
   }
 
+  @Test
+  public void testCompressedCollectionState() throws Exception {
+    Map<String,Replica> replicas = new HashMap<>();
+    for (int i = 0; i < 50; i++) {
+      Map<String,Object> props = new HashMap<>();
+      props.put("node_name", "node" + i + ":10000_solr");
+      props.put("core", "collection1_shard1_replica_n" + i);
+      replicas.put("core_node" + i, new Replica("core_node" + i, props, "collection1", "shard1"));
+    }
+    Map<String,Slice> slices = new HashMap<>();
+    slices.put("shard1", new Slice("shard1", replicas, null, "collection1"));
+    DocCollection coll = new DocCollection("collection1", slices,
+        Map.of(ZkStateReader.CONFIGNAME_PROP, ConfigSetsHandler.DEFAULT_CONFIGSET_NAME), DocRouter.DEFAULT);
+
+    byte[] json = ClusterState.encodeCollectionState(coll, -1);
+    assertArrayEquals(json, ClusterState.encodeCollectionState(coll, json.length));
+    byte[] compressed = ClusterState.encodeCollectionState(coll, 0);
+    assertTrue("state should compress well", compressed.length < json.length / 2);
+    assertArrayEquals(json, ClusterState.decodeStateBytes(compressed));
+    assertSame(json, ClusterState.decodeStateBytes(json));
+
+    ClusterState loaded = ClusterState.createFromJson(3, compressed, Set.of("node1:10000_solr"));
+    DocCollection loadedColl = loaded.getCollection("collection1");
+    assertEquals(3, loadedColl.getZNodeVersion());
+    assertEquals(50, loadedColl.getReplicas().size());
+    assertEquals("collection1_shard1_replica_n7", loadedColl.getReplica("core_node7").getCoreName());
+  }
+
 }
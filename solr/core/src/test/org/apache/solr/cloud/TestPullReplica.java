@@ -52,8 +52,12 @@ import org.apache.solr.common.cloud.DocCollection;
 import org.apache.solr.common.cloud.Replica;
 import org.apache.solr.common.cloud.Slice;
 import org.apache.solr.common.cloud.ZkStateReader;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.NamedList;
 import org.apache.solr.common.util.TimeSource;
 import org.apache.solr.core.SolrCore;
+import org.apache.solr.handler.ReplicationHandler;
 import org.apache.solr.util.LogLevel;
 import org.apache.solr.util.TestInjection;
 import org.apache.solr.util.TimeOut;
@@ -536,6 +540,47 @@ public class TestPullReplica extends SolrCloudTestCase {
     waitForNumDocsInAllActiveReplicas(2);
   }
 
+  public void testFetchFromPeers() throws Exception {
+    System.setProperty("solr.indexfetcher.fetchFromPeers", "true");
+    try {
+      CollectionAdminRequest.createCollection(collectionName, "conf", 1, 1, 0, 1)
+        .process(cluster.getSolrClient());
+      waitForState("Expected collection to be created with 1 shard and 2 replicas", collectionName, clusterShape(1, 2));
+      for (int i = 0; i < 10; i++) {
+        cluster.getSolrClient().add(collectionName, new SolrInputDocument("id", String.valueOf(i), "foo", "bar"));
+      }
+      cluster.getSolrClient().commit(collectionName);
+      waitForNumDocsInAllActiveReplicas(10);
+
+      String firstPullReplica = getCollectionState(collectionName)
+          .getReplicas(EnumSet.of(Replica.Type.PULL)).get(0).getName();
+
+      // the new replica fetches the index files from the first PULL replica, which has them all
+      addReplicaToShard("shard1", Replica.Type.PULL);
+      waitForState("Replica not added", collectionName, activeReplicaCount(1, 0, 2));
+      waitForNumDocsInAllActiveReplicas(10);
+
+      Replica newPullReplica = getCollectionState(collectionName).getReplicas(EnumSet.of(Replica.Type.PULL)).stream()
+          .filter(r -> !r.getName().equals(firstPullReplica))
+          .findFirst().get();
+      try (HttpSolrClient client = getHttpSolrClient(newPullReplica.getCoreUrl())) {
+        ModifiableSolrParams params = new ModifiableSolrParams();
+        params.set(CommonParams.QT, ReplicationHandler.PATH);
+        params.set(ReplicationHandler.COMMAND, ReplicationHandler.CMD_DETAILS);
+        NamedList<?> details = (NamedList<?>) client.request(new QueryRequest(params)).get(ReplicationHandler.CMD_DETAILS);
+        Long bytesFetchedFromPeers = (Long) details.findRecursive("follower", "lastCycleBytesFetchedFromPeers");
+        assertNotNull("No fetch from peers in " + details, bytesFetchedFromPeers);
+        assertTrue("No bytes fetched from peers in " + details, bytesFetchedFromPeers > 0);
+      }
+
+      cluster.getSolrClient().add(collectionName, new SolrInputDocument("id", "10", "foo", "bar"));
+      cluster.getSolrClient().commit(collectionName);
+      waitForNumDocsInAllActiveReplicas(11);
+    } finally {
+      System.clearProperty("solr.indexfetcher.fetchFromPeers");
+    }
+  }
+
   public void testSearchWhileReplicationHappens() {
 
   }
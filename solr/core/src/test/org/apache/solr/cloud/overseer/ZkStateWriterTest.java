@@ -87,15 +87,17 @@ public class ZkStateWriterTest extends SolrTestCaseJ4 {
         ZkWriteCommand c3 = new ZkWriteCommand("c3", new DocCollection("c3", new HashMap<>(), props, DocRouter.DEFAULT, 0));
         ZkStateWriter writer = new ZkStateWriter(reader, new Stats());
 
-        // First write is flushed immediately
-        ClusterState clusterState = writer.enqueueUpdate(reader.getClusterState(), Collections.singletonList(c1), null);
+        // Updates are held back until the oldest of them exceeds the max batch latency
+        ClusterState clusterState = writer.enqueueUpdate(reader.getClusterState(), Collections.singletonList(c1), FAIL_ON_WRITE);
         clusterState = writer.enqueueUpdate(clusterState, Collections.singletonList(c1), FAIL_ON_WRITE);
         clusterState = writer.enqueueUpdate(clusterState, Collections.singletonList(c2), FAIL_ON_WRITE);
 
-        Thread.sleep(Overseer.STATE_UPDATE_DELAY + 100);
+        Thread.sleep(Overseer.STATE_UPDATE_MAX_BATCH_LATENCY + 100);
         AtomicBoolean didWrite = new AtomicBoolean(false);
         clusterState = writer.enqueueUpdate(clusterState, Collections.singletonList(c3), () -> didWrite.set(true));
         assertTrue("Exceed the update delay, should be flushed", didWrite.get());
+        // both updates of c1 were written at once
+        assertEquals(0, zkClient.exists(ZkStateReader.getCollectionPath("c1"), null, true).getVersion());
 
         for (int i = 0; i <= Overseer.STATE_UPDATE_BATCH_SIZE; i++) {
           clusterState = writer.enqueueUpdate(clusterState, Collections.singletonList(c3), () -> didWrite.set(true));
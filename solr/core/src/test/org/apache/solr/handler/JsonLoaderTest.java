@@ -16,6 +16,7 @@
  */
 package org.apache.solr.handler;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -180,6 +181,29 @@ public class JsonLoaderTest extends SolrTestCaseJ4 {
     assertTrue(ex.getMessage().contains("JSON"));
   }
 
+  public void testUtf8Bytes() throws Exception
+  {
+    // a value longer than the buffers, with characters of 1 to 4 bytes crossing their boundaries
+    StringBuilder value = new StringBuilder();
+    for (int i = 0; i < 3000; i++) {
+      value.append("a\u00e9\u20ac\ud83d\ude00");
+    }
+    String str = ("[{'id':'1','name':'" + value + "'},{'id':'2','name':'\u00fcber'}]").replace('\'', '"');
+    BufferingRequestProcessor p = new BufferingRequestProcessor(null);
+    JsonLoader loader = new JsonLoader();
+    for (int load = 0; load < 2; load++) {
+      // the second load reuses the buffers of the first one
+      p.addCommands.clear();
+      SolrQueryRequest req = req();
+      loader.load(req, new SolrQueryResponse(),
+          new ContentStreamBase.ByteArrayStream(str.getBytes(StandardCharsets.UTF_8), "test", "application/json"), p);
+      assertEquals(2, p.addCommands.size());
+      assertEquals(value.toString(), p.addCommands.get(0).solrDoc.getFieldValue("name"));
+      assertEquals("\u00fcber", p.addCommands.get(1).solrDoc.getFieldValue("name"));
+      req.close();
+    }
+  }
+
   public void testSimpleFormatInAdd() throws Exception
   {
     String str = "{'add':[{'id':'1'},{'id':'2'}]}".replace('\'', '"');
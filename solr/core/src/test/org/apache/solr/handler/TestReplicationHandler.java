@@ -904,6 +904,91 @@ public class TestReplicationHandler extends SolrTestCaseJ4 {
   }
 
 
+  @Test
+  public void doTestParallelIndexFetch() throws Exception {
+    //change solrconfig on follower
+    //this has no entry for pollinginterval
+    follower.setTestPort(leaderJetty.getLocalPort());
+    follower.copyConfigFile(CONF_DIR + "solrconfig-follower1.xml", "solrconfig.xml");
+    followerJetty.stop();
+    followerJetty = createAndStartJetty(follower);
+    followerClient.close();
+    followerClient = ReplicationTestHelper.createNewSolrClient(buildUrl(followerJetty.getLocalPort(), context) + "/" + DEFAULT_TEST_CORENAME);
+
+    leaderClient.deleteByQuery("*:*");
+    followerClient.deleteByQuery("*:*");
+    followerClient.commit();
+    nDocs--;
+    for (int i = 0; i < nDocs; i++)
+      index(leaderClient, "id", i, "name", "name = " + i);
+    leaderClient.commit();
+
+    NamedList<Object> leaderQueryRsp = rQuery(nDocs, "*:*", leaderClient);
+    SolrDocumentList leaderQueryResult = (SolrDocumentList) leaderQueryRsp.get("response");
+    assertEquals(nDocs, leaderQueryResult.getNumFound());
+
+    // several files at once, and files over 1KB in ranges, so that the stored fields are fetched in parts
+    String leaderUrl = buildUrl(followerJetty.getLocalPort()) + "/" + DEFAULT_TEST_CORENAME + ReplicationHandler.PATH
+        + "?command=fetchindex&" + ReplicationHandler.FETCH_INDEX_THREADS + "=3&"
+        + ReplicationHandler.FETCH_INDEX_RANGE_SIZE_MB + "=0.001&leaderUrl=";
+    leaderUrl += buildUrl(leaderJetty.getLocalPort()) + "/" + DEFAULT_TEST_CORENAME + ReplicationHandler.PATH;
+    URL url = new URL(leaderUrl);
+    InputStream stream = url.openStream();
+    stream.close();
+
+    //get docs from follower and check if number is equal to leader
+    NamedList<Object> followerQueryRsp = rQuery(nDocs, "*:*", followerClient);
+    SolrDocumentList followerQueryResult = (SolrDocumentList) followerQueryRsp.get("response");
+    assertEquals(nDocs, followerQueryResult.getNumFound());
+    //compare results
+    String cmp = BaseDistributedSearchTestCase.compare(leaderQueryResult, followerQueryResult, 0, null);
+    assertEquals(null, cmp);
+
+    assertVersions(leaderClient, followerClient);
+    checkForSingleIndex(followerJetty);
+  }
+
+  @Test
+  public void doTestFetchCorruptedFile() throws Exception {
+    //change solrconfig on follower
+    //this has no entry for pollinginterval
+    follower.setTestPort(leaderJetty.getLocalPort());
+    follower.copyConfigFile(CONF_DIR + "solrconfig-follower1.xml", "solrconfig.xml");
+    followerJetty.stop();
+    followerJetty = createAndStartJetty(follower);
+    followerClient.close();
+    followerClient = ReplicationTestHelper.createNewSolrClient(buildUrl(followerJetty.getLocalPort(), context) + "/" + DEFAULT_TEST_CORENAME);
+
+    leaderClient.deleteByQuery("*:*");
+    followerClient.deleteByQuery("*:*");
+    followerClient.commit();
+    nDocs--;
+    for (int i = 0; i < nDocs; i++)
+      index(leaderClient, "id", i, "name", "name = " + i);
+    leaderClient.commit();
+    assertEquals(nDocs, numFound(rQuery(nDocs, "*:*", leaderClient)));
+
+    try {
+      // a file that doesn't match its footer checksum is deleted, and fails the fetch once fetched again
+      TestInjection.corruptFetchedFiles.set(Integer.MAX_VALUE);
+      pullFromTo(leaderJetty, followerJetty);
+      assertEquals(0, numFound(query("*:*", followerClient)));
+      assertTrue(TestInjection.corruptFetchedFiles.get() < Integer.MAX_VALUE);
+
+      // the file is fetched again when its first copy doesn't match
+      TestInjection.corruptFetchedFiles.set(1);
+      pullFromTo(leaderJetty, followerJetty);
+      assertEquals(0, TestInjection.corruptFetchedFiles.get());
+    } finally {
+      TestInjection.corruptFetchedFiles.set(0);
+    }
+
+    SolrDocumentList followerQueryResult = (SolrDocumentList) rQuery(nDocs, "*:*", followerClient).get("response");
+    assertEquals(nDocs, followerQueryResult.getNumFound());
+    assertVersions(leaderClient, followerClient);
+    checkForSingleIndex(followerJetty);
+  }
+
   @Test
   //commented 20-Sep-2018  @BadApple(bugUrl="https://issues.apache.org/jira/browse/SOLR-12028") // added 17-Aug-2018
   public void doTestStressReplication() throws Exception {
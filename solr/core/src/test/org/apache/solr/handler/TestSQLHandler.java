@@ -2492,4 +2492,71 @@ public class TestSQLHandler extends SolrCloudTestCase {
     // just a bunch of OR's that end up matching all docs
     expectResults("SELECT id FROM $ALIAS WHERE a_s <> 'hello-1' OR a_i <> 2 OR d_s <> 'x' ORDER BY id ASC LIMIT 10", 4);
   }
+
+  @Test
+  public void testHavingPushdownAndExplain() throws Exception {
+    new UpdateRequest()
+        .add("id", "1", "str_s", "a", "field_i", "1")
+        .add("id", "2", "str_s", "b", "field_i", "2")
+        .add("id", "3", "str_s", "a", "field_i", "20")
+        .add("id", "4", "str_s", "b", "field_i", "2")
+        .add("id", "5", "str_s", "c", "field_i", "30")
+        .add("id", "6", "str_s", "c", "field_i", "30")
+        .add("id", "7", "str_s", "d", "field_i", "50")
+        .add("id", "8", "str_s", "e", "field_i", "60")
+        .commit(cluster.getSolrClient(), COLLECTIONORALIAS);
+
+    // the condition on the bucket field is pushed down into the query, the one on the aggregate stays a HAVING
+    List<Tuple> tuples = expectResults("SELECT str_s, count(*) FROM $ALIAS GROUP BY str_s " +
+        "HAVING str_s <> 'a' AND count(*) = 2 ORDER BY str_s ASC", 2);
+    assertEquals("b", tuples.get(0).getString("str_s"));
+    assertEquals("c", tuples.get(1).getString("str_s"));
+
+    tuples = expectResults("SELECT str_s, sum(field_i) FROM $ALIAS WHERE field_i > 1 GROUP BY str_s " +
+        "HAVING str_s IN ('a', 'c', 'd') ORDER BY str_s ASC", 3);
+
+    // OFFSET is applied to the buckets
+    tuples = expectResults("SELECT str_s, count(*) FROM $ALIAS GROUP BY str_s ORDER BY str_s ASC LIMIT 2 OFFSET 1", 2);
+    assertEquals("b", tuples.get(0).getString("str_s"));
+    assertEquals("c", tuples.get(1).getString("str_s"));
+
+    // a HAVING on an aggregate is applied before the limit
+    tuples = expectResults("SELECT str_s, count(*) FROM $ALIAS GROUP BY str_s HAVING count(*) = 1 " +
+        "ORDER BY str_s ASC LIMIT 1 OFFSET 1", 1);
+    assertEquals("e", tuples.get(0).getString("str_s"));
+
+    tuples = expectResults("EXPLAIN PLAN FOR SELECT str_s, count(*) FROM $ALIAS WHERE field_i > 1 GROUP BY str_s " +
+        "HAVING str_s <> 'a' ORDER BY str_s ASC LIMIT 2 OFFSET 1", 1);
+    String plan = tuples.get(0).getString("PLAN");
+    assertTrue(plan, plan.contains("SolrToEnumerableConverter"));
+    assertTrue(plan, plan.contains("limit(facet("));
+    assertTrue(plan, plan.contains("limit=2, offset=1"));
+    assertFalse(plan, plan.contains("having("));
+  }
+
+  @Test
+  public void testHavingOnMultiValuedGroupByField() throws Exception {
+    new UpdateRequest()
+        .add(new SolrInputDocument("id", "1", "stringxmv", Arrays.asList("a", "b")))
+        .add(new SolrInputDocument("id", "2", "stringxmv", Arrays.asList("b", "c")))
+        .add(new SolrInputDocument("id", "3", "stringxmv", Arrays.asList("a")))
+        .add(new SolrInputDocument("id", "4", "stringxmv", Arrays.asList("c")))
+        .commit(cluster.getSolrClient(), COLLECTIONORALIAS);
+
+    // a document is in the buckets of all its values: the condition is applied to the buckets, not the documents
+    List<Tuple> tuples = expectResults("SELECT stringxmv, COUNT(*) AS cnt FROM $ALIAS GROUP BY stringxmv " +
+        "HAVING stringxmv = 'b'", 1);
+    assertEquals("b", tuples.get(0).getString("stringxmv"));
+    assertEquals(2L, (long) tuples.get(0).getLong("cnt"));
+
+    tuples = expectResults("SELECT stringxmv, COUNT(*) AS cnt FROM $ALIAS GROUP BY stringxmv " +
+        "HAVING stringxmv = 'a' AND COUNT(*) = 2", 1);
+    assertEquals("a", tuples.get(0).getString("stringxmv"));
+    assertEquals(2L, (long) tuples.get(0).getLong("cnt"));
+
+    tuples = expectResults("EXPLAIN PLAN FOR SELECT stringxmv, COUNT(*) FROM $ALIAS GROUP BY stringxmv " +
+        "HAVING stringxmv = 'b'", 1);
+    String plan = tuples.get(0).getString("PLAN");
+    assertTrue(plan, plan.contains("having("));
+  }
 }
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.solr.handler.admin;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.codahale.metrics.Counter;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.params.CommonParams;
+import org.apache.solr.core.SolrCore;
+import org.apache.solr.handler.ReplicationHandler;
+import org.apache.solr.request.SolrQueryRequest;
+import org.apache.solr.response.SolrQueryResponse;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test for {@link PrometheusMetricsHandler}
+ */
+public class PrometheusMetricsHandlerTest extends SolrTestCaseJ4 {
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    initCore("solrconfig-minimal.xml", "schema.xml");
+    h.getCoreContainer().waitForLoadingCoresToFinish(30000);
+
+    Counter c = h.getCoreContainer().getMetricManager().counter(null, "solr.jvm", "solrtest_foo");
+    c.inc(3);
+  }
+
+  @AfterClass
+  public static void cleanupMetrics() throws Exception {
+    if (null != h) {
+      h.getCoreContainer().getMetricManager().registry("solr.jvm").remove("solrtest_foo");
+    }
+  }
+
+  private String scrape(String... params) throws Exception {
+    PrometheusMetricsHandler handler = new PrometheusMetricsHandler(new MetricsHandler(h.getCoreContainer()));
+    SolrQueryResponse rsp = new SolrQueryResponse();
+    try (SolrQueryRequest req = req(params)) {
+      handler.handleRequestBody(req, rsp);
+      assertEquals(ReplicationHandler.FILE_STREAM, req.getParams().get(CommonParams.WT));
+    }
+    SolrCore.RawWriter writer = (SolrCore.RawWriter) rsp.getValues().get(ReplicationHandler.FILE_STREAM);
+    assertNotNull(writer);
+    assertEquals(PrometheusMetricsHandler.CONTENT_TYPE, writer.getContentType());
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    writer.write(out);
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testAllRegistries() throws Exception {
+    String text = scrape();
+    assertTrue(text, text.endsWith("# EOF\n"));
+
+    // counter
+    assertTrue(text, text.contains("# TYPE solr_solrtest_foo counter\n"));
+    assertTrue(text, text.contains("solr_solrtest_foo_total{registry=\"solr.jvm\"} 3\n"));
+    assertTrue(text, text.contains("solr_SEARCHER_new_errors_total{registry=\"solr.core.collection1\",core=\"collection1\"} 0\n"));
+    // gauge
+    assertTrue(text, text.contains("# TYPE solr_CONTAINER_cores_loaded gauge\n"));
+    assertTrue(text, text.contains("solr_CONTAINER_cores_loaded{registry=\"solr.node\"} 1.0\n"));
+    // timer
+    assertTrue(text, text.contains("# TYPE solr_ADMIN__admin_authorization_requestTimes_seconds summary\n"));
+    assertTrue(text, text.contains("solr_ADMIN__admin_authorization_requestTimes_seconds{registry=\"solr.node\",quantile=\"0.99\"} "));
+    assertTrue(text, text.contains("solr_ADMIN__admin_authorization_requestTimes_seconds_count{registry=\"solr.node\"} "));
+
+    // each family is written once, with all its samples
+    Set<String> families = new HashSet<>();
+    String family = null;
+    for (String line : text.split("\n")) {
+      if (line.startsWith("# TYPE ")) {
+        family = line.split(" ")[2];
+        assertTrue("Duplicate family " + family, families.add(family));
+      } else if (!line.equals("# EOF")) {
+        assertNotNull(family);
+        assertTrue(line, line.startsWith(family + "{") || line.startsWith(family + "_"));
+      }
+    }
+  }
+
+  @Test
+  public void testFilters() throws Exception {
+    String text = scrape(MetricsHandler.GROUP_PARAM, "jvm");
+    assertTrue(text, text.contains("solr_solrtest_foo_total{registry=\"solr.jvm\"} 3\n"));
+    assertFalse(text, text.contains("registry=\"solr.core.collection1\""));
+    assertFalse(text, text.contains("registry=\"solr.node\""));
+
+    text = scrape(MetricsHandler.REGISTRY_PARAM, "solr.core.collection", MetricsHandler.PREFIX_PARAM, "SEARCHER.new");
+    assertTrue(text, text.contains("solr_SEARCHER_new_errors_total{registry=\"solr.core.collection1\",core=\"collection1\"} 0\n"));
+    assertFalse(text, text.contains("solr_solrtest_foo"));
+    assertFalse(text, text.contains("solr_CACHE_"));
+  }
+
+  @Test
+  public void testMetricName() {
+    assertEquals("solr_QUERY__select_requestTimes", PrometheusMetricsHandler.toMetricName("QUERY./select.requestTimes"));
+    assertEquals("solr_os_processCpuLoad", PrometheusMetricsHandler.toMetricName("os.processCpuLoad"));
+  }
+}
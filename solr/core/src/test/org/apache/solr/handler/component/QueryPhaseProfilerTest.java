@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.handler.component;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.Timer;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.params.CommonParams;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class QueryPhaseProfilerTest extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    initCore("solrconfig.xml", "schema.xml");
+    assertU(adoc("id", "1", "title", "this is a title.", "inStock_b1", "true"));
+    assertU(adoc("id", "2", "title", "this is another title.", "inStock_b1", "true"));
+    assertU(adoc("id", "3", "title", "Mary had a little lamb.", "inStock_b1", "false"));
+    assertU(commit());
+  }
+
+  @Test
+  public void testNestedPhases() throws Exception {
+    QueryPhaseProfiler profiler = new QueryPhaseProfiler(null, false);
+    assertFalse(profiler.isSampled());
+
+    long collectionStart = profiler.start(QueryPhaseProfiler.Phase.COLLECTION);
+    long filterStart = profiler.start(QueryPhaseProfiler.Phase.FILTER);
+    Thread.sleep(20);
+    profiler.stop(QueryPhaseProfiler.Phase.FILTER, filterStart);
+    profiler.stop(QueryPhaseProfiler.Phase.COLLECTION, collectionStart);
+
+    long filterNanos = profiler.getNanos(QueryPhaseProfiler.Phase.FILTER);
+    assertTrue(filterNanos >= 20_000_000L);
+    // the time of the filter isn't counted twice
+    assertTrue(profiler.getNanos(QueryPhaseProfiler.Phase.COLLECTION) < filterNanos);
+    assertTrue(profiler.toString(), profiler.toString().startsWith("{filter="));
+    assertNotNull(profiler.toNamedList().get("filter"));
+  }
+
+  @Test
+  public void testAfterResponseWritten() {
+    QueryPhaseProfiler profiler = new QueryPhaseProfiler(null, false);
+    AtomicInteger runs = new AtomicInteger();
+    profiler.afterResponseWritten(runs::incrementAndGet);
+    assertEquals(1, runs.get());
+
+    // the action waits for the response write to be recorded
+    profiler = new QueryPhaseProfiler(null, true);
+    profiler.afterResponseWritten(runs::incrementAndGet);
+    assertEquals(1, runs.get());
+    profiler.responseWritten(profiler.start(QueryPhaseProfiler.Phase.RESPONSE_WRITE));
+    assertEquals(2, runs.get());
+  }
+
+  @Test
+  public void testPhaseOfComponents() {
+    assertEquals(QueryPhaseProfiler.Phase.PARSE, QueryPhaseProfiler.phaseOf(new QueryComponent(), true));
+    assertEquals(QueryPhaseProfiler.Phase.COLLECTION, QueryPhaseProfiler.phaseOf(new QueryComponent(), false));
+    assertEquals(QueryPhaseProfiler.Phase.FACETS, QueryPhaseProfiler.phaseOf(new FacetComponent(), false));
+    assertEquals(QueryPhaseProfiler.Phase.HIGHLIGHTING, QueryPhaseProfiler.phaseOf(new HighlightComponent(), false));
+    assertEquals(QueryPhaseProfiler.Phase.OTHER, QueryPhaseProfiler.phaseOf(new StatsComponent(), false));
+  }
+
+  @Test
+  public void testDebugAndMetrics() throws Exception {
+    assertQ(req("q", "title:title", "fq", "inStock_b1:true", "facet", "true", "facet.field", "id",
+        CommonParams.DEBUG, CommonParams.TIMING),
+        "//lst[@name='phases']/double[@name='parse']",
+        "//lst[@name='phases']/double[@name='collection']",
+        "//lst[@name='phases']/double[@name='facets']");
+
+    // without debug=timing the phases aren't returned
+    assertQ(req("q", "title:title", CommonParams.DEBUG, CommonParams.QUERY),
+        "count(//lst[@name='phases'])=0");
+
+    Map<String, Metric> metrics = h.getCore().getCoreMetricManager().getRegistry().getMetrics();
+    for (QueryPhaseProfiler.Phase phase : QueryPhaseProfiler.Phase.values()) {
+      Metric metric = metrics.get("QUERY./select.phases." + phase.getName());
+      assertTrue(phase.getName(), metric instanceof Timer);
+    }
+  }
+}
@@ -18,6 +18,7 @@ package org.apache.solr.handler.loader;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -25,6 +26,7 @@ import org.apache.solr.SolrTestCaseJ4;
 import org.apache.solr.client.solrj.request.JavaBinUpdateRequestCodec;
 import org.apache.solr.client.solrj.request.UpdateRequest;
 import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.util.ByteArrayUtf8CharSequence;
 import org.apache.solr.common.util.ContentStreamBase;
 import org.apache.solr.request.SolrQueryRequest;
 import org.apache.solr.response.SolrQueryResponse;
@@ -88,4 +90,47 @@ public class JavabinLoaderTest extends SolrTestCaseJ4 {
     // last doc should have the flag set
     assertTrue(mockUpdateProcessor.addCommands.get(batch.size()-1).isLastDocInBatch);
   }
+
+  public void testZeroCopy() throws Exception {
+    byte[] payload = new byte[] {1, 2, 3, 4, 5};
+    SolrInputDocument doc = new SolrInputDocument();
+    doc.setField("id", "1");
+    doc.setField("name", "zero copy");
+    doc.setField("data", payload);
+    UpdateRequest updateRequest = new UpdateRequest();
+    updateRequest.add(doc);
+
+    ByteArrayOutputStream os = new ByteArrayOutputStream();
+    (new JavaBinUpdateRequestCodec()).marshal(updateRequest, os);
+
+    BufferingRequestProcessor mockUpdateProcessor = new BufferingRequestProcessor(null) {
+      @Override
+      public void processAdd(AddUpdateCommand cmd) throws IOException {
+        addCommands.add((AddUpdateCommand)cmd.clone());
+      }
+    };
+
+    SolrQueryRequest req = req(JavabinLoader.ZERO_COPY, "true");
+    (new JavabinLoader()).load(req,
+        new SolrQueryResponse(),
+        new ContentStreamBase.ByteArrayStream(os.toByteArray(), "test"),
+        mockUpdateProcessor);
+    req.close();
+
+    assertEquals(1, mockUpdateProcessor.addCommands.size());
+    SolrInputDocument received = mockUpdateProcessor.addCommands.get(0).solrDoc;
+    Object name = received.getField("name").getValue();
+    assertTrue(name instanceof ByteArrayUtf8CharSequence);
+    assertEquals("zero copy", name.toString());
+    // the masked accessor still hands out Strings
+    assertEquals("1", received.getFieldValue("id"));
+
+    Object data = received.getField("data").getValue();
+    assertTrue(data instanceof ByteBuffer);
+    ByteBuffer buf = (ByteBuffer) data;
+    assertEquals(payload.length, buf.remaining());
+    byte[] copy = new byte[buf.remaining()];
+    buf.duplicate().get(copy);
+    assertArrayEquals(payload, copy);
+  }
 }
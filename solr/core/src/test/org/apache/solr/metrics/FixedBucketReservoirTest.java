@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.metrics;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
+import org.apache.solr.core.PluginInfo;
+import org.junit.Test;
+
+public class FixedBucketReservoirTest extends SolrTestCase {
+
+  private static class ManualClock extends Clock {
+    long tick;
+
+    @Override
+    public long getTick() {
+      return tick;
+    }
+  }
+
+  @Test
+  public void testBuckets() {
+    for (int i = 0; i < FixedBucketReservoir.NUM_BUCKETS; i++) {
+      assertEquals(i, FixedBucketReservoir.bucketIndex(FixedBucketReservoir.lowerBound(i)));
+      assertEquals(i, FixedBucketReservoir.bucketIndex(FixedBucketReservoir.upperBound(i)));
+      if (i > 0) {
+        assertEquals(FixedBucketReservoir.upperBound(i - 1) + 1, FixedBucketReservoir.lowerBound(i));
+      }
+    }
+    assertEquals(0, FixedBucketReservoir.bucketIndex(-5));
+    assertEquals(FixedBucketReservoir.NUM_BUCKETS - 1, FixedBucketReservoir.bucketIndex(Long.MAX_VALUE));
+
+    for (int i = 0; i < 1000; i++) {
+      long value = random().nextLong() & Long.MAX_VALUE;
+      long representative = FixedBucketReservoir.representativeValue(FixedBucketReservoir.bucketIndex(value));
+      assertTrue(value + " " + representative, Math.abs(representative - value) <= value / FixedBucketReservoir.SUB_BUCKETS);
+    }
+  }
+
+  @Test
+  public void testSnapshot() {
+    FixedBucketReservoir reservoir = new FixedBucketReservoir();
+    for (int i = 1; i <= 1000; i++) {
+      reservoir.update(i * 1000L);
+    }
+    assertEquals(1000, reservoir.size());
+
+    Snapshot snapshot = reservoir.getSnapshot();
+    assertEquals(1000, snapshot.size());
+    assertEquals(500_500, snapshot.getMean(), 0.001);
+    assertEquals(500_000, snapshot.getMedian(), 500_000 / 16.0);
+    assertEquals(990_000, snapshot.get99thPercentile(), 990_000 / 16.0);
+    assertTrue(snapshot.getMin() <= 1000);
+    assertTrue(snapshot.getMax() >= 1_000_000);
+    assertEquals(288_675, snapshot.getStdDev(), 288_675 / 16.0);
+
+    long[] values = snapshot.getValues();
+    assertTrue(values.length > 0 && values.length < 1000);
+    for (int i = 1; i < values.length; i++) {
+      assertTrue(values[i - 1] < values[i]);
+    }
+
+    Snapshot empty = new FixedBucketReservoir().getSnapshot();
+    assertEquals(0, empty.size());
+    assertEquals(0, empty.getMean(), 0.0);
+    assertEquals(0, empty.get99thPercentile(), 0.0);
+  }
+
+  @Test
+  public void testRotation() {
+    ManualClock clock = new ManualClock();
+    FixedBucketReservoir reservoir = new FixedBucketReservoir(60, TimeUnit.SECONDS, clock, 2);
+    reservoir.update(10);
+    assertEquals(1, reservoir.size());
+
+    // values are kept in the previous window
+    clock.tick += TimeUnit.SECONDS.toNanos(61);
+    reservoir.update(20);
+    assertEquals(2, reservoir.size());
+
+    clock.tick += TimeUnit.SECONDS.toNanos(61);
+    assertEquals(1, reservoir.size());
+    assertEquals(20, reservoir.getSnapshot().getMean(), 0.0);
+
+    // nothing is left after two idle windows
+    clock.tick += TimeUnit.SECONDS.toNanos(200);
+    assertEquals(0, reservoir.size());
+  }
+
+  @Test
+  public void testConcurrentUpdates() throws Exception {
+    FixedBucketReservoir reservoir = new FixedBucketReservoir(1, TimeUnit.HOURS, Clock.defaultClock(), 4);
+    int threads = 8;
+    int updates = 10_000;
+    ExecutorService executor = ExecutorUtil.newMDCAwareFixedThreadPool(threads, new SolrNamedThreadFactory("reservoir"));
+    try {
+      for (int t = 0; t < threads; t++) {
+        executor.submit(() -> {
+          for (int i = 0; i < updates; i++) {
+            reservoir.update(i);
+          }
+        });
+      }
+    } finally {
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+    }
+    assertEquals(threads * updates, reservoir.size());
+  }
+
+  @Test
+  public void testSupplier() {
+    NamedList<Object> args = new NamedList<>();
+    args.add(MetricSuppliers.RESERVOIR, FixedBucketReservoir.class.getName());
+    args.add(MetricSuppliers.RESERVOIR_WINDOW, 60);
+    args.add(MetricSuppliers.RESERVOIR_STRIPES, 8);
+    PluginInfo info = new PluginInfo("timer", Collections.emptyMap(), args, null);
+
+    MetricSuppliers.DefaultTimerSupplier supplier = new MetricSuppliers.DefaultTimerSupplier(null);
+    supplier.init(info);
+    Reservoir reservoir = supplier.getReservoir();
+    assertTrue(reservoir instanceof FixedBucketReservoir);
+
+    Timer timer = supplier.newMetric();
+    timer.update(5, TimeUnit.MILLISECONDS);
+    assertEquals(1, timer.getCount());
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(5), timer.getSnapshot().getMedian(), TimeUnit.MILLISECONDS.toNanos(5) / 16.0);
+  }
+}
@@ -183,5 +183,11 @@ public class SolrMetricsIntegrationTest extends SolrTestCaseJ4 {
     assertTrue(metrics.containsKey("CONTAINER.version.implementation"));
     Gauge<?> g = (Gauge<?>)metrics.get("CONTAINER.fs.path");
     assertEquals(g.getValue(), cc.getSolrHome());
+
+    // the cores present on startup were created, registered (a no-op in standalone mode) and timed
+    Timer created = (Timer)metrics.get("CONTAINER.coreLoad.create");
+    assertTrue(created.getCount() > 0);
+    assertEquals(created.getCount(), ((Timer)metrics.get("CONTAINER.coreLoad.register")).getCount());
+    assertTrue(((Number)((Gauge<?>)metrics.get("CONTAINER.coreLoad.startupTime")).getValue()).longValue() >= 0);
   }
 }
@@ -37,6 +37,7 @@ import org.apache.solr.search.ReturnFields;
 import org.apache.solr.search.SolrReturnFields;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.noggit.JSONUtil;
 
 /** Test some aspects of JSON/python writer output (very incomplete)
  *
@@ -93,6 +94,28 @@ public class JSONWriterTest extends SolrTestCaseJ4 {
     assertEquals(JSONWriter.JSON_NL_STYLE_COUNT, namedListStyles.length);
   }
 
+  @Test
+  public void testStringEscaping() throws IOException {
+    SolrQueryRequest req = req("wt","json", "indent", "off");
+    JSONResponseWriter w = new JSONResponseWriter();
+    final char[] chars = {'a', 'b', ' ', '!', '"', '#', '\\', '/', '\n', '\r', '\t', '\b', '\f', '\u0001', '\u001f',
+        '\u00e9', '\u2028', '\u2029', '\u204a', '\uffff'};
+    for (int iter = 0; iter < 100; iter++) {
+      StringBuilder sb = new StringBuilder();
+      for (int i = random().nextInt(50); i > 0; i--) {
+        sb.append(chars[random().nextInt(chars.length)]);
+      }
+      String val = sb.toString();
+      SolrQueryResponse rsp = new SolrQueryResponse();
+      rsp.add("str", val);
+      StringWriter buf = new StringWriter();
+      w.write(buf, req, rsp);
+      // same escaping as noggit
+      jsonEq("{\"str\":" + JSONUtil.toJSON(val) + "}", buf.toString());
+    }
+    req.close();
+  }
+
   private void implTestJSON(final String namedListStyle) throws IOException {
     SolrQueryRequest req = req("wt","json","json.nl",namedListStyle, "indent", "off");
     SolrQueryResponse rsp = new SolrQueryResponse();
@@ -34,6 +34,7 @@ import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.util.ByteArrayUtf8CharSequence;
 import org.apache.solr.common.util.ByteUtils;
 import org.apache.solr.common.util.JavaBinCodec;
+import org.apache.solr.common.util.JavaBinDictionary;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.request.LocalSolrQueryRequest;
 import org.apache.solr.request.SolrQueryRequest;
@@ -133,6 +134,37 @@ public class TestBinaryResponseWriter extends SolrTestCaseJ4 {
     req.close();
   }
 
+  public void testDictionary() throws Exception {
+    JavaBinDictionary dictionary = h.getCore().getLatestSchema().getJavaBinDictionary();
+    assertEquals(dictionary.getId(), JavaBinDictionary.forFieldNames(h.getCore().getLatestSchema().getFields().keySet()).getId());
+    assertU(adoc("id", "1", "title", "a title"));
+    assertU(commit());
+
+    BinaryQueryResponseWriter writer = (BinaryQueryResponseWriter) h.getCore().getQueryResponseWriter("javabin");
+    for (String id : new String[] {Long.toString(dictionary.getId()), "123"}) {
+      SolrQueryRequest req = req("q", "id:1", "fl", "id,title", JavaBinDictionary.PARAM, id);
+      SolrQueryResponse rsp = h.queryAndResponse(null, req);
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      writer.write(baos, req, rsp);
+
+      // a codec with the dictionary reads both, the server only used it when the id matched
+      NamedList<?> res;
+      try (JavaBinCodec codec = new JavaBinCodec()) {
+        res = (NamedList<?>) codec.setDictionary(dictionary).unmarshal(baos.toByteArray());
+      }
+      SolrDocumentList docs = (SolrDocumentList) res.get("response");
+      assertEquals("a title", docs.get(0).getFieldValue("title"));
+      try (JavaBinCodec codec = new JavaBinCodec()) {
+        if (id.equals("123")) {
+          codec.unmarshal(baos.toByteArray());
+        } else {
+          expectThrows(RuntimeException.class, () -> codec.unmarshal(baos.toByteArray()));
+        }
+      }
+      req.close();
+    }
+  }
+
   public void testResolverSolrDocumentPartialFields() throws Exception {
     LocalSolrQueryRequest req = lrf.makeRequest("q", "*:*",
                                                 "fl", "id,xxx,ddd_s"); 
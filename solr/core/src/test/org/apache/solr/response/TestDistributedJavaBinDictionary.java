@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.response;
+
+import org.apache.solr.BaseDistributedSearchTestCase;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.impl.BinaryResponseParser;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.JavaBinDictionary;
+import org.apache.solr.core.SolrCore;
+import org.junit.Test;
+
+/**
+ * A client asking for a javabin dictionary gets its response with it, while the shard requests,
+ * which copy the params of the request, are answered without one.
+ */
+public class TestDistributedJavaBinDictionary extends BaseDistributedSearchTestCase {
+
+  @Test
+  @ShardsFixed(num = 2)
+  public void test() throws Exception {
+    del("*:*");
+    for (int i = 0; i < 10; i++) {
+      indexr(id, i, "title", "title " + i);
+    }
+    commit();
+
+    JavaBinDictionary dictionary;
+    try (SolrCore core = jettys.get(0).getCoreContainer().getCore(DEFAULT_TEST_CORENAME)) {
+      dictionary = core.getLatestSchema().getJavaBinDictionary();
+    }
+    String baseUrl = buildUrl(jettys.get(0).getLocalPort());
+    String url = baseUrl + (baseUrl.endsWith("/") ? "" : "/") + DEFAULT_TEST_CORENAME;
+    try (SolrClient client = getHttpSolrClient(url, null, new BinaryResponseParser().setDictionary(dictionary))) {
+      ModifiableSolrParams params = params("q", "*:*", "fl", "id,title", "sort", "id asc", "shards", shards);
+      QueryResponse rsp = client.query(params);
+      assertEquals(10, rsp.getResults().getNumFound());
+      assertEquals("title 0", rsp.getResults().get(0).getFieldValue("title"));
+
+      // the client sends the id of its own dictionary, even if the params ask for another one
+      params.set(JavaBinDictionary.PARAM, "123");
+      assertEquals(10, client.query(params).getResults().getNumFound());
+    }
+
+    // a client without a dictionary doesn't forward the param of the request
+    ModifiableSolrParams params = params("q", "*:*", "shards", shards,
+        JavaBinDictionary.PARAM, Long.toString(dictionary.getId()));
+    assertEquals(10, clients.get(0).query(params).getResults().getNumFound());
+  }
+}
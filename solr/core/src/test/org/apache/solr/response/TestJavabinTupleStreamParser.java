@@ -28,6 +28,7 @@ import java.util.Map;
 
 import org.apache.solr.SolrTestCaseJ4;
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.comp.StreamComparator;
 import org.apache.solr.client.solrj.io.stream.JavabinTupleStreamParser;
 import org.apache.solr.client.solrj.io.stream.StreamContext;
@@ -100,46 +101,7 @@ public class TestJavabinTupleStreamParser extends SolrTestCaseJ4 {
     l.add(Map.of("id", 2, "f", 2.0f, "s", "Some str 2"));
     l.add(Map.of("id", 3, "f", 1.0f, "s", "Some str 3"));
     l.add(Map.of("EOF", true, "RESPONSE_TIME", 206, "sleepMillis", 1000));
-    Iterator<Map<String, Object>> iterator = l.iterator();
-    TupleStream tupleStream = new TupleStream() {
-      @Override
-      public void setStreamContext(StreamContext context) {
-
-      }
-
-      @Override
-      public List<TupleStream> children() {
-        return null;
-      }
-
-      @Override
-      public void open() throws IOException {
-      }
-
-      @Override
-      public void close() throws IOException {
-      }
-
-      @Override
-      public Tuple read() throws IOException {
-        if (iterator.hasNext()) return new Tuple(iterator.next());
-        else return null;
-      }
-
-      @Override
-      public StreamComparator getStreamSort() {
-        return null;
-      }
-
-      @Override
-      public Explanation toExplanation(StreamFactory factory) throws IOException {
-        return new StreamExplanation(getStreamNodeId().toString())
-            .withFunctionName("Dummy")
-            .withImplementingClass(this.getClass().getName())
-            .withExpressionType(Explanation.ExpressionType.STREAM_SOURCE)
-            .withExpression("--non-expressible--");
-      }
-    };
+    TupleStream tupleStream = tupleStream(l.iterator());
 
     byte[] bytes = serialize(tupleStream);
     JavabinTupleStreamParser parser = new JavabinTupleStreamParser(new ByteArrayInputStream(bytes), true);
@@ -170,6 +132,41 @@ public class TestJavabinTupleStreamParser extends SolrTestCaseJ4 {
     assertEquals(Boolean.TRUE, m.get("EOF"));
   }
 
+  public void testNextInto() throws IOException {
+    List<Map<String, Object>> l = new ArrayList<>();
+    l.add(Map.of("id", 1L, "f", 1.5, "s", "Some str 1"));
+    l.add(Map.of("id", 2L, "s", "Some str 2"));
+    l.add(Map.of("id", 3L, "f", "not a double"));
+    l.add(Map.of("EOF", true, "RESPONSE_TIME", 206));
+    byte[] bytes = serialize(tupleStream(l.iterator()));
+
+    try (JavabinTupleStreamParser parser = new JavabinTupleStreamParser(new ByteArrayInputStream(bytes), true)) {
+      TupleBatch batch = new TupleBatch(2);
+      assertTrue(parser.nextInto(batch));
+      assertTrue(parser.nextInto(batch));
+      assertTrue(batch.isFull());
+      assertEquals(TupleBatch.Column.Type.LONG, batch.getColumn("id").getType());
+      assertEquals(2L, batch.getColumn("id").getLong(1));
+      assertEquals(TupleBatch.Column.Type.DOUBLE, batch.getColumn("f").getType());
+      assertEquals(1.5, batch.getColumn("f").getDouble(0), 0.0);
+      assertTrue(batch.getColumn("f").isNull(1));
+      assertEquals("Some str 2", batch.getTuple(1).getString("s"));
+
+      batch = new TupleBatch(10);
+      assertTrue(parser.nextInto(batch));
+      assertEquals("not a double", batch.getTuple(0).get("f"));
+      // the EOF tuple isn't added to the batch but left for next()
+      assertFalse(parser.nextInto(batch));
+      assertEquals(1, batch.size());
+      @SuppressWarnings({"rawtypes"})
+      Map m = parser.next();
+      assertEquals(Boolean.TRUE, m.get("EOF"));
+      assertEquals(206L, m.get("RESPONSE_TIME"));
+      assertFalse(parser.nextInto(batch));
+      assertNull(parser.next());
+    }
+  }
+
   @SuppressWarnings({"unchecked", "rawtypes"})
   public void testSolrDocumentList() throws IOException {
     SolrQueryResponse response = new SolrQueryResponse();
@@ -194,6 +191,48 @@ public class TestJavabinTupleStreamParser extends SolrTestCaseJ4 {
     }
 
   }
+  private static TupleStream tupleStream(Iterator<Map<String, Object>> iterator) {
+    return new TupleStream() {
+      @Override
+      public void setStreamContext(StreamContext context) {
+
+      }
+
+      @Override
+      public List<TupleStream> children() {
+        return null;
+      }
+
+      @Override
+      public void open() throws IOException {
+      }
+
+      @Override
+      public void close() throws IOException {
+      }
+
+      @Override
+      public Tuple read() throws IOException {
+        if (iterator.hasNext()) return new Tuple(iterator.next());
+        else return null;
+      }
+
+      @Override
+      public StreamComparator getStreamSort() {
+        return null;
+      }
+
+      @Override
+      public Explanation toExplanation(StreamFactory factory) throws IOException {
+        return new StreamExplanation(getStreamNodeId().toString())
+            .withFunctionName("Dummy")
+            .withImplementingClass(this.getClass().getName())
+            .withExpressionType(Explanation.ExpressionType.STREAM_SOURCE)
+            .withExpression("--non-expressible--");
+      }
+    };
+  }
+
   @SuppressWarnings({"unchecked"})
   public static byte[] serialize(Object o) throws IOException {
     SolrQueryResponse response = new SolrQueryResponse();
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.util.Utils;
+import org.apache.solr.index.NoMergePolicyFactory;
+import org.apache.solr.request.SolrQueryRequest;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Compares the results of queries searched concurrently over the segments with the ones
+ * of the same queries with a post filter matching all the documents, which are searched
+ * by the calling thread only.
+ */
+public class TestConcurrentSearch extends SolrTestCaseJ4 {
+
+  // a post filter matching all the documents
+  private static final String SEQUENTIAL = "{!frange l=0 cache=false}val_i";
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    // one segment per commit
+    systemSetPropertySolrTestsMergePolicyFactory(NoMergePolicyFactory.class.getName());
+    System.setProperty("solr.tests.indexSearcherExecutorThreads", "2");
+    initCore("solrconfig-concurrent-search.xml", "schema.xml");
+
+    int id = 0;
+    for (int commit = 0; commit < 5; commit++) {
+      for (int i = 0; i < 20 + commit * 7; i++, id++) {
+        List<String> words = new ArrayList<>(Arrays.asList("x", "y"));
+        for (int j = 0; j < id % 4; j++) {
+          words.add("a");
+        }
+        if (id % 3 == 0) {
+          words.add("b");
+        }
+        assertU(adoc("id", "" + id, "val_i", "" + (id % 13), "cat_s", "cat" + (id % 5),
+            "text", String.join(" ", words)));
+      }
+      assertU(commit());
+    }
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    System.clearProperty("solr.tests.indexSearcherExecutorThreads");
+    systemClearPropertySolrTestsMergePolicyFactory();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Object search(String... params) throws Exception {
+    String response = JQ(req(params));
+    Map<String,Object> results = (Map<String,Object>) Utils.fromJSONString(response);
+    results.remove("responseHeader");
+    return results;
+  }
+
+  private static void assertSameResultsAsSequential(String... params) throws Exception {
+    Object concurrent = search(params);
+    String[] sequentialParams = Arrays.copyOf(params, params.length + 2);
+    sequentialParams[params.length] = "fq";
+    sequentialParams[params.length + 1] = SEQUENTIAL;
+    assertEquals(Arrays.toString(params), search(sequentialParams), concurrent);
+  }
+
+  @Test
+  public void testSearchIsConcurrent() throws Exception {
+    h.getCore().withSearcher(searcher -> {
+      assertTrue(searcher.isSearchConcurrent());
+      assertTrue(searcher.getTopReaderContext().leaves().size() > 1);
+      return null;
+    });
+  }
+
+  @Test
+  public void testTopDocs() throws Exception {
+    assertSameResultsAsSequential("q", "text:a", "fl", "id,score", "rows", "15");
+    assertSameResultsAsSequential("q", "text:a text:b", "fl", "id,score", "rows", "200");
+    assertSameResultsAsSequential("q", "text:a", "fl", "id,score", "sort", "val_i desc, id asc", "rows", "20");
+    assertSameResultsAsSequential("q", "*:*", "fl", "id", "sort", "val_i asc, id desc", "start", "10", "rows", "10");
+    assertSameResultsAsSequential("q", "text:b", "fq", "val_i:[3 TO 9]", "fl", "id,score", "rows", "10");
+    assertSameResultsAsSequential("q", "text:nomatch", "fl", "id,score", "rows", "10");
+  }
+
+  @Test
+  public void testNoRows() throws Exception {
+    assertSameResultsAsSequential("q", "text:a", "fl", "id,score", "rows", "0");
+    assertSameResultsAsSequential("q", "*:*", "fq", "cat_s:cat2", "rows", "0");
+  }
+
+  @Test
+  public void testDocSet() throws Exception {
+    assertSameResultsAsSequential("q", "text:a", "fl", "id,score", "rows", "5",
+        "facet", "true", "facet.field", "cat_s");
+    assertSameResultsAsSequential("q", "text:b", "rows", "0", "facet", "true", "facet.field", "val_i");
+    assertSameResultsAsSequential("q", "*:*", "fq", "{!cache=false}text:a", "fq", "{!cache=false}cat_s:cat1",
+        "fl", "id", "sort", "id asc", "rows", "10", "facet", "true", "facet.field", "val_i");
+  }
+
+  @Test
+  public void testCursor() throws Exception {
+    String[] params = {"q", "text:a", "fl", "id", "sort", "val_i desc, id asc", "rows", "7"};
+    String cursorMark = "*";
+    for (int page = 0; page < 4; page++) {
+      String[] pageParams = Arrays.copyOf(params, params.length + 2);
+      pageParams[params.length] = "cursorMark";
+      pageParams[params.length + 1] = cursorMark;
+      assertSameResultsAsSequential(pageParams);
+      @SuppressWarnings("unchecked")
+      Map<String,Object> results = (Map<String,Object>) search(pageParams);
+      cursorMark = (String) results.get("nextCursorMark");
+    }
+  }
+
+  @Test
+  public void testWeightsNotThreadSafe() throws Exception {
+    assertFalse(isWeightThreadSafe("{!join from=id to=id}text:b"));
+    assertFalse(isWeightThreadSafe("text:a _query_:\"{!join from=id to=id}text:b\""));
+    assertFalse(isWeightThreadSafe("{!frange l=0.5}scale(val_i,0,1)"));
+    assertFalse(isWeightThreadSafe("{!func}scale(val_i,0,1)"));
+    assertTrue(isWeightThreadSafe("text:a AND val_i:[3 TO 9]"));
+
+    // these are collected by the calling thread, with the same results
+    assertSameResultsAsSequential("q", "{!join from=id to=id}text:b", "fl", "id", "sort", "id asc", "rows", "20");
+    assertSameResultsAsSequential("q", "text:a", "fq", "{!join from=id to=id cache=false}text:b",
+        "fl", "id,score", "rows", "20");
+    assertSameResultsAsSequential("q", "*:*", "fq", "{!frange l=0.5 cache=false}scale(val_i,0,1)",
+        "fl", "id", "sort", "val_i desc, id asc", "rows", "20");
+    assertSameResultsAsSequential("q", "{!func}scale(val_i,0,1)", "fl", "id,score", "rows", "20");
+  }
+
+  @Test
+  public void testCachedFiltersNotThreadSafe() throws Exception {
+    // cached filters and facet queries are computed on their own, and cached for the sequential search, so they
+    // are compared with equivalent queries: the join of id to id, and val_i scaled from [0, 12] to [0, 1]
+    assertSameResults(new String[] {"q", "text:a", "fq", "{!join from=id to=id}text:b",
+        "fl", "id", "sort", "id asc", "rows", "20"},
+        new String[] {"q", "text:a", "fq", "text:b", "fl", "id", "sort", "id asc", "rows", "20"});
+    assertSameResults(new String[] {"q", "*:*", "fq", "{!frange l=0.5}scale(val_i,0,1)",
+        "fl", "id", "sort", "val_i desc, id asc", "rows", "20"},
+        new String[] {"q", "*:*", "fq", "val_i:[6 TO *]", "fl", "id", "sort", "val_i desc, id asc", "rows", "20"});
+    assertSameResults(new String[] {"q", "text:a", "fq", "{!func}scale(val_i,0,1)",
+        "fl", "id", "sort", "id asc", "rows", "20"},
+        new String[] {"q", "text:a", "fl", "id", "sort", "id asc", "rows", "20"});
+    assertSameResults(new String[] {"q", "text:a", "rows", "0", "facet", "true",
+        "facet.query", "{!join key=b from=id to=id}text:b", "facet.query", "{!frange key=upper l=0.5}scale(val_i,0,1)"},
+        new String[] {"q", "text:a", "rows", "0", "facet", "true",
+        "facet.query", "{!key=b}text:b", "facet.query", "{!key=upper}val_i:[6 TO *]"});
+  }
+
+  private static void assertSameResults(String[] params, String[] equivalentParams) throws Exception {
+    Object results = search(params);
+    assertEquals(Arrays.toString(params), search(equivalentParams), results);
+  }
+
+  private static boolean isWeightThreadSafe(String q) throws Exception {
+    try (SolrQueryRequest req = req()) {
+      return SolrIndexSearcher.isWeightThreadSafe(QParser.getParser(q, req).getQuery());
+    }
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.solr.servlet;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.core.RateLimiterConfig;
+import org.apache.solr.servlet.RequestRateLimiter.RequestPriority;
+import org.junit.Test;
+
+public class TestAdaptiveConcurrencyLimit extends SolrTestCase {
+
+  private static RateLimiterConfig config(int minAllowedRequests, int allowedRequests) {
+    RateLimiterConfig config = new RateLimiterConfig(SolrRequest.SolrRequestType.QUERY);
+    config.isEnabled = true;
+    config.isAdaptive = true;
+    config.minAllowedRequests = minAllowedRequests;
+    config.allowedRequests = allowedRequests;
+    return config;
+  }
+
+  // admits as many requests as possible, then completes them all with the given latency
+  private static int fill(AdaptiveConcurrencyLimit limit, RateLimiterConfig config, long latencyMs) throws InterruptedException {
+    int admitted = 0;
+    while (limit.acquire(RequestPriority.NORMAL, config, 0)) {
+      admitted++;
+    }
+    for (int i = 0; i < admitted; i++) {
+      limit.release(TimeUnit.MILLISECONDS.toNanos(latencyMs), config);
+    }
+    return admitted;
+  }
+
+  @Test
+  public void testLimitFollowsLatency() throws Exception {
+    RateLimiterConfig config = config(20, 100);
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10);
+    assertEquals(10, fill(limit, config, 10));
+
+    // the limit grows while the latency is steady
+    for (int i = 0; i < 100; i++) {
+      fill(limit, config, 10);
+    }
+    assertEquals(100, limit.getLimit());
+
+    // shrinks down to the minimum as soon as requests get much slower
+    for (int i = 0; i < 3; i++) {
+      fill(limit, config, 200);
+      assertEquals(20, limit.getLimit());
+    }
+
+    // and recovers with the latency
+    for (int i = 0; i < 100; i++) {
+      fill(limit, config, 10);
+    }
+    assertEquals(100, limit.getLimit());
+    assertEquals(0, limit.getInFlight());
+
+    // a lower maximum is applied on the next update
+    config.allowedRequests = 1;
+    fill(limit, config, 10);
+    assertEquals(1, limit.getLimit());
+  }
+
+  @Test
+  public void testPriorities() throws Exception {
+    RateLimiterConfig config = config(1, 20);
+    config.lowPriorityRatio = 0.5;
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10);
+
+    for (int i = 0; i < 5; i++) {
+      assertTrue(limit.acquire(RequestPriority.LOW, config, 0));
+    }
+    assertFalse(limit.acquire(RequestPriority.LOW, config, 0));
+    for (int i = 0; i < 5; i++) {
+      assertTrue(limit.acquire(RequestPriority.NORMAL, config, 0));
+    }
+    assertFalse(limit.acquire(RequestPriority.NORMAL, config, 0));
+    // high priority requests may use all the allowed requests
+    for (int i = 0; i < 10; i++) {
+      assertTrue(limit.acquire(RequestPriority.HIGH, config, 0));
+    }
+    assertFalse(limit.acquire(RequestPriority.HIGH, config, 10));
+    assertEquals(20, limit.getInFlight());
+  }
+
+  @Test
+  public void testClientPriority() {
+    assertEquals(RequestPriority.LOW, RequestPriority.fromClient("low"));
+    assertEquals(RequestPriority.NORMAL, RequestPriority.fromClient(null));
+    assertEquals(RequestPriority.NORMAL, RequestPriority.fromClient("bogus"));
+    // clients can't claim a high priority
+    assertEquals(RequestPriority.NORMAL, RequestPriority.fromClient("high"));
+    assertEquals(RequestPriority.NORMAL, RequestPriority.fromClient("HIGH"));
+  }
+
+  @Test
+  public void testWaitForSlot() throws Exception {
+    RateLimiterConfig config = config(1, 1);
+    AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1);
+    assertTrue(limit.acquire(RequestPriority.NORMAL, config, 0));
+
+    Thread releaser = new Thread(() -> {
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      limit.release(TimeUnit.MILLISECONDS.toNanos(50), config);
+    });
+    releaser.start();
+    assertTrue(limit.acquire(RequestPriority.NORMAL, config, 10_000));
+    releaser.join();
+    assertEquals(1, limit.getInFlight());
+  }
+
+  @Test
+  public void testRequestRateLimiter() throws Exception {
+    RateLimiterConfig config = config(1, 2);
+    RequestRateLimiter rateLimiter = new RequestRateLimiter(config);
+    RequestRateLimiter.SlotMetadata first = rateLimiter.handleRequest(RequestPriority.NORMAL);
+    RequestRateLimiter.SlotMetadata second = rateLimiter.handleRequest(RequestPriority.HIGH);
+    assertTrue(first.isReleasable());
+    assertTrue(second.isReleasable());
+    assertNull(rateLimiter.handleRequest(RequestPriority.NORMAL));
+    // no slots are borrowed from an adaptive rate limiter
+    assertFalse(rateLimiter.allowSlotBorrowing().isReleasable());
+    first.decrementRequest();
+    second.decrementRequest();
+    assertNotNull(rateLimiter.handleRequest());
+    assertEquals(RequestPriority.LOW, RequestPriority.get("low"));
+    assertEquals(RequestPriority.NORMAL, RequestPriority.get("urgent"));
+  }
+}
@@ -176,10 +176,10 @@ public class TestRequestRateLimiter extends SolrCloudTestCase {
     }
 
     @Override
-    public SlotMetadata handleRequest() throws InterruptedException {
+    public SlotMetadata handleRequest(RequestPriority priority) throws InterruptedException {
       incomingRequestCount.getAndIncrement();
 
-      SlotMetadata response = super.handleRequest();
+      SlotMetadata response = super.handleRequest(priority);
 
       if (response != null) {
         acceptedNewRequestCount.getAndIncrement();
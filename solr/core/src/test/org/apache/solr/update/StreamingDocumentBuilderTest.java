@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.update;
+
+import org.apache.lucene.document.Document;
+import org.apache.solr.SolrTestCaseJ4;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.schema.IndexSchema;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class StreamingDocumentBuilderTest extends SolrTestCaseJ4 {
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    initCore("solrconfig.xml", "schema.xml");
+  }
+
+  @Test
+  public void testSameFieldsAsDocumentBuilder() {
+    IndexSchema schema = h.getCore().getLatestSchema();
+    SolrInputDocument sdoc = new SolrInputDocument();
+    sdoc.addField("id", "1");
+    sdoc.addField("title", "this is more than 10 characters");
+    sdoc.addField("weight", "1.5");
+    Document expected = DocumentBuilder.toDocument(sdoc, schema);
+
+    StreamingDocumentBuilder builder = new StreamingDocumentBuilder(schema);
+    builder.addValue("id", "1");
+    builder.addValue("title", "this is more than 10 characters");
+    builder.addValue("weight", "1.5");
+    builder.addValue("name", null);
+    assertEquals("1", builder.getIdDocument().getFieldValue("id"));
+    Document out = builder.build();
+
+    for (String name : new String[] {"id", "title", "max_chars", "weight"}) {
+      assertEquals(name, expected.getFields(name).length, out.getFields(name).length);
+      assertEquals(name, expected.get(name), out.get(name));
+    }
+    assertEquals("this is mo", out.get("max_chars"));
+    assertNull(out.get("name"));
+    // the schema has _root_, which AddUpdateCommand would have added
+    assertEquals(1, out.getFields(IndexSchema.ROOT_FIELD_NAME).length);
+
+    // the builder was reset
+    assertNull(builder.getUniqueKey());
+    assertEquals(0, builder.getIdDocument().size());
+  }
+
+  @Test
+  public void testExceptions() {
+    StreamingDocumentBuilder builder = new StreamingDocumentBuilder(h.getCore().getLatestSchema());
+    builder.addValue("id", "123");
+    SolrException ex = expectThrows(SolrException.class, () -> builder.addValue("unknown", "something"));
+    assertEquals(400, ex.code());
+    assertTrue(ex.getMessage().contains("doc=123"));
+
+    ex = expectThrows(SolrException.class, () -> builder.addValue("id", "456"));
+    assertEquals(400, ex.code());
+    assertTrue(ex.getMessage().contains("multiple values encountered for non multiValued field id"));
+
+    ex = expectThrows(SolrException.class, () -> builder.addValue("weight", "not a number"));
+    assertTrue(ex.getCause() instanceof NumberFormatException);
+    builder.reset();
+
+    // max_chars is single valued, and is also the copyField target of title
+    builder.addValue("title", "first");
+    ex = expectThrows(SolrException.class, () -> builder.addValue("title", "second"));
+    assertTrue(ex.getMessage().contains("non multiValued copy field max_chars"));
+  }
+}
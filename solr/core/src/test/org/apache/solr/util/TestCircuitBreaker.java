@@ -19,6 +19,7 @@ package org.apache.solr.util;
 
 import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
@@ -27,10 +28,12 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import com.carrotsearch.randomizedtesting.rules.SystemPropertiesRestoreRule;
+import com.codahale.metrics.Meter;
 import org.apache.solr.SolrTestCaseJ4;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.NamedList;
 import org.apache.solr.common.util.SolrNamedThreadFactory;
 import org.apache.solr.core.PluginInfo;
 import org.apache.solr.search.QueryParsing;
@@ -38,6 +41,7 @@ import org.apache.solr.util.circuitbreaker.CPUCircuitBreaker;
 import org.apache.solr.util.circuitbreaker.CircuitBreaker;
 import org.apache.solr.util.circuitbreaker.CircuitBreakerManager;
 import org.apache.solr.util.circuitbreaker.MemoryCircuitBreaker;
+import org.apache.solr.util.circuitbreaker.QueryCost;
 import org.junit.After;
 import org.junit.BeforeClass;
 import org.junit.Rule;
@@ -265,6 +269,79 @@ public class TestCircuitBreaker extends SolrTestCaseJ4 {
     );
   }
 
+  public void testCostBasedAdmission() {
+    PluginInfo corePluginInfo = h.getCore().getSolrConfig().getPluginInfo(CircuitBreakerManager.class.getName());
+    CircuitBreaker.CircuitBreakerConfig circuitBreakerConfig = CircuitBreakerManager.buildCBConfig(corePluginInfo);
+
+    NamedList<Object> initArgs = new NamedList<>();
+    initArgs.add("costBasedAdmission", "true");
+    initArgs.add("admissionPressureThreshold", "0.5");
+    initArgs.add("maxQueryCost", "100");
+    PluginInfo pluginInfo = new PluginInfo("circuitBreaker", Collections.singletonMap("enabled", "true"), initArgs, null);
+
+    CircuitBreakerManager circuitBreakerManager = CircuitBreakerManager.build(pluginInfo);
+    assertTrue(circuitBreakerManager.isCostBasedAdmissionEnabled());
+    circuitBreakerManager.deregisterAll();
+
+    QueryCost cheapQuery = new QueryCost(1, 0, 10, 0, 0, false);
+    QueryCost deepPaging = new QueryCost(1, 0, 10, 1000, 0, false);
+    QueryCost facets = new QueryCost(2, 10, 10, 0, 0, false);
+    assertEquals(QueryCost.DEEP_PAGING, deepPaging.getDominantFactor());
+    assertEquals(QueryCost.FACETS, facets.getDominantFactor());
+
+    // no pressure, everything is admitted
+    circuitBreakerManager.register(new FakePressureCircuitBreaker(circuitBreakerConfig, 0.1));
+    assertNull(circuitBreakerManager.checkQueryCost(deepPaging));
+
+    // close to tripping, only cheap requests are admitted
+    circuitBreakerManager.deregisterAll();
+    circuitBreakerManager.register(new FakePressureCircuitBreaker(circuitBreakerConfig, 0.9));
+    assertEquals(0.9, circuitBreakerManager.getPressure(), 0.0);
+    assertNull(circuitBreakerManager.checkQueryCost(cheapQuery));
+    assertThat(circuitBreakerManager.checkQueryCost(deepPaging), containsString(QueryCost.DEEP_PAGING));
+    assertThat(circuitBreakerManager.checkQueryCost(facets), containsString(QueryCost.FACETS));
+
+    // the maximum admitted cost decreases as the pressure rises
+    assertEquals(Double.POSITIVE_INFINITY, circuitBreakerManager.getMaxAdmittedCost(0.4), 0.0);
+    assertEquals(100, circuitBreakerManager.getMaxAdmittedCost(0.5), 0.001);
+    assertEquals(10, circuitBreakerManager.getMaxAdmittedCost(0.75), 0.001);
+    assertEquals(1, circuitBreakerManager.getMaxAdmittedCost(1.5), 0.001);
+
+    // disabled by default
+    assertFalse(h.getCore().getCircuitBreakerManager().isCostBasedAdmissionEnabled());
+    assertNull(h.getCore().getCircuitBreakerManager().checkQueryCost(deepPaging));
+  }
+
+  public void testCostBasedAdmissionRejectsExpensiveRequests() {
+    removeAllExistingCircuitBreakers();
+
+    PluginInfo pluginInfo = h.getCore().getSolrConfig().getPluginInfo(CircuitBreakerManager.class.getName());
+    CircuitBreaker.CircuitBreakerConfig circuitBreakerConfig = CircuitBreakerManager.buildCBConfig(pluginInfo);
+    CircuitBreakerManager circuitBreakerManager = h.getCore().getCircuitBreakerManager();
+    Meter joinRejections = h.getCore().getSolrMetricsContext().getMetricRegistry()
+        .meter("QUERY.circuitBreaker.rejected." + CircuitBreakerManager.COST_REJECTION_PREFIX + QueryCost.JOINS);
+    long joinRejectionsBefore = joinRejections.getCount();
+
+    // a pressure of 0.9 admits requests costing up to 100^0.2, about 2.5
+    circuitBreakerManager.setCostBasedAdmission(true, 0.5, 100);
+    try {
+      circuitBreakerManager.register(new FakePressureCircuitBreaker(circuitBreakerConfig, 0.9));
+
+      assertQ(req("q", "*:*", "rows", "10"), "//result[@numFound='3']");
+
+      SolrException e = expectThrows(SolrException.class, () -> h.query(req("q", "*:*", "start", "1000")));
+      assertEquals(SolrException.ErrorCode.SERVICE_UNAVAILABLE.code, e.code());
+      assertThat(e.getMessage(), containsString(QueryCost.DEEP_PAGING));
+
+      e = expectThrows(SolrException.class, () -> h.query(req("q", "*:*", "fq", "{!join from=id to=id}name:john")));
+      assertEquals(SolrException.ErrorCode.SERVICE_UNAVAILABLE.code, e.code());
+      assertThat(e.getMessage(), containsString(QueryCost.JOINS));
+      assertEquals(joinRejectionsBefore + 1, joinRejections.getCount());
+    } finally {
+      circuitBreakerManager.setCostBasedAdmission(false, 0.75, 1000);
+    }
+  }
+
   private void removeAllExistingCircuitBreakers() {
     List<CircuitBreaker> registeredCircuitBreakers = h.getCore().getCircuitBreakerManager().getRegisteredCircuitBreakers();
 
@@ -333,6 +410,25 @@ public class TestCircuitBreaker extends SolrTestCaseJ4 {
     }
   }
 
+  private static class FakePressureCircuitBreaker extends MemoryCircuitBreaker {
+    private final double pressure;
+
+    public FakePressureCircuitBreaker(CircuitBreakerConfig config, double pressure) {
+      super(config);
+      this.pressure = pressure;
+    }
+
+    @Override
+    public boolean isTripped() {
+      return pressure >= 1;
+    }
+
+    @Override
+    public double getPressure() {
+      return pressure;
+    }
+  }
+
   private static class FakeCPUCircuitBreaker extends CPUCircuitBreaker {
     public FakeCPUCircuitBreaker(CircuitBreakerConfig config) {
       super(config);
@@ -97,7 +97,7 @@ public abstract class BaseCloudSolrClient extends SolrClient {
 
   private volatile String defaultCollection;
   //no of times collection state to be reloaded if stale state error is received
-  private static final int MAX_STALE_RETRIES = Integer.parseInt(System.getProperty("cloudSolrClientMaxStaleRetries", "5"));
+  protected static final int MAX_STALE_RETRIES = Integer.parseInt(System.getProperty("cloudSolrClientMaxStaleRetries", "5"));
   private Random rand = new Random();
 
   private final boolean updatesToLeaders;
@@ -820,6 +820,11 @@ public abstract class BaseCloudSolrClient extends SolrClient {
 
   @Override
   public NamedList<Object> request(SolrRequest<?> request, String collection) throws SolrServerException, IOException {
+    return requestWithRetryOnStaleState(request, 0, getInputCollections(request, collection));
+  }
+
+  /** Returns the collections or aliases a request is for, which may be none. */
+  protected List<String> getInputCollections(SolrRequest<?> request, String collection) {
     // the collection parameter of the request overrides that of the parameter to this method
     String requestCollection = request.getCollection();
     if (requestCollection != null) {
@@ -827,9 +832,12 @@ public abstract class BaseCloudSolrClient extends SolrClient {
     } else if (collection == null) {
       collection = defaultCollection;
     }
-    List<String> inputCollections =
-        collection == null ? Collections.emptyList() : StrUtils.splitSmart(collection, ",", true);
-    return requestWithRetryOnStaleState(request, 0, inputCollections);
+    return collection == null ? Collections.emptyList() : StrUtils.splitSmart(collection, ",", true);
+  }
+
+  /** Drops the cached state of the given collections, or of the collections of the given aliases. */
+  protected void invalidateCachedState(List<String> inputCollections, boolean isUpdate) {
+    collectionStateCache.keySet().removeAll(resolveAliases(inputCollections, isUpdate));
   }
 
   /**
@@ -1042,6 +1050,20 @@ public abstract class BaseCloudSolrClient extends SolrClient {
       sendToLeaders = true;
     }
 
+    List<String> theUrlList = getRequestUrls(request, inputCollections, sendToLeaders, isUpdate);
+    LBSolrClient.Req req = new LBSolrClient.Req(request, theUrlList);
+    LBSolrClient.Rsp rsp = getLbClient().request(req);
+    return rsp.getResponse();
+  }
+
+  /**
+   * Returns the base URLs of the nodes or replicas to send the request to, in order of preference.
+   *
+   * @param sendToLeaders if true, the leaders of the shards go first
+   * @param isUpdate if true, aliases resolve to the collection that takes updates
+   */
+  protected List<String> getRequestUrls(SolrRequest<?> request, List<String> inputCollections,
+                                        boolean sendToLeaders, boolean isUpdate) {
     SolrParams reqParams = request.getParams();
     if (reqParams == null) { // TODO fix getParams to never return null!
       reqParams = new ModifiableSolrParams();
@@ -1128,9 +1150,7 @@ public abstract class BaseCloudSolrClient extends SolrClient {
       }
     }
 
-    LBSolrClient.Req req = new LBSolrClient.Req(request, theUrlList);
-    LBSolrClient.Rsp rsp = getLbClient().request(req);
-    return rsp.getResponse();
+    return theUrlList;
   }
 
   /** Resolves the input collections to their possible aliased collections. Doesn't validate collection existence. */
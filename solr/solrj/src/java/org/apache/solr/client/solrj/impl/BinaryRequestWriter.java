@@ -26,6 +26,7 @@ import org.apache.solr.client.solrj.request.JavaBinUpdateRequestCodec;
 import org.apache.solr.client.solrj.request.RequestWriter;
 import org.apache.solr.client.solrj.request.UpdateRequest;
 import org.apache.solr.common.util.ContentStream;
+import org.apache.solr.common.util.JavaBinDictionary;
 
 import static org.apache.solr.common.params.CommonParams.JAVABIN_MIME;
 
@@ -38,6 +39,19 @@ import static org.apache.solr.common.params.CommonParams.JAVABIN_MIME;
  */
 public class BinaryRequestWriter extends RequestWriter {
 
+  private JavaBinDictionary dictionary;
+
+  /**
+   * Writes update requests with the given dictionary.  The server reads them with the dictionary of the schema
+   * of the collection, so requests fail unless the dictionary was built from the current schema field names.
+   *
+   * @see JavaBinDictionary#forFieldNames
+   */
+  public BinaryRequestWriter setDictionary(JavaBinDictionary dictionary) {
+    this.dictionary = dictionary;
+    return this;
+  }
+
   @Override
   public ContentWriter getContentWriter(SolrRequest<?> req) {
     if (req instanceof UpdateRequest) {
@@ -46,7 +60,7 @@ public class BinaryRequestWriter extends RequestWriter {
       return new ContentWriter() {
         @Override
         public void write(OutputStream os) throws IOException {
-          new JavaBinUpdateRequestCodec().marshal(updateRequest, os);
+          new JavaBinUpdateRequestCodec().setDictionary(dictionary).marshal(updateRequest, os);
         }
 
         @Override
@@ -80,7 +94,7 @@ public class BinaryRequestWriter extends RequestWriter {
   public void write(SolrRequest<?> request, OutputStream os) throws IOException {
     if (request instanceof UpdateRequest) {
       UpdateRequest updateRequest = (UpdateRequest) request;
-      new JavaBinUpdateRequestCodec().marshal(updateRequest, os);
+      new JavaBinUpdateRequestCodec().setDictionary(dictionary).marshal(updateRequest, os);
     }
   }
   
@@ -20,6 +20,7 @@ import org.apache.solr.client.solrj.ResponseParser;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.common.util.JavaBinCodec;
+import org.apache.solr.common.util.JavaBinDictionary;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -39,6 +40,21 @@ public class BinaryResponseParser extends ResponseParser {
     return this;
   }
 
+  protected JavaBinDictionary dictionary;
+
+  /**
+   * Asks for responses that use the given dictionary, see {@link JavaBinDictionary#PARAM}.  Servers with a
+   * different schema ignore it, so one dictionary only helps requests to the collection it was built for.
+   */
+  public BinaryResponseParser setDictionary(JavaBinDictionary dictionary) {
+    this.dictionary = dictionary;
+    return this;
+  }
+
+  public JavaBinDictionary getDictionary() {
+    return dictionary;
+  }
+
   @Override
   public String getWriterType() {
     return "javabin";
@@ -56,7 +72,7 @@ public class BinaryResponseParser extends ResponseParser {
   }
 
   protected JavaBinCodec createCodec() {
-    return new JavaBinCodec(null, stringCache);
+    return new JavaBinCodec(null, stringCache).setDictionary(dictionary);
   }
 
   @Override
@@ -18,13 +18,23 @@
 package org.apache.solr.client.solrj.impl;
 
 import java.io.IOException;
+import java.net.SocketException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.V2RequestSupport;
+import org.apache.solr.client.solrj.request.IsUpdateRequest;
 import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.client.solrj.request.V2Request;
 import org.apache.solr.common.SolrException;
+import org.apache.solr.common.util.NamedList;
+
+import static org.apache.solr.common.params.CommonParams.ADMIN_PATHS;
 
 /**
  * SolrJ client class to communicate with SolrCloud using Http2SolrClient.
@@ -118,6 +128,88 @@ public class CloudHttp2SolrClient  extends BaseCloudSolrClient {
     return false;
   }
 
+  /**
+   * Sends the request without blocking the calling thread.  Like {@link #request(SolrRequest, String)}, the request
+   * is routed with the cached cluster state and fails over between replicas with the {@link LBHttp2SolrClient}.
+   * If it fails in a way that suggests the cached state of the collection is stale, the state is dropped and the
+   * request is sent again.  Cancelling the returned future aborts the request.
+   * <p>
+   * Updates go to the shard leaders, which forward the documents to the right shards, rather than being split up
+   * by shard on the client side.
+   */
+  public CompletableFuture<NamedList<Object>> requestAsync(SolrRequest<?> request, String collection) {
+    if (request instanceof V2RequestSupport) {
+      request = ((V2RequestSupport) request).getV2Request();
+    }
+    return requestAsync(request, getInputCollections(request, collection), 0);
+  }
+
+  public CompletableFuture<NamedList<Object>> requestAsync(SolrRequest<?> request) {
+    return requestAsync(request, null);
+  }
+
+  private CompletableFuture<NamedList<Object>> requestAsync(SolrRequest<?> request, List<String> inputCollections,
+                                                            int retryCount) {
+    boolean isUpdate = request instanceof UpdateRequest;
+    boolean canRetry = !inputCollections.isEmpty() && !ADMIN_PATHS.contains(request.getPath())
+        && !(request instanceof V2Request && request.getMethod() != SolrRequest.METHOD.GET);
+    CompletableFuture<LBSolrClient.Rsp> lbFuture;
+    try {
+      if (isUpdate && inputCollections.size() > 1) {
+        throw new SolrException(SolrException.ErrorCode.BAD_REQUEST, "Update request must be sent to a single collection " +
+            "or an alias: " + inputCollections);
+      }
+      connect();
+      List<String> urls = getRequestUrls(request, inputCollections, request instanceof IsUpdateRequest, isUpdate);
+      lbFuture = lbClient.requestAsync(new LBSolrClient.Req(request, urls));
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+
+    CompletableFuture<NamedList<Object>> future = new CompletableFuture<>();
+    AtomicReference<CompletableFuture<?>> current = new AtomicReference<>(lbFuture);
+    lbFuture.whenComplete((rsp, throwable) -> {
+      if (throwable == null) {
+        future.complete(rsp.getResponse());
+      } else if (canRetry && retryCount < MAX_STALE_RETRIES && wasStaleState(throwable) && !future.isDone()) {
+        invalidateCachedState(inputCollections, isUpdate);
+        CompletableFuture<NamedList<Object>> retry = requestAsync(request, inputCollections, retryCount + 1);
+        current.set(retry);
+        if (future.isCancelled()) {
+          retry.cancel(false);
+        }
+        retry.whenComplete((retryRsp, retryThrowable) -> {
+          if (retryThrowable == null) {
+            future.complete(retryRsp);
+          } else {
+            future.completeExceptionally(retryThrowable);
+          }
+        });
+      } else {
+        future.completeExceptionally(throwable);
+      }
+    });
+    future.whenComplete((rsp, throwable) -> {
+      if (future.isCancelled()) {
+        current.get().cancel(false);
+      }
+    });
+    return future;
+  }
+
+  private static boolean wasStaleState(Throwable throwable) {
+    Throwable rootCause = SolrException.getRootCause(throwable);
+    if (rootCause instanceof SocketException) {
+      // includes ConnectException: the node may not be part of the collection anymore
+      return true;
+    }
+    if (rootCause instanceof SolrException) {
+      int code = ((SolrException) rootCause).code();
+      return code == 404 || code == SolrException.ErrorCode.INVALID_STATE.code;
+    }
+    return false;
+  }
+
   /**
    * Constructs {@link CloudHttp2SolrClient} instances from provided configuration.
    */
@@ -37,12 +37,15 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Phaser;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 import org.apache.http.HttpStatus;
 import org.apache.http.entity.ContentType;
@@ -67,6 +70,7 @@ import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.common.params.UpdateParams;
 import org.apache.solr.common.util.ContentStream;
 import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.JavaBinDictionary;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.common.util.ObjectReleaseTracker;
 import org.apache.solr.common.util.SolrNamedThreadFactory;
@@ -128,7 +132,7 @@ public class Http2SolrClient extends SolrClient {
   private ResponseParser parser = new BinaryResponseParser();
   private volatile RequestWriter requestWriter = new BinaryRequestWriter();
   private List<HttpListenerFactory> listenerFactory = new LinkedList<>();
-  private AsyncTracker asyncTracker = new AsyncTracker();
+  private final AsyncTracker asyncTracker;
   /**
    * The URL of the Solr server.
    */
@@ -153,6 +157,7 @@ public class Http2SolrClient extends SolrClient {
 
     if (builder.idleTimeout != null && builder.idleTimeout > 0) idleTimeout = builder.idleTimeout;
     else idleTimeout = HttpClientUtil.DEFAULT_SO_TIMEOUT;
+    asyncTracker = new AsyncTracker(builder.maxOutstandingAsyncRequests);
 
     if (builder.http2SolrClient == null) {
       httpClient = createHttpClient(builder);
@@ -397,20 +402,27 @@ public class Http2SolrClient extends SolrClient {
           public void onHeaders(Response response) {
             super.onHeaders(response);
             InputStreamResponseListener listener = this;
-            executor.execute(() -> {
-              InputStream is = listener.getInputStream();
-              assert ObjectReleaseTracker.track(is);
-              try {
-                NamedList<Object> body = processErrorsAndResponse(solrRequest, parser, response, is);
-                asyncListener.onSuccess(body);
-              } catch (RemoteSolrException e) {
-                if (SolrException.getRootCause(e) != CANCELLED_EXCEPTION) {
+            try {
+              executor.execute(() -> {
+                InputStream is = listener.getInputStream();
+                assert ObjectReleaseTracker.track(is);
+                try {
+                  NamedList<Object> body = processErrorsAndResponse(solrRequest, parser, response, is);
+                  asyncListener.onSuccess(body);
+                } catch (RemoteSolrException e) {
+                  if (SolrException.getRootCause(e) != CANCELLED_EXCEPTION) {
+                    asyncListener.onFailure(e);
+                  }
+                } catch (SolrServerException e) {
                   asyncListener.onFailure(e);
                 }
-              } catch (SolrServerException e) {
-                asyncListener.onFailure(e);
-              }
-            });
+              });
+            } catch (RejectedExecutionException e) {
+              // nobody will read the response: abort it so that it completes and releases its permit, the
+              // failure of an aborted request isn't reported to the listener so it's notified here
+              response.abort(CANCELLED_EXCEPTION);
+              asyncListener.onFailure(new SolrServerException("The executor rejected the response of the request", e));
+            }
           }
 
           @Override
@@ -424,6 +436,43 @@ public class Http2SolrClient extends SolrClient {
     return () -> req.abort(CANCELLED_EXCEPTION);
   }
 
+  /**
+   * Sends the request without waiting for its response.  The response is parsed on the client's executor
+   * while it is being received, and completes the returned future; cancelling the future aborts the request.
+   * <p>
+   * The calling thread is blocked while {@link Builder#maxOutstandingAsyncRequests(int)} requests are in flight,
+   * until one of them completes.  The future fails if the executor rejects the parsing of the response.
+   */
+  public CompletableFuture<NamedList<Object>> requestAsync(SolrRequest<?> solrRequest, String collection) {
+    return asFuture(listener -> asyncRequest(solrRequest, collection, listener));
+  }
+
+  public CompletableFuture<NamedList<Object>> requestAsync(SolrRequest<?> solrRequest) {
+    return requestAsync(solrRequest, null);
+  }
+
+  /** Adapts a listener based async call to a future that cancels the call when it is cancelled */
+  static <T> CompletableFuture<T> asFuture(Function<AsyncListener<T>, Cancellable> asyncCall) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    Cancellable cancellable = asyncCall.apply(new AsyncListener<>() {
+      @Override
+      public void onSuccess(T result) {
+        future.complete(result);
+      }
+
+      @Override
+      public void onFailure(Throwable throwable) {
+        future.completeExceptionally(throwable);
+      }
+    });
+    future.whenComplete((result, throwable) -> {
+      if (future.isCancelled()) {
+        cancellable.cancel();
+      }
+    });
+    return future;
+  }
+
   @Override
   public NamedList<Object> request(SolrRequest<?> solrRequest, String collection) throws SolrServerException, IOException {
     Request req = makeRequest(solrRequest, collection);
@@ -552,6 +601,12 @@ public class Http2SolrClient extends SolrClient {
     if (parser != null) {
       wparams.set(CommonParams.WT, parser.getWriterType());
       wparams.set(CommonParams.VERSION, parser.getVersion());
+      if (parser instanceof BinaryResponseParser && ((BinaryResponseParser) parser).getDictionary() != null) {
+        wparams.set(JavaBinDictionary.PARAM, Long.toString(((BinaryResponseParser) parser).getDictionary().getId()));
+      } else {
+        // a dictionary asked for by the params copied from another request can't be read by this parser
+        wparams.remove(JavaBinDictionary.PARAM);
+      }
     }
 
     //TODO add invariantParams support
@@ -815,16 +870,19 @@ public class Http2SolrClient extends SolrClient {
     private final Phaser phaser;
     // maximum outstanding requests left
     private final Semaphore available;
+    private final int maxOutstandingRequests;
     private final Request.QueuedListener queuedListener;
     private final Response.CompleteListener completeListener;
 
-    AsyncTracker() {
+    AsyncTracker(int maxOutstandingRequests) {
       // TODO: what about shared instances?
       phaser = new Phaser(1);
-      available = new Semaphore(MAX_OUTSTANDING_REQUESTS, false);
+      this.maxOutstandingRequests = maxOutstandingRequests;
+      available = new Semaphore(maxOutstandingRequests, false);
       queuedListener = request -> {
         phaser.register();
         try {
+          // blocks the thread sending the request while too many requests are in flight
           available.acquire();
         } catch (InterruptedException ignored) {
 
@@ -838,7 +896,7 @@ public class Http2SolrClient extends SolrClient {
 
     int getMaxRequestsQueuedPerDestination() {
       // comfortably above max outstanding requests
-      return MAX_OUTSTANDING_REQUESTS * 3;
+      return maxOutstandingRequests * 3;
     }
 
     public void waitForComplete() {
@@ -859,6 +917,7 @@ public class Http2SolrClient extends SolrClient {
     private boolean useHttp1_1 = Boolean.getBoolean("solr.http1");
     protected String baseSolrUrl;
     private ExecutorService executor;
+    private int maxOutstandingAsyncRequests = AsyncTracker.MAX_OUTSTANDING_REQUESTS;
 
     public Builder() {
 
@@ -910,6 +969,19 @@ public class Http2SolrClient extends SolrClient {
       return this;
     }
 
+    /**
+     * Maximum number of async requests in flight; sending more blocks the calling thread until one completes.
+     * Defaults to 1000.  The responses of the requests are parsed on the executor of the client, which fails the
+     * requests whose response it rejects: the default executor runs up to 256 threads with a queue of 256 tasks.
+     */
+    public Builder maxOutstandingAsyncRequests(int max) {
+      if (max <= 0) {
+        throw new IllegalArgumentException("maxOutstandingAsyncRequests must be positive: " + max);
+      }
+      this.maxOutstandingAsyncRequests = max;
+      return this;
+    }
+
     public Builder withSSLConfig(SSLConfig sslConfig) {
       this.sslConfig = sslConfig;
       return this;
@@ -55,6 +55,7 @@ import org.apache.solr.common.params.ModifiableSolrParams;
 import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.common.util.ContentStream;
 import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.JavaBinDictionary;
 import org.apache.solr.common.util.NamedList;
 import org.apache.solr.common.util.SolrNamedThreadFactory;
 import org.apache.solr.common.util.Utils;
@@ -339,6 +340,12 @@ public class HttpSolrClient extends BaseHttpSolrClient {
     if (parser != null) {
       wparams.set(CommonParams.WT, parser.getWriterType());
       wparams.set(CommonParams.VERSION, parser.getVersion());
+      if (parser instanceof BinaryResponseParser && ((BinaryResponseParser) parser).getDictionary() != null) {
+        wparams.set(JavaBinDictionary.PARAM, Long.toString(((BinaryResponseParser) parser).getDictionary().getId()));
+      } else {
+        // a dictionary asked for by the params copied from another request can't be read by this parser
+        wparams.remove(JavaBinDictionary.PARAM);
+      }
     }
     if (invariantParams != null) {
       wparams.add(invariantParams);
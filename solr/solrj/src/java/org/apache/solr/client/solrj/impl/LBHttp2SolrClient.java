@@ -21,6 +21,7 @@ import java.net.ConnectException;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -139,6 +140,14 @@ public class LBHttp2SolrClient extends LBSolrClient {
     };
   }
 
+  /**
+   * Like {@link #asyncReq(Req, AsyncListener)}, trying the servers of the request in turn until one of them
+   * succeeds, without blocking the calling thread.  Cancelling the returned future aborts the request.
+   */
+  public CompletableFuture<Rsp> requestAsync(Req req) {
+    return Http2SolrClient.asFuture(listener -> asyncReq(req, listener));
+  }
+
   private interface RetryListener {
     void onSuccess(Rsp rsp);
     void onFailure(Exception e, boolean retryReq);
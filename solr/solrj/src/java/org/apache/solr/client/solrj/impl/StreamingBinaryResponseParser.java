@@ -94,6 +94,7 @@ public class StreamingBinaryResponseParser extends BinaryResponseParser {
       }
     };
     new FastJavaBinDecoder()
+        .withDictionary(dictionary)
         .withInputStream(body)
         .decode(new EntryListener() {
           @Override
@@ -168,7 +169,7 @@ public class StreamingBinaryResponseParser extends BinaryResponseParser {
       }
     };) {
 
-      return (NamedList<Object>) codec.unmarshal(body);
+      return (NamedList<Object>) codec.setDictionary(dictionary).unmarshal(body);
     } catch (IOException e) {
       throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, "parsing error", e);
     }
@@ -0,0 +1,295 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.client.solrj.io;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+/**
+ *  A batch of records stored column by column, as read by {@link org.apache.solr.client.solrj.io.stream.TupleStream#readBatch(int)}.
+ *  <p>
+ *  Each field is a {@link Column}: long and double values are kept in primitive arrays, anything else as objects.
+ *  Rows are referenced through a selection vector, so that filtering a batch doesn't copy it: the i-th row
+ *  of the batch, for i between 0 and {@link #size()}, is stored at index {@link #getRow(int)} of the columns.
+ *  Streams that don't work on batches can still get each row as a {@link Tuple} with {@link #getTuple(int)}.
+ *  <p>
+ *  A batch isn't thread safe.
+**/
+public class TupleBatch {
+
+  private final int capacity;
+  private final Map<String, Column> columns = new LinkedHashMap<>();
+  private int numRows;
+  // selected rows, null when all the rows are selected
+  private int[] selection;
+  private int size;
+  private Tuple eofTuple;
+
+  /** @param capacity the maximum number of rows of this batch */
+  public TupleBatch(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    this.capacity = capacity;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /** Returns true if no more rows can be added. */
+  public boolean isFull() {
+    return numRows == capacity;
+  }
+
+  /** The number of selected rows. */
+  public int size() {
+    return size;
+  }
+
+  /** Returns the index in the columns of the i-th selected row. */
+  public int getRow(int i) {
+    return selection == null ? i : selection[i];
+  }
+
+  /** The names of the fields of this batch, in the order they were first seen. */
+  public Set<String> getFieldNames() {
+    return Collections.unmodifiableSet(columns.keySet());
+  }
+
+  /** Returns the column of the given field, or null if no row of this batch has this field. */
+  public Column getColumn(String name) {
+    return columns.get(name);
+  }
+
+  /**
+   * Keeps only the columns of the given fields, renamed to the names they are mapped to.
+   * @param fieldsToNames the fields to keep, mapped to their new names
+   */
+  public void selectColumns(Map<String, String> fieldsToNames) {
+    Map<String, Column> selected = new LinkedHashMap<>();
+    for (Map.Entry<String, Column> entry : columns.entrySet()) {
+      String name = fieldsToNames.get(entry.getKey());
+      if (name != null) {
+        selected.put(name, entry.getValue());
+      }
+    }
+    columns.clear();
+    columns.putAll(selected);
+  }
+
+  public void removeColumn(String name) {
+    columns.remove(name);
+  }
+
+  /** Keeps selected only the rows, identified by their index in the columns, accepted by the given filter. */
+  public void select(IntPredicate rowFilter) {
+    int[] newSelection = selection != null ? selection : new int[size];
+    int newSize = 0;
+    for (int i = 0; i < size; i++) {
+      int row = getRow(i);
+      if (rowFilter.test(row)) {
+        newSelection[newSize++] = row;
+      }
+    }
+    selection = newSelection;
+    size = newSize;
+  }
+
+  /** Returns the i-th selected row as a {@link Tuple}. */
+  public Tuple getTuple(int i) {
+    int row = getRow(i);
+    Tuple tuple = new Tuple();
+    for (Map.Entry<String, Column> entry : columns.entrySet()) {
+      Object value = entry.getValue().getObject(row);
+      if (value != null) {
+        tuple.put(entry.getKey(), value);
+      }
+    }
+    return tuple;
+  }
+
+  /**
+   * Returns the EOF tuple of the stream the batch was read from if its end was reached, which makes
+   * this the last batch of the stream. The batch may still have rows.
+   */
+  public Tuple getEofTuple() {
+    return eofTuple;
+  }
+
+  public boolean isEOF() {
+    return eofTuple != null;
+  }
+
+  public void setEofTuple(Tuple eofTuple) {
+    this.eofTuple = eofTuple;
+  }
+
+  /** Appends a row with the fields of the given tuple. */
+  public void add(Tuple tuple) {
+    int row = startRow();
+    for (Map.Entry<String, Object> entry : tuple.getFields().entrySet()) {
+      setObject(row, entry.getKey(), entry.getValue());
+    }
+  }
+
+  /** Appends an empty row and returns its index, to be passed to the setters. */
+  public int startRow() {
+    if (isFull()) {
+      throw new IllegalStateException("Batch is full");
+    }
+    if (selection != null) {
+      throw new IllegalStateException("Rows can't be added to a filtered batch");
+    }
+    size++;
+    return numRows++;
+  }
+
+  public void setLong(int row, String field, long value) {
+    column(field).setLong(row, value);
+  }
+
+  public void setDouble(int row, String field, double value) {
+    column(field).setDouble(row, value);
+  }
+
+  /** Sets a value of any type, stored as a primitive if it is a Long or a Double. Null values are ignored. */
+  public void setObject(int row, String field, Object value) {
+    if (value instanceof Long) {
+      setLong(row, field, (Long) value);
+    } else if (value instanceof Double) {
+      setDouble(row, field, (Double) value);
+    } else if (value != null) {
+      column(field).setObject(row, value);
+    }
+  }
+
+  private Column column(String field) {
+    Column column = columns.get(field);
+    if (column == null) {
+      columns.put(field, column = new Column(capacity));
+    }
+    return column;
+  }
+
+  /**
+   * The values of one field for all the rows of a batch. A column starts as a column of longs or doubles
+   * if its first value is one, and switches to holding objects if it then gets values of another type.
+   */
+  public static final class Column {
+
+    public enum Type {LONG, DOUBLE, OBJECT}
+
+    private Type type;
+    private final boolean[] present;
+    private long[] longs;
+    private double[] doubles;
+    private Object[] objects;
+
+    Column(int capacity) {
+      this.present = new boolean[capacity];
+    }
+
+    /** The type of the values of this column, or null if it has none. */
+    public Type getType() {
+      return type;
+    }
+
+    public boolean isNull(int row) {
+      return !present[row];
+    }
+
+    /** Returns the value of a non null row of a {@link Type#LONG} column. */
+    public long getLong(int row) {
+      return longs[row];
+    }
+
+    /** Returns the value of a non null row of a {@link Type#DOUBLE} column. */
+    public double getDouble(int row) {
+      return doubles[row];
+    }
+
+    /** Returns the value of the given row whatever the type of the column, boxing primitives. */
+    public Object getObject(int row) {
+      if (!present[row]) {
+        return null;
+      }
+      switch (type) {
+        case LONG:
+          return longs[row];
+        case DOUBLE:
+          return doubles[row];
+        default:
+          return objects[row];
+      }
+    }
+
+    void setLong(int row, long value) {
+      if (type == null) {
+        type = Type.LONG;
+        longs = new long[present.length];
+      }
+      if (type == Type.LONG) {
+        longs[row] = value;
+        present[row] = true;
+      } else {
+        setObject(row, value);
+      }
+    }
+
+    void setDouble(int row, double value) {
+      if (type == null) {
+        type = Type.DOUBLE;
+        doubles = new double[present.length];
+      }
+      if (type == Type.DOUBLE) {
+        doubles[row] = value;
+        present[row] = true;
+      } else {
+        setObject(row, value);
+      }
+    }
+
+    void setObject(int row, Object value) {
+      if (type != Type.OBJECT) {
+        Object[] newObjects = new Object[present.length];
+        if (type != null) {
+          for (int i = 0; i < present.length; i++) {
+            newObjects[i] = getObject(i);
+          }
+        }
+        type = Type.OBJECT;
+        objects = newObjects;
+        longs = null;
+        doubles = null;
+      }
+      objects[row] = value;
+      present[row] = true;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "TupleBatch{size=" + size + ", rows=" + numRows + ", columns=" + columns.keySet()
+        + (selection == null ? "" : ", selection=" + Arrays.toString(Arrays.copyOf(selection, size)))
+        + ", eof=" + isEOF() + "}";
+  }
+}
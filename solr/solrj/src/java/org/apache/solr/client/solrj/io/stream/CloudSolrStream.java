@@ -27,7 +27,6 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
-import java.util.TreeSet;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -81,7 +80,7 @@ public class CloudSolrStream extends TupleStream implements Expressible {
   protected transient Map<String, Tuple> eofTuples;
   protected transient CloudSolrClient cloudSolrClient;
   protected transient List<TupleStream> solrStreams;
-  protected transient TreeSet<TupleWrapper> tuples;
+  protected transient TupleMerger tuples;
   protected transient StreamContext streamContext;
 
   // Used by parallel stream
@@ -268,7 +267,7 @@ public class CloudSolrStream extends TupleStream implements Expressible {
   *
   ***/
   public void open() throws IOException {
-    this.tuples = new TreeSet<>();
+    this.tuples = null;
     this.solrStreams = new ArrayList<>();
     this.eofTuples = Collections.synchronizedMap(new HashMap<>());
     constructStreams();
@@ -390,12 +389,14 @@ public class CloudSolrStream extends TupleStream implements Expressible {
     List<Future<TupleWrapper>> futures =
         solrStreams.stream().map(ss -> service.submit(new StreamOpener((SolrStream)ss, comp))).collect(Collectors.toList());
     try {
+      List<TupleWrapper> wrappers = new ArrayList<>(futures.size());
       for (Future<TupleWrapper> f : futures) {
         TupleWrapper w = f.get();
         if (w != null) {
-          tuples.add(w);
+          wrappers.add(w);
         }
       }
+      tuples = new TupleMerger(comp, wrappers);
     } catch (Exception e) {
       throw new IOException(e);
     } finally {
@@ -424,17 +425,11 @@ public class CloudSolrStream extends TupleStream implements Expressible {
   }
 
   protected Tuple _read() throws IOException {
-    TupleWrapper tw = tuples.pollFirst();
-    if(tw != null) {
-      Tuple t = tw.getTuple();
-
+    Tuple t = tuples.next();
+    if(t != null) {
       if (trace) {
         t.put("_COLLECTION_", this.collection);
       }
-
-      if(tw.next()) {
-        tuples.add(tw);
-      }
       return t;
     } else {
       Tuple tuple = Tuple.EOF();
@@ -445,7 +440,7 @@ public class CloudSolrStream extends TupleStream implements Expressible {
     }
   }
 
-  protected class TupleWrapper implements Comparable<TupleWrapper> {
+  protected class TupleWrapper implements Comparable<TupleWrapper>, TupleMerger.Source {
     private Tuple tuple;
     private final SolrStream stream;
     private final StreamComparator comp;
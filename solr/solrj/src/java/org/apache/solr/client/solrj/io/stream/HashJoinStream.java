@@ -16,11 +16,15 @@
  */
 package org.apache.solr.client.solrj.io.stream;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import org.apache.solr.client.solrj.io.Tuple;
 import org.apache.solr.client.solrj.io.comp.StreamComparator;
@@ -32,6 +36,7 @@ import org.apache.solr.client.solrj.io.stream.expr.StreamExpression;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpressionNamedParameter;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpressionValue;
 import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
+import org.apache.solr.common.util.IOUtils;
 
 /**
  * Takes two streams (fullStream and hashStream) and joins them similar to an InnerJoinStream. The difference
@@ -40,6 +45,12 @@ import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
  * You are expected to provide a set of fields for which the hash will be calculated from. If a tuple does
  * not contain a value (ie, null) for one of the fields the hash is being computed on then that tuple will 
  * not be considered a match to anything. Ie, all fields which are part of the hash must have a non-null value.
+ * <p>
+ * When given a memory limit, with {@link #setMaxRamMB(double)} or the {@code maxRamMB} parameter, the hashed tuples
+ * that don't fit are spilled to temporary files, and joined with a grace hash join: the tuples of both streams are
+ * partitioned on their hash into files, then each partition of the hashStream is hashed in memory in turn and joined
+ * with the same partition of the fullStream. A partition that doesn't fit either is partitioned again. The tuples
+ * are then not returned in the order of the fullStream.
  * @since 6.0.0
 **/
 public class HashJoinStream extends TupleStream implements Expressible {
@@ -55,7 +66,19 @@ public class HashJoinStream extends TupleStream implements Expressible {
   protected Tuple workingFullTuple = null;
   protected String workingFullHash = null;
   protected int workngHashSetIdx = 0;
-  
+
+  protected double maxRamMB = -1;
+  protected int spillPartitions = TupleSpillFile.DEFAULT_SPILL_PARTITIONS;
+
+  // set once the hashed tuples were spilled: the partitions left to join, and the fullStream tuples of the current one
+  private Deque<SpillPartition> partitions;
+  private SpillPartition currentPartition;
+  private TupleSpillFile.TupleSource partitionFullTuples;
+  private Tuple eofTuple;
+  private int spilledPartitions;
+  private long spilledTuples;
+  private long spilledBytes;
+
   public HashJoinStream(TupleStream fullStream, TupleStream hashStream, List<String> hashOn) throws IOException {
     init(fullStream, hashStream, hashOn);
   }
@@ -67,7 +90,7 @@ public class HashJoinStream extends TupleStream implements Expressible {
     StreamExpressionNamedParameter onExpression = factory.getNamedOperand(expression, "on");
     
     // validate expression contains only what we want.
-    if(expression.getParameters().size() != streamExpressions.size() + 2){
+    if(expression.getParameters().size() != streamExpressions.size() + 2 + TupleSpillFile.countParameters(expression, factory)){
       throw new IOException(String.format(Locale.ROOT,"Invalid expression %s - unknown operands found", expression));
     }
     
@@ -94,6 +117,8 @@ public class HashJoinStream extends TupleStream implements Expressible {
           factory.constructStream((StreamExpression)hashStreamExpression.getParameter()),
           hashOn
         );
+    setMaxRamMB(TupleSpillFile.getMaxRamMB(expression, factory));
+    setSpillPartitions(TupleSpillFile.getSpillPartitions(expression, factory));
   }
   
   private void init(TupleStream fullStream, TupleStream hashStream, List<String> hashOn) throws IOException {
@@ -120,6 +145,45 @@ public class HashJoinStream extends TupleStream implements Expressible {
     }    
   }
   
+  /**
+   * Limits the memory used by the hashed tuples, which are spilled to disk above it. A negative value, the default,
+   * means there is no limit.
+   */
+  public void setMaxRamMB(double maxRamMB) {
+    this.maxRamMB = maxRamMB;
+  }
+
+  public double getMaxRamMB() {
+    return maxRamMB;
+  }
+
+  /** Sets the number of partitions the tuples are split into when spilled. */
+  public void setSpillPartitions(int spillPartitions) {
+    if (spillPartitions < 2) {
+      throw new IllegalArgumentException("spillPartitions must be greater than 1: " + spillPartitions);
+    }
+    this.spillPartitions = spillPartitions;
+  }
+
+  public int getSpillPartitions() {
+    return spillPartitions;
+  }
+
+  /** The number of partitions spilled to disk since opened. */
+  public int getSpilledPartitions() {
+    return spilledPartitions;
+  }
+
+  /** The number of tuples, of both streams, spilled to disk since opened. */
+  public long getSpilledTuples() {
+    return spilledTuples;
+  }
+
+  /** The number of bytes spilled to disk since opened. */
+  public long getSpilledBytes() {
+    return spilledBytes;
+  }
+
   @Override
   public StreamExpression toExpression(StreamFactory factory) throws IOException{
     return toExpression(factory, true);
@@ -164,6 +228,7 @@ public class HashJoinStream extends TupleStream implements Expressible {
     }
     
     expression.addParameter(new StreamExpressionNamedParameter("on",sb.toString()));
+    TupleSpillFile.addParameters(expression, maxRamMB, spillPartitions);
     return expression;   
   }
   
@@ -196,24 +261,146 @@ public class HashJoinStream extends TupleStream implements Expressible {
   public void open() throws IOException {
     hashStream.open();
     fullStream.open();
+    spilledPartitions = 0;
+    spilledTuples = 0;
+    spilledBytes = 0;
     
-    Tuple tuple = hashStream.read();
-    while(!tuple.EOF){
+    List<SpillPartition> spilled = hash(() -> {
+      Tuple tuple = hashStream.read();
+      return tuple.EOF ? null : tuple;
+    }, 0);
+    if (spilled != null) {
+      partitions = new ArrayDeque<>();
+      partitionFullTuples(() -> {
+        Tuple tuple = fullStream.read();
+        if (tuple.EOF) {
+          eofTuple = tuple;
+          return null;
+        }
+        return tuple;
+      }, spilled, 0);
+    }
+  }
+
+  /**
+   * Reads the tuples to hash into hashedTuples. If they take more memory than allowed, all of them are spilled
+   * to partitions instead, and these partitions are returned: the fullStream tuples must then be partitioned
+   * the same way. Returns null if the tuples were hashed in memory.
+   */
+  private List<SpillPartition> hash(TupleSpillFile.TupleSource tuples, int depth) throws IOException {
+    hashedTuples.clear();
+    long maxRamBytes = maxRamMB < 0 || depth >= TupleSpillFile.MAX_DEPTH ? Long.MAX_VALUE : (long) (maxRamMB * 1024 * 1024);
+    long ramBytes = 0;
+    Tuple tuple;
+    while ((tuple = tuples.next()) != null) {
       String hash = computeHash(tuple, rightHashOn);
       if(null != hash){
-        if(hashedTuples.containsKey(hash)){
-          hashedTuples.get(hash).add(tuple);
+        hashedTuples.computeIfAbsent(hash, k -> new ArrayList<>()).add(tuple);
+        if (maxRamBytes != Long.MAX_VALUE) {
+          ramBytes += TupleSpillFile.ramBytesUsed(tuple);
+          if (ramBytes > maxRamBytes) {
+            return spill(tuples, depth);
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  private List<SpillPartition> spill(TupleSpillFile.TupleSource tuples, int depth) throws IOException {
+    List<SpillPartition> spilled = new ArrayList<>(spillPartitions);
+    try {
+      for (int i = 0; i < spillPartitions; i++) {
+        spilled.add(new SpillPartition(depth + 1));
+      }
+      for (Map.Entry<String, List<Tuple>> entry : hashedTuples.entrySet()) {
+        SpillPartition partition = spilled.get(TupleSpillFile.partition(entry.getKey().hashCode(), depth, spillPartitions));
+        for (Tuple tuple : entry.getValue()) {
+          partition.hashed.write(tuple);
+        }
+      }
+      hashedTuples.clear();
+      Tuple tuple;
+      while ((tuple = tuples.next()) != null) {
+        String hash = computeHash(tuple, rightHashOn);
+        if(null != hash){
+          spilled.get(TupleSpillFile.partition(hash.hashCode(), depth, spillPartitions)).hashed.write(tuple);
         }
-        else{
-          ArrayList<Tuple> set = new ArrayList<Tuple>();
-          set.add(tuple);
-          hashedTuples.put(hash, set);
+      }
+    } catch (IOException | RuntimeException e) {
+      for (SpillPartition partition : spilled) {
+        IOUtils.closeQuietly(partition);
+      }
+      throw e;
+    }
+    spilledPartitions += spilled.size();
+    return spilled;
+  }
+
+  /** Partitions the fullStream tuples like the hashed ones were, and queues the partitions to be joined first. */
+  private void partitionFullTuples(TupleSpillFile.TupleSource tuples, List<SpillPartition> spilled, int depth) throws IOException {
+    try {
+      Tuple tuple;
+      while ((tuple = tuples.next()) != null) {
+        String hash = computeHash(tuple, leftHashOn);
+        // tuples without a hash can't match but an outer join still returns them, from any partition
+        int partition = null == hash ? 0 : TupleSpillFile.partition(hash.hashCode(), depth, spillPartitions);
+        spilled.get(partition).full.write(tuple);
+      }
+    } catch (IOException | RuntimeException e) {
+      for (SpillPartition partition : spilled) {
+        IOUtils.closeQuietly(partition);
+      }
+      throw e;
+    }
+    for (int i = spilled.size() - 1; i >= 0; i--) {
+      partitions.addFirst(spilled.get(i));
+    }
+  }
+
+  /**
+   * Returns the next tuple of the fullStream to join. Once the hashed tuples were spilled, these are the tuples of the
+   * partition being joined, moving on to the next partition when all of them were returned.
+   */
+  protected Tuple readFullTuple() throws IOException {
+    if (partitions == null) {
+      return fullStream.read();
+    }
+    while (true) {
+      if (partitionFullTuples != null) {
+        Tuple tuple = partitionFullTuples.next();
+        if (tuple != null) {
+          return tuple;
         }
+        closeCurrentPartition();
+      }
+      currentPartition = partitions.poll();
+      if (currentPartition == null) {
+        eofTuple.put(TupleSpillFile.SPILLED_PARTITIONS, spilledPartitions);
+        eofTuple.put(TupleSpillFile.SPILLED_TUPLES, spilledTuples);
+        eofTuple.put(TupleSpillFile.SPILLED_BYTES, spilledBytes);
+        return eofTuple;
+      }
+      List<SpillPartition> spilled = hash(currentPartition.hashed.read(), currentPartition.getDepth());
+      if (spilled == null) {
+        partitionFullTuples = currentPartition.full.read();
+      } else {
+        partitionFullTuples(currentPartition.full.read(), spilled, currentPartition.getDepth());
+        closeCurrentPartition();
       }
-      tuple = hashStream.read();
     }
   }
-  
+
+  private void closeCurrentPartition() throws IOException {
+    SpillPartition partition = currentPartition;
+    currentPartition = null;
+    partitionFullTuples = null;
+    hashedTuples.clear();
+    if (partition != null) {
+      partition.close();
+    }
+  }
+
   protected String computeHash(Tuple tuple, List<String> hashOn){
     StringBuilder sb = new StringBuilder();
     for(String part : hashOn){
@@ -231,13 +418,21 @@ public class HashJoinStream extends TupleStream implements Expressible {
   public void close() throws IOException {
     hashStream.close();
     fullStream.close();
+    hashedTuples.clear();
+    if (partitions != null) {
+      closeCurrentPartition();
+      for (SpillPartition partition : partitions) {
+        IOUtils.closeQuietly(partition);
+      }
+      partitions = null;
+    }
   }
 
   public Tuple read() throws IOException {
     
     findNextWorkingFullTuple:
     while(null == workingFullTuple){
-      Tuple fullTuple = fullStream.read();
+      Tuple fullTuple = readFullTuple();
       
       // We're at the end of the line
       if(fullTuple.EOF){
@@ -278,10 +473,42 @@ public class HashJoinStream extends TupleStream implements Expressible {
 
   @Override
   public StreamComparator getStreamSort() {
-    return fullStream.getStreamSort();
+    // the order isn't kept once spilled
+    return maxRamMB < 0 ? fullStream.getStreamSort() : null;
   }
   
   public int getCost() {
     return 0;
   }
+
+  /** The tuples of both streams with the same partition of their hash. */
+  private class SpillPartition implements Closeable {
+    final TupleSpillFile hashed;
+    final TupleSpillFile full;
+
+    SpillPartition(int depth) throws IOException {
+      hashed = new TupleSpillFile("hashJoin", depth);
+      try {
+        full = new TupleSpillFile("hashJoin", depth);
+      } catch (IOException e) {
+        hashed.close();
+        throw e;
+      }
+    }
+
+    int getDepth() {
+      return hashed.getDepth();
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        hashed.close();
+      } finally {
+        full.close();
+      }
+      spilledTuples += hashed.getNumTuples() + full.getNumTuples();
+      spilledBytes += hashed.getNumBytes() + full.getNumBytes();
+    }
+  }
 }
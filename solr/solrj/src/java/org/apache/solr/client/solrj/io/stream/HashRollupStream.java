@@ -17,7 +17,9 @@
 package org.apache.solr.client.solrj.io.stream;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -40,7 +42,16 @@ import org.apache.solr.client.solrj.io.stream.expr.StreamExpressionValue;
 import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
 import org.apache.solr.client.solrj.io.stream.metrics.Bucket;
 import org.apache.solr.client.solrj.io.stream.metrics.Metric;
-
+import org.apache.solr.common.util.IOUtils;
+
+/**
+ * Rolls up the tuples of a stream, which doesn't need to be sorted, by hashing their buckets in memory.
+ * <p>
+ * When given a memory limit, with {@link #setMaxRamMB(double)} or the {@code maxRamMB} parameter, the buckets
+ * found once the limit is reached aren't kept in memory: their tuples are spilled to temporary files, partitioned
+ * on the hash of their bucket, while the tuples of the buckets already in memory are still rolled up. Each spilled
+ * partition is then rolled up in turn, being partitioned again if it doesn't fit either.
+ */
 public class HashRollupStream extends TupleStream implements Expressible {
 
   private static final long serialVersionUID = 1;
@@ -50,7 +61,20 @@ public class HashRollupStream extends TupleStream implements Expressible {
   private Metric[] metrics;
 
 
+  // a rough estimate of the heap used by a metric
+  private static final long METRIC_RAM_BYTES = 64;
+
+  private double maxRamMB = -1;
+  private int spillPartitions = TupleSpillFile.DEFAULT_SPILL_PARTITIONS;
+
   private Iterator<Tuple> tupleIterator;
+  // the spilled partitions left to rollup
+  private final Deque<TupleSpillFile> partitions = new ArrayDeque<>();
+  private TupleSpillFile currentPartition;
+  private Tuple eofTuple;
+  private int spilledPartitions;
+  private long spilledTuples;
+  private long spilledBytes;
 
   public HashRollupStream(TupleStream tupleStream,
                       Bucket[] buckets,
@@ -65,7 +89,7 @@ public class HashRollupStream extends TupleStream implements Expressible {
     StreamExpressionNamedParameter overExpression = factory.getNamedOperand(expression, "over");
 
     // validate expression contains only what we want.
-    if(expression.getParameters().size() != streamExpressions.size() + metricExpressions.size() + 1){
+    if(expression.getParameters().size() != streamExpressions.size() + metricExpressions.size() + 1 + TupleSpillFile.countParameters(expression, factory)){
       throw new IOException(String.format(Locale.ROOT,"Invalid expression %s - unknown operands found", expression));
     }
 
@@ -95,6 +119,8 @@ public class HashRollupStream extends TupleStream implements Expressible {
     }
 
     init(factory.constructStream(streamExpressions.get(0)), buckets, metrics);
+    setMaxRamMB(TupleSpillFile.getMaxRamMB(expression, factory));
+    setSpillPartitions(TupleSpillFile.getSpillPartitions(expression, factory));
   }
 
   private List<FieldEqualitor> flattenEqualitor(StreamEqualitor equalitor){
@@ -119,6 +145,45 @@ public class HashRollupStream extends TupleStream implements Expressible {
     this.metrics = metrics;
   }
 
+  /**
+   * Limits the memory used by the buckets, the tuples of new buckets being spilled to disk above it. A negative value,
+   * the default, means there is no limit.
+   */
+  public void setMaxRamMB(double maxRamMB) {
+    this.maxRamMB = maxRamMB;
+  }
+
+  public double getMaxRamMB() {
+    return maxRamMB;
+  }
+
+  /** Sets the number of partitions the tuples are split into when spilled. */
+  public void setSpillPartitions(int spillPartitions) {
+    if (spillPartitions < 2) {
+      throw new IllegalArgumentException("spillPartitions must be greater than 1: " + spillPartitions);
+    }
+    this.spillPartitions = spillPartitions;
+  }
+
+  public int getSpillPartitions() {
+    return spillPartitions;
+  }
+
+  /** The number of partitions spilled to disk since opened. */
+  public int getSpilledPartitions() {
+    return spilledPartitions;
+  }
+
+  /** The number of tuples spilled to disk since opened. */
+  public long getSpilledTuples() {
+    return spilledTuples;
+  }
+
+  /** The number of bytes spilled to disk since opened. */
+  public long getSpilledBytes() {
+    return spilledBytes;
+  }
+
   @Override
   public StreamExpression toExpression(StreamFactory factory) throws IOException{
     return toExpression(factory, true);
@@ -149,6 +214,7 @@ public class HashRollupStream extends TupleStream implements Expressible {
       expression.addParameter(metric.toExpression(factory));
     }
 
+    TupleSpillFile.addParameters(expression, maxRamMB, spillPartitions);
     return expression;
   }
 
@@ -183,39 +249,62 @@ public class HashRollupStream extends TupleStream implements Expressible {
 
   public void open() throws IOException {
     tupleStream.open();
+    spilledPartitions = 0;
+    spilledTuples = 0;
+    spilledBytes = 0;
   }
 
   public void close() throws IOException {
     tupleStream.close();
     tupleIterator = null;
+    closeCurrentPartition();
+    for (TupleSpillFile partition : partitions) {
+      IOUtils.closeQuietly(partition);
+    }
+    partitions.clear();
   }
 
   public Tuple read() throws IOException {
-    //On the first call to read build the tupleIterator.
+    //On the first call to read rollup the tuples of the underlying stream.
     if(tupleIterator == null) {
-      Map<HashKey, Metric[]> metricMap = new HashMap<>();
-      while (true) {
+      rollup(() -> {
         Tuple tuple = tupleStream.read();
         if (tuple.EOF) {
-          List<Tuple> tuples = new ArrayList<>();
-          for(Map.Entry<HashKey, Metric[]> entry : metricMap.entrySet()) {
-            Tuple t = new Tuple();
-            Metric[] finishedMetrics = entry.getValue();
-            for (Metric metric : finishedMetrics) {
-              t.put(metric.getIdentifier(), metric.getValue());
-            }
+          eofTuple = tuple;
+          return null;
+        }
+        return tuple;
+      }, 0);
+    }
 
-            HashKey hashKey = entry.getKey();
-            for (int i = 0; i < buckets.length; i++) {
-              t.put(buckets[i].toString(), hashKey.getParts()[i]);
-            }
-            tuples.add(t);
-          }
-          tuples.add(tuple);
-          this.tupleIterator = tuples.iterator();
-          break;
+    while (!tupleIterator.hasNext()) {
+      closeCurrentPartition();
+      currentPartition = partitions.poll();
+      if (currentPartition == null) {
+        if (spilledPartitions > 0) {
+          eofTuple.put(TupleSpillFile.SPILLED_PARTITIONS, spilledPartitions);
+          eofTuple.put(TupleSpillFile.SPILLED_TUPLES, spilledTuples);
+          eofTuple.put(TupleSpillFile.SPILLED_BYTES, spilledBytes);
         }
+        return eofTuple;
+      }
+      rollup(currentPartition.read(), currentPartition.getDepth());
+    }
+    return tupleIterator.next();
+  }
 
+  /**
+   * Rolls up the given tuples into the tuples to return next. Once the buckets take more memory than allowed, the
+   * tuples of new buckets are spilled to partitions to rollup later.
+   */
+  private void rollup(TupleSpillFile.TupleSource tuples, int depth) throws IOException {
+    long maxRamBytes = maxRamMB < 0 || depth >= TupleSpillFile.MAX_DEPTH ? Long.MAX_VALUE : (long) (maxRamMB * 1024 * 1024);
+    long ramBytes = 0;
+    List<TupleSpillFile> spilled = null;
+    Map<HashKey, Metric[]> metricMap = new HashMap<>();
+    try {
+      Tuple tuple;
+      while ((tuple = tuples.next()) != null) {
         Object[] bucketValues = new Object[buckets.length];
         for (int i = 0; i < buckets.length; i++) {
           bucketValues[i] = buckets[i].getBucketValue(tuple);
@@ -228,6 +317,9 @@ public class HashRollupStream extends TupleStream implements Expressible {
           for (Metric bucketMetric : currentMetrics) {
             bucketMetric.update(tuple);
           }
+        } else if (spilled != null) {
+          // all the tuples of a bucket not in memory go to the same partition
+          spilled.get(TupleSpillFile.partition(hashKey.hashCode(), depth, spillPartitions)).write(tuple);
         } else {
           currentMetrics = new Metric[metrics.length];
           for (int i = 0; i < metrics.length; i++) {
@@ -236,11 +328,59 @@ public class HashRollupStream extends TupleStream implements Expressible {
             currentMetrics[i] = bucketMetric;
           }
           metricMap.put(hashKey, currentMetrics);
+
+          if (maxRamBytes != Long.MAX_VALUE) {
+            ramBytes += TupleSpillFile.ramBytesUsed(bucketValues) + METRIC_RAM_BYTES * metrics.length;
+            if (ramBytes > maxRamBytes) {
+              spilled = new ArrayList<>(spillPartitions);
+              for (int i = 0; i < spillPartitions; i++) {
+                spilled.add(new TupleSpillFile("hashRollup", depth + 1));
+              }
+            }
+          }
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      if (spilled != null) {
+        for (TupleSpillFile partition : spilled) {
+          IOUtils.closeQuietly(partition);
         }
       }
+      throw e;
     }
 
-    return tupleIterator.next();
+    List<Tuple> rolledUp = new ArrayList<>(metricMap.size());
+    for(Map.Entry<HashKey, Metric[]> entry : metricMap.entrySet()) {
+      Tuple t = new Tuple();
+      Metric[] finishedMetrics = entry.getValue();
+      for (Metric metric : finishedMetrics) {
+        t.put(metric.getIdentifier(), metric.getValue());
+      }
+
+      HashKey hashKey = entry.getKey();
+      for (int i = 0; i < buckets.length; i++) {
+        t.put(buckets[i].toString(), hashKey.getParts()[i]);
+      }
+      rolledUp.add(t);
+    }
+    tupleIterator = rolledUp.iterator();
+
+    if (spilled != null) {
+      spilledPartitions += spilled.size();
+      for (int i = spilled.size() - 1; i >= 0; i--) {
+        partitions.addFirst(spilled.get(i));
+      }
+    }
+  }
+
+  private void closeCurrentPartition() throws IOException {
+    TupleSpillFile partition = currentPartition;
+    currentPartition = null;
+    if (partition != null) {
+      partition.close();
+      spilledTuples += partition.getNumTuples();
+      spilledBytes += partition.getNumBytes();
+    }
   }
 
   public int getCost() {
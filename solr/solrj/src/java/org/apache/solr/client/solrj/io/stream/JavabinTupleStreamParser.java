@@ -22,10 +22,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.solr.client.solrj.io.TupleBatch;
+import org.apache.solr.common.params.StreamParams;
 import org.apache.solr.common.util.DataInputInputStream;
 import org.apache.solr.common.util.FastInputStream;
 import org.apache.solr.common.util.JavaBinCodec;
@@ -37,6 +40,17 @@ public class JavabinTupleStreamParser extends JavaBinCodec implements TupleStrea
   private boolean onlyJsonTypes = false;
   int objectSize;
 
+  // a document read by nextInto that must be returned by next() instead, END_OBJ at the end of the stream
+  private Object pending;
+  // the fields of the document being read by nextInto, values are in longs/doubles when their kind is
+  // LONG/DOUBLE and in objects when it is OTHER
+  private static final byte OTHER = -1;
+  private String[] keys = new String[16];
+  private byte[] kinds = new byte[16];
+  private long[] longs = new long[16];
+  private double[] doubles = new double[16];
+  private Object[] objects = new Object[16];
+
 
   public JavabinTupleStreamParser(InputStream is, boolean onlyJsonTypes) throws IOException {
     this.onlyJsonTypes = onlyJsonTypes;
@@ -176,13 +190,123 @@ public class JavabinTupleStreamParser extends JavaBinCodec implements TupleStrea
   @Override
   @SuppressWarnings({"unchecked"})
   public Map<String, Object> next() throws IOException {
-    if (arraySize == 0) return null;
-    Object o = readVal(fis);
-    arraySize--;
+    Object o;
+    if (pending != null) {
+      o = pending;
+      pending = null;
+    } else {
+      if (arraySize == 0) return null;
+      o = readVal(fis);
+      arraySize--;
+    }
     if (o == END_OBJ) return null;
     return (Map<String, Object>) o;
   }
 
+  /**
+   * Reads the next document as a new row of the given batch, decoding numbers without boxing them. Returns false,
+   * without adding a row, at the end of the stream, or when the document is an EOF or exception tuple, or isn't
+   * a flat map: {@link #next()} must then be called to get it.
+   */
+  public boolean nextInto(TupleBatch batch) throws IOException {
+    if (pending != null || arraySize == 0) return false;
+    tagByte = fis.readByte();
+    arraySize--;
+    int size;
+    if (tagByte == MAP_ENTRY_ITER) {
+      size = -1;
+    } else if (tagByte == MAP) {
+      size = readVInt(fis);
+    } else if (onlyJsonTypes && (tagByte >>> 5 == ORDERED_MAP >>> 5 || tagByte >>> 5 == NAMED_LST >>> 5)) {
+      size = readSize(fis);
+    } else {
+      pending = readObject(fis);
+      return false;
+    }
+
+    int numFields = 0;
+    boolean special = false;
+    for (int i = 0; size < 0 || i < size; i++) {
+      Object key = readVal(fis);
+      if (key == END_OBJ) break;
+      if (numFields == keys.length) {
+        grow();
+      }
+      String name = key.toString();
+      keys[numFields] = name;
+      special |= StreamParams.EOF.equals(name) || StreamParams.EXCEPTION.equals(name);
+      readValueAt(numFields++);
+    }
+
+    if (special) {
+      Map<String, Object> m = new LinkedHashMap<>();
+      for (int i = 0; i < numFields; i++) {
+        m.put(keys[i], valueAt(i));
+        objects[i] = null;
+      }
+      pending = m;
+      return false;
+    }
+    int row = batch.startRow();
+    for (int i = 0; i < numFields; i++) {
+      switch (kinds[i]) {
+        case LONG:
+          batch.setLong(row, keys[i], longs[i]);
+          break;
+        case DOUBLE:
+          batch.setDouble(row, keys[i], doubles[i]);
+          break;
+        default:
+          batch.setObject(row, keys[i], objects[i]);
+      }
+      objects[i] = null;
+    }
+    return true;
+  }
+
+  private void readValueAt(int i) throws IOException {
+    tagByte = fis.readByte();
+    kinds[i] = LONG;
+    if (tagByte == LONG) {
+      longs[i] = fis.readLong();
+    } else if (tagByte >>> 5 == SLONG >>> 5) {
+      longs[i] = readSmallLong(fis);
+    } else if (tagByte == DOUBLE) {
+      kinds[i] = DOUBLE;
+      doubles[i] = fis.readDouble();
+    } else if (onlyJsonTypes && tagByte >>> 5 == SINT >>> 5) {
+      longs[i] = readSmallInt(fis);
+    } else if (onlyJsonTypes && tagByte == INT) {
+      longs[i] = fis.readInt();
+    } else if (onlyJsonTypes && tagByte == FLOAT) {
+      kinds[i] = DOUBLE;
+      doubles[i] = fis.readFloat();
+    } else {
+      kinds[i] = OTHER;
+      objects[i] = readObject(fis);
+    }
+  }
+
+  private Object valueAt(int i) {
+    switch (kinds[i]) {
+      case LONG:
+        return longs[i];
+      case DOUBLE:
+        return doubles[i];
+      default:
+        return objects[i];
+    }
+  }
+
+  private void grow() {
+    int newLength = keys.length * 2;
+    keys = Arrays.copyOf(keys, newLength);
+    kinds = Arrays.copyOf(kinds, newLength);
+    longs = Arrays.copyOf(longs, newLength);
+    doubles = Arrays.copyOf(doubles, newLength);
+    objects = Arrays.copyOf(objects, newLength);
+  }
+
   @Override
   public void close() throws IOException {
     is.close();
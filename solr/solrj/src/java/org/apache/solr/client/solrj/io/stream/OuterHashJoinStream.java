@@ -83,6 +83,7 @@ public class OuterHashJoinStream extends HashJoinStream implements Expressible {
       }
     }
     expression.addParameter(new StreamExpressionNamedParameter("on",sb.toString()));
+    TupleSpillFile.addParameters(expression, maxRamMB, spillPartitions);
     
     return expression;   
   }
@@ -90,7 +91,7 @@ public class OuterHashJoinStream extends HashJoinStream implements Expressible {
   public Tuple read() throws IOException {
     
     if(null == workingFullTuple){
-      Tuple fullTuple = fullStream.read();
+      Tuple fullTuple = readFullTuple();
       
       // We're at the end of the line
       if(fullTuple.EOF){
@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.comp.StreamComparator;
 import org.apache.solr.client.solrj.io.stream.expr.Explanation;
 import org.apache.solr.client.solrj.io.stream.expr.Expressible;
@@ -88,6 +89,16 @@ public class PushBackStream extends TupleStream implements Expressible {
       return stream.read();
     }
   }
+
+  /** Reads the batch of the substream, or reads tuple by tuple if a tuple was pushed back. */
+  @Override
+  public TupleBatch readBatch(int maxRows) throws IOException {
+    if(tuple != null) {
+      return super.readBatch(maxRows);
+    } else {
+      return stream.readBatch(maxRows);
+    }
+  }
   
   /** Return the stream sort - ie, the order in which records are returned
    *  This returns the streamSort of the substream */
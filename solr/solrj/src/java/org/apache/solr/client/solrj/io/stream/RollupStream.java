@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Locale;
 
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.comp.HashKey;
 import org.apache.solr.client.solrj.io.comp.StreamComparator;
 import org.apache.solr.client.solrj.io.eq.FieldEqualitor;
@@ -39,12 +40,17 @@ import org.apache.solr.client.solrj.io.stream.metrics.Bucket;
 import org.apache.solr.client.solrj.io.stream.metrics.Metric;
 
 /**
+ * Rolls up the metrics of the consecutive tuples having the same bucket values, the underlying stream being
+ * sorted by the buckets. The tuples are read in batches with {@link TupleStream#readBatch(int)}, and the
+ * buckets and metrics read the values from the columns of the batch.
  * @since 6.0.0
  */
 public class RollupStream extends TupleStream implements Expressible {
 
   private static final long serialVersionUID = 1;
 
+  private static final int BATCH_SIZE = 1000;
+
   private PushBackStream tupleStream;
   private Bucket[] buckets;
   private Metric[] metrics;
@@ -52,6 +58,9 @@ public class RollupStream extends TupleStream implements Expressible {
   private HashKey currentKey = new HashKey("-");
   private Metric[] currentMetrics;
   private boolean finished = false;
+  private transient TupleBatch batch;
+  // the index in the batch of the next row to roll up
+  private int next;
 
   public RollupStream(TupleStream tupleStream,
                       Bucket[] buckets,
@@ -191,65 +200,47 @@ public class RollupStream extends TupleStream implements Expressible {
     this.currentMetrics = null;
     this.currentKey = new HashKey("-");
     this.finished = false;
+    this.batch = null;
+    this.next = 0;
   }
 
   public Tuple read() throws IOException {
 
     while(true) {
-      Tuple tuple = tupleStream.read();
-      if(tuple.EOF) {
-        if(!finished) {
-
-          if(currentMetrics == null) {
-            return tuple;
-          }
-
-          Tuple t = new Tuple();
-          for(Metric metric : currentMetrics) {
-            t.put(metric.getIdentifier(), metric.getValue());
-          }
-
-          for(int i=0; i<buckets.length; i++) {
-            t.put(buckets[i].toString(), currentKey.getParts()[i]);
+      if(batch == null || next == batch.size()) {
+        if(batch != null && batch.isEOF()) {
+          if(!finished && currentMetrics != null) {
+            finished = true;
+            return bucketTuple();
           }
-          tupleStream.pushBack(tuple);
-          finished = true;
-          return t;
-        } else {
-          return tuple;
+          return batch.getEofTuple();
         }
+        batch = tupleStream.readBatch(BATCH_SIZE);
+        next = 0;
+        continue;
       }
 
-      Object[] bucketValues = new Object[buckets.length];
-      for(int i=0; i<buckets.length; i++) {
-        bucketValues[i] = buckets[i].getBucketValue(tuple);
-      }
-
-      HashKey hashKey = new HashKey(bucketValues);
-
-      if(hashKey.equals(currentKey)) {
+      int row = batch.getRow(next++);
+      if(currentMetrics != null && isCurrentKey(row)) {
         for(Metric bucketMetric : currentMetrics) {
-          bucketMetric.update(tuple);
+          bucketMetric.update(batch, row);
         }
       } else {
         Tuple t = null;
         if(currentMetrics != null) {
-          t = new Tuple();
-          for(Metric metric : currentMetrics) {
-            t.put(metric.getIdentifier(), metric.getValue());
-          }
-
-          for(int i=0; i<buckets.length; i++) {
-            t.put(buckets[i].toString(), currentKey.getParts()[i]);
-          }
+          t = bucketTuple();
         }
 
-        currentKey = hashKey;
+        Object[] bucketValues = new Object[buckets.length];
+        for(int i=0; i<buckets.length; i++) {
+          bucketValues[i] = buckets[i].getBucketValue(batch, row);
+        }
+        currentKey = new HashKey(bucketValues);
         if (metrics != null) {
           currentMetrics = new Metric[metrics.length];
           for(int i=0; i<metrics.length; i++) {
             Metric bucketMetric = metrics[i].newInstance();
-            bucketMetric.update(tuple);
+            bucketMetric.update(batch, row);
             currentMetrics[i]  = bucketMetric;
           }
         }
@@ -261,6 +252,28 @@ public class RollupStream extends TupleStream implements Expressible {
     }
   }
 
+  private boolean isCurrentKey(int row) {
+    Object[] parts = currentKey.getParts();
+    for(int i=0; i<buckets.length; i++) {
+      if(!buckets[i].isBucketValue(batch, row, parts[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private Tuple bucketTuple() {
+    Tuple t = new Tuple();
+    for(Metric metric : currentMetrics) {
+      t.put(metric.getIdentifier(), metric.getValue());
+    }
+
+    for(int i=0; i<buckets.length; i++) {
+      t.put(buckets[i].toString(), currentKey.getParts()[i]);
+    }
+    return t;
+  }
+
   public int getCost() {
     return 0;
   }
@@ -26,6 +26,7 @@ import java.util.Map;
 import java.util.Set;
 
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.comp.StreamComparator;
 import org.apache.solr.client.solrj.io.eval.EvaluatorException;
 import org.apache.solr.client.solrj.io.eval.StreamEvaluator;
@@ -292,6 +293,20 @@ public class SelectStream extends TupleStream implements Expressible {
     return workingToReturn;
   }
   
+  /**
+   * When only selecting and renaming fields, the columns of the batch read from the underlying stream
+   * are selected and renamed, without any work per tuple.
+   */
+  @Override
+  public TupleBatch readBatch(int maxRows) throws IOException {
+    if (!operations.isEmpty() || !selectedEvaluators.isEmpty()) {
+      return super.readBatch(maxRows);
+    }
+    TupleBatch batch = stream.readBatch(maxRows);
+    batch.selectColumns(selectedFields);
+    return batch;
+  }
+
   /** Return the stream sort - ie, the order in which records are returned */
   public StreamComparator getStreamSort(){
     // apply aliasing to comparator
@@ -32,6 +32,7 @@ import org.apache.solr.client.solrj.impl.HttpSolrClient;
 import org.apache.solr.client.solrj.impl.InputStreamResponseParser;
 import org.apache.solr.client.solrj.io.SolrClientCache;
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.comp.StreamComparator;
 import org.apache.solr.client.solrj.io.stream.expr.Explanation;
 import org.apache.solr.client.solrj.io.stream.expr.Explanation.ExpressionType;
@@ -240,6 +241,35 @@ public class SolrStream extends TupleStream {
     }
   }
 
+  /**
+   * Reads javabin responses straight into the batch, without a map or boxed numbers per tuple, unless fields
+   * are renamed or traced. Other responses, and the EOF or exception tuple, go through {@link #read()}.
+   */
+  @Override
+  public TupleBatch readBatch(int maxRows) throws IOException {
+    if (!(tupleStreamParser instanceof JavabinTupleStreamParser) || trace || fieldMappings != null) {
+      return super.readBatch(maxRows);
+    }
+    JavabinTupleStreamParser parser = (JavabinTupleStreamParser) tupleStreamParser;
+    TupleBatch batch = new TupleBatch(maxRows);
+    while (!batch.isFull()) {
+      try {
+        if (parser.nextInto(batch)) {
+          continue;
+        }
+      } catch (Exception e) {
+        throw new IOException("--> "+this.baseUrl+": An exception has occurred on the server, refer to server log for details.", e);
+      }
+      Tuple tuple = read();
+      if (tuple.EOF) {
+        batch.setEofTuple(tuple);
+        break;
+      }
+      batch.add(tuple);
+    }
+    return batch;
+  }
+
   public void setDistrib(boolean distrib) {
     this.distrib = distrib;
   }
@@ -29,7 +29,6 @@ import java.util.Optional;
 import java.util.Map.Entry;
 import java.util.Random;
 import java.util.Set;
-import java.util.TreeSet;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.stream.Collectors;
@@ -278,7 +277,7 @@ public class TopicStream extends CloudSolrStream implements Expressible  {
   }
 
   public void open() throws IOException {
-    this.tuples = new TreeSet<>();
+    this.tuples = null;
     this.solrStreams = new ArrayList<>();
     this.eofTuples = Collections.synchronizedMap(new HashMap<>());
 
@@ -321,12 +320,14 @@ public class TopicStream extends CloudSolrStream implements Expressible  {
       }
 
       try {
+        List<TupleWrapper> wrappers = new ArrayList<>(futures.size());
         for (Future<TupleWrapper> f : futures) {
           TupleWrapper w = f.get();
           if (w != null) {
-            tuples.add(w);
+            wrappers.add(w);
           }
         }
+        tuples = new TupleMerger(comp, wrappers);
       } catch (Exception e) {
         throw new IOException(e);
       }
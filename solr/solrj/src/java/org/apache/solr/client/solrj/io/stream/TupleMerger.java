@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.client.solrj.io.stream;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.comp.ComparatorOrder;
+import org.apache.solr.client.solrj.io.comp.FieldComparator;
+import org.apache.solr.client.solrj.io.comp.MultipleFieldComparator;
+import org.apache.solr.client.solrj.io.comp.StreamComparator;
+
+/**
+ * Merges sources of tuples, each sorted by the same {@link StreamComparator}, into a single sorted sequence.
+ * <p>
+ * The sources are arranged in a loser tree, so that returning a tuple takes a single pass from one leaf to the
+ * root of the tree, with one comparison per level. When the comparator only sorts on fields, as the sort of a
+ * {@link CloudSolrStream} does, the sort values are also decoded once per tuple, integral and floating point
+ * numbers into primitive longs and doubles, instead of once per comparison.
+ * Ties are broken by the position of the source in the list, so the merge is stable.
+ *
+ * @lucene.internal
+ */
+public class TupleMerger {
+
+  /** A sorted source of tuples, positioned on a tuple. */
+  public interface Source {
+    /** Returns the current tuple, which is never an EOF tuple. */
+    Tuple getTuple();
+
+    /** Moves to the next tuple, returning false if the source is exhausted. */
+    boolean next() throws IOException;
+  }
+
+  private static final byte OBJECT = 0;
+  private static final byte NULL = 1;
+  private static final byte LONG = 2;
+  private static final byte DOUBLE = 3;
+
+  private final Source[] sources;
+  private final int numSources;
+  private final boolean[] exhausted;
+  // tree[0] is the current winner, tree[1..numSources-1] the losers of each match; the
+  // leaf of source i is the virtual node numSources + i
+  private final int[] tree;
+
+  private final StreamComparator comp;
+  // decoded sort keys, when the comparator only sorts on fields: field f of source s is at s * numFields + f
+  private final String[] fields;
+  private final boolean[] descending;
+  private final int numFields;
+  private final byte[] kinds;
+  private final long[] longKeys;
+  private final double[] doubleKeys;
+  private final Object[] values;
+
+  /**
+   * @param comp    the comparator all the sources are sorted by
+   * @param sources the sources to merge, each positioned on its first tuple
+   */
+  public TupleMerger(StreamComparator comp, List<? extends Source> sources) {
+    this.comp = comp;
+    this.numSources = sources.size();
+    this.sources = sources.toArray(new Source[0]);
+    this.exhausted = new boolean[numSources];
+    this.tree = new int[Math.max(1, numSources)];
+
+    FieldComparator[] fieldComps = getFieldComparators(comp);
+    if (fieldComps != null) {
+      numFields = fieldComps.length;
+      fields = new String[numFields];
+      descending = new boolean[numFields];
+      for (int f = 0; f < numFields; f++) {
+        fields[f] = fieldComps[f].getLeftFieldName();
+        descending[f] = fieldComps[f].getOrder() == ComparatorOrder.DESCENDING;
+      }
+      kinds = new byte[numSources * numFields];
+      longKeys = new long[numSources * numFields];
+      doubleKeys = new double[numSources * numFields];
+      values = new Object[numSources * numFields];
+      for (int s = 0; s < numSources; s++) {
+        decode(s);
+      }
+    } else {
+      numFields = 0;
+      fields = null;
+      descending = null;
+      kinds = null;
+      longKeys = null;
+      doubleKeys = null;
+      values = null;
+    }
+
+    if (numSources == 0) {
+      tree[0] = 0;
+    } else {
+      tree[0] = build(1);
+    }
+  }
+
+  /** Returns the field comparators making up the given comparator, or null if it isn't only made of them. */
+  private static FieldComparator[] getFieldComparators(StreamComparator comp) {
+    StreamComparator[] comps = comp instanceof MultipleFieldComparator
+        ? ((MultipleFieldComparator) comp).getComps() : new StreamComparator[] {comp};
+    FieldComparator[] fieldComps = new FieldComparator[comps.length];
+    for (int i = 0; i < comps.length; i++) {
+      if (!(comps[i] instanceof FieldComparator) || ((FieldComparator) comps[i]).hasDifferentFieldNames()) {
+        return null;
+      }
+      fieldComps[i] = (FieldComparator) comps[i];
+    }
+    return fieldComps;
+  }
+
+  /**
+   * Returns the next tuple in sort order and advances the source it came from, or returns null once
+   * all the sources are exhausted.
+   */
+  public Tuple next() throws IOException {
+    int winner = tree[0];
+    if (numSources == 0 || exhausted[winner]) {
+      return null;
+    }
+    Source source = sources[winner];
+    Tuple tuple = source.getTuple();
+    if (source.next()) {
+      if (fields != null) {
+        decode(winner);
+      }
+    } else {
+      exhausted[winner] = true;
+    }
+
+    // replay the matches on the path from the winner's leaf to the root
+    for (int node = (winner + numSources) >> 1; node > 0; node >>= 1) {
+      int loser = tree[node];
+      if (less(loser, winner)) {
+        tree[node] = winner;
+        winner = loser;
+      }
+    }
+    tree[0] = winner;
+    return tuple;
+  }
+
+  /** Plays the matches of the subtree rooted at the given node, returning its winner. */
+  private int build(int node) {
+    if (node >= numSources) {
+      return node - numSources;
+    }
+    int left = build(2 * node);
+    int right = build(2 * node + 1);
+    if (less(right, left)) {
+      tree[node] = left;
+      return right;
+    } else {
+      tree[node] = right;
+      return left;
+    }
+  }
+
+  private boolean less(int a, int b) {
+    if (exhausted[a] || exhausted[b]) {
+      return !exhausted[a] || (exhausted[b] && a < b);
+    }
+    int c = fields != null ? compareKeys(a, b) : comp.compare(sources[a].getTuple(), sources[b].getTuple());
+    return c < 0 || (c == 0 && a < b);
+  }
+
+  private void decode(int source) {
+    Tuple tuple = sources[source].getTuple();
+    int base = source * numFields;
+    for (int f = 0; f < numFields; f++) {
+      Object value = tuple.get(fields[f]);
+      values[base + f] = value;
+      if (value == null) {
+        kinds[base + f] = NULL;
+      } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+        kinds[base + f] = LONG;
+        longKeys[base + f] = ((Number) value).longValue();
+      } else if (value instanceof Double || value instanceof Float) {
+        kinds[base + f] = DOUBLE;
+        doubleKeys[base + f] = ((Number) value).doubleValue();
+      } else {
+        kinds[base + f] = OBJECT;
+      }
+    }
+  }
+
+  /** Compares the decoded keys the same way {@link FieldComparator} compares tuples. */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private int compareKeys(int a, int b) {
+    int baseA = a * numFields;
+    int baseB = b * numFields;
+    for (int f = 0; f < numFields; f++) {
+      int i = baseA + f;
+      int j = baseB + f;
+      byte kind = kinds[i];
+      int c;
+      if (kind == NULL || kinds[j] == NULL) {
+        // nulls sort first in ascending order, last in descending order
+        c = kind == kinds[j] ? 0 : (kind == NULL ? -1 : 1);
+      } else if (kind != kinds[j] || kind == OBJECT) {
+        c = ((Comparable) values[i]).compareTo(values[j]);
+      } else if (kind == LONG) {
+        c = Long.compare(longKeys[i], longKeys[j]);
+      } else {
+        c = Double.compare(doubleKeys[i], doubleKeys[j]);
+      }
+      if (descending[f]) {
+        c = -c;
+      }
+      if (c != 0) {
+        return c;
+      }
+    }
+    return 0;
+  }
+}
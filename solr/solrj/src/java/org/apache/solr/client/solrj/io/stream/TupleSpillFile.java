@@ -0,0 +1,268 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.client.solrj.io.stream;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.stream.expr.StreamExpression;
+import org.apache.solr.client.solrj.io.stream.expr.StreamExpressionNamedParameter;
+import org.apache.solr.client.solrj.io.stream.expr.StreamExpressionValue;
+import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
+import org.apache.solr.common.util.FastInputStream;
+import org.apache.solr.common.util.JavaBinCodec;
+
+/**
+ * A temporary file holding one partition of the tuples that a stream with a memory limit, such as a
+ * {@link HashJoinStream} or a {@link HashRollupStream}, couldn't keep in memory.
+ * Tuples are written in the javabin format, and read back in the order they were written.
+ * <p>
+ * The files are created in the directory given by the {@value #SPILL_DIR_PROP} system property,
+ * or in the default temporary directory, and are deleted when closed.
+ */
+class TupleSpillFile implements Closeable {
+
+  static final String SPILL_DIR_PROP = "solr.streaming.spillDir";
+
+  // the parameters of the streams that spill
+  static final String MAX_RAM_MB_PARAM = "maxRamMB";
+  static final String SPILL_PARTITIONS_PARAM = "spillPartitions";
+
+  static final int DEFAULT_SPILL_PARTITIONS = 16;
+
+  /**
+   * The maximum number of times tuples are partitioned: partitioning more doesn't help when too many
+   * tuples have the same key, so the partitions are then processed in memory regardless of the limit.
+   */
+  static final int MAX_DEPTH = 3;
+
+  // the spill statistics added to the EOF tuple of a stream that spilled
+  static final String SPILLED_PARTITIONS = "spilledPartitions";
+  static final String SPILLED_TUPLES = "spilledTuples";
+  static final String SPILLED_BYTES = "spilledBytes";
+
+  /** A source of tuples, returning null at the end. */
+  interface TupleSource {
+    Tuple next() throws IOException;
+  }
+
+  private final Path path;
+  private final int depth;
+  private OutputStream out;
+  private JavaBinCodec writer;
+  private long numTuples;
+  private long numBytes;
+  private Reader reader;
+
+  /**
+   * @param prefix the prefix of the file name
+   * @param depth the number of times the tuples of this file were partitioned
+   */
+  TupleSpillFile(String prefix, int depth) throws IOException {
+    String dir = System.getProperty(SPILL_DIR_PROP);
+    this.path = dir == null ? Files.createTempFile(prefix, ".spill") : Files.createTempFile(Paths.get(dir), prefix, ".spill");
+    this.depth = depth;
+    try {
+      this.out = Files.newOutputStream(path);
+      this.writer = new JavaBinCodec(out, null);
+    } catch (IOException e) {
+      close();
+      throw e;
+    }
+  }
+
+  int getDepth() {
+    return depth;
+  }
+
+  long getNumTuples() {
+    return numTuples;
+  }
+
+  /** The size of the file, once it was read or closed. */
+  long getNumBytes() {
+    return numBytes;
+  }
+
+  void write(Tuple tuple) throws IOException {
+    writer.writeVal(tuple.getFields());
+    numTuples++;
+  }
+
+  /** Ends the writing of this file, and returns a source reading its tuples. */
+  TupleSource read() throws IOException {
+    if (reader == null) {
+      writer.close();
+      writer = null;
+      out.close();
+      out = null;
+      numBytes = Files.size(path);
+      reader = new Reader(Files.newInputStream(path), numTuples);
+    }
+    return reader;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if (out != null) {
+        if (writer != null) {
+          writer.close();
+        }
+        out.close();
+        numBytes = Files.size(path);
+      }
+      if (reader != null) {
+        reader.in.close();
+      }
+    } finally {
+      out = null;
+      writer = null;
+      reader = null;
+      Files.deleteIfExists(path);
+    }
+  }
+
+  private static class Reader extends JavaBinCodec implements TupleSource {
+    private final InputStream in;
+    private final FastInputStream fis;
+    private long remaining;
+
+    Reader(InputStream in, long numTuples) throws IOException {
+      this.in = in;
+      this.fis = initRead(in);
+      this.remaining = numTuples;
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked"})
+    public Tuple next() throws IOException {
+      if (remaining == 0) {
+        return null;
+      }
+      remaining--;
+      return new Tuple((Map<String, Object>) readVal(fis));
+    }
+  }
+
+  /** Returns the partition, between 0 and numPartitions, of a hash when partitioning tuples for the given depth. */
+  static int partition(int hash, int depth, int numPartitions) {
+    // mix the hash differently for each depth, so that the tuples of a partition get spread when partitioned again
+    int h = (hash ^ (depth * 0x9E3779B9)) * 0x85EBCA6B;
+    h ^= h >>> 16;
+    return Math.floorMod(h, numPartitions);
+  }
+
+  /** A rough estimate of the heap used by a tuple, to decide when to spill. */
+  static long ramBytesUsed(Tuple tuple) {
+    long bytes = 64;
+    for (Map.Entry<String, Object> entry : tuple.getFields().entrySet()) {
+      bytes += 32 + ramBytesUsed(entry.getKey()) + ramBytesUsed(entry.getValue());
+    }
+    return bytes;
+  }
+
+  /** A rough estimate of the heap used by a value of a tuple. */
+  static long ramBytesUsed(Object value) {
+    if (value instanceof String) {
+      return 40 + 2L * ((String) value).length();
+    } else if (value instanceof Collection) {
+      long bytes = 24;
+      for (Object o : (Collection<?>) value) {
+        bytes += 8 + ramBytesUsed(o);
+      }
+      return bytes;
+    } else if (value instanceof Object[]) {
+      long bytes = 16;
+      for (Object o : (Object[]) value) {
+        bytes += 8 + ramBytesUsed(o);
+      }
+      return bytes;
+    }
+    return 24;
+  }
+
+  /** Returns the value of the {@value #MAX_RAM_MB_PARAM} parameter of an expression, or -1 if it has none. */
+  static double getMaxRamMB(StreamExpression expression, StreamFactory factory) throws IOException {
+    String value = getValue(expression, factory, MAX_RAM_MB_PARAM);
+    if (value == null) {
+      return -1;
+    }
+    try {
+      double maxRamMB = Double.parseDouble(value);
+      if (maxRamMB >= 0) {
+        return maxRamMB;
+      }
+    } catch (NumberFormatException e) {
+      // handled below
+    }
+    throw new IOException(String.format(Locale.ROOT, "Invalid expression %s - %s must be a positive number but found '%s'",
+        expression, MAX_RAM_MB_PARAM, value));
+  }
+
+  /** Returns the value of the {@value #SPILL_PARTITIONS_PARAM} parameter of an expression, or the default if it has none. */
+  static int getSpillPartitions(StreamExpression expression, StreamFactory factory) throws IOException {
+    String value = getValue(expression, factory, SPILL_PARTITIONS_PARAM);
+    if (value == null) {
+      return DEFAULT_SPILL_PARTITIONS;
+    }
+    try {
+      int spillPartitions = Integer.parseInt(value);
+      if (spillPartitions > 1) {
+        return spillPartitions;
+      }
+    } catch (NumberFormatException e) {
+      // handled below
+    }
+    throw new IOException(String.format(Locale.ROOT, "Invalid expression %s - %s must be an integer greater than 1 but found '%s'",
+        expression, SPILL_PARTITIONS_PARAM, value));
+  }
+
+  /** Returns the number of spill parameters of an expression. */
+  static int countParameters(StreamExpression expression, StreamFactory factory) {
+    return (factory.getNamedOperand(expression, MAX_RAM_MB_PARAM) != null ? 1 : 0)
+        + (factory.getNamedOperand(expression, SPILL_PARTITIONS_PARAM) != null ? 1 : 0);
+  }
+
+  /** Adds the spill parameters of a stream to its expression. */
+  static void addParameters(StreamExpression expression, double maxRamMB, int spillPartitions) {
+    if (maxRamMB >= 0) {
+      expression.addParameter(new StreamExpressionNamedParameter(MAX_RAM_MB_PARAM, Double.toString(maxRamMB)));
+      expression.addParameter(new StreamExpressionNamedParameter(SPILL_PARTITIONS_PARAM, Integer.toString(spillPartitions)));
+    }
+  }
+
+  private static String getValue(StreamExpression expression, StreamFactory factory, String name) throws IOException {
+    StreamExpressionNamedParameter param = factory.getNamedOperand(expression, name);
+    if (param == null) {
+      return null;
+    }
+    if (!(param.getParameter() instanceof StreamExpressionValue)) {
+      throw new IOException(String.format(Locale.ROOT, "Invalid expression %s - expecting a single value for %s", expression, name));
+    }
+    return ((StreamExpressionValue) param.getParameter()).getValue();
+  }
+}
@@ -32,6 +32,7 @@ import java.util.stream.Collectors;
 import org.apache.solr.client.solrj.impl.CloudSolrClient;
 import org.apache.solr.client.solrj.io.SolrClientCache;
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.comp.StreamComparator;
 import org.apache.solr.client.solrj.io.stream.expr.Explanation;
 import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
@@ -69,6 +70,26 @@ public abstract class TupleStream implements Closeable, Serializable, MapWriter
 
   public abstract Tuple read() throws IOException;
 
+  /**
+   * Reads up to <code>maxRows</code> tuples into a columnar {@link TupleBatch}. When the end of the stream is
+   * reached the EOF tuple is set on the returned batch, which is then the last one.
+   * <p>
+   * This implementation calls {@link #read()} for each row. Streams that can fill a batch without creating
+   * a {@link Tuple} per row override it, and calls to both methods can be mixed on the same stream.
+   */
+  public TupleBatch readBatch(int maxRows) throws IOException {
+    TupleBatch batch = new TupleBatch(maxRows);
+    while (!batch.isFull()) {
+      Tuple tuple = read();
+      if (tuple.EOF) {
+        batch.setEofTuple(tuple);
+        break;
+      }
+      batch.add(tuple);
+    }
+    return batch;
+  }
+
   public abstract StreamComparator getStreamSort();
 
   public abstract Explanation toExplanation(StreamFactory factory) throws IOException;
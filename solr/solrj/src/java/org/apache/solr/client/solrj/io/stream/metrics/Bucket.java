@@ -17,6 +17,7 @@
 package org.apache.solr.client.solrj.io.stream.metrics;
 
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 
 public class Bucket {
 
@@ -38,6 +39,36 @@ public class Bucket {
     }
   }
 
+  /** Returns the value of this bucket for a row of a batch, given by its index in the columns of the batch. */
+  public Object getBucketValue(TupleBatch batch, int row) {
+    TupleBatch.Column column = batch.getColumn(bucketKey);
+    Object o = column == null ? null : column.getObject(row);
+    if(o == null) {
+      return NULL_VALUE;
+    } else {
+      return o;
+    }
+  }
+
+  /**
+   * Returns true if the value of this bucket for a row of a batch equals the given bucket value,
+   * without boxing the value of the row when it is a long or a double.
+   */
+  public boolean isBucketValue(TupleBatch batch, int row, Object value) {
+    TupleBatch.Column column = batch.getColumn(bucketKey);
+    if(column == null || column.isNull(row)) {
+      return NULL_VALUE.equals(value);
+    }
+    switch (column.getType()) {
+      case LONG:
+        return value instanceof Long && (Long) value == column.getLong(row);
+      case DOUBLE:
+        return value instanceof Double && Double.compare((Double) value, column.getDouble(row)) == 0;
+      default:
+        return column.getObject(row).equals(value);
+    }
+  }
+
   public String toString() {
     return bucketKey;
   }
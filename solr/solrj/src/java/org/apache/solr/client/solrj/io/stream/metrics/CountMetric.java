@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.util.Locale;
 
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpression;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpressionParameter;
 import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
@@ -73,6 +74,18 @@ public class CountMetric extends Metric {
     }
   }
 
+  @Override
+  public void update(TupleBatch batch, int row) {
+    if (isAllColumns()) {
+      ++count;
+    } else {
+      TupleBatch.Column column = batch.getColumn(columnName);
+      if (column != null && !column.isNull(row)) {
+        ++count;
+      }
+    }
+  }
+
   public Long getValue() {
     return count;
   }
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.Locale;
 
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpression;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpressionParameter;
 import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
@@ -94,6 +95,30 @@ public class MaxMetric extends Metric {
     }
   }
 
+  @Override
+  public void update(TupleBatch batch, int row) {
+    TupleBatch.Column column = batch.getColumn(columnName);
+    if (column == null || column.isNull(row)) {
+      return;
+    }
+    switch (column.getType()) {
+      case LONG:
+        long l = column.getLong(row);
+        if (l > longMax) {
+          longMax = l;
+        }
+        break;
+      case DOUBLE:
+        double d = column.getDouble(row);
+        if (d > doubleMax) {
+          doubleMax = d;
+        }
+        break;
+      default:
+        super.update(batch, row);
+    }
+  }
+
   public Metric newInstance() {
     return new MaxMetric(columnName);
   }
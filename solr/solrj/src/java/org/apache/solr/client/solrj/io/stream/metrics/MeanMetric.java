@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.Locale;
 
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpression;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpressionParameter;
 import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
@@ -89,6 +90,27 @@ public class MeanMetric extends Metric {
     }
   }
 
+  @Override
+  public void update(TupleBatch batch, int row) {
+    TupleBatch.Column column = batch.getColumn(columnName);
+    if (column == null || column.isNull(row)) {
+      ++count;
+      return;
+    }
+    switch (column.getType()) {
+      case LONG:
+        ++count;
+        longSum += column.getLong(row);
+        break;
+      case DOUBLE:
+        ++count;
+        doubleSum += column.getDouble(row);
+        break;
+      default:
+        super.update(batch, row);
+    }
+  }
+
   public Metric newInstance() {
     return new MeanMetric(columnName, outputLong);
   }
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.UUID;
 
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.stream.expr.Explanation;
 import org.apache.solr.client.solrj.io.stream.expr.Explanation.ExpressionType;
 import org.apache.solr.client.solrj.io.stream.expr.Expressible;
@@ -69,6 +70,23 @@ public abstract class Metric implements Expressible {
   
   public abstract Number getValue();
   public abstract void update(Tuple tuple);
+
+  /**
+   * Updates this metric with a row of a batch, given by its index in the columns of the batch.
+   * This implementation builds a {@link Tuple} of the columns of the metric and calls {@link #update(Tuple)},
+   * metrics that can read the columns directly override it.
+   */
+  public void update(TupleBatch batch, int row) {
+    Tuple tuple = new Tuple();
+    for (String columnName : getColumns()) {
+      TupleBatch.Column column = batch.getColumn(columnName);
+      if (column != null && !column.isNull(row)) {
+        tuple.put(columnName, column.getObject(row));
+      }
+    }
+    update(tuple);
+  }
+
   public abstract Metric newInstance();
   public abstract String[] getColumns();
 
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.Locale;
 
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpression;
 import org.apache.solr.client.solrj.io.stream.expr.StreamExpressionParameter;
 import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
@@ -95,6 +96,30 @@ public class MinMetric extends Metric {
     }
   }
 
+  @Override
+  public void update(TupleBatch batch, int row) {
+    TupleBatch.Column column = batch.getColumn(columnName);
+    if (column == null || column.isNull(row)) {
+      return;
+    }
+    switch (column.getType()) {
+      case LONG:
+        long l = column.getLong(row);
+        if (l < longMin) {
+          longMin = l;
+        }
+        break;
+      case DOUBLE:
+        double d = column.getDouble(row);
+        if (d < doubleMin) {
+          doubleMin = d;
+        }
+        break;
+      default:
+        super.update(batch, row);
+    }
+  }
+
   public Metric newInstance() {
     return new MinMetric(columnName);
   }
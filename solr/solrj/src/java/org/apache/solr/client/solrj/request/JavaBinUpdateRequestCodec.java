@@ -36,6 +36,7 @@ import org.apache.solr.common.params.ShardParams;
 import org.apache.solr.common.params.SolrParams;
 import org.apache.solr.common.util.DataInputInputStream;
 import org.apache.solr.common.util.JavaBinCodec;
+import org.apache.solr.common.util.JavaBinDictionary;
 import org.apache.solr.common.util.NamedList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -53,6 +54,8 @@ import static org.apache.solr.common.util.ByteArrayUtf8CharSequence.convertCharS
  */
 public class JavaBinUpdateRequestCodec {
   private boolean readStringAsCharSeq = false;
+  private boolean readByteArrayAsByteBuffer = false;
+  private JavaBinDictionary dictionary;
 
   public JavaBinUpdateRequestCodec setReadStringAsCharSeq(boolean flag) {
     this.readStringAsCharSeq = flag;
@@ -60,6 +63,25 @@ public class JavaBinUpdateRequestCodec {
 
   }
 
+  /**
+   * If true, byte[] field values of the streamed documents are read as {@link java.nio.ByteBuffer}s,
+   * which slice the input instead of copying it when the input is fully buffered.
+   */
+  public JavaBinUpdateRequestCodec setReadByteArrayAsByteBuffer(boolean flag) {
+    this.readByteArrayAsByteBuffer = flag;
+    return this;
+  }
+
+  /**
+   * Requests are written with this dictionary, which the server must have as well.
+   *
+   * @see JavaBinCodec#setDictionary(JavaBinDictionary)
+   */
+  public JavaBinUpdateRequestCodec setDictionary(JavaBinDictionary dictionary) {
+    this.dictionary = dictionary;
+    return this;
+  }
+
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
   private static final AtomicBoolean WARNED_ABOUT_INDEX_TIME_BOOSTS = new AtomicBoolean();
 
@@ -100,7 +122,7 @@ public class JavaBinUpdateRequestCodec {
       nl.add("docs", docIter);
     }
     try (JavaBinCodec codec = new JavaBinCodec()) {
-      codec.marshal(nl, os);
+      codec.setDictionary(dictionary).marshal(nl, os);
     }
   }
 
@@ -125,7 +147,7 @@ public class JavaBinUpdateRequestCodec {
     List<String> delByQ;
     final NamedList<?>[] namedList = new NamedList<?>[1];
     try (JavaBinCodec codec = new StreamingCodec(namedList, updateRequest, handler)) {
-      codec.unmarshal(is);
+      codec.setDictionary(dictionary).unmarshal(is);
     }
 
     // NOTE: if the update request contains only delete commands the params
@@ -295,6 +317,7 @@ public class JavaBinUpdateRequestCodec {
       Boolean overwrite = null;
       Object o = null;
       super.readStringAsCharSeq = JavaBinUpdateRequestCodec.this.readStringAsCharSeq;
+      super.readByteArrayAsByteBuffer = JavaBinUpdateRequestCodec.this.readByteArrayAsByteBuffer;
       try {
         while (true) {
           if (o == null) {
@@ -341,6 +364,7 @@ public class JavaBinUpdateRequestCodec {
         return Collections.emptyList();
       } finally {
         super.readStringAsCharSeq = false;
+        super.readByteArrayAsByteBuffer = false;
 
       }
     }
@@ -41,6 +41,18 @@ public class RateLimiterPayload implements ReflectMapWriter {
   @JsonProperty
   public Integer slotAcquisitionTimeoutInMS;
 
+  @JsonProperty
+  public Boolean adaptive;
+
+  @JsonProperty
+  public Integer minAllowedRequests;
+
+  @JsonProperty
+  public Double latencyTolerance;
+
+  @JsonProperty
+  public Double lowPriorityRatio;
+
   public RateLimiterPayload copy() {
     RateLimiterPayload result = new RateLimiterPayload();
 
@@ -49,6 +61,10 @@ public class RateLimiterPayload implements ReflectMapWriter {
     result.allowedRequests = allowedRequests;
     result.slotBorrowingEnabled = slotBorrowingEnabled;
     result.slotAcquisitionTimeoutInMS = slotAcquisitionTimeoutInMS;
+    result.adaptive = adaptive;
+    result.minAllowedRequests = minAllowedRequests;
+    result.latencyTolerance = latencyTolerance;
+    result.lowPriorityRatio = lowPriorityRatio;
 
     return result;
   }
@@ -61,13 +77,18 @@ public class RateLimiterPayload implements ReflectMapWriter {
           Objects.equals(this.guaranteedSlots, that.guaranteedSlots) &&
           Objects.equals(this.allowedRequests, that.allowedRequests) &&
           Objects.equals(this.slotBorrowingEnabled, that.slotBorrowingEnabled) &&
-          Objects.equals(this.slotAcquisitionTimeoutInMS, that.slotAcquisitionTimeoutInMS);
+          Objects.equals(this.slotAcquisitionTimeoutInMS, that.slotAcquisitionTimeoutInMS) &&
+          Objects.equals(this.adaptive, that.adaptive) &&
+          Objects.equals(this.minAllowedRequests, that.minAllowedRequests) &&
+          Objects.equals(this.latencyTolerance, that.latencyTolerance) &&
+          Objects.equals(this.lowPriorityRatio, that.lowPriorityRatio);
     }
     return false;
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(enabled, guaranteedSlots, allowedRequests, slotBorrowingEnabled, slotAcquisitionTimeoutInMS);
+    return Objects.hash(enabled, guaranteedSlots, allowedRequests, slotBorrowingEnabled, slotAcquisitionTimeoutInMS,
+        adaptive, minAllowedRequests, latencyTolerance, lowPriorityRatio);
   }
 }
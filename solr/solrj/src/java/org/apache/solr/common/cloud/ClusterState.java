@@ -18,7 +18,9 @@ package org.apache.solr.common.cloud;
 
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrException.ErrorCode;
+import org.apache.solr.common.util.Compressor;
 import org.apache.solr.common.util.Utils;
+import org.apache.solr.common.util.ZLibCompressor;
 import org.apache.zookeeper.KeeperException;
 import org.noggit.JSONWriter;
 import org.slf4j.Logger;
@@ -47,6 +49,7 @@ import java.util.stream.Collectors;
 public class ClusterState implements JSONWriter.Writable {
   private static final Logger log = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+  private static final Compressor STATE_COMPRESSOR = new ZLibCompressor();
 
   private final Map<String, CollectionRef> collectionStates, immutableCollectionStates;
   private Set<String> liveNodes;
@@ -230,7 +233,7 @@ public class ClusterState implements JSONWriter.Writable {
       return new ClusterState(liveNodes, Collections.<String, DocCollection>emptyMap());
     }
     @SuppressWarnings({"unchecked"})
-    Map<String, Object> stateMap = (Map<String, Object>) Utils.fromJSON(bytes);
+    Map<String, Object> stateMap = (Map<String, Object>) Utils.fromJSON(decodeStateBytes(bytes));
     return createFromCollectionMap(version, stateMap, liveNodes);
   }
 
@@ -252,7 +255,7 @@ public class ClusterState implements JSONWriter.Writable {
     if (bytes == null || bytes.length == 0) {
       return new ClusterState(liveNodes, Collections.emptyMap());
     }
-    Map<String, Object> stateMap = (Map<String, Object>) Utils.fromJSON(bytes);
+    Map<String, Object> stateMap = (Map<String, Object>) Utils.fromJSON(decodeStateBytes(bytes));
     Map<String, Object> props = (Map<String, Object>) stateMap.get(coll);
     if (props != null) {
       if (!props.containsKey(ZkStateReader.CONFIGNAME_PROP)) {
@@ -278,6 +281,24 @@ public class ClusterState implements JSONWriter.Writable {
     return createFromCollectionMap(version, stateMap, liveNodes);
   }
 
+  /**
+   * Encodes the state of a single collection as it is stored in its {@code state.json} znode. The JSON is
+   * compressed when it is larger than {@code minStateByteLenForCompression}; a negative value disables compression.
+   * Either form is understood by {@link #createFromJson(int, byte[], Set)}.
+   */
+  public static byte[] encodeCollectionState(DocCollection coll, int minStateByteLenForCompression) {
+    byte[] data = Utils.toJSON(Collections.singletonMap(coll.getName(), coll));
+    if (minStateByteLenForCompression >= 0 && data.length > minStateByteLenForCompression) {
+      return STATE_COMPRESSOR.compressBytes(data);
+    }
+    return data;
+  }
+
+  /** Returns the JSON bytes of a {@code state.json} znode, decompressing them if needed. */
+  public static byte[] decodeStateBytes(byte[] bytes) {
+    return STATE_COMPRESSOR.isCompressedBytes(bytes) ? STATE_COMPRESSOR.decompressBytes(bytes) : bytes;
+  }
+
   public static ClusterState createFromCollectionMap(int version, Map<String, Object> stateMap, Set<String> liveNodes) {
     Map<String,CollectionRef> collections = new LinkedHashMap<>(stateMap.size());
     for (Entry<String, Object> entry : stateMap.entrySet()) {
@@ -238,6 +238,8 @@ public class ZkStateReader implements SolrCloseable {
 
   private volatile boolean closed = false;
 
+  private volatile int minStateByteLenForCompression = -1;
+
   private Set<CountDownLatch> waitLatches = ConcurrentHashMap.newKeySet();
 
   public ZkStateReader(SolrZkClient zkClient) {
@@ -277,6 +279,26 @@ public class ZkStateReader implements SolrCloseable {
     assert ObjectReleaseTracker.track(this);
   }
 
+  /**
+   * Sets the size above which the {@code state.json} of a collection written through this reader is compressed.
+   * A negative value, the default, disables compression. Compressed state can only be read by nodes that understand it.
+   */
+  public void setMinStateByteLenForCompression(int minStateByteLenForCompression) {
+    this.minStateByteLenForCompression = minStateByteLenForCompression;
+  }
+
+  public int getMinStateByteLenForCompression() {
+    return minStateByteLenForCompression;
+  }
+
+  /**
+   * Returns the bytes to store in the {@code state.json} znode of the given collection.
+   * @see ClusterState#encodeCollectionState(DocCollection, int)
+   */
+  public byte[] encodeCollectionState(DocCollection coll) {
+    return ClusterState.encodeCollectionState(coll, minStateByteLenForCompression);
+  }
+
   /**
    * Forcibly refresh cluster state from ZK. Do this only to avoid race conditions because it's expensive.
    * <p>
@@ -200,6 +200,7 @@ public interface CommonParams {
   String ZK_STATUS_PATH = "/admin/zookeeper/status";
   String SYSTEM_INFO_PATH = "/admin/info/system";
   String METRICS_PATH = "/admin/metrics";
+  String PROMETHEUS_METRICS_PATH = METRICS_PATH + "/prometheus";
 
   String STATUS = "status";
 
@@ -216,7 +217,8 @@ public interface CommonParams {
       ZK_STATUS_PATH,
       AUTHC_PATH,
       AUTHZ_PATH,
-      METRICS_PATH);
+      METRICS_PATH,
+      PROMETHEUS_METRICS_PATH);
   String APISPEC_LOCATION = "apispec/";
   String INTROSPECT = "/_introspect";
 
@@ -303,6 +305,9 @@ public interface CommonParams {
 
   String SOLR_REQUEST_TYPE_PARAM = "Solr-Request-Type";
 
+  /** Header giving the priority of a request for adaptive rate limiters: high, normal (the default) or low */
+  String SOLR_REQUEST_PRIORITY_PARAM = "Solr-Request-Priority";
+
   String VERSION_FIELD="_version_";
 
   String FAIL_ON_VERSION_CONFLICTS ="failOnVersionConflicts";
@@ -20,6 +20,7 @@ import java.io.DataInputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 /** Single threaded buffered InputStream
  *  Internal Solr use only, subject to change.
@@ -52,6 +53,14 @@ public class FastInputStream extends DataInputInputStream {
     return true;
   }
 
+  @Override
+  public ByteBuffer readDirectByteBuffer(int sz) {
+    if (in != null || end < pos + sz) return null;
+    ByteBuffer result = ByteBuffer.wrap(buf, pos, sz);
+    pos = pos + sz;
+    return result;
+  }
+
   public static FastInputStream wrap(InputStream in) {
     return (in instanceof FastInputStream) ? (FastInputStream)in : new FastInputStream(in);
   }
@@ -39,6 +39,7 @@ public class FastJavaBinDecoder implements DataEntry.FastDecoder {
   private StreamCodec codec;
   private EntryImpl rootEntry = new EntryImpl();
   private InputStream stream;
+  private JavaBinDictionary dictionary;
 
   private static final DataEntry.EntryListener emptylistener = e -> {
   };
@@ -50,10 +51,17 @@ public class FastJavaBinDecoder implements DataEntry.FastDecoder {
     return this;
   }
 
+  /** @see JavaBinCodec#setDictionary(JavaBinDictionary) */
+  public FastJavaBinDecoder withDictionary(JavaBinDictionary dictionary) {
+    this.dictionary = dictionary;
+    return this;
+  }
+
   @Override
   public Object decode(EntryListener listener) throws IOException {
     rootEntry.entryListener = listener == null ? emptylistener : listener;
     codec = new StreamCodec(stream);
+    codec.setDictionary(dictionary);
     codec.start();
     EntryImpl entry = codec.beginRead(rootEntry);
     listener.entry(entry);
@@ -114,7 +122,7 @@ public class FastJavaBinDecoder implements DataEntry.FastDecoder {
     public ByteBuffer readByteBuffer(DataInputInputStream dis, int sz) throws IOException {
       ByteBuffer result = dis.readDirectByteBuffer(sz);
       if(result != null) return result;
-      byte[] arr = new byte[readVInt(dis)];
+      byte[] arr = new byte[sz];
       dis.readFully(arr);
       return ByteBuffer.wrap(arr);
     }
@@ -103,6 +103,10 @@ public class JavaBinCodec implements PushWriter {
           ENUM_FIELD_VALUE = 18,
           MAP_ENTRY = 19,
           UUID = 20, // This is reserved to be used only in LogCodec
+          /**
+           * only valid right after the version: the stream uses the {@link JavaBinDictionary} whose id follows
+           */
+          DICTIONARY = 21,
           // types that combine tag + length (or other info) in a single byte
           TAG_AND_LEN = (byte) (1 << 5),
           STR = (byte) (1 << 5),
@@ -124,6 +128,10 @@ public class JavaBinCodec implements PushWriter {
   private boolean alreadyMarshalled;
   private boolean alreadyUnmarshalled;
   protected boolean readStringAsCharSeq = false;
+  protected boolean readByteArrayAsByteBuffer = false;
+  private JavaBinDictionary dictionary;
+  // the dictionary used by the stream being written or read, if any
+  private JavaBinDictionary streamDictionary;
 
   public JavaBinCodec() {
     resolver =null;
@@ -135,6 +143,24 @@ public class JavaBinCodec implements PushWriter {
     return this;
   }
 
+  /**
+   * If true, byte[] values are read as a {@link ByteBuffer} which, when the whole input is
+   * available in memory, is a slice of the input buffer rather than a copy.
+   */
+  public JavaBinCodec setReadByteArrayAsByteBuffer(boolean flag) {
+    readByteArrayAsByteBuffer = flag;
+    return this;
+  }
+
+  /**
+   * Strings in the dictionary are written as references into it, and streams written with the same dictionary
+   * can be read.  Reading a stream that was written with any other dictionary fails.
+   */
+  public JavaBinCodec setDictionary(JavaBinDictionary dictionary) {
+    this.dictionary = dictionary;
+    return this;
+  }
+
   /**
    * Use this to use this as a PushWriter. ensure that close() is called explicitly after use
    *
@@ -177,6 +203,17 @@ public class JavaBinCodec implements PushWriter {
     assert !alreadyMarshalled;
     init(FastOutputStream.wrap(os));
     daos.writeByte(VERSION);
+    if (dictionary != null) {
+      daos.writeByte(DICTIONARY);
+      daos.writeLong(dictionary.getId());
+      useDictionary(dictionary);
+    }
+  }
+
+  private void useDictionary(JavaBinDictionary dictionary) {
+    streamDictionary = dictionary;
+    // extern strings of the stream are numbered after the ones in the dictionary
+    stringsCount = dictionary.size();
   }
 
 
@@ -213,6 +250,15 @@ public class JavaBinCodec implements PushWriter {
       throw new RuntimeException("Invalid version (expected " + VERSION +
           ", but " + version + ") or the data in not in 'javabin' format");
     }
+    if (dis.peek() == DICTIONARY) {
+      dis.readByte();
+      long id = dis.readLong();
+      if (dictionary == null || dictionary.getId() != id) {
+        throw new RuntimeException("The data was written with javabin dictionary " + id +
+            (dictionary == null ? ", but no dictionary is available" : ", but the available dictionary is " + dictionary.getId()));
+      }
+      useDictionary(dictionary);
+    }
 
     alreadyUnmarshalled = true;
     return dis;
@@ -333,7 +379,7 @@ public class JavaBinCodec implements PushWriter {
       case SOLRDOCLST:
         return readSolrDocumentList(dis);
       case BYTEARR:
-        return readByteArray(dis);
+        return readByteArrayAsByteBuffer ? readByteBuffer(dis) : readByteArray(dis);
       case ITERATOR:
         return readIterator(dis);
       case END:
@@ -531,6 +577,15 @@ public class JavaBinCodec implements PushWriter {
     dis.readFully(arr);
     return arr;
   }
+
+  public ByteBuffer readByteBuffer(DataInputInputStream dis) throws IOException {
+    int sz = readVInt(dis);
+    ByteBuffer result = dis.readDirectByteBuffer(sz);
+    if (result != null) return result;
+    byte[] arr = new byte[sz];
+    dis.readFully(arr);
+    return ByteBuffer.wrap(arr);
+  }
   //use this to ignore the writable interface because , child docs will ignore the fl flag
   // is it a good design?
   private boolean ignoreWritable =false;
@@ -1189,7 +1244,8 @@ public class JavaBinCodec implements PushWriter {
       writeTag(NULL);
       return;
     }
-    Integer idx = stringsMap == null ? null : stringsMap.get(s);
+    Integer idx = streamDictionary == null ? null : streamDictionary.position(s);
+    if (idx == null && stringsMap != null) idx = stringsMap.get(s);
     if (idx == null) idx = 0;
     writeTag(EXTERN_STRING, idx);
     if (idx == 0) {
@@ -1203,6 +1259,12 @@ public class JavaBinCodec implements PushWriter {
   public CharSequence readExternString(DataInputInputStream fis) throws IOException {
     int idx = readSize(fis);
     if (idx != 0) {// idx != 0 is the index of the extern string
+      if (streamDictionary != null) {
+        if (idx <= streamDictionary.size()) {
+          return streamDictionary.get(idx - 1);
+        }
+        idx -= streamDictionary.size();
+      }
       return stringsList.get(idx - 1);
     } else {// idx == 0 means it has a string value
       tagByte = fis.readByte();
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.common.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * A list of strings that both ends of a javabin exchange know up front, typically the field names of a schema
+ * and the keys of common response and update request structures.  A {@link JavaBinCodec} with a dictionary
+ * writes these strings as references into the dictionary, rather than sending each of them once per stream.
+ * <p>
+ * A stream written with a dictionary starts with the {@link #getId() id} of the dictionary, and can only be read by
+ * a codec that has the same dictionary.  Dictionaries built by {@link #forFieldNames(Collection)} from the same
+ * field names have the same id, so a client can build the dictionary of a collection from its schema fields and
+ * send its id as the {@link #PARAM} request parameter.  The server only uses the dictionary for the response if the
+ * id matches the dictionary of its current schema, so a stale dictionary on the client means regular responses,
+ * not errors.
+ */
+public class JavaBinDictionary {
+
+  /** Request parameter with the id of the dictionary the client wants the javabin response to use */
+  public static final String PARAM = "javabin.dict";
+
+  /** Keys of the common response and update request structures, which are part of every field name dictionary */
+  static final List<String> COMMON_KEYS = List.of(
+      "responseHeader", "status", "QTime", "params", "response", "zkConnected", "partialResults",
+      "nextCursorMark", "facet_counts", "facet_queries", "facet_fields", "facet_ranges", "facet_intervals",
+      "facet_heatmaps", "facets", "count", "highlighting", "stats", "grouped", "expanded", "debug", "error",
+      "metadata", "msg", "code", "rf", "min_rf", "delByIdMap", "delByQ", "docsMap", "docs", "commitWithin");
+
+  private final List<String> strings;
+  private final Map<String, Integer> positions;
+  private final long id;
+
+  /**
+   * @param strings the strings of the dictionary, in the order both ends must agree on
+   */
+  public JavaBinDictionary(List<String> strings) {
+    this.strings = Collections.unmodifiableList(new ArrayList<>(strings));
+    this.positions = new HashMap<>(strings.size() * 2);
+    long hash = strings.size();
+    for (int i = 0; i < strings.size(); i++) {
+      String s = strings.get(i);
+      positions.putIfAbsent(s, i + 1);
+      hash = Hash.lookup3ycs64(s, 0, s.length(), hash);
+    }
+    this.id = hash;
+  }
+
+  /**
+   * Builds the dictionary of a schema with the given field names.  The order of the names does not matter.
+   */
+  public static JavaBinDictionary forFieldNames(Collection<String> fieldNames) {
+    List<String> strings = new ArrayList<>(COMMON_KEYS);
+    strings.addAll(new TreeSet<>(fieldNames));
+    return new JavaBinDictionary(strings);
+  }
+
+  /** Identifies the dictionary in a javabin stream; equal for dictionaries with the same strings */
+  public long getId() {
+    return id;
+  }
+
+  public int size() {
+    return strings.size();
+  }
+
+  /** Returns the string at the given 0 based index */
+  public String get(int idx) {
+    return strings.get(idx);
+  }
+
+  /** Returns the 1 based position of the string in the dictionary, or null if it is not in the dictionary */
+  Integer position(Object s) {
+    return positions.get(s);
+  }
+
+  public List<String> getStrings() {
+    return strings;
+  }
+
+  @Override
+  public String toString() {
+    return "JavaBinDictionary{id=" + id + ", size=" + strings.size() + "}";
+  }
+}
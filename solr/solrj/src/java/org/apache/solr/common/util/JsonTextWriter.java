@@ -18,6 +18,7 @@
 package org.apache.solr.common.util;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -66,8 +67,6 @@ public interface JsonTextWriter extends TextWriter {
   }
 
   default void writeStr(String name, String val, boolean needsEscaping) throws IOException {
-    // it might be more efficient to use a stringbuilder or write substrings
-    // if writing chars to the stream is slow.
     if (needsEscaping) {
 
 
@@ -79,12 +78,21 @@ public interface JsonTextWriter extends TextWriter {
      */
       _writeChar('"');
 
+      // runs of characters that don't need escaping are written as substrings
+      Writer writer = getWriter();
+      int runStart = 0;
       for (int i = 0; i < val.length(); i++) {
         char ch = val.charAt(i);
         if ((ch > '#' && ch != '\\' && ch < '\u2028') || ch == ' ') { // fast path
-          _writeChar(ch);
           continue;
         }
+        if (ch > 0x1F && ch != '"' && ch != '\\' && ch != '\u2028' && ch != '\u2029') {
+          continue;
+        }
+        if (i > runStart) {
+          writer.write(val, runStart, i - runStart);
+        }
+        runStart = i + 1;
         switch (ch) {
           case '"':
           case '\\':
@@ -111,20 +119,15 @@ public interface JsonTextWriter extends TextWriter {
             _writeChar('\\');
             _writeChar('f');
             break;
-          case '\u2028': // fallthrough
-          case '\u2029':
-            unicodeEscape(getWriter(), ch);
-            break;
           // case '/':
-          default: {
-            if (ch <= 0x1F) {
-              unicodeEscape(getWriter(), ch);
-            } else {
-              _writeChar(ch);
-            }
-          }
+          default:
+            // other control characters, and u2028 u2029 which are valid JSON but not valid json script
+            unicodeEscape(writer, ch);
         }
       }
+      if (runStart < val.length()) {
+        writer.write(val, runStart, val.length() - runStart);
+      }
 
       _writeChar('"');
     } else {
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.common.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.Objects;
+
+/**
+ * A {@link Reader} that decodes a UTF-8 {@link InputStream} straight into the buffer it reads into, copying
+ * runs of ASCII bytes in a tight loop. Unlike an {@link java.io.InputStreamReader} it doesn't lock, and has
+ * no intermediate char buffer, so a parser that fills its own buffer from it, like
+ * {@link org.noggit.JSONParser}, sees each byte once. The byte buffer can be given, to be reused.
+ * <p>
+ * Malformed input is replaced with U+FFFD, one per invalid sequence. This class is not thread safe.
+ */
+public class Utf8Reader extends Reader {
+  private static final char REPLACEMENT = '\uFFFD';
+  // the smallest code point of a sequence of 2, 3 and 4 bytes, smaller ones are overlong
+  private static final int[] MIN_CODE_POINT = {0, 0, 0x80, 0x800, 0x10000};
+
+  private final InputStream in;
+  private final byte[] buf;
+  private int pos;
+  private int end;
+  private boolean eof;
+  // the low surrogate of a supplementary character that didn't fit in the last read, 0 if none
+  private char pendingLowSurrogate;
+
+  public Utf8Reader(InputStream in) {
+    this(in, new byte[8192]);
+  }
+
+  /**
+   * @param buffer the buffer of the bytes read from the stream, at least 4 bytes long
+   */
+  public Utf8Reader(InputStream in, byte[] buffer) {
+    if (buffer.length < 4) {
+      throw new IllegalArgumentException("The buffer must hold at least 4 bytes");
+    }
+    this.in = in;
+    this.buf = buffer;
+  }
+
+  @Override
+  public int read(char[] cbuf, int off, int len) throws IOException {
+    Objects.checkFromIndexSize(off, len, cbuf.length);
+    if (len == 0) {
+      return 0;
+    }
+    int n = off;
+    final int limit = off + len;
+    if (pendingLowSurrogate != 0) {
+      cbuf[n++] = pendingLowSurrogate;
+      pendingLowSurrogate = 0;
+    }
+
+    while (n < limit) {
+      int p = pos;
+      final int asciiEnd = Math.min(end, p + (limit - n));
+      while (p < asciiEnd && buf[p] >= 0) {
+        cbuf[n++] = (char) buf[p++];
+      }
+      pos = p;
+      if (n == limit) {
+        break;
+      }
+      if (pos == end) {
+        // return what was decoded rather than block on the stream
+        if (n > off || !fill()) {
+          break;
+        }
+        continue;
+      }
+
+      final int b = buf[pos] & 0xff;
+      if (b < 0xc2 || b > 0xf4) {
+        // a continuation byte, or a lead byte of an overlong or out of range sequence
+        cbuf[n++] = REPLACEMENT;
+        pos++;
+        continue;
+      }
+      final int length = b < 0xe0 ? 2 : b < 0xf0 ? 3 : 4;
+      if (end - pos < length) {
+        if (!eof) {
+          if (n > off) {
+            break;
+          }
+          fill();
+          continue;
+        }
+        // truncated by the end of the stream
+        int i = 1;
+        while (pos + i < end && (buf[pos + i] & 0xc0) == 0x80) {
+          i++;
+        }
+        cbuf[n++] = REPLACEMENT;
+        pos += i;
+        continue;
+      }
+
+      int cp = b & (0xff >>> (length + 1));
+      int i = 1;
+      for (; i < length; i++) {
+        final int c = buf[pos + i];
+        if ((c & 0xc0) != 0x80) {
+          break;
+        }
+        cp = (cp << 6) | (c & 0x3f);
+      }
+      if (i < length) {
+        cbuf[n++] = REPLACEMENT;
+        pos += i;
+        continue;
+      }
+      pos += length;
+      if (cp < MIN_CODE_POINT[length] || cp > Character.MAX_CODE_POINT
+          || (cp >= Character.MIN_SURROGATE && cp <= Character.MAX_SURROGATE)) {
+        cbuf[n++] = REPLACEMENT;
+      } else if (cp < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+        cbuf[n++] = (char) cp;
+      } else {
+        cbuf[n++] = Character.highSurrogate(cp);
+        if (n < limit) {
+          cbuf[n++] = Character.lowSurrogate(cp);
+        } else {
+          pendingLowSurrogate = Character.lowSurrogate(cp);
+        }
+      }
+    }
+    return n == off ? -1 : n - off;
+  }
+
+  /**
+   * Moves the bytes not decoded yet to the start of the buffer and reads more after them.
+   * @return false if the end of the stream was reached
+   */
+  private boolean fill() throws IOException {
+    if (eof) {
+      return false;
+    }
+    if (pos > 0) {
+      System.arraycopy(buf, pos, buf, 0, end - pos);
+      end -= pos;
+      pos = 0;
+    }
+    final int read = in.read(buf, end, buf.length - end);
+    if (read < 0) {
+      eof = true;
+      return false;
+    }
+    end += read;
+    return true;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+}
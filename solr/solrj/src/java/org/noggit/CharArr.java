@@ -155,7 +155,7 @@ public class CharArr implements CharSequence, Appendable {
 
   public void write(String s, int stringOffset, int len) {
     reserve(len);
-    s.getChars(stringOffset, len, buf, end);
+    s.getChars(stringOffset, stringOffset + len, buf, end);
     end += len;
   }
 
@@ -84,16 +84,23 @@ public class JSONUtil {
   }
 
   public static void writeStringPart(char[] val, int start, int end, CharArr out) {
+    // copy runs of characters that don't need escaping in bulk
+    int runStart = start;
     for (int i = start; i < end; i++) {
       char ch = val[i];
-      // When ch>=1f, (ch*146087937)&0xd6a01f80) is 0 only for characters that need escaping: " \\ u2028 u2029
-      // and has 7 false positives: 204a 4051 802f c022 c044 e04a e04b
-      if (ch > 0x1f && ((ch * 146087937) & 0xd6a01f80) != 0) {
-        out.write(ch);
-      } else {
+      if (needsEscaping(ch)) {
+        out.write(val, runStart, i - runStart);
         writeChar(ch, out);
+        runStart = i + 1;
       }
     }
+    out.write(val, runStart, end - runStart);
+  }
+
+  // When ch>=1f, (ch*146087937)&0xd6a01f80) is 0 only for characters that need escaping: " \\ u2028 u2029
+  // and has 7 false positives: 204a 4051 802f c022 c044 e04a e04b, which writeChar writes as is.
+  private static boolean needsEscaping(char ch) {
+    return ch <= 0x1f || ((ch * 146087937) & 0xd6a01f80) == 0;
   }
 
   public static void writeChar(char ch, CharArr out) {
@@ -139,45 +146,31 @@ public class JSONUtil {
 
 
   public static void writeStringPart(String chars, int start, int end, CharArr out) {
-    // TODO: write in chunks?
-
-    int toWrite = end - start;
-    char[] arr = out.getArray();
-    int pos = out.getEnd();
-    int space = arr.length - pos;
-    if (space < toWrite) {
-      writeStringPart((CharSequence) chars, start, end, out);
-      return;
-    }
-
-    // get chars directly from String into output array
-    chars.getChars(start, end, arr, pos);
-
-    int endInOut = pos + toWrite;
-    out.setEnd(endInOut);
-    for (int i = pos; i < endInOut; i++) {
-      char ch = arr[i];
-
-      // When ch>=1f, (ch*146087937)&0xd6a01f80) is 0 only for characters that need escaping: " \\ u2028 u2029
-      // and has 7 false positives: 204a 4051 802f c022 c044 e04a e04b
-      if (ch <= 0x1f || ((ch * 146087937) & 0xd6a01f80) == 0) {
-        // We hit a char that needs escaping. do the rest char by char.
-        out.setEnd(i);
-        writeStringPart((CharSequence) chars, start + (i - pos), end, out);
-        return;
+    // copy runs of characters that don't need escaping in bulk, going straight from the String into the output array
+    out.reserve(end - start);
+    int runStart = start;
+    for (int i = start; i < end; i++) {
+      char ch = chars.charAt(i);
+      if (needsEscaping(ch)) {
+        out.write(chars, runStart, i - runStart);
+        writeChar(ch, out);
+        runStart = i + 1;
       }
     }
+    out.write(chars, runStart, end - runStart);
   }
 
   public static void writeStringPart(CharSequence chars, int start, int end, CharArr out) {
+    if (chars instanceof String) {
+      writeStringPart((String) chars, start, end, out);
+      return;
+    }
     for (int i = start; i < end; i++) {
       char ch = chars.charAt(i);
-      // When ch>=1f, (ch*146087937)&0xd6a01f80) is 0 only for characters that need escaping: " \\ u2028 u2029
-      // and has 7 false positives: 204a 4051 802f c022 c044 e04a e04b
-      if (ch > 0x1f && ((ch * 146087937) & 0xd6a01f80) != 0) {
-        out.write(ch);
-      } else {
+      if (needsEscaping(ch)) {
         writeChar(ch, out);
+      } else {
+        out.write(ch);
       }
     }
   }
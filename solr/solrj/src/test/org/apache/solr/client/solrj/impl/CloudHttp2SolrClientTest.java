@@ -31,6 +31,9 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import com.google.common.collect.Lists;
@@ -166,6 +169,34 @@ public class CloudHttp2SolrClientTest extends SolrCloudTestCase {
     assertTrue(response.getQTime() >= 0);
   }
 
+  @Test
+  public void testRequestAsync() throws Exception {
+    CollectionAdminRequest.createCollection(COLLECTION, "conf", 2, 1).process(cluster.getSolrClient());
+    cluster.waitForActiveCollection(COLLECTION, 2, 2);
+    CloudHttp2SolrClient client = getRandomClient();
+
+    UpdateRequest update = new UpdateRequest();
+    for (int i = 0; i < 10; i++) {
+      update.add(id, String.valueOf(i), "a_t", "hello");
+    }
+    update.setAction(AbstractUpdateRequest.ACTION.COMMIT, true, true);
+    client.requestAsync(update, COLLECTION).get(TIMEOUT, TimeUnit.SECONDS);
+
+    List<CompletableFuture<NamedList<Object>>> futures = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      futures.add(client.requestAsync(new QueryRequest(params("q", "a_t:hello")), COLLECTION));
+    }
+    for (CompletableFuture<NamedList<Object>> future : futures) {
+      SolrDocumentList docs = (SolrDocumentList) future.get(TIMEOUT, TimeUnit.SECONDS).get("response");
+      assertEquals(10, docs.getNumFound());
+    }
+
+    ExecutionException e = expectThrows(ExecutionException.class,
+        () -> client.requestAsync(new QueryRequest(params("q", "*:*")), "boguscollectionname").get(TIMEOUT, TimeUnit.SECONDS));
+    assertTrue(e.getCause() instanceof SolrException);
+    assertEquals("Collection not found: boguscollectionname", e.getCause().getMessage());
+  }
+
   @Test
   public void testOverwriteOption() throws Exception {
 
@@ -29,6 +29,9 @@ import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.MapSolrParams;
+import org.apache.solr.common.util.ExecutorUtil;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SolrNamedThreadFactory;
 import org.apache.solr.common.util.SuppressForbidden;
 import org.eclipse.jetty.client.WWWAuthenticationProtocolHandler;
 import org.eclipse.jetty.http.HttpStatus;
@@ -51,6 +54,13 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -752,6 +762,68 @@ public class Http2SolrClientTest extends SolrJettyTestBase {
     }
   }
 
+  /** An executor that can reject the tasks parsing the responses of the async requests of {@link Http2SolrClient} */
+  private static class RejectingExecutor extends ExecutorUtil.MDCAwareThreadPoolExecutor {
+    volatile boolean rejectResponses;
+
+    RejectingExecutor() {
+      super(32, 32, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new SolrNamedThreadFactory("rejecting"));
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      // the other tasks are run by Jetty
+      if (rejectResponses && command.getClass().getName().startsWith(Http2SolrClient.class.getName() + "$")
+          && command.getClass().getName().contains("$$Lambda")) {
+        throw new RejectedExecutionException("rejected by the test");
+      }
+      super.execute(command);
+    }
+  }
+
+  @Test
+  public void testRequestAsyncRejected() throws Exception {
+    RejectingExecutor executor = new RejectingExecutor();
+    try (Http2SolrClient client = new Http2SolrClient.Builder(jetty.getBaseUrl().toString() + "/collection1")
+        .withExecutor(executor)
+        .maxOutstandingAsyncRequests(1)
+        .build()) {
+      executor.rejectResponses = true;
+      ExecutionException e = expectThrows(ExecutionException.class,
+          () -> client.requestAsync(new QueryRequest(params("q", "*:*"))).get(30, TimeUnit.SECONDS));
+      assertTrue(e.getCause() instanceof SolrServerException);
+      assertTrue(e.getCause().getCause() instanceof RejectedExecutionException);
+
+      // the rejected request released its permit
+      executor.rejectResponses = false;
+      Future<NamedList<Object>> next = executor.submit(
+          () -> client.requestAsync(new QueryRequest(params("q", "*:*"))).get(30, TimeUnit.SECONDS));
+      assertNotNull(next.get(30, TimeUnit.SECONDS).get("response"));
+    } finally {
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+    }
+  }
+
+  @Test
+  public void testRequestAsyncCancelled() throws Exception {
+    RejectingExecutor executor = new RejectingExecutor();
+    try (Http2SolrClient client = new Http2SolrClient.Builder(jetty.getBaseUrl().toString())
+        .withExecutor(executor)
+        .maxOutstandingAsyncRequests(1)
+        .build()) {
+      CompletableFuture<NamedList<Object>> slow = client.requestAsync(new QueryRequest(params("q", "*:*")), "slow");
+      assertTrue(slow.cancel(true));
+      expectThrows(CancellationException.class, () -> slow.get(30, TimeUnit.SECONDS));
+
+      // the cancelled request was aborted, which released its permit
+      Future<NamedList<Object>> next = executor.submit(
+          () -> client.requestAsync(new QueryRequest(params("q", "*:*")), "collection1").get(30, TimeUnit.SECONDS));
+      assertNotNull(next.get(30, TimeUnit.SECONDS).get("response"));
+    } finally {
+      ExecutorUtil.shutdownAndAwaitTermination(executor);
+    }
+  }
+
   /**
    * Missed tests :
    * - set cookies via interceptor
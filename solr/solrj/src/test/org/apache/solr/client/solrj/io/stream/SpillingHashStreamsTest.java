@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.client.solrj.io.stream;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.comp.StreamComparator;
+import org.apache.solr.client.solrj.io.stream.expr.Explanation;
+import org.apache.solr.client.solrj.io.stream.expr.StreamExplanation;
+import org.apache.solr.client.solrj.io.stream.expr.StreamFactory;
+import org.apache.solr.client.solrj.io.stream.metrics.Bucket;
+import org.apache.solr.client.solrj.io.stream.metrics.CountMetric;
+import org.apache.solr.client.solrj.io.stream.metrics.Metric;
+import org.apache.solr.client.solrj.io.stream.metrics.SumMetric;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SpillingHashStreamsTest extends SolrTestCase {
+
+  private Path spillDir;
+
+  @Before
+  public void setSpillDir() {
+    spillDir = createTempDir();
+    System.setProperty(TupleSpillFile.SPILL_DIR_PROP, spillDir.toString());
+  }
+
+  @After
+  public void clearSpillDir() {
+    System.clearProperty(TupleSpillFile.SPILL_DIR_PROP);
+  }
+
+  private static class TupleListStream extends TupleStream {
+    private final List<Tuple> tuples;
+    private int next;
+
+    TupleListStream(List<Tuple> tuples) {
+      this.tuples = tuples;
+    }
+
+    @Override
+    public void setStreamContext(StreamContext context) {
+    }
+
+    @Override
+    public List<TupleStream> children() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public void open() {
+      next = 0;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public Tuple read() {
+      return next < tuples.size() ? tuples.get(next++) : Tuple.EOF();
+    }
+
+    @Override
+    public StreamComparator getStreamSort() {
+      return null;
+    }
+
+    @Override
+    public Explanation toExplanation(StreamFactory factory) {
+      return new StreamExplanation(getStreamNodeId().toString());
+    }
+  }
+
+  private static List<Tuple> randomTuples(String keyField, int numTuples, int numKeys) {
+    List<Tuple> tuples = new ArrayList<>(numTuples);
+    for (int i = 0; i < numTuples; i++) {
+      Tuple tuple = new Tuple();
+      // some tuples have no key
+      if (random().nextInt(20) != 0) {
+        tuple.put(keyField, "key" + random().nextInt(numKeys));
+      }
+      tuple.put(keyField + "_value", (long) i);
+      tuples.add(tuple);
+    }
+    return tuples;
+  }
+
+  private static List<String> readAll(TupleStream stream, Tuple[] eof) throws IOException {
+    List<String> tuples = new ArrayList<>();
+    stream.open();
+    try {
+      Tuple tuple;
+      while (!(tuple = stream.read()).EOF) {
+        tuples.add(new TreeMap<>(tuple.getFields()).toString());
+      }
+      eof[0] = tuple;
+    } finally {
+      stream.close();
+    }
+    Collections.sort(tuples);
+    return tuples;
+  }
+
+  private void assertNoSpillFiles() throws IOException {
+    try (Stream<Path> files = Files.list(spillDir)) {
+      assertEquals(0, files.count());
+    }
+  }
+
+  @Test
+  public void testHashJoin() throws Exception {
+    List<Tuple> full = randomTuples("a", 2000, 300);
+    List<Tuple> hashed = randomTuples("b", 1000, 200);
+    List<String> on = Collections.singletonList("a=b");
+    for (boolean outer : new boolean[] {false, true}) {
+      HashJoinStream inMemory = outer ? new OuterHashJoinStream(new TupleListStream(full), new TupleListStream(hashed), on)
+          : new HashJoinStream(new TupleListStream(full), new TupleListStream(hashed), on);
+      Tuple[] eof = new Tuple[1];
+      List<String> expected = readAll(inMemory, eof);
+      assertNull(eof[0].get(TupleSpillFile.SPILLED_PARTITIONS));
+
+      HashJoinStream spilling = outer ? new OuterHashJoinStream(new TupleListStream(full), new TupleListStream(hashed), on)
+          : new HashJoinStream(new TupleListStream(full), new TupleListStream(hashed), on);
+      spilling.setMaxRamMB(0.01);
+      spilling.setSpillPartitions(2);
+      assertEquals(expected, readAll(spilling, eof));
+      assertTrue(spilling.getSpilledPartitions() > 2);
+      assertEquals(spilling.getSpilledPartitions(), eof[0].get(TupleSpillFile.SPILLED_PARTITIONS));
+      assertTrue(spilling.getSpilledTuples() >= full.size());
+      assertTrue(spilling.getSpilledBytes() > 0);
+      assertNull(spilling.getStreamSort());
+      assertNoSpillFiles();
+    }
+  }
+
+  @Test
+  public void testHashJoinClosedEarly() throws Exception {
+    HashJoinStream stream = new HashJoinStream(new TupleListStream(randomTuples("a", 100, 10)),
+        new TupleListStream(randomTuples("a", 100, 10)), Collections.singletonList("a"));
+    stream.setMaxRamMB(0);
+    stream.open();
+    stream.read();
+    stream.close();
+    assertNoSpillFiles();
+  }
+
+  @Test
+  public void testHashRollup() throws Exception {
+    List<Tuple> tuples = randomTuples("a", 5000, 1000);
+    Bucket[] buckets = {new Bucket("a")};
+    Metric[] metrics = {new SumMetric("a_value"), new CountMetric()};
+    Tuple[] eof = new Tuple[1];
+    List<String> expected = readAll(new HashRollupStream(new TupleListStream(tuples), buckets, metrics), eof);
+    assertNull(eof[0].get(TupleSpillFile.SPILLED_PARTITIONS));
+
+    HashRollupStream spilling = new HashRollupStream(new TupleListStream(tuples), buckets, metrics);
+    spilling.setMaxRamMB(0.005);
+    spilling.setSpillPartitions(4);
+    assertEquals(expected, readAll(spilling, eof));
+    assertTrue(spilling.getSpilledPartitions() > 0);
+    assertEquals(spilling.getSpilledTuples(), eof[0].get(TupleSpillFile.SPILLED_TUPLES));
+    assertTrue(spilling.getSpilledBytes() > 0);
+    assertNoSpillFiles();
+  }
+}
@@ -34,6 +34,7 @@ import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.embedded.JettySolrRunner;
 import org.apache.solr.client.solrj.io.SolrClientCache;
 import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.TupleBatch;
 import org.apache.solr.client.solrj.io.comp.ComparatorOrder;
 import org.apache.solr.client.solrj.io.comp.FieldComparator;
 import org.apache.solr.client.solrj.io.comp.MultipleFieldComparator;
@@ -1887,6 +1888,80 @@ public void testParallelRankStream() throws Exception {
     }
   }
 
+  @Test
+  public void testRollupBatches() throws Exception {
+
+    UpdateRequest update = new UpdateRequest();
+    for (int i = 0; i < 2500; i++) {
+      update.add(id, Integer.toString(i), "a_s", "hello" + (i % 3), "a_i", Integer.toString(i), "a_f", Float.toString(i + 0.5f));
+    }
+    update.commit(cluster.getSolrClient(), COLLECTIONORALIAS);
+
+    StreamContext streamContext = new StreamContext();
+    SolrClientCache solrClientCache = new SolrClientCache();
+    streamContext.setSolrClientCache(solrClientCache);
+
+    try {
+      // /export only reads the shard of the core it is sent to
+      String shardUrl = TupleStream.getShards(cluster.getZkServer().getZkAddress(), COLLECTIONORALIAS, streamContext).get(0);
+      SolrParams sParams = params("q", "*:*", "fl", "id,a_s,a_i,a_f", "sort", "a_s asc,a_i asc", "qt", "/export", "wt", "javabin");
+
+      // the javabin documents are decoded into the columns of the batch, read() only returns the EOF tuple
+      int[] reads = new int[1];
+      SolrStream solrStream = new SolrStream(shardUrl, sParams) {
+        @Override
+        public Tuple read() throws IOException {
+          reads[0]++;
+          return super.read();
+        }
+      };
+      solrStream.setStreamContext(streamContext);
+      solrStream.open();
+      TupleBatch batch = solrStream.readBatch(10);
+      assertEquals(10, batch.size());
+      assertEquals(TupleBatch.Column.Type.LONG, batch.getColumn("a_i").getType());
+      assertEquals(TupleBatch.Column.Type.DOUBLE, batch.getColumn("a_f").getType());
+      assertEquals("hello0", batch.getTuple(0).getString("a_s"));
+      assertEquals(0, reads[0]);
+      solrStream.close();
+
+      Bucket[] buckets = {new Bucket("s")};
+      Metric[] metrics = {new SumMetric("i"),
+          new SumMetric("a_f"),
+          new MinMetric("i"),
+          new MaxMetric("a_f"),
+          new MeanMetric("i"),
+          new CountMetric()};
+
+      // solr stream -> select -> rollup, read in batches
+      reads[0] = 0;
+      Map<String, String> selected = Map.of("a_s", "s", "a_i", "i", "a_f", "a_f");
+      RollupStream rollupStream = new RollupStream(new SelectStream(solrStream, selected), buckets, metrics);
+      rollupStream.setStreamContext(streamContext);
+      List<Tuple> tuples = getTuples(rollupStream);
+      assertEquals(1, reads[0]);
+
+      // the same rollup, the traced solr stream being read tuple by tuple
+      reads[0] = 0;
+      solrStream.setTrace(true);
+      rollupStream = new RollupStream(new SelectStream(solrStream, selected), buckets, metrics);
+      rollupStream.setStreamContext(streamContext);
+      List<Tuple> expected = getTuples(rollupStream);
+      assertTrue(reads[0] > 1);
+
+      assertFalse(expected.isEmpty());
+      assertEquals(expected.size(), tuples.size());
+      long count = 0;
+      for (int i = 0; i < expected.size(); i++) {
+        assertEquals(expected.get(i).getFields(), tuples.get(i).getFields());
+        count += tuples.get(i).getLong("count(*)");
+      }
+      assertEquals(reads[0] - 1, count);
+    } finally {
+      solrClientCache.close();
+    }
+  }
+
   @Test
   public void testParallelRollupStream() throws Exception {
 
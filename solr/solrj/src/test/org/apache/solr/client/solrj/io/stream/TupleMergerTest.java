@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.client.solrj.io.stream;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.solr.SolrTestCase;
+import org.apache.solr.client.solrj.io.Tuple;
+import org.apache.solr.client.solrj.io.comp.ComparatorOrder;
+import org.apache.solr.client.solrj.io.comp.FieldComparator;
+import org.apache.solr.client.solrj.io.comp.MultipleFieldComparator;
+import org.apache.solr.client.solrj.io.comp.StreamComparator;
+import org.junit.Test;
+
+public class TupleMergerTest extends SolrTestCase {
+
+  private static class ListSource implements TupleMerger.Source {
+    private final Iterator<Tuple> it;
+    private Tuple tuple;
+
+    ListSource(List<Tuple> tuples) {
+      this.it = tuples.iterator();
+      this.tuple = it.next();
+    }
+
+    @Override
+    public Tuple getTuple() {
+      return tuple;
+    }
+
+    @Override
+    public boolean next() {
+      tuple = it.hasNext() ? it.next() : null;
+      return tuple != null;
+    }
+  }
+
+  @Test
+  public void testMergeSameAsSort() throws Exception {
+    StreamComparator fieldsComp = new MultipleFieldComparator(
+        new FieldComparator("a_i", ComparatorOrder.DESCENDING),
+        new FieldComparator("b_d", ComparatorOrder.ASCENDING),
+        new FieldComparator("c_s", ComparatorOrder.DESCENDING));
+    // the same order, but not made of field comparators only so the merger compares tuples
+    StreamComparator genericComp = new MultipleFieldComparator(fieldsComp);
+
+    for (StreamComparator comp : new StreamComparator[] {fieldsComp, genericComp}) {
+      int numSources = 1 + random().nextInt(40);
+      List<Tuple> all = new ArrayList<>();
+      List<TupleMerger.Source> sources = new ArrayList<>();
+      for (int s = 0; s < numSources; s++) {
+        List<Tuple> tuples = new ArrayList<>();
+        int numTuples = 1 + random().nextInt(50);
+        for (int i = 0; i < numTuples; i++) {
+          Tuple tuple = new Tuple();
+          tuple.put("id", s + "-" + i);
+          if (random().nextInt(10) != 0) {
+            tuple.put("a_i", (long) random().nextInt(5));
+          }
+          if (random().nextInt(10) != 0) {
+            tuple.put("b_d", (double) random().nextInt(5));
+          }
+          tuple.put("c_s", "s" + random().nextInt(5));
+          tuples.add(tuple);
+        }
+        tuples.sort(fieldsComp::compare);
+        all.addAll(tuples);
+        sources.add(new ListSource(tuples));
+      }
+      all.sort(fieldsComp::compare);
+
+      TupleMerger merger = new TupleMerger(comp, sources);
+      Tuple prev = null;
+      for (int i = 0; i < all.size(); i++) {
+        Tuple tuple = merger.next();
+        assertNotNull(tuple);
+        assertEquals(0, fieldsComp.compare(all.get(i), tuple));
+        if (prev != null) {
+          assertTrue(fieldsComp.compare(prev, tuple) <= 0);
+        }
+        prev = tuple;
+      }
+      assertNull(merger.next());
+      assertNull(merger.next());
+    }
+  }
+
+  @Test
+  public void testNoSources() throws Exception {
+    TupleMerger merger = new TupleMerger(new FieldComparator("a_i", ComparatorOrder.ASCENDING), new ArrayList<>());
+    assertNull(merger.next());
+  }
+}
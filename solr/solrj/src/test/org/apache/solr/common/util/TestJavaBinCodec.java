@@ -428,6 +428,50 @@ public class TestJavaBinCodec extends SolrTestCaseJ4 {
 
   }
 
+  @Test
+  public void testDictionary() throws Exception {
+    JavaBinDictionary dictionary = JavaBinDictionary.forFieldNames(List.of("id", "name", "price"));
+    assertEquals(dictionary.getId(), JavaBinDictionary.forFieldNames(List.of("price", "name", "id")).getId());
+    assertNotEquals(dictionary.getId(), JavaBinDictionary.forFieldNames(List.of("id", "name")).getId());
+
+    SolrDocumentList docs = new SolrDocumentList();
+    for (int i = 0; i < 3; i++) {
+      SolrDocument doc = new SolrDocument();
+      doc.addField("id", String.valueOf(i));
+      doc.addField("name", "name" + i);
+      doc.addField("not_in_dictionary", i);
+      docs.add(doc);
+    }
+    NamedList<Object> response = new NamedList<>();
+    response.add("responseHeader", new SimpleOrderedMap<>());
+    response.add("response", docs);
+
+    byte[] plain = getBytes(response);
+    byte[] withDictionary;
+    try (JavaBinCodec javabin = new JavaBinCodec(); ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+      javabin.setDictionary(dictionary).marshal(response, baos);
+      withDictionary = baos.toByteArray();
+    }
+    assertTrue(withDictionary.length < plain.length);
+
+    try (JavaBinCodec javabin = new JavaBinCodec()) {
+      NamedList<?> read = (NamedList<?>) javabin.setDictionary(dictionary).unmarshal(withDictionary);
+      assertEquals(response.toString(), read.toString());
+    }
+    // streams without a dictionary can still be read
+    try (JavaBinCodec javabin = new JavaBinCodec()) {
+      NamedList<?> read = (NamedList<?>) javabin.setDictionary(dictionary).unmarshal(plain);
+      assertEquals(response.toString(), read.toString());
+    }
+    try (JavaBinCodec javabin = new JavaBinCodec()) {
+      expectThrows(RuntimeException.class, () -> javabin.unmarshal(withDictionary));
+    }
+    try (JavaBinCodec javabin = new JavaBinCodec()) {
+      javabin.setDictionary(JavaBinDictionary.forFieldNames(List.of("id")));
+      expectThrows(RuntimeException.class, () -> javabin.unmarshal(withDictionary));
+    }
+  }
+
   public void genBinaryFiles() throws IOException {
 
     Object data = generateAllDataTypes();
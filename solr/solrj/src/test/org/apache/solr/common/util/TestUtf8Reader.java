@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.solr.common.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.lucene.util.TestUtil;
+import org.apache.solr.SolrTestCase;
+import org.junit.Test;
+
+public class TestUtf8Reader extends SolrTestCase {
+
+  private static String read(byte[] bytes, int bufferSize, int maxChunk) throws IOException {
+    // a stream returning a few bytes at a time, so that sequences are split between reads
+    InputStream in = new ByteArrayInputStream(bytes) {
+      @Override
+      public synchronized int read(byte[] b, int off, int len) {
+        return super.read(b, off, Math.min(len, 1 + random().nextInt(maxChunk)));
+      }
+    };
+    StringBuilder sb = new StringBuilder();
+    try (Utf8Reader reader = new Utf8Reader(in, new byte[bufferSize])) {
+      char[] cbuf = new char[1 + random().nextInt(16)];
+      for (int n = reader.read(cbuf, 0, cbuf.length); n != -1; n = reader.read(cbuf, 0, cbuf.length)) {
+        sb.append(cbuf, 0, n);
+      }
+    }
+    return sb.toString();
+  }
+
+  @Test
+  public void testValidInput() throws IOException {
+    for (int i = 0; i < 200; i++) {
+      String s = random().nextBoolean() ? TestUtil.randomRealisticUnicodeString(random(), 0, 200)
+          : TestUtil.randomUnicodeString(random(), 200);
+      byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+      assertEquals(s, read(bytes, 4 + random().nextInt(16), 1 + random().nextInt(8)));
+      assertEquals(s, read(bytes, 8192, 8192));
+    }
+  }
+
+  @Test
+  public void testMalformedInput() throws IOException {
+    assertMalformed("a\uFFFDb", 'a', 0x80, 'b');
+    assertMalformed("\uFFFDx", 0xE2, 'x');
+    assertMalformed("\uFFFDx", 0xE2, 0x82, 'x');
+    assertMalformed("a\uFFFD", 'a', 0xE2, 0x82);
+    // a surrogate, an overlong sequence and a code point out of range
+    assertMalformed("\uFFFD", 0xED, 0xA0, 0x80);
+    assertMalformed("\uFFFD\uFFFD", 0xC0, 0xAF);
+    assertMalformed("\uFFFD", 0xF4, 0x90, 0x80, 0x80);
+    assertMalformed("\uFFFD\uFFFD\uFFFD\uFFFDz", 0xF8, 0x88, 0x80, 0x80, 'z');
+  }
+
+  private static void assertMalformed(String expected, int... input) throws IOException {
+    byte[] bytes = new byte[input.length];
+    for (int i = 0; i < input.length; i++) {
+      bytes[i] = (byte) input[i];
+    }
+    assertEquals(expected, read(bytes, 4, 1));
+    assertEquals(expected, read(bytes, 8192, 8192));
+  }
+}
@@ -91,4 +91,25 @@ public class TestJSONWriter extends SolrTestCaseJ4 {
     test("['a,\\\"b\\\",c']", L(new Unknown()), -1);
   }
 
+  @Test
+  public void testStringEscaping() throws Exception {
+    // escapes at the start, in the middle, back to back and at the end of a string
+    test("['\\'a\\\\b\\n\\tc\\u0001\\u2028']", L("\"a\\b\n\tc\u0001\u2028"), -1);
+    // chars that pass the escaping check as false positives
+    test("['\u204a\uc022 plain']", L("\u204a\uc022 plain"), -1);
+
+    String val = "xx\"abc\\def\"yy";
+    CharArr out = new CharArr(4);
+    JSONUtil.writeString(val, 2, val.length() - 2, out);
+    assertEquals("\"\\\"abc\\\\def\\\"\"", out.toString());
+
+    out.reset();
+    JSONUtil.writeString(val.toCharArray(), 2, val.length() - 2, out);
+    assertEquals("\"\\\"abc\\\\def\\\"\"", out.toString());
+
+    out.reset();
+    out.write(val, 6, 3);
+    assertEquals("\\de", out.toString());
+  }
+
 }
@@ -211,6 +211,7 @@ public class TestHarness extends BaseTestHarness {
 
     return new NodeConfig.NodeConfigBuilder("testNode", solrHome)
         .setUseSchemaCache(Boolean.getBoolean("shareSchema"))
+        .setIndexSearcherExecutorThreads(Integer.getInteger("solr.tests.indexSearcherExecutorThreads", 0))
         .setCloudConfig(cloudConfig)
         .setUpdateShardHandlerConfig(updateShardHandlerConfig)
         .setMetricsConfig(metricsConfig)